@@ -2,20 +2,32 @@ package org.easy.excel;
 
 
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections4.MapUtils;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.config.ExportSheet;
 import org.easy.excel.config.FieldValue;
+import org.easy.excel.config.ImportOptions;
 import org.easy.excel.exception.ExcelException;
 import org.easy.excel.parsing.ExcelExport;
 import org.easy.excel.parsing.ExcelHeader;
 import org.easy.excel.parsing.ExcelImport;
+import org.easy.excel.parsing.ExcelImportIterator;
+import org.easy.excel.parsing.ExcelPageFetcher;
+import org.easy.excel.parsing.ExcelRowHandler;
+import org.easy.excel.result.ExcelColumnarResult;
 import org.easy.excel.result.ExcelExportResult;
+import org.easy.excel.result.ExcelShardExport;
 import org.easy.excel.result.ExcelImportResult;
 import org.easy.excel.xml.XMLExcelDefinitionReader;
 import org.springframework.beans.BeanUtils;
@@ -121,7 +133,21 @@ public class ExcelContext implements ApplicationContextAware{
 	 * @return Workbook
 	 */
 	public Workbook createExcel(String id, List<?> beans,ExcelHeader header,List<String> fields,Workbook workbook) {
-		ExcelExportResult result = excelExport.createExcel(id, beans,header,fields,workbook);
+		return this.createExcel(id, beans, header, fields, workbook, null);
+	}
+	
+	/**
+	 * 创建Excel
+	 * @param id 配置ID
+	 * @param beans 配置class对应的List
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param workbook 指定excel模板,可以为null
+	 * @param options 导出选项,可以覆盖配置中的rowAccessWindowSize,flushRows,compressTempFiles,tempFileDir,compressionLevel,可以为null
+	 * @return Workbook
+	 */
+	public Workbook createExcel(String id, List<?> beans,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
+		ExcelExportResult result = excelExport.createExcel(id, beans,header,fields,workbook,options);
 		if(result!=null){
 			return result.build();
 		}
@@ -140,6 +166,240 @@ public class ExcelContext implements ApplicationContextAware{
 		return this.createExcel(id, beans, header, fields, null);
 	}
 	
+	/**
+	 * 创建Excel,逐个读取迭代器中的数据写入Excel,不需要持有全部数据
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Iterator<?> beans) {
+		return this.createExcel(id, beans, null, null);
+	}
+	
+	/**
+	 * 创建Excel,逐个读取迭代器中的数据写入Excel,不需要持有全部数据
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Iterator<?> beans,ExcelHeader header,List<String> fields) {
+		return this.createExcel(id, beans, header, fields, (ExportOptions) null);
+	}
+	
+	/**
+	 * 创建Excel,逐个读取迭代器中的数据写入Excel,不需要持有全部数据
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param options 导出选项,可以覆盖配置中的rowAccessWindowSize,flushRows,compressTempFiles,tempFileDir,compressionLevel,可以为null
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Iterator<?> beans,ExcelHeader header,List<String> fields,ExportOptions options) {
+		ExcelExportResult result = excelExport.createExcel(id, beans,header,fields,null,options);
+		if(result!=null){
+			return result.build();
+		}
+		return null;
+	}
+	
+	/**
+	 * 创建Excel,逐个读取数据写入Excel
+	 * @param id 配置ID
+	 * @param beans 配置class对应的Iterable
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Iterable<?> beans) {
+		return this.createExcel(id, beans.iterator(), null, null);
+	}
+	
+	/**
+	 * 创建Excel,逐个读取数据写入Excel
+	 * @param id 配置ID
+	 * @param beans 配置class对应的Iterable
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Iterable<?> beans,ExcelHeader header,List<String> fields) {
+		return this.createExcel(id, beans.iterator(), header, fields);
+	}
+	
+	/**
+	 * 创建Excel,逐个读取Stream中的数据写入Excel,不需要持有全部数据,Stream由调用者关闭
+	 * @param id 配置ID
+	 * @param beans 配置class对应的Stream
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Stream<?> beans) {
+		return this.createExcel(id, beans.iterator(), null, null);
+	}
+	
+	/**
+	 * 创建Excel,逐个读取Stream中的数据写入Excel,不需要持有全部数据,Stream由调用者关闭
+	 * @param id 配置ID
+	 * @param beans 配置class对应的Stream
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, Stream<?> beans,ExcelHeader header,List<String> fields) {
+		return this.createExcel(id, beans.iterator(), header, fields);
+	}
+	
+	/**
+	 * 创建Excel,分页获取数据写入Excel,直到获取的数据为空,只持有当前页的数据
+	 * @param id 配置ID
+	 * @param fetcher 分页获取配置class对应的数据,页码从1开始
+	 * @return Workbook,如果第一页没有数据返回null
+	 */
+	public Workbook createExcel(String id, ExcelPageFetcher<?> fetcher) {
+		return this.createExcel(id, fetcher, null, null);
+	}
+	
+	/**
+	 * 创建Excel,分页获取数据写入Excel,直到获取的数据为空,只持有当前页的数据
+	 * @param id 配置ID
+	 * @param fetcher 分页获取配置class对应的数据,页码从1开始
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @return Workbook,如果第一页没有数据返回null
+	 */
+	public Workbook createExcel(String id, ExcelPageFetcher<?> fetcher,ExcelHeader header,List<String> fields) {
+		return this.createExcel(id, fetcher, header, fields, new ExportOptions());
+	}
+	
+	/**
+	 * 创建Excel,分页获取数据写入Excel,直到获取的数据为空,
+	 * options.prefetchPages大于0时由后台线程预先获取后续的页,获取下一页的同时写入当前页,获取数据的异常在当前线程抛出
+	 * @param id 配置ID
+	 * @param fetcher 分页获取配置class对应的数据,页码从1开始
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param options 导出选项
+	 * @return Workbook,如果第一页没有数据返回null
+	 */
+	public Workbook createExcel(String id, ExcelPageFetcher<?> fetcher,ExcelHeader header,List<String> fields,ExportOptions options) {
+		ExcelExportResult result = excelExport.createExcel(id, fetcher,header,fields,null,options);
+		if(result!=null){
+			return result.build();
+		}
+		return null;
+	}
+	
+	/**
+	 * 创建Excel,直接读取ResultSet的每一行写入Excel,不创建bean,字段与列标签对应(忽略大小写,以及下划线)
+	 * @param id 配置ID
+	 * @param resultSet 查询结果,由调用者关闭
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, ResultSet resultSet) {
+		return this.createExcel(id, resultSet, null, null, null);
+	}
+	
+	/**
+	 * 创建Excel,直接读取ResultSet的每一行写入Excel,不创建bean,字段与列标签对应(忽略大小写,以及下划线),
+	 * 自定义转换器接收的bean参数为当前行的ResultSet
+	 * @param id 配置ID
+	 * @param resultSet 查询结果,由调用者关闭
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(配置的字段名称),可以为null
+	 * @param options 导出选项,可以指定fetchSize
+	 * @return Workbook,如果没有数据返回null
+	 */
+	public Workbook createExcel(String id, ResultSet resultSet,ExcelHeader header,List<String> fields,ExportOptions options) {
+		ExcelExportResult result = excelExport.createExcel(id, resultSet,header,fields,null,options);
+		if(result!=null){
+			return result.build();
+		}
+		return null;
+	}
+	
+	/**
+	 * 创建分成多个Excel文件的导出,每个文件最多shardRows行数据,调用write或者ExcelDownLoadUtil.downLoadExcelShards时写入zip
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @param shardRows 每个Excel文件的最大数据行数
+	 * @return ExcelShardExport,如果没有数据返回null
+	 */
+	public ExcelShardExport createExcelShards(String id, Iterator<?> beans,int shardRows) {
+		return this.createExcelShards(id, beans, null, null, shardRows, null);
+	}
+	
+	/**
+	 * 创建分成多个Excel文件的导出,每个文件最多shardRows行数据,调用write或者ExcelDownLoadUtil.downLoadExcelShards时写入zip,
+	 * 每个文件使用相同的配置,标题和样式
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null,buildHeader方法的beans参数为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param shardRows 每个Excel文件的最大数据行数
+	 * @param options 导出选项,可以为null
+	 * @return ExcelShardExport,如果没有数据返回null
+	 */
+	public ExcelShardExport createExcelShards(String id, Iterator<?> beans,ExcelHeader header,List<String> fields,int shardRows,ExportOptions options) {
+		return excelExport.createExcelShards(id, beans, header, fields, shardRows, options);
+	}
+	
+	/**
+	 * 直接把xlsx写入输出流,不创建POI的Workbook,Row,Cell对象,适用于数据量非常大的导出,不支持ExcelHeader
+	 * @param id 配置ID
+	 * @param beans 配置class对应的集合
+	 * @param out 输出流,由调用者关闭
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(String id, Iterable<?> beans,OutputStream out) {
+		return this.writeExcel(id, beans.iterator(), null, out, null);
+	}
+	
+	/**
+	 * 直接把xlsx写入输出流,不创建POI的Workbook,Row,Cell对象,适用于数据量非常大的导出,不支持ExcelHeader
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器
+	 * @param out 输出流,由调用者关闭
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(String id, Iterator<?> beans,OutputStream out) {
+		return this.writeExcel(id, beans, null, out, null);
+	}
+	
+	/**
+	 * 直接把xlsx写入输出流,不创建POI的Workbook,Row,Cell对象,适用于数据量非常大的导出,不支持ExcelHeader
+	 * @param id 配置ID
+	 * @param beans 配置class对应的迭代器,没有数据时只写入标题
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param out 输出流,由调用者关闭
+	 * @param options 导出选项,可以指定compressionLevel,可以为null
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(String id, Iterator<?> beans,List<String> fields,OutputStream out,ExportOptions options) {
+		return excelExport.writeExcel(id, beans, fields, out, options);
+	}
+	
+	/**
+	 * 多个sheet页并行写入一个xlsx,每个sheet页的写入方式与writeExcel一致,sheet页的顺序与sheets一致
+	 * @param sheets 导出的sheet页,同一个配置ID导出多个sheet页时需要指定不同的sheetname
+	 * @param out 输出流,由调用者关闭
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(List<ExportSheet> sheets,OutputStream out) {
+		return this.writeExcel(sheets, out, null);
+	}
+	
+	/**
+	 * 多个sheet页并行写入一个xlsx,每个sheet页的写入方式与writeExcel一致,sheet页的顺序与sheets一致,
+	 * 自定义转换器需要是线程安全的
+	 * @param sheets 导出的sheet页,同一个配置ID导出多个sheet页时需要指定不同的sheetname
+	 * @param out 输出流,由调用者关闭
+	 * @param options 导出选项,可以指定parallelism,compressionLevel,tempFileDir,compressTempFiles,可以为null
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(List<ExportSheet> sheets,OutputStream out,ExportOptions options) {
+		return excelExport.writeExcel(sheets, out, options);
+	}
+	
 	/**
 	 * 创建Excel部分信息
 	 * @param id 配置ID
@@ -165,6 +425,20 @@ public class ExcelContext implements ApplicationContextAware{
 		return excelExport.createExcel(id, beans,header,fields,workbook);
 	}
 	
+	/**
+	 * 创建Excel部分信息
+	 * @param id 配置ID
+	 * @param beans 配置class对应的List
+	 * @param header 导出之前,在标题前面做出一些额外的操作,比如增加文档描述等,可以为null
+	 * @param fields 指定Excel导出的字段(bean对应的字段名称),可以为null
+	 * @param workbook 指定excel模板,可以为null
+	 * @param options 导出选项,可以覆盖配置中的rowAccessWindowSize,flushRows,compressTempFiles,tempFileDir,compressionLevel,可以为null
+	 * @return Workbook
+	 */
+	public ExcelExportResult createExcelForPart(String id, List<?> beans,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
+		return excelExport.createExcel(id, beans,header,fields,workbook,options);
+	}
+	
 	/**
 	 * 创建Excel,模板信息
 	 * @param id	 ExcelXML配置Bean的ID
@@ -256,6 +530,78 @@ public class ExcelContext implements ApplicationContextAware{
 		return excelImport.readExcel(id,titleIndex, excelStream,sheetIndex,multivalidate);
 	}
 	
+	/***
+	 * 读取Excel信息
+	 * @param id 配置ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项,可以指定标题索引,sheet索引,是否批量校验以及导入引擎等
+	 * @return ExcelImportResult
+	 */
+	public ExcelImportResult readExcel(String id, InputStream excelStream,ImportOptions options) {
+		return excelImport.readExcel(id, excelStream, options);
+	}
+	
+	/***
+	 * 分批读取Excel信息,每读取options.batchSize条数据回调一次handler,回调过的数据不再持有
+	 * @param id 配置ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项
+	 * @param handler 数据处理,例如批量入库
+	 * @return ExcelImportResult 包含头信息,数据量和保留的错误记录,不包含数据
+	 */
+	public <T> ExcelImportResult readExcel(String id, InputStream excelStream,ImportOptions options,ExcelRowHandler<T> handler) {
+		return excelImport.readExcel(id, excelStream, options, handler);
+	}
+	
+	/***
+	 * 分批读取Excel信息,每读取batchSize条数据回调一次handler,回调过的数据不再持有
+	 * @param id 配置ID
+	 * @param titleIndex 标题索引,从0开始
+	 * @param excelStream Excel文件流
+	 * @param batchSize 每批次的数据量
+	 * @param handler 数据处理,例如批量入库
+	 * @return ExcelImportResult 包含头信息,数据量和保留的错误记录,不包含数据
+	 */
+	public <T> ExcelImportResult readExcel(String id,int titleIndex, InputStream excelStream,int batchSize,ExcelRowHandler<T> handler) {
+		ImportOptions options = new ImportOptions(titleIndex, null, false);
+		options.setBatchSize(batchSize);
+		return excelImport.readExcel(id, excelStream, options, handler);
+	}
+	
+	/***
+	 * 延迟读取Excel信息,迭代时才由后台线程读取数据,迭代过的数据不再持有
+	 * @param id 配置ID
+	 * @param excelStream Excel文件流,迭代完成之前不能关闭
+	 * @param options 导入选项,batchSize为预读的最大数据量
+	 * @return 迭代器,迭代未完成时需要调用close方法
+	 */
+	public <T> ExcelImportIterator<T> readExcelAsIterator(String id, InputStream excelStream,ImportOptions options) {
+		return excelImport.readExcelAsIterator(id, excelStream, options);
+	}
+	
+	/***
+	 * 延迟读取Excel信息,返回Stream,迭代过的数据不再持有
+	 * @param id 配置ID
+	 * @param excelStream Excel文件流,Stream处理完成之前不能关闭
+	 * @param options 导入选项,batchSize为预读的最大数据量
+	 * @return Stream,处理未完成时需要调用close方法,建议使用try-with-resources
+	 */
+	public <T> Stream<T> readExcelAsStream(String id, InputStream excelStream,ImportOptions options) {
+		ExcelImportIterator<T> iterator = excelImport.readExcelAsIterator(id, excelStream, options);
+		return iterator.stream();
+	}
+	
+	/***
+	 * 列式读取Excel信息,不创建JavaBean,数值列使用基本类型数组,字符串列使用字典编码,日期列使用毫秒数,适合只需要列数据的分析场景
+	 * @param id 配置ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项
+	 * @return 列式导入结果
+	 */
+	public ExcelColumnarResult readExcelAsColumns(String id, InputStream excelStream,ImportOptions options) {
+		return excelImport.readExcelAsColumns(id, excelStream, options);
+	}
+	
 	/**
 	 * 获取Excel 配置文件中的字段
 	 * @param key
@@ -0,0 +1,25 @@
+package org.easy.excel.config;
+
+/**
+ * 导出时字段的汇总方式,在数据的下方生成合计行
+ * @author lisuo
+ *
+ */
+public enum AggregateType {
+	
+	/** 求和,只汇总数字 */
+	SUM,
+	
+	/** 平均值,数字的和除以数字的个数 */
+	AVG,
+	
+	/** 计数,不为null的值的个数 */
+	COUNT,
+	
+	/** 最小值,只汇总数字 */
+	MIN,
+	
+	/** 最大值,只汇总数字 */
+	MAX
+	
+}
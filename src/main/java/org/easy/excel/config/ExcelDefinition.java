@@ -39,6 +39,51 @@ public class ExcelDefinition {
 	
 	/** 不能为空的数据是否在标题前生成*（红色），以及在导入时标题前缀加*处理 */
 	private boolean requiredTag;
+	
+	/** 导入时使用的引擎,默认usermodel,大数据量导入可以配置为event */
+	private ImportEngine importEngine = ImportEngine.USERMODEL;
+	
+	/** 导入时公式cell的处理方式,默认计算公式 */
+	private FormulaMode formulaMode = FormulaMode.EVALUATE;
+	
+	/** 导出时SXSSF内存中保留的行数,默认100,-1表示不限制(需要配合flushRows) */
+	private Integer rowAccessWindowSize;
+	
+	/** 导出时每写入多少行主动将内存中的行写入临时文件,可以不设置 */
+	private Integer flushRows;
+	
+	/** 导出时是否压缩SXSSF临时文件,压缩后占用磁盘更少,但需要更多的CPU */
+	private Boolean compressTempFiles;
+	
+	/** 导出时SXSSF临时文件的目录,默认为java.io.tmpdir */
+	private String tempFileDir;
+	
+	/** 导出文件的zip压缩级别,0-9,0表示只存储不压缩,默认-1(Deflater.DEFAULT_COMPRESSION) */
+	private Integer compressionLevel;
+	
+	/** 导出文件zip压缩的线程数,大于1时大的part按块并行压缩,默认在写入线程中压缩 */
+	private Integer deflateParallelism;
+	
+	/** 导出时每个sheet页的最大行数(包含标题和标题之前的行),超过后创建新的sheet页继续写入,默认为文件格式的最大行数 */
+	private Integer sheetMaxRows;
+	
+	/** 导出时配置了pattern,decimalFormatPattern的字段写入原始的日期,数字,使用等价的Excel数据格式显示,不格式化成字符串 */
+	private boolean typedCells;
+	
+	/** 导出时按照写入的内容自动计算列宽(中文按照2个字符计算),在build时设置,配置了columnWidth的字段不受影响;直接写出xlsx(writeExcel)时不支持 */
+	private boolean autoWidth;
+	
+	/** 自动列宽的最小宽度,单位与columnWidth一致 */
+	private Integer minColumnWidth;
+	
+	/** 自动列宽的最大宽度,单位与columnWidth一致,默认为Excel的最大列宽(255个字符) */
+	private Integer maxColumnWidth;
+	
+	/**
+	 * 字段配置了aggregate时,按照这个字段的值分组,为null时只生成合计行;
+	 * 数据应该按照这个字段排序,字段的值变化时在上一个分组的数据下方生成小计行,没有排序时每段连续相同的值生成一个小计行
+	 */
+	private String groupBy;
 
 	public String getId() {
 		return id;
@@ -112,4 +157,116 @@ public class ExcelDefinition {
 		this.requiredTag = requiredTag;
 	}
 	
+	public ImportEngine getImportEngine() {
+		return importEngine;
+	}
+	
+	public void setImportEngine(ImportEngine importEngine) {
+		this.importEngine = importEngine;
+	}
+	
+	public FormulaMode getFormulaMode() {
+		return formulaMode;
+	}
+	
+	public void setFormulaMode(FormulaMode formulaMode) {
+		this.formulaMode = formulaMode;
+	}
+	
+	public Integer getRowAccessWindowSize() {
+		return rowAccessWindowSize;
+	}
+	
+	public void setRowAccessWindowSize(Integer rowAccessWindowSize) {
+		this.rowAccessWindowSize = rowAccessWindowSize;
+	}
+	
+	public Integer getFlushRows() {
+		return flushRows;
+	}
+	
+	public void setFlushRows(Integer flushRows) {
+		this.flushRows = flushRows;
+	}
+	
+	public Boolean getCompressTempFiles() {
+		return compressTempFiles;
+	}
+	
+	public void setCompressTempFiles(Boolean compressTempFiles) {
+		this.compressTempFiles = compressTempFiles;
+	}
+	
+	public String getTempFileDir() {
+		return tempFileDir;
+	}
+	
+	public void setTempFileDir(String tempFileDir) {
+		this.tempFileDir = tempFileDir;
+	}
+	
+	public Integer getCompressionLevel() {
+		return compressionLevel;
+	}
+	
+	public void setCompressionLevel(Integer compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+	
+	public Integer getDeflateParallelism() {
+		return deflateParallelism;
+	}
+	
+	public void setDeflateParallelism(Integer deflateParallelism) {
+		this.deflateParallelism = deflateParallelism;
+	}
+	
+	public Integer getSheetMaxRows() {
+		return sheetMaxRows;
+	}
+	
+	public void setSheetMaxRows(Integer sheetMaxRows) {
+		this.sheetMaxRows = sheetMaxRows;
+	}
+	
+	public boolean isTypedCells() {
+		return typedCells;
+	}
+	
+	public void setTypedCells(boolean typedCells) {
+		this.typedCells = typedCells;
+	}
+	
+	public boolean isAutoWidth() {
+		return autoWidth;
+	}
+	
+	public void setAutoWidth(boolean autoWidth) {
+		this.autoWidth = autoWidth;
+	}
+	
+	public Integer getMinColumnWidth() {
+		return minColumnWidth;
+	}
+	
+	public void setMinColumnWidth(Integer minColumnWidth) {
+		this.minColumnWidth = minColumnWidth;
+	}
+	
+	public Integer getMaxColumnWidth() {
+		return maxColumnWidth;
+	}
+	
+	public void setMaxColumnWidth(Integer maxColumnWidth) {
+		this.maxColumnWidth = maxColumnWidth;
+	}
+	
+	public String getGroupBy() {
+		return groupBy;
+	}
+	
+	public void setGroupBy(String groupBy) {
+		this.groupBy = groupBy;
+	}
+	
 }
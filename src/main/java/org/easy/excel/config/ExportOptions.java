@@ -0,0 +1,145 @@
+package org.easy.excel.config;
+
+/**
+ * Excel导出选项,单次导出时指定
+ * @author lisuo
+ *
+ */
+public class ExportOptions {
+	
+	/** 分页导出时后台线程预先获取的页数,0表示不预先获取,在写入线程中依次获取每一页 */
+	private int prefetchPages = 0;
+	
+	/** 从ResultSet导出时每次从数据库获取的行数,0表示使用ResultSet原有的设置 */
+	private int fetchSize = 0;
+	
+	/** SXSSF内存中保留的行数,为null时使用ExcelDefinition配置的rowAccessWindowSize */
+	private Integer rowAccessWindowSize;
+	
+	/** 每写入多少行主动将内存中的行写入临时文件,为null时使用ExcelDefinition配置的flushRows */
+	private Integer flushRows;
+	
+	/** 是否压缩SXSSF临时文件,为null时使用ExcelDefinition配置的compressTempFiles */
+	private Boolean compressTempFiles;
+	
+	/** SXSSF临时文件的目录,为null时使用ExcelDefinition配置的tempFileDir */
+	private String tempFileDir;
+	
+	/** 导出文件的zip压缩级别,0-9,为null时使用ExcelDefinition配置的compressionLevel */
+	private Integer compressionLevel;
+	
+	/** 导出文件zip压缩的线程数,为null时使用ExcelDefinition配置的deflateParallelism */
+	private Integer deflateParallelism;
+	
+	/** 每个sheet页的最大行数,超过后创建新的sheet页,为null时使用ExcelDefinition配置的sheetMaxRows */
+	private Integer sheetMaxRows;
+	
+	/** 是否写入原始的日期,数字并使用Excel数据格式,为null时使用ExcelDefinition配置的typedCells */
+	private Boolean typedCells;
+	
+	/** 是否按照写入的内容自动计算列宽,为null时使用ExcelDefinition配置的autoWidth */
+	private Boolean autoWidth;
+	
+	/** 多个sheet页并行写入时的线程数,小于等于0时使用CPU核数 */
+	private int parallelism = 0;
+	
+	public ExportOptions() {
+	}
+
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	public void setPrefetchPages(int prefetchPages) {
+		this.prefetchPages = prefetchPages;
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
+	public Integer getRowAccessWindowSize() {
+		return rowAccessWindowSize;
+	}
+
+	public void setRowAccessWindowSize(Integer rowAccessWindowSize) {
+		this.rowAccessWindowSize = rowAccessWindowSize;
+	}
+
+	public Integer getFlushRows() {
+		return flushRows;
+	}
+
+	public void setFlushRows(Integer flushRows) {
+		this.flushRows = flushRows;
+	}
+
+	public Boolean getCompressTempFiles() {
+		return compressTempFiles;
+	}
+
+	public void setCompressTempFiles(Boolean compressTempFiles) {
+		this.compressTempFiles = compressTempFiles;
+	}
+
+	public String getTempFileDir() {
+		return tempFileDir;
+	}
+
+	public void setTempFileDir(String tempFileDir) {
+		this.tempFileDir = tempFileDir;
+	}
+
+	public Integer getCompressionLevel() {
+		return compressionLevel;
+	}
+
+	public void setCompressionLevel(Integer compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+	
+	public Integer getDeflateParallelism() {
+		return deflateParallelism;
+	}
+
+	public void setDeflateParallelism(Integer deflateParallelism) {
+		this.deflateParallelism = deflateParallelism;
+	}
+	
+	public Integer getSheetMaxRows() {
+		return sheetMaxRows;
+	}
+
+	public void setSheetMaxRows(Integer sheetMaxRows) {
+		this.sheetMaxRows = sheetMaxRows;
+	}
+	
+	public Boolean getTypedCells() {
+		return typedCells;
+	}
+
+	public void setTypedCells(Boolean typedCells) {
+		this.typedCells = typedCells;
+	}
+	
+	public Boolean getAutoWidth() {
+		return autoWidth;
+	}
+	
+	public void setAutoWidth(Boolean autoWidth) {
+		this.autoWidth = autoWidth;
+	}
+	
+}
@@ -0,0 +1,74 @@
+package org.easy.excel.config;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 多个sheet页一起导出时,一个sheet页的配置和数据
+ * @author lisuo
+ *
+ */
+public class ExportSheet {
+
+	/** ExcelXML配置Bean的ID */
+	private String id;
+
+	/** 导出的数据,在写入线程中读取 */
+	private Iterator<?> beans;
+
+	/** 指定导出的字段,为null时导出配置的全部字段 */
+	private List<String> fields;
+
+	/** sheet页名称,为null时使用ExcelDefinition配置的sheetname */
+	private String sheetname;
+
+	public ExportSheet() {
+	}
+
+	public ExportSheet(String id, Iterator<?> beans) {
+		this.id = id;
+		this.beans = beans;
+	}
+
+	public ExportSheet(String id, Iterable<?> beans) {
+		this(id, beans.iterator());
+	}
+
+	public ExportSheet(String id, Iterable<?> beans, String sheetname) {
+		this(id, beans.iterator());
+		this.sheetname = sheetname;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public Iterator<?> getBeans() {
+		return beans;
+	}
+
+	public void setBeans(Iterator<?> beans) {
+		this.beans = beans;
+	}
+
+	public List<String> getFields() {
+		return fields;
+	}
+
+	public void setFields(List<String> fields) {
+		this.fields = fields;
+	}
+
+	public String getSheetname() {
+		return sheetname;
+	}
+
+	public void setSheetname(String sheetname) {
+		this.sheetname = sheetname;
+	}
+
+}
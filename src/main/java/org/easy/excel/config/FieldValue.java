@@ -4,6 +4,8 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.easy.excel.parsing.FieldCodec;
+import org.easy.excel.validation.FieldValidator;
 
 /**
  * Excel字段定义
@@ -20,7 +22,7 @@ public class FieldValue {
 	private String title;
 	/** 别名（没有设置使用标题,错误提示信息使用） */
 	private String alias;
-	/** 日期pattern,如果设置的类型不是date,注册时,会抛出异常 */
+	/** 日期pattern,如果设置的类型不是date,注册时,会抛出异常;SimpleDateFormat的语法,多个以[,]号分割,导出使用第一个;u表示星期几(1表示星期一),没有w(一年中的第几周)时Y按照年份(y)处理 */
 	private String pattern;
 	/** 表达式,例如(1:男,2:女)表示,值为1,取 (男)作为value ,2则取 (女)作为value */
 	private String format;
@@ -34,6 +36,24 @@ public class FieldValue {
 	private String regex;
 	/** 正则表达式不通过时,错误提示信息 */
 	private String regexErrMsg;
+	/** 数值最小值,导入有效 */
+	private String min;
+	/** 数值最大值,导入有效 */
+	private String max;
+	/** 字符串最小长度,导入有效 */
+	private Integer minLength;
+	/** 字符串最大长度,导入有效 */
+	private Integer maxLength;
+	/** 可选值,以[,]号分割,导入有效 */
+	private String options;
+	/** 最早日期,格式与pattern一致,没有配置pattern时为yyyy-MM-dd,导入有效 */
+	private String minDate;
+	/** 最晚日期,格式与pattern一致,没有配置pattern时为yyyy-MM-dd,导入有效 */
+	private String maxDate;
+	/** 自定义校验器：自定义实现(全类名) */
+	private String validatorName;
+	/** 编译后的校验规则,不可配置,它的创建规则基于上面的校验配置,修改校验配置后重新编译 */
+	private volatile FieldValidator validator;
 	
 	//导出时生效
 	/** 导出时是否强制指定单元格格式为text文本(详情请了解excel设置单元格样式，既保留原生格式，不使用科学计数法等...) */
@@ -57,6 +77,10 @@ public class FieldValue {
 	private RoundingMode roundingMode = RoundingMode.DOWN;
 	/** 当值为空时,字段的默认值 */
 	private String defaultValue;
+	/** 导出时的汇总方式,在数据的下方生成合计行,为null时不汇总 */
+	private AggregateType aggregate;
+	/** 编译后的编解码器,不可配置,它的创建规则基于pattern,format,decimalFormatPattern,decimalFormat,roundingMode,defaultValue,修改这些配置后重新编译 */
+	private volatile FieldCodec codec;
 	
 	
 	/*
@@ -107,6 +131,8 @@ public class FieldValue {
 
 	public void setPattern(String pattern) {
 		this.pattern = pattern;
+		this.codec = null;
+		this.validator = null;
 	}
 
 	public String getFormat() {
@@ -115,6 +141,7 @@ public class FieldValue {
 
 	public void setFormat(String format) {
 		this.format = format;
+		this.codec = null;
 	}
 
 	public boolean isNull() {
@@ -123,6 +150,7 @@ public class FieldValue {
 
 	public void setNull(boolean isNull) {
 		this.isNull = isNull;
+		this.validator = null;
 	}
 
 	public String getRegex() {
@@ -131,6 +159,7 @@ public class FieldValue {
 
 	public void setRegex(String regex) {
 		this.regex = regex;
+		this.validator = null;
 	}
 
 	public String getRegexErrMsg() {
@@ -139,6 +168,113 @@ public class FieldValue {
 
 	public void setRegexErrMsg(String regexErrMsg) {
 		this.regexErrMsg = regexErrMsg;
+		this.validator = null;
+	}
+
+	public String getMin() {
+		return min;
+	}
+
+	public void setMin(String min) {
+		this.min = min;
+		this.validator = null;
+	}
+
+	public String getMax() {
+		return max;
+	}
+
+	public void setMax(String max) {
+		this.max = max;
+		this.validator = null;
+	}
+
+	public Integer getMinLength() {
+		return minLength;
+	}
+
+	public void setMinLength(Integer minLength) {
+		this.minLength = minLength;
+		this.validator = null;
+	}
+
+	public Integer getMaxLength() {
+		return maxLength;
+	}
+
+	public void setMaxLength(Integer maxLength) {
+		this.maxLength = maxLength;
+		this.validator = null;
+	}
+
+	public String getOptions() {
+		return options;
+	}
+
+	public void setOptions(String options) {
+		this.options = options;
+		this.validator = null;
+	}
+
+	public String getMinDate() {
+		return minDate;
+	}
+
+	public void setMinDate(String minDate) {
+		this.minDate = minDate;
+		this.validator = null;
+	}
+
+	public String getMaxDate() {
+		return maxDate;
+	}
+
+	public void setMaxDate(String maxDate) {
+		this.maxDate = maxDate;
+		this.validator = null;
+	}
+
+	public String getValidatorName() {
+		return validatorName;
+	}
+
+	public void setValidatorName(String validatorName) {
+		this.validatorName = validatorName;
+		this.validator = null;
+	}
+
+	/**
+	 * 获取编译后的校验规则,注册时已经编译,手动创建的FieldValue第一次使用时编译
+	 * @return FieldValidator
+	 */
+	public FieldValidator getValidator() {
+		FieldValidator validator = this.validator;
+		if (validator == null) {
+			validator = FieldValidator.compile(this);
+			this.validator = validator;
+		}
+		return validator;
+	}
+
+	public void setValidator(FieldValidator validator) {
+		this.validator = validator;
+	}
+
+	/**
+	 * 获取编译后的编解码器,注册时已经编译,手动创建的FieldValue第一次使用时编译
+	 * @return FieldCodec
+	 */
+	public FieldCodec getCodec() {
+		FieldCodec codec = this.codec;
+		if (codec == null) {
+			codec = FieldCodec.compile(this);
+			this.codec = codec;
+		}
+		return codec;
+	}
+
+	public void setCodec(FieldCodec codec) {
+		this.codec = codec;
 	}
 
 	public String getCellValueConverterName() {
@@ -203,6 +339,7 @@ public class FieldValue {
 
 	public void setDecimalFormatPattern(String decimalFormatPattern) {
 		this.decimalFormatPattern = decimalFormatPattern;
+		this.codec = null;
 	}
 
 	public DecimalFormat getDecimalFormat() {
@@ -211,6 +348,7 @@ public class FieldValue {
 
 	public void setDecimalFormat(DecimalFormat decimalFormat) {
 		this.decimalFormat = decimalFormat;
+		this.codec = null;
 	}
 
 	public RoundingMode getRoundingMode() {
@@ -219,6 +357,7 @@ public class FieldValue {
 
 	public void setRoundingMode(RoundingMode roundingMode) {
 		this.roundingMode = roundingMode;
+		this.codec = null;
 	}
 
 	public String getDefaultValue() {
@@ -227,6 +366,7 @@ public class FieldValue {
 
 	public void setDefaultValue(String defaultValue) {
 		this.defaultValue = defaultValue;
+		this.codec = null;
 	}
 
 	public boolean isForceText() {
@@ -237,6 +377,14 @@ public class FieldValue {
 		this.forceText = forceText;
 	}
 
+	public AggregateType getAggregate() {
+		return aggregate;
+	}
+
+	public void setAggregate(AggregateType aggregate) {
+		this.aggregate = aggregate;
+	}
+
 	
 
 }
@@ -0,0 +1,19 @@
+package org.easy.excel.config;
+
+/**
+ * 导入时公式cell的处理方式
+ * @author lisuo
+ *
+ */
+public enum FormulaMode {
+	
+	/** 读取文件中保存的公式计算结果,不进行计算,速度最快 */
+	CACHED,
+	
+	/** 使用workbook共享的FormulaEvaluator计算公式,计算结果会被缓存,不修改原workbook,默认方式 */
+	EVALUATE,
+	
+	/** 遇到公式cell立即抛出异常 */
+	FAIL
+	
+}
@@ -0,0 +1,16 @@
+package org.easy.excel.config;
+
+/**
+ * Excel导入引擎
+ * @author lisuo
+ *
+ */
+public enum ImportEngine {
+	
+	/** POI usermodel,WorkbookFactory一次性加载整个Workbook到内存,默认引擎 */
+	USERMODEL,
+	
+	/** POI event model,xlsx使用XSSFReader+SAX逐行解析,xls使用HSSFEventFactory逐条解析记录,内存占用与数据行数无关,适合大数据量导入 */
+	EVENT
+	
+}
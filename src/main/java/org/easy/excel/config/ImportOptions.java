@@ -0,0 +1,130 @@
+package org.easy.excel.config;
+
+/**
+ * Excel导入选项,单次导入时指定,优先级大于ExcelDefinition中的配置
+ * @author lisuo
+ *
+ */
+public class ImportOptions {
+	
+	/** 标题索引,从0开始 */
+	private int titleIndex = 0;
+	
+	/** Sheet索引位,为null时使用ExcelDefinition配置的sheetIndex */
+	private Integer sheetIndex;
+	
+	/** 是否逐条校验，默认单行出错立即抛出ExcelException，为true时为批量校验 */
+	private boolean multivalidate;
+	
+	/** 导入引擎,为null时使用ExcelDefinition配置的importEngine */
+	private ImportEngine importEngine;
+	
+	/** 公式cell的处理方式,为null时使用ExcelDefinition配置的formulaMode */
+	private FormulaMode formulaMode;
+	
+	/** 分批处理时每批次的数据量,迭代读取时为预读的最大数据量 */
+	private int batchSize = 1000;
+	
+	/** 数据行转换线程数,大于1时读取线程只负责解析行数据,由多个线程并行执行校验,转换和Bean填充,结果保持行的顺序;
+	 *  自定义的CellValueConverter需要是线程安全的,列式导入不支持 */
+	private int parallelism = 1;
+	
+	/** 批量校验时最多保留的错误数量,超出的错误只计数不保留 */
+	private int maxErrors = Integer.MAX_VALUE;
+	
+	/** 批量校验时每列最多保留的错误数量,超出的错误只计数不保留 */
+	private int maxErrorsPerColumn = Integer.MAX_VALUE;
+	
+	/** 错误信息中是否保留持有的Bean实例(refObject),为false时可以减少大量错误时的内存占用 */
+	private boolean retainRefObject = true;
+	
+	public ImportOptions() {
+	}
+	
+	public ImportOptions(int titleIndex, Integer sheetIndex, boolean multivalidate) {
+		this.titleIndex = titleIndex;
+		this.sheetIndex = sheetIndex;
+		this.multivalidate = multivalidate;
+	}
+
+	public int getTitleIndex() {
+		return titleIndex;
+	}
+
+	public void setTitleIndex(int titleIndex) {
+		this.titleIndex = titleIndex;
+	}
+
+	public Integer getSheetIndex() {
+		return sheetIndex;
+	}
+
+	public void setSheetIndex(Integer sheetIndex) {
+		this.sheetIndex = sheetIndex;
+	}
+
+	public boolean isMultivalidate() {
+		return multivalidate;
+	}
+
+	public void setMultivalidate(boolean multivalidate) {
+		this.multivalidate = multivalidate;
+	}
+
+	public ImportEngine getImportEngine() {
+		return importEngine;
+	}
+
+	public void setImportEngine(ImportEngine importEngine) {
+		this.importEngine = importEngine;
+	}
+
+	public FormulaMode getFormulaMode() {
+		return formulaMode;
+	}
+
+	public void setFormulaMode(FormulaMode formulaMode) {
+		this.formulaMode = formulaMode;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public int getMaxErrors() {
+		return maxErrors;
+	}
+
+	public void setMaxErrors(int maxErrors) {
+		this.maxErrors = maxErrors;
+	}
+
+	public int getMaxErrorsPerColumn() {
+		return maxErrorsPerColumn;
+	}
+
+	public void setMaxErrorsPerColumn(int maxErrorsPerColumn) {
+		this.maxErrorsPerColumn = maxErrorsPerColumn;
+	}
+
+	public boolean isRetainRefObject() {
+		return retainRefObject;
+	}
+
+	public void setRetainRefObject(boolean retainRefObject) {
+		this.retainRefObject = retainRefObject;
+	}
+	
+}
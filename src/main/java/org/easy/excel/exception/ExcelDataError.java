@@ -0,0 +1,91 @@
+package org.easy.excel.exception;
+
+/**
+ * 导入数据校验错误记录,批量校验(multivalidate)时保存在导入结果中,
+ * 与ExcelDataException的信息一致,但不是异常,不记录异常栈,完整的错误信息在获取时生成
+ * @author lisuo
+ *
+ */
+public class ExcelDataError {
+	
+	/** 行号 */
+	private final int row;
+	/** 列索引,未知时为-1 */
+	private final int column;
+	/** 标题名称 */
+	private final String title;
+	/** 错误信息 */
+	private final String errInfo;
+	/** 原始value */
+	private final Object originalValue;
+	/** 持有的Bean实例,导入选项retainRefObject为false时为null */
+	private final Object refObject;
+	
+	public ExcelDataError(int row, int column, String title, String errInfo, Object originalValue, Object refObject) {
+		this.row = row;
+		this.column = column;
+		this.title = title;
+		this.errInfo = errInfo;
+		this.originalValue = originalValue;
+		this.refObject = refObject;
+	}
+	
+	/**
+	 * 通过异常创建
+	 * @param e
+	 * @param retainRefObject 是否保留持有的Bean实例
+	 * @return ExcelDataError
+	 */
+	public static ExcelDataError of(ExcelDataException e, boolean retainRefObject) {
+		return new ExcelDataError(e.getRow(), e.getColumn(), e.getTitle(), e.getErrInfo(), e.getOriginalValue(),
+				retainRefObject ? e.getRefObject() : null);
+	}
+	
+	/**
+	 * @return 对应的异常,不记录异常栈
+	 */
+	public ExcelDataException toException() {
+		ExcelDataException e = new ExcelDataException(errInfo, row, title, originalValue, refObject, false);
+		e.setColumn(column);
+		return e;
+	}
+	
+	public int getRow() {
+		return row;
+	}
+	
+	public int getColumn() {
+		return column;
+	}
+	
+	public String getTitle() {
+		return title;
+	}
+	
+	public String getErrInfo() {
+		return errInfo;
+	}
+	
+	public Object getOriginalValue() {
+		return originalValue;
+	}
+	
+	public Object getRefObject() {
+		return refObject;
+	}
+	
+	/**
+	 * 获取完整的错误提示信息[行,标题,错误信息]
+	 * @return 完整的错误提示信息
+	 */
+	public String getMessage() {
+		return ExcelDataException.wholeMessage(errInfo, row, title);
+	}
+	
+	@Override
+	public String toString() {
+		return "ExcelDataError [row=" + row + ", column=" + column + ", title=" + title + ", originalValue=" + originalValue
+				+ ", errInfo=" + errInfo + ", refObject=" + refObject + "]";
+	}
+	
+}
@@ -16,6 +16,11 @@ public class ExcelDataException extends ExcelException {
 	 * 行号
 	 */
 	private int row;
+	
+	/**
+	 * 列索引,未知时为-1
+	 */
+	private int column = -1;
 
 	/**
 	 * 标题名称
@@ -34,10 +39,20 @@ public class ExcelDataException extends ExcelException {
 	 */
 	private Object refObject;
 	
-	
+	/**
+	 * 完整的错误提示信息,第一次获取时生成
+	 */
+	private transient String message;
 
 	public ExcelDataException(String message, int row, String title,Object originalValue,Object refObject) {
-		super(wholeMessage(message, row, title));
+		this(message, row, title, originalValue, refObject, true);
+	}
+	
+	/**
+	 * @param writableStackTrace 是否记录异常栈,批量校验时大量创建,可以不记录异常栈
+	 */
+	public ExcelDataException(String message, int row, String title,Object originalValue,Object refObject,boolean writableStackTrace) {
+		super(null, null, false, writableStackTrace);
 		this.errInfo = message;
 		this.row = row;
 		this.title = title;
@@ -48,6 +63,14 @@ public class ExcelDataException extends ExcelException {
 	public int getRow() {
 		return row;
 	}
+	
+	public int getColumn() {
+		return column;
+	}
+	
+	public void setColumn(int column) {
+		this.column = column;
+	}
 
 	public String getTitle() {
 		return title;
@@ -64,12 +87,20 @@ public class ExcelDataException extends ExcelException {
 	public Object getRefObject() {
 		return refObject;
 	}
+	
+	@Override
+	public String getMessage() {
+		if (message == null) {
+			message = wholeMessage(errInfo, row, title);
+		}
+		return message;
+	}
 
 	/**
 	 * 获取完整的错误提示信息[行,标题,错误信息]
 	 * @return 完整的错误提示信息
 	 */
-	private static String wholeMessage(String message, int row, String title) {
+	static String wholeMessage(String message, int row, String title) {
 		return new StringBuilder()
 				.append("第[")
 				.append(row)
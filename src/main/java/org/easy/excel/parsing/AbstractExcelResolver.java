@@ -1,12 +1,14 @@
 package org.easy.excel.parsing;
 
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.easy.excel.ExcelDefinitionReader;
 import org.easy.excel.config.FieldValue;
+import org.easy.excel.config.FormulaMode;
 import org.easy.excel.exception.ExcelException;
 import org.easy.excel.util.ExcelUtil;
 import org.springframework.context.ApplicationContext;
@@ -24,7 +26,7 @@ public abstract class AbstractExcelResolver implements CellValueConverter{
 	protected ApplicationContext ctx;
 
 	/** 注册字段解析信息 */
-	private Map<String,CellValueConverter> cellValueConverters = new HashMap<String, CellValueConverter>();
+	private Map<String,CellValueConverter> cellValueConverters = new ConcurrentHashMap<String, CellValueConverter>();
 	private DefaultCellValueConverter defaultCellValueConverter = new DefaultCellValueConverter();
 	
 	public AbstractExcelResolver(ExcelDefinitionReader definitionReader) {
@@ -52,34 +54,71 @@ public abstract class AbstractExcelResolver implements CellValueConverter{
 		return ExcelUtil.getCellValue(cell);
 	}
 	
+	/**
+	 * 获取cell值
+	 * 
+	 * @param cell
+	 * @param formulaMode 公式cell的处理方式
+	 * @param evaluator 公式计算器,同一个workbook共享
+	 * @return
+	 */
+	protected Object getCellValue(Cell cell, FormulaMode formulaMode, FormulaEvaluator evaluator) {
+		return ExcelUtil.getCellValue(cell, formulaMode, evaluator);
+	}
+	
 	//默认实现
 	@Override
 	public Object convert(Object bean,Object value, FieldValue fieldValue, Type type,int rowNum){
 		if(value !=null){
-			//解析器实现，读取数据
-			String convName = fieldValue.getCellValueConverterName();
-			if(convName==null){
-				return defaultCellValueConverter.convert(bean, value, fieldValue, type, rowNum);
-			}else{
-				//自定义
-				CellValueConverter conv = cellValueConverters.get(convName);
+			return convert(getCellValueConverter(fieldValue), bean, value, fieldValue, type, rowNum);
+		}
+		return fieldValue.getDefaultValue();
+	}
+	
+	/**
+	 * 使用指定的转换器转换
+	 * @param conv 通过getCellValueConverter(FieldValue)获取的转换器
+	 * @param bean
+	 * @param value
+	 * @param fieldValue
+	 * @param type
+	 * @param rowNum
+	 * @return
+	 */
+	protected Object convert(CellValueConverter conv,Object bean,Object value, FieldValue fieldValue, Type type,int rowNum){
+		if(value !=null){
+			Object val = conv.convert(bean,value, fieldValue, type, rowNum);
+			//默认转换器自己处理默认值
+			if(val != null || conv == defaultCellValueConverter){
+				return val;
+			}
+		}
+		return fieldValue.getDefaultValue();
+	}
+	
+	/**
+	 * 获取字段的转换器,没有配置自定义转换器时返回默认的转换器
+	 * @param fieldValue
+	 * @return CellValueConverter
+	 */
+	protected CellValueConverter getCellValueConverter(FieldValue fieldValue){
+		//解析器实现，读取数据
+		String convName = fieldValue.getCellValueConverterName();
+		if(convName==null){
+			return defaultCellValueConverter;
+		}
+		//自定义
+		CellValueConverter conv = cellValueConverters.get(convName);
+		if(conv == null){
+			synchronized(this){
+				conv = cellValueConverters.get(convName);
 				if(conv == null){
-					synchronized(this){
-						if(conv == null){
-							conv = getCellValueConverter(convName);
-							cellValueConverters.put(convName, conv);
-						}
-					}
-					conv = cellValueConverters.get(convName);
-				}
-				Object val = conv.convert(bean,value, fieldValue, type, rowNum);
-				if(val != null){
-					return val;
+					conv = getCellValueConverter(convName);
+					cellValueConverters.put(convName, conv);
 				}
 			}
 		}
-		return fieldValue.getDefaultValue();
-
+		return conv;
 	}
 	
 	/**
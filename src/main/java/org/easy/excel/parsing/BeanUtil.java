@@ -8,6 +8,8 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.beans.AbstractNestablePropertyAccessor;
@@ -34,6 +36,7 @@ abstract class BeanUtil {
 	//软引用Map
 	private static final Map<Class<?>, List<Field>> declaredFieldsCache = new ConcurrentReferenceHashMap<>(256,ReferenceType.SOFT);
 	private static final Map<Class<?>[], Class<?>> eqSuperClassCache = new ConcurrentReferenceHashMap<>(16,ReferenceType.SOFT);
+	private static final ConcurrentMap<Class<?>, Map<String, PropertyAccess>> propertyAccessCache = new ConcurrentReferenceHashMap<>(256,ReferenceType.SOFT);
 	
 	private static final List<Field> NO_FIELDS = Collections.emptyList();
 	
@@ -89,6 +92,29 @@ abstract class BeanUtil {
 		return BeanUtils.instantiateClass(clazz);
 	}
 	
+	/**
+	 * 获取编译后的属性访问器,每个类的每个属性路径只编译一次
+	 * @param clazz bean类型
+	 * @param name 属性路径,如stu.name或stu.books[0].name
+	 * @return 属性访问器
+	 */
+	public static PropertyAccess getPropertyAccess(Class<?> clazz, String name){
+		Map<String, PropertyAccess> accesses = propertyAccessCache.get(clazz);
+		if(accesses == null){
+			accesses = new ConcurrentHashMap<String, PropertyAccess>();
+			Map<String, PropertyAccess> old = propertyAccessCache.putIfAbsent(clazz, accesses);
+			if(old != null){
+				accesses = old;
+			}
+		}
+		PropertyAccess access = accesses.get(name);
+		if(access == null){
+			access = PropertyAccessors.compile(clazz, name);
+			accesses.put(name, access);
+		}
+		return access;
+	}
+	
 	/**
 	 * 构建属性访问器
 	 * @param bean pojo实例
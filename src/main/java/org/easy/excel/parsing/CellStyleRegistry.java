@@ -0,0 +1,167 @@
+package org.easy.excel.parsing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * Workbook级别的样式注册表,按照样式的属性(对齐方式,背景色,字体色,数据格式)去重,
+ * 同一个Workbook中多个sheet页,多次导出共享相同的CellStyle和Font,不会因为重复创建超过POI的样式数量限制;
+ * 只保存样式和字体的索引,不持有Workbook,Workbook被回收后注册表随之回收;线程安全
+ * @author lisuo
+ *
+ */
+public final class CellStyleRegistry {
+	
+	/** 每个Workbook的注册表 */
+	private static final Map<Workbook, CellStyleRegistry> REGISTRIES = new WeakHashMap<Workbook, CellStyleRegistry>();
+	
+	/** 样式属性 -> 样式索引 */
+	private final Map<StyleKey, Integer> styles = new HashMap<StyleKey, Integer>();
+	/** 字体颜色 -> 字体索引 */
+	private final Map<Short, Integer> fonts = new HashMap<Short, Integer>();
+	
+	private CellStyleRegistry() {
+	}
+	
+	/**
+	 * 获取Workbook的注册表,第一次获取时创建
+	 * @param workbook
+	 * @return
+	 */
+	public static CellStyleRegistry of(Workbook workbook) {
+		synchronized (REGISTRIES) {
+			CellStyleRegistry registry = REGISTRIES.get(workbook);
+			if (registry == null) {
+				registry = new CellStyleRegistry();
+				REGISTRIES.put(workbook, registry);
+			}
+			return registry;
+		}
+	}
+	
+	/**
+	 * 获取指定属性的样式,相同属性的样式只创建一次
+	 * @param workbook 注册表所属的Workbook
+	 * @param key 样式属性
+	 * @return 属性都为空时返回null,使用cell默认的样式
+	 */
+	public synchronized CellStyle getCellStyle(Workbook workbook, StyleKey key) {
+		if (key == null || key.isEmpty()) {
+			return null;
+		}
+		Integer index = styles.get(key);
+		if (index != null) {
+			return workbook.getCellStyleAt(index);
+		}
+		int maxCellStyles = workbook.getSpreadsheetVersion().getMaxCellStyles();
+		if (workbook.getNumCellStyles() >= maxCellStyles) {
+			throw new ExcelException("Workbook的样式数量已经达到上限" + maxCellStyles + ",无法创建新的样式");
+		}
+		CellStyle cellStyle = workbook.createCellStyle();
+		if (key.align != null) {
+			cellStyle.setAlignment(key.align);
+		}
+		if (key.fillColor != null) {
+			cellStyle.setFillForegroundColor(key.fillColor);
+			cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+		}
+		if (key.fontColor != null) {
+			cellStyle.setFont(getFont(workbook, key.fontColor));
+		}
+		if (key.dataFormat != null) {
+			cellStyle.setDataFormat(workbook.createDataFormat().getFormat(key.dataFormat));
+		}
+		styles.put(key, cellStyle.getIndex() & 0xffff);
+		return cellStyle;
+	}
+	
+	/**
+	 * 获取指定颜色的字体,相同颜色的字体只创建一次
+	 * @param workbook 注册表所属的Workbook
+	 * @param color 字体颜色,看org.apache.poi.ss.usermodel.IndexedColors
+	 * @return
+	 */
+	public synchronized Font getFont(Workbook workbook, short color) {
+		Integer index = fonts.get(color);
+		if (index != null) {
+			return workbook.getFontAt(index);
+		}
+		Font font = workbook.createFont();
+		font.setColor(color);
+		fonts.put(color, font.getIndexAsInt());
+		return font;
+	}
+	
+	/**
+	 * @return 注册表创建的样式数量
+	 */
+	public synchronized int size() {
+		return styles.size();
+	}
+	
+	/**
+	 * 样式属性,不可变
+	 */
+	public static final class StyleKey {
+		
+		private final HorizontalAlignment align;
+		private final Short fillColor;
+		private final Short fontColor;
+		private final String dataFormat;
+		
+		/**
+		 * @param align 对齐方式,可以为null
+		 * @param fillColor 背景色,可以为null
+		 * @param fontColor 字体色,可以为null
+		 * @param dataFormat 数据格式,例如:@,yyyy-mm-dd,可以为null
+		 */
+		public StyleKey(HorizontalAlignment align, Short fillColor, Short fontColor, String dataFormat) {
+			this.align = align;
+			this.fillColor = fillColor;
+			this.fontColor = fontColor;
+			this.dataFormat = dataFormat;
+		}
+		
+		/**
+		 * 在当前属性的基础上使用另一个数据格式
+		 * @param dataFormat
+		 * @return
+		 */
+		public StyleKey withDataFormat(String dataFormat) {
+			return new StyleKey(align, fillColor, fontColor, dataFormat);
+		}
+		
+		public boolean isEmpty() {
+			return align == null && fillColor == null && fontColor == null && dataFormat == null;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof StyleKey)) {
+				return false;
+			}
+			StyleKey other = (StyleKey) obj;
+			return align == other.align && Objects.equals(fillColor, other.fillColor) && Objects.equals(fontColor, other.fontColor)
+					&& Objects.equals(dataFormat, other.dataFormat);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(align, fillColor, fontColor, dataFormat);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,320 @@
+package org.easy.excel.parsing;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.easy.excel.config.AggregateType;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.FieldValue;
+
+/**
+ * 合计行的汇总,写入数据行时累加每一列的值,导出完毕(build)时生成合计行,不需要再遍历一次数据;
+ * 配置了groupBy时数据应该按照分组字段排序,分组字段的值变化时结束当前分组,在分组的数据下方生成小计行,
+ * 只保存当前分组的累加器;没有排序时,值相同的连续数据作为一个分组
+ * @author lisuo
+ *
+ */
+public class ColumnAggregator {
+
+	/** 每一列的汇总方式,不汇总的列为null */
+	private final AggregateType[] types;
+
+	/** 分组字段的列索引,没有分组时为-1 */
+	private final int groupColumn;
+
+	/** 全部数据的汇总 */
+	private final Accumulator total;
+
+	/** 当前分组的汇总,没有分组或者还没有数据时为null */
+	private Accumulator current;
+
+	/** 当前分组字段的原始值 */
+	private Object currentGroup;
+
+	/** 分组显示的名称与cell显示的内容一致,第一次需要时创建 */
+	private DataFormatter formatter;
+
+	private ColumnAggregator(AggregateType[] types, int groupColumn) {
+		this.types = types;
+		this.groupColumn = groupColumn;
+		this.total = new Accumulator(types.length);
+	}
+
+	/**
+	 * 根据字段的aggregate配置创建
+	 * @param excelDefinition
+	 * @return 没有字段需要汇总时返回null
+	 */
+	public static ColumnAggregator create(ExcelDefinition excelDefinition) {
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		AggregateType[] types = new AggregateType[fieldValues.size()];
+		boolean aggregate = false;
+		int groupColumn = -1;
+		for (int i = 0; i < types.length; i++) {
+			FieldValue fieldValue = fieldValues.get(i);
+			types[i] = fieldValue.getAggregate();
+			aggregate |= types[i] != null;
+			if (fieldValue.getName().equals(excelDefinition.getGroupBy())) {
+				groupColumn = i;
+			}
+		}
+		return aggregate ? new ColumnAggregator(types, groupColumn) : null;
+	}
+
+	/**
+	 * @return 分组字段的列索引,没有分组时为-1
+	 */
+	public int getGroupColumn() {
+		return groupColumn;
+	}
+
+	/**
+	 * 写入一行数据之前切换分组,分组字段的值与当前分组不同时开始新的分组
+	 * @param groupValue 分组字段的原始值
+	 * @return 结束的分组,需要在新分组的数据之前创建小计行;分组没有变化,没有分组或者是第一个分组时返回null
+	 */
+	public Accumulator switchGroup(Object groupValue) {
+		if (groupColumn < 0 || (current != null && Objects.equals(currentGroup, groupValue))) {
+			return null;
+		}
+		Accumulator finished = current;
+		current = new Accumulator(types.length);
+		currentGroup = groupValue;
+		return finished != null && finished.rows > 0 ? finished : null;
+	}
+
+	/**
+	 * 开始累加一行数据
+	 * @param groupValue 分组字段的原始值,没有分组时忽略;没有调用switchGroup时在这里切换分组,结束的分组不生成小计行
+	 * @return 当前分组是否还没有显示的名称,需要调用groupLabel设置
+	 */
+	public boolean beginRow(Object groupValue) {
+		total.rows++;
+		if (groupColumn < 0) {
+			return false;
+		}
+		switchGroup(groupValue);
+		current.rows++;
+		return current.label == null;
+	}
+
+	/**
+	 * 设置当前分组显示的名称,与分组字段的cell显示的内容一致
+	 * @param cell 当前行分组字段的cell
+	 */
+	public void groupLabel(Cell cell) {
+		if (current != null && current.label == null) {
+			if (formatter == null) {
+				formatter = new DataFormatter();
+			}
+			current.label = cell == null ? "" : formatter.formatCellValue(cell);
+		}
+	}
+
+	/**
+	 * 累加当前行一列的原始值
+	 * @param col 列索引
+	 * @param value 属性的原始值,SUM,AVG,MIN,MAX只汇总数字
+	 */
+	public void add(int col, Object value) {
+		if (types[col] == null || value == null) {
+			return;
+		}
+		total.add(col, value);
+		if (current != null) {
+			current.add(col, value);
+		}
+	}
+
+	/**
+	 * @param col 列索引
+	 * @return 这一列的汇总方式,不汇总时返回null
+	 */
+	public AggregateType getType(int col) {
+		return types[col];
+	}
+
+	/**
+	 * @return 累加的数据行数
+	 */
+	public long getRows() {
+		return total.rows;
+	}
+
+	/**
+	 * @return 全部数据的汇总
+	 */
+	public Accumulator getTotal() {
+		return total;
+	}
+
+	/**
+	 * @return 最后一个分组的汇总,小计行在合计行之前创建;没有分组或者没有数据时返回null
+	 */
+	public Accumulator getCurrentGroup() {
+		return current != null && current.rows > 0 ? current : null;
+	}
+
+	/**
+	 * 汇总的结果
+	 * @param accumulator 全部数据或者一个分组的汇总
+	 * @param col 列索引
+	 * @return 不汇总的列,或者没有数字可以汇总时返回null;整数的SUM,MIN,MAX返回Long,包含小数时返回BigDecimal,AVG返回BigDecimal
+	 */
+	public Number getValue(Accumulator accumulator, int col) {
+		AggregateType type = types[col];
+		if (type == null) {
+			return null;
+		}
+		if (type == AggregateType.COUNT) {
+			return accumulator.counts[col];
+		}
+		if (accumulator.numbers[col] == 0) {
+			return null;
+		}
+		BigDecimal[] decimals = accumulator.decimalSums;
+		switch (type) {
+		case SUM:
+			return decimals[col] == null ? (Number) accumulator.sums[col] : decimals[col];
+		case AVG:
+			BigDecimal sum = decimals[col] == null ? BigDecimal.valueOf(accumulator.sums[col]) : decimals[col];
+			return sum.divide(BigDecimal.valueOf(accumulator.numbers[col]), MathContext.DECIMAL64);
+		case MIN:
+			return decimals[col] == null ? (Number) accumulator.mins[col] : accumulator.decimalMins[col];
+		default:
+			return decimals[col] == null ? (Number) accumulator.maxs[col] : accumulator.decimalMaxs[col];
+		}
+	}
+
+	/**
+	 * 一组数据的累加器,不保存数据行;整数使用long精确累加,
+	 * 出现小数(BigDecimal,Double等)或者long溢出后这一列改为BigDecimal累加,避免double的舍入误差
+	 */
+	public static class Accumulator {
+
+		/** 分组显示的名称 */
+		private String label;
+		/** 行数 */
+		private long rows;
+		/** 不为null的值的个数 */
+		private final long[] counts;
+		/** 数字的个数 */
+		private final long[] numbers;
+		/** 整数的累加结果,这一列改为BigDecimal累加后不再使用 */
+		private final long[] sums;
+		private final long[] mins;
+		private final long[] maxs;
+		/** BigDecimal的累加结果,这一列全部是整数并且没有溢出时为null */
+		private final BigDecimal[] decimalSums;
+		private final BigDecimal[] decimalMins;
+		private final BigDecimal[] decimalMaxs;
+
+		private Accumulator(int columns) {
+			this.counts = new long[columns];
+			this.numbers = new long[columns];
+			this.sums = new long[columns];
+			this.mins = new long[columns];
+			this.maxs = new long[columns];
+			this.decimalSums = new BigDecimal[columns];
+			this.decimalMins = new BigDecimal[columns];
+			this.decimalMaxs = new BigDecimal[columns];
+			Arrays.fill(mins, Long.MAX_VALUE);
+			Arrays.fill(maxs, Long.MIN_VALUE);
+		}
+
+		private void add(int col, Object value) {
+			counts[col]++;
+			if (!(value instanceof Number)) {
+				return;
+			}
+			Number number = (Number) value;
+			if (decimalSums[col] == null && isIntegral(number)) {
+				long l = number.longValue();
+				try {
+					sums[col] = Math.addExact(sums[col], l);
+					numbers[col]++;
+					mins[col] = Math.min(mins[col], l);
+					maxs[col] = Math.max(maxs[col], l);
+					return;
+				} catch (ArithmeticException e) {
+					//long溢出,改为BigDecimal累加
+				}
+			}
+			BigDecimal decimal = toBigDecimal(number);
+			if (decimal == null) {
+				return;
+			}
+			if (decimalSums[col] == null) {
+				toDecimal(col);
+			}
+			numbers[col]++;
+			decimalSums[col] = decimalSums[col].add(decimal);
+			if (decimalMins[col] == null || decimal.compareTo(decimalMins[col]) < 0) {
+				decimalMins[col] = decimal;
+			}
+			if (decimalMaxs[col] == null || decimal.compareTo(decimalMaxs[col]) > 0) {
+				decimalMaxs[col] = decimal;
+			}
+		}
+
+		//这一列已经累加的整数改为BigDecimal
+		private void toDecimal(int col) {
+			decimalSums[col] = BigDecimal.valueOf(sums[col]);
+			if (numbers[col] > 0) {
+				decimalMins[col] = BigDecimal.valueOf(mins[col]);
+				decimalMaxs[col] = BigDecimal.valueOf(maxs[col]);
+			}
+		}
+
+		private static boolean isIntegral(Number number) {
+			return number instanceof Integer || number instanceof Long || number instanceof Short
+					|| number instanceof Byte || number instanceof AtomicInteger || number instanceof AtomicLong;
+		}
+
+		/**
+		 * float和double按照显示的十进制值转换(0.1转换为0.1,而不是二进制的近似值)
+		 * @return NaN和无穷大返回null,不参与汇总
+		 */
+		private static BigDecimal toBigDecimal(Number number) {
+			if (number instanceof BigDecimal) {
+				return (BigDecimal) number;
+			}
+			if (number instanceof BigInteger) {
+				return new BigDecimal((BigInteger) number);
+			}
+			if (isIntegral(number)) {
+				return BigDecimal.valueOf(number.longValue());
+			}
+			if (number instanceof Float) {
+				float f = number.floatValue();
+				return Float.isNaN(f) || Float.isInfinite(f) ? null : new BigDecimal(Float.toString(f));
+			}
+			double d = number.doubleValue();
+			return Double.isNaN(d) || Double.isInfinite(d) ? null : BigDecimal.valueOf(d);
+		}
+
+		/**
+		 * @return 分组显示的名称,全部数据的汇总为null
+		 */
+		public String getLabel() {
+			return label;
+		}
+
+		/**
+		 * @return 行数
+		 */
+		public long getRows() {
+			return rows;
+		}
+
+	}
+
+}
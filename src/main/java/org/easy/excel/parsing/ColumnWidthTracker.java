@@ -0,0 +1,172 @@
+package org.easy.excel.parsing;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.RichTextString;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.FieldValue;
+
+/**
+ * 自动列宽,写入cell时记录每一列显示内容的最大宽度,导出完毕(build)时设置到sheet页,不需要再遍历一次数据;
+ * 中文,日文,韩文及全角字符按照2个字符宽度计算,多行文本按照最长的一行计算;
+ * 配置了columnWidth的字段仍然使用配置的宽度
+ * @author lisuo
+ *
+ */
+public class ColumnWidthTracker {
+
+	/** Excel的最大列宽,255个字符 */
+	public static final int MAX_COLUMN_WIDTH = 255 * 256;
+
+	/** 列宽两边的留白,单位是字符 */
+	private static final int PADDING = 2;
+
+	/** 常规格式的数字最多显示11个字符,超过后显示为科学计数法 */
+	private static final int GENERAL_NUMBER_LENGTH = 11;
+
+	/** 没有配置pattern的日期,按照yyyy-MM-dd HH:mm:ss的宽度计算 */
+	private static final int DATE_LENGTH = 19;
+
+	/** 每一列显示内容的最大宽度,单位是字符 */
+	private final int[] widths;
+
+	/** typedCells的日期列,按照Excel数据格式计算的宽度,-1表示还没有计算 */
+	private final int[] dateWidths;
+
+	public ColumnWidthTracker(int columns) {
+		this.widths = new int[columns];
+		this.dateWidths = new int[columns];
+		Arrays.fill(dateWidths, -1);
+	}
+
+	/**
+	 * 记录cell的值
+	 * @param col 列索引
+	 * @param value 写入cell的值,与setCellValue的值一致
+	 */
+	public void update(int col, Object value) {
+		if (value == null) {
+			return;
+		}
+		int width;
+		if (value instanceof String) {
+			width = displayWidth((String) value);
+		} else if (value instanceof Number) {
+			width = Math.min(String.valueOf(value).length(), GENERAL_NUMBER_LENGTH);
+		} else if (value instanceof Date) {
+			width = DATE_LENGTH;
+		} else if (value instanceof RichTextString) {
+			width = displayWidth(((RichTextString) value).getString());
+		} else {
+			width = displayWidth(value.toString());
+		}
+		if (width > widths[col]) {
+			widths[col] = width;
+		}
+	}
+
+	/**
+	 * 记录typedCells写入的原始值,按照Excel数据格式估算显示的宽度
+	 * @param col 列索引
+	 * @param value FieldCodec.toExcelValue的结果,Date或者BigDecimal
+	 * @param excelFormat Excel数据格式
+	 */
+	public void update(int col, Object value, String excelFormat) {
+		int width;
+		if (value instanceof Date) {
+			if (dateWidths[col] < 0) {
+				//日期的显示宽度只和格式有关
+				dateWidths[col] = displayWidth(excelFormat.replace("\"", "").replace("\\", "").replace("AM/PM", "AM"));
+			}
+			width = dateWidths[col];
+		} else if (value instanceof BigDecimal) {
+			BigDecimal number = (BigDecimal) value;
+			width = number.toPlainString().length();
+			if (excelFormat.indexOf(',') >= 0) {
+				//千分位分隔符
+				width += Math.max(0, number.precision() - number.scale() - 1) / 3;
+			}
+			if (excelFormat.indexOf('%') >= 0) {
+				//百分比乘以100,加上%
+				width += 3;
+			}
+		} else {
+			update(col, value);
+			return;
+		}
+		if (width > widths[col]) {
+			widths[col] = width;
+		}
+	}
+
+	/**
+	 * @param col 列索引
+	 * @return 列显示内容的最大宽度,单位是字符
+	 */
+	public int getWidth(int col) {
+		return widths[col];
+	}
+
+	/**
+	 * 设置sheet页的列宽,单位与Sheet.setColumnWidth一致(1/256个字符宽度),
+	 * 限制在minColumnWidth和maxColumnWidth之间,配置了columnWidth的字段不修改
+	 * @param sheet
+	 * @param excelDefinition
+	 */
+	public void apply(Sheet sheet, ExcelDefinition excelDefinition) {
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		Integer minColumnWidth = excelDefinition.getMinColumnWidth();
+		Integer maxColumnWidth = excelDefinition.getMaxColumnWidth();
+		int min = minColumnWidth == null ? 0 : minColumnWidth;
+		int max = maxColumnWidth == null ? MAX_COLUMN_WIDTH : Math.min(maxColumnWidth, MAX_COLUMN_WIDTH);
+		for (int i = 0; i < fieldValues.size(); i++) {
+			if (fieldValues.get(i).getColumnWidth() != null) {
+				continue;
+			}
+			int width = (widths[i] + PADDING) * 256;
+			sheet.setColumnWidth(i, Math.max(min, Math.min(max, width)));
+		}
+	}
+
+	/**
+	 * 文本显示的宽度,中文,日文,韩文及全角字符为2,其他字符为1,多行文本按照最长的一行计算
+	 * @param text
+	 * @return 单位是字符
+	 */
+	public static int displayWidth(CharSequence text) {
+		int max = 0;
+		int width = 0;
+		for (int i = 0, len = text.length(); i < len; i++) {
+			char c = text.charAt(i);
+			if (c == '\n') {
+				max = Math.max(max, width);
+				width = 0;
+			} else if (c < 0x1100) {
+				width++;
+			} else if (Character.isLowSurrogate(c)) {
+				//代理对的宽度按照高位代理计算
+				continue;
+			} else {
+				width += isWide(c) ? 2 : 1;
+			}
+		}
+		return Math.max(max, width);
+	}
+
+	//东亚宽字符:谚文,中日韩统一表意文字及符号,全角字符;代理对(扩展区汉字)按照宽字符计算
+	private static boolean isWide(char c) {
+		return (c >= 0x1100 && c <= 0x115F)
+				|| (c >= 0x2E80 && c <= 0xA4CF && c != 0x303F)
+				|| (c >= 0xAC00 && c <= 0xD7A3)
+				|| Character.isHighSurrogate(c)
+				|| (c >= 0xF900 && c <= 0xFAFF)
+				|| (c >= 0xFE30 && c <= 0xFE4F)
+				|| (c >= 0xFF00 && c <= 0xFF60)
+				|| (c >= 0xFFE0 && c <= 0xFFE6);
+	}
+
+}
@@ -0,0 +1,230 @@
+package org.easy.excel.parsing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * java日期pattern和DecimalFormat pattern转换成等价的Excel数据格式,
+ * 没有等价的Excel格式时返回null,由调用者继续按照字符串导出
+ * @author lisuo
+ *
+ */
+final class ExcelDataFormats {
+	
+	/** 不需要加引号的字面字符 */
+	private static final String PLAIN_LITERALS = " -/:.,()";
+	
+	private static final int LITERAL = 0;
+	private static final int YEAR = 1;
+	private static final int MONTH = 2;
+	private static final int DAY = 3;
+	private static final int HOUR = 4;
+	private static final int MINUTE = 5;
+	private static final int SECOND = 6;
+	private static final int OTHER = 7;
+	
+	private ExcelDataFormats() {
+	}
+	
+	/**
+	 * 日期pattern(DateTimeFormatter/SimpleDateFormat)转换成Excel日期格式,
+	 * 例如:yyyy-MM-dd HH:mm:ss -> yyyy-mm-dd hh:mm:ss,yyyy年MM月dd日 -> yyyy"年"mm"月"dd"日"
+	 * @param pattern 单个日期pattern
+	 * @return Excel日期格式,不支持的字母(时区,周数等),以及Excel无法区分月和分钟时返回null
+	 */
+	static String fromDatePattern(String pattern) {
+		List<Integer> kinds = new ArrayList<Integer>();
+		List<String> codes = new ArrayList<String>();
+		boolean amPm = pattern.indexOf('a') >= 0 && !isQuoted(pattern, pattern.indexOf('a'));
+		int len = pattern.length();
+		int i = 0;
+		while (i < len) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				//引号中的字面值,''表示单引号
+				StringBuilder literal = new StringBuilder();
+				if (i + 1 < len && pattern.charAt(i + 1) == '\'') {
+					literal.append('\'');
+					i += 2;
+				} else {
+					i++;
+					while (i < len) {
+						char c = pattern.charAt(i++);
+						if (c != '\'') {
+							literal.append(c);
+						} else if (i < len && pattern.charAt(i) == '\'') {
+							literal.append('\'');
+							i++;
+						} else {
+							break;
+						}
+					}
+				}
+				String quoted = quote(literal.toString());
+				if (quoted == null) {
+					return null;
+				}
+				add(kinds, codes, LITERAL, quoted);
+				continue;
+			}
+			int count = 1;
+			while (i + count < len && pattern.charAt(i + count) == ch) {
+				count++;
+			}
+			if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')) {
+				switch (ch) {
+				case 'y':
+				//没有w时Y按照年份处理,与FieldCodec一致;u是星期几,Excel中没有等价的格式
+				case 'Y':
+					add(kinds, codes, YEAR, count == 2 ? "yy" : "yyyy");
+					break;
+				case 'M':
+				case 'L':
+					add(kinds, codes, MONTH, count >= 4 ? "mmmm" : StringUtils.repeat('m', count));
+					break;
+				case 'd':
+					add(kinds, codes, DAY, count == 1 ? "d" : "dd");
+					break;
+				case 'H':
+					//24小时制,Excel中有AM/PM时h是12小时制
+					if (amPm) {
+						return null;
+					}
+					add(kinds, codes, HOUR, count == 1 ? "h" : "hh");
+					break;
+				case 'h':
+					//12小时制,Excel中需要AM/PM
+					if (!amPm) {
+						return null;
+					}
+					add(kinds, codes, HOUR, count == 1 ? "h" : "hh");
+					break;
+				case 'm':
+					add(kinds, codes, MINUTE, count == 1 ? "m" : "mm");
+					break;
+				case 's':
+					add(kinds, codes, SECOND, count == 1 ? "s" : "ss");
+					break;
+				case 'S':
+					//毫秒,Excel最多3位,只能跟在秒后面
+					if (count > 3 || codes.size() < 2 || !".".equals(codes.get(codes.size() - 1))
+							|| kinds.get(kinds.size() - 2) != SECOND) {
+						return null;
+					}
+					add(kinds, codes, OTHER, StringUtils.repeat('0', count));
+					break;
+				case 'E':
+					add(kinds, codes, OTHER, count >= 4 ? "dddd" : "ddd");
+					break;
+				case 'a':
+					add(kinds, codes, OTHER, "AM/PM");
+					break;
+				default:
+					return null;
+				}
+			} else {
+				String literal = StringUtils.repeat(ch, count);
+				String code = PLAIN_LITERALS.indexOf(ch) >= 0 ? literal : quote(literal);
+				if (code == null) {
+					return null;
+				}
+				add(kinds, codes, LITERAL, code);
+			}
+			i += count;
+		}
+		//Excel中m/mm跟在小时后面,或者在秒前面时表示分钟,否则表示月
+		for (int j = 0; j < kinds.size(); j++) {
+			int kind = kinds.get(j);
+			String code = codes.get(j);
+			if (kind == MONTH && code.length() <= 2 && (previous(kinds, j) == HOUR || next(kinds, j) == SECOND)) {
+				return null;
+			}
+			if (kind == MINUTE && previous(kinds, j) != HOUR && next(kinds, j) != SECOND) {
+				return null;
+			}
+		}
+		StringBuilder format = new StringBuilder();
+		for (String code : codes) {
+			format.append(code);
+		}
+		return format.toString();
+	}
+	
+	/**
+	 * DecimalFormat pattern转换成Excel数字格式,例如:#,##0.00,0.00%,¥#,##0.00
+	 * @param pattern DecimalFormat.toPattern()
+	 * @return Excel数字格式,科学计数法,千分比,货币符号占位符返回null
+	 */
+	static String fromDecimalPattern(String pattern) {
+		StringBuilder format = new StringBuilder();
+		int len = pattern.length();
+		for (int i = 0; i < len; i++) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				int end = pattern.indexOf('\'', i + 1);
+				if (end < 0) {
+					return null;
+				}
+				String quoted = quote(end == i + 1 ? "'" : pattern.substring(i + 1, end));
+				if (quoted == null) {
+					return null;
+				}
+				format.append(quoted);
+				i = end;
+			} else if ("0#,.%;-+$() ".indexOf(ch) >= 0) {
+				format.append(ch);
+			} else if (ch == 'E' || ch == '‰' || ch == '¤') {
+				return null;
+			} else {
+				format.append(quote(String.valueOf(ch)));
+			}
+		}
+		return format.toString();
+	}
+	
+	//Excel格式中的字面值用双引号
+	private static String quote(String literal) {
+		if (literal.indexOf('"') >= 0) {
+			return null;
+		}
+		return literal.isEmpty() ? "" : "\"" + literal + "\"";
+	}
+	
+	private static boolean isQuoted(String pattern, int index) {
+		boolean quoted = false;
+		for (int i = 0; i < index; i++) {
+			if (pattern.charAt(i) == '\'') {
+				quoted = !quoted;
+			}
+		}
+		return quoted;
+	}
+	
+	private static void add(List<Integer> kinds, List<String> codes, int kind, String code) {
+		kinds.add(kind);
+		codes.add(code);
+	}
+	
+	//前一个不是字面值的部分
+	private static int previous(List<Integer> kinds, int index) {
+		for (int i = index - 1; i >= 0; i--) {
+			if (kinds.get(i) != LITERAL) {
+				return kinds.get(i);
+			}
+		}
+		return LITERAL;
+	}
+	
+	//后一个不是字面值的部分
+	private static int next(List<Integer> kinds, int index) {
+		for (int i = index + 1; i < kinds.size(); i++) {
+			if (kinds.get(i) != LITERAL) {
+				return kinds.get(i);
+			}
+		}
+		return LITERAL;
+	}
+	
+}
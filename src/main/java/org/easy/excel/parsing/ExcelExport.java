@@ -1,30 +1,65 @@
 package org.easy.excel.parsing;
 
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.IteratorUtils;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.DataFormat;
-import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFRichTextString;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.easy.excel.ExcelDefinitionReader;
+import org.easy.excel.config.AggregateType;
 import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.config.ExportSheet;
 import org.easy.excel.config.FieldValue;
 import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.CellStyleRegistry.StyleKey;
+import org.easy.excel.parsing.ColumnAggregator.Accumulator;
+import org.easy.excel.parsing.XSSFDirectWriter.SheetWriter;
 import org.easy.excel.result.ExcelExportResult;
-import org.springframework.beans.AbstractNestablePropertyAccessor;
-import org.springframework.beans.AbstractPropertyAccessor;
+import org.easy.excel.result.ExcelShardExport;
 import org.springframework.beans.BeanUtils;
 import org.springframework.util.TypeUtils;
 
@@ -35,89 +70,141 @@ import org.springframework.util.TypeUtils;
  */
 public class ExcelExport extends AbstractExcelResolver{
 
+	private static final AtomicInteger SHEET_THREAD_NUMBER = new AtomicInteger();
+	
+	/** sheet页名称的最大长度 */
+	private static final int MAX_SHEET_NAME_LENGTH = 31;
+	
+	/** 合计行的名称 */
+	private static final String FOOTER_TOTAL = "合计";
+	
+	/** 小计行名称的后缀,前面是分组的名称 */
+	private static final String FOOTER_SUBTOTAL = "小计";
 	
 	public ExcelExport(ExcelDefinitionReader definitionReader) {
 		super(definitionReader);
 	}
 	
-	//POI 创建cell 样式是有数量限制的，这里为了减少创建，预先创建好需要的单元格样式
+	//POI 创建cell 样式是有数量限制的，这里为了减少创建，预先创建好需要的单元格样式;
+	//样式从Workbook级别的CellStyleRegistry获取,同一个Workbook中相同属性的样式只创建一次,按照列索引保存
 	public static class CellStyleHolder{
 		
-		private CellStyle defaultAlignCellStyle;
+		private final Workbook workbook;
+		private final CellStyleRegistry registry;
 		
-		private Map<FieldValue,CellStyle> titleCellStyles = new HashMap<>();
-		private Map<FieldValue,CellStyle> columnCellStyles = new HashMap<>();
+		/** 按照列索引保存的样式,与ExcelDefinition中字段的顺序一致 */
+		private final CellStyle[] titleCellStyles;
+		private final CellStyle[] columnCellStyles;
+		/** typedCells导出原始值时,在数据样式的基础上设置了Excel数据格式的样式 */
+		private final CellStyle[] typedCellStyles;
+		/** 数据样式的属性,用于在数据样式的基础上获取其他数据格式的样式 */
+		private final StyleKey[] columnStyleKeys;
+		/** 字段 -> 列索引 */
+		private final Map<FieldValue,Integer> columns = new HashMap<>();
 		
 		public CellStyleHolder(Workbook workbook,ExcelDefinition excelDefinition) {
-			this.init(workbook, excelDefinition);
+			this.workbook = workbook;
+			this.registry = CellStyleRegistry.of(workbook);
+			List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+			int size = fieldValues.size();
+			this.titleCellStyles = new CellStyle[size];
+			this.columnCellStyles = new CellStyle[size];
+			this.typedCellStyles = new CellStyle[size];
+			this.columnStyleKeys = new StyleKey[size];
+			this.init(excelDefinition);
 		}
 		
-		private void init(Workbook workbook,ExcelDefinition excelDefinition) {
+		private void init(ExcelDefinition excelDefinition) {
 			//文本类型(text)
-			DataFormat format = workbook.createDataFormat();
-			short textFormat = format.getFormat("@");
-			
-			if(excelDefinition.getDefaultAlign()!=null) {
-				defaultAlignCellStyle = workbook.createCellStyle();
-				defaultAlignCellStyle.setAlignment(excelDefinition.getDefaultAlign());
-			}
+			String textFormat = "@";
+			StyleKey defaultKey = new StyleKey(excelDefinition.getDefaultAlign(), null, null, null);
 			List<FieldValue> fieldValues = excelDefinition.getFieldValues();
-			for (FieldValue fieldValue : fieldValues) {
+			for (int i = 0; i < fieldValues.size(); i++) {
+				FieldValue fieldValue = fieldValues.get(i);
+				columns.put(fieldValue, i);
+				StyleKey titleKey = defaultKey;
 				if(fieldValue.getAlign()!=null 
 						|| fieldValue.getTitleBgColor()!=null 
 						|| fieldValue.getTitleFountColor() !=null 
 						|| fieldValue.isForceText()){
-					CellStyle cellStyle = workbook.createCellStyle();
-					if(fieldValue.getAlign()!=null) {
-						//设置cell 对齐方式
-						cellStyle.setAlignment(fieldValue.getAlign());
-					}
-					if(fieldValue.getTitleBgColor()!=null) {
-						//设置标题背景色
-						cellStyle.setFillForegroundColor(fieldValue.getTitleBgColor());
-						cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-					}
-					if(fieldValue.getTitleFountColor()!=null) {
-						//设置标题字体色
-						Font font = workbook.createFont();
-						font.setColor(fieldValue.getTitleFountColor());
-						cellStyle.setFont(font);
-					}
-					if(fieldValue.isForceText()) {
-						//设置单元格样式为text
-						cellStyle.setDataFormat(textFormat);
-					}
-					titleCellStyles.put(fieldValue, cellStyle);
+					//对齐方式,标题背景色,标题字体色,强制为text
+					titleKey = new StyleKey(fieldValue.getAlign(), fieldValue.getTitleBgColor(), fieldValue.getTitleFountColor(),
+							fieldValue.isForceText() ? textFormat : null);
 				}
+				StyleKey columnKey = defaultKey;
 				//标题和数据样式不一致,需要个性化的样式
 				if(!fieldValue.isUniformStyle()) {
 					if(fieldValue.getAlign()!=null 
 							||fieldValue.isForceText()) {
-						CellStyle colCellStyle = workbook.createCellStyle();
-						if(fieldValue.getAlign()!=null) {
-							colCellStyle.setAlignment(fieldValue.getAlign());
-						}
-						if(fieldValue.isForceText()) {
-							//设置单元格样式为text
-							colCellStyle.setDataFormat(textFormat);
-						}
-						columnCellStyles.put(fieldValue, colCellStyle);
+						columnKey = new StyleKey(fieldValue.getAlign(), null, null, fieldValue.isForceText() ? textFormat : null);
 					}
 				}else {
-					columnCellStyles.put(fieldValue, titleCellStyles.get(fieldValue));
+					columnKey = titleKey;
+				}
+				titleCellStyles[i] = registry.getCellStyle(workbook, titleKey);
+				columnCellStyles[i] = registry.getCellStyle(workbook, columnKey);
+				columnStyleKeys[i] = columnKey;
+				//原始的日期,数字使用等价的Excel数据格式,强制为text和自定义转换器的字段仍然导出字符串
+				if(excelDefinition.isTypedCells() && !fieldValue.isForceText() && fieldValue.getCellValueConverterName()==null) {
+					String excelFormat = fieldValue.getCodec().getExcelFormat();
+					if(excelFormat != null) {
+						typedCellStyles[i] = registry.getCellStyle(workbook, columnKey.withDataFormat(excelFormat));
+					}
 				}
-				
 			}
 		}
 		
 		public CellStyle getCellStyle(FieldValue fieldValue,boolean isTitle) {
-			if(isTitle) {
-				CellStyle cellStyle = titleCellStyles.get(fieldValue);
-				return cellStyle != null ? cellStyle:defaultAlignCellStyle;
-			}else {
-				CellStyle cellStyle = columnCellStyles.get(fieldValue);
-				return cellStyle != null ? cellStyle:defaultAlignCellStyle;
-			}
+			Integer col = columns.get(fieldValue);
+			return col == null ? null : getCellStyle(col, isTitle);
+		}
+		
+		/**
+		 * 按照列索引获取样式
+		 * @param col 列索引,与ExcelDefinition中字段的顺序一致
+		 * @param isTitle 是否是标题
+		 * @return 没有样式时返回null
+		 */
+		public CellStyle getCellStyle(int col,boolean isTitle) {
+			return isTitle ? titleCellStyles[col] : columnCellStyles[col];
+		}
+		
+		/**
+		 * 导出原始值使用的样式
+		 * @param fieldValue
+		 * @return 没有开启typedCells,或者字段没有等价的Excel数据格式时返回null
+		 */
+		public CellStyle getTypedCellStyle(FieldValue fieldValue) {
+			Integer col = columns.get(fieldValue);
+			return col == null ? null : typedCellStyles[col];
+		}
+		
+		/**
+		 * 按照列索引获取导出原始值使用的样式
+		 * @param col 列索引
+		 * @return 没有开启typedCells,或者字段没有等价的Excel数据格式时返回null
+		 */
+		public CellStyle getTypedCellStyle(int col) {
+			return typedCellStyles[col];
+		}
+		
+		/**
+		 * 在列的数据样式的基础上使用指定的数据格式,从注册表获取,相同的格式只创建一次
+		 * @param col 列索引
+		 * @param dataFormat 数据格式,例如:yyyy-mm-dd hh:mm:ss
+		 * @return
+		 */
+		public CellStyle getCellStyle(int col,String dataFormat) {
+			return registry.getCellStyle(workbook, columnStyleKeys[col].withDataFormat(dataFormat));
+		}
+		
+		/**
+		 * 获取指定颜色的字体,从注册表获取,相同颜色的字体只创建一次
+		 * @param color
+		 * @return
+		 */
+		public Font getFont(short color) {
+			return registry.getFont(workbook, color);
 		}
 		
 	}
@@ -133,37 +220,597 @@ public class ExcelExport extends AbstractExcelResolver{
 	 * @throws Exception
 	 */
 	public ExcelExportResult createExcel(String id,List<?> beans,ExcelHeader header,List<String> fields,Workbook workbook) {
+		return createExcel(id, beans, header, fields, workbook, null);
+	}
+	
+	/**
+	 * 创建导出Excel,如果集合没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param beans  ExcelXML配置的bean集合
+	 * @param header Excel头信息(在标题之前)
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @param options 导出选项,优先级大于ExcelDefinition中的配置,可以为null
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,List<?> beans,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
 		ExcelExportResult exportResult = null;
 		if(!CollectionUtils.isEmpty(beans)){
-			//从注册信息中获取Bean信息
-			ExcelDefinition excelDefinition = definitionReader.getRegistry().get(id);
+			ExcelDefinition excelDefinition = applyOptions(getExcelDefinition(id, beans.get(0).getClass(), fields), options);
+			exportResult = doCreateExcel(excelDefinition,beans,header,workbook);
+		}
+		return exportResult;
+	}
+	
+	/**
+	 * 创建导出Excel,逐个读取迭代器中的bean写入Excel,不需要持有全部数据,如果迭代器没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param beans  ExcelXML配置的bean迭代器
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,Iterator<?> beans,ExcelHeader header,List<String> fields,Workbook workbook) {
+		return createExcel(id, beans, header, fields, workbook, null);
+	}
+	
+	/**
+	 * 创建导出Excel,逐个读取迭代器中的bean写入Excel,不需要持有全部数据,如果迭代器没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param beans  ExcelXML配置的bean迭代器
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @param options 导出选项,优先级大于ExcelDefinition中的配置,可以为null
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,Iterator<?> beans,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
+		if(beans == null || !beans.hasNext()){
+			return null;
+		}
+		//根据第一个bean的类型确定Excel定义
+		Object first = beans.next();
+		ExcelDefinition excelDefinition = applyOptions(getExcelDefinition(id, first.getClass(), fields), options);
+		ExcelExportResult exportResult = doCreateExcel(excelDefinition,null,header,workbook);
+		try {
+			exportResult.append(Collections.singletonList(first));
+			return exportResult.append(beans);
+		} catch (RuntimeException | Error e) {
+			//导出过程中创建的Workbook,失败时关闭,删除临时文件
+			if(workbook == null){
+				closeOnError(exportResult.getWorkbook(), e);
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * 创建导出Excel,分页获取数据写入Excel,直到获取的数据为空,不需要持有全部数据,如果第一页没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param fetcher 分页获取数据
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,ExcelPageFetcher<?> fetcher,ExcelHeader header,List<String> fields,Workbook workbook) {
+		return createExcel(id, fetcher, header, fields, workbook, new ExportOptions());
+	}
+	
+	/**
+	 * 创建导出Excel,分页获取数据写入Excel,直到获取的数据为空,如果第一页没有数据,返回null;
+	 * options.prefetchPages大于0时,由后台线程预先获取后续的页,获取数据和写入Excel同时进行
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param fetcher 分页获取数据
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @param options 导出选项,可以为null
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,ExcelPageFetcher<?> fetcher,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
+		Iterator<Object> beans = pageIterator(fetcher, options);
+		try {
+			return createExcel(id, beans, header, fields, workbook, options);
+		} finally {
+			closePageIterator(beans);
+		}
+	}
+	
+	/**
+	 * 分页读取数据的迭代器
+	 * @param fetcher
+	 * @param options 导出选项,为null时使用默认配置(不预先获取)
+	 * @return
+	 */
+	public Iterator<Object> pageIterator(ExcelPageFetcher<?> fetcher,ExportOptions options){
+		if(options != null && options.getPrefetchPages() > 0){
+			return new PrefetchPageIterator<Object>(fetcher, options.getPrefetchPages());
+		}
+		return new PageIterator<Object>(fetcher);
+	}
+	
+	/**
+	 * 关闭分页迭代器,终止预先获取数据的线程
+	 * @param beans
+	 */
+	public void closePageIterator(Iterator<Object> beans){
+		if(beans instanceof PrefetchPageIterator){
+			((PrefetchPageIterator<Object>) beans).close();
+		}
+	}
+	
+	/**
+	 * 创建导出Excel,直接读取ResultSet的每一行写入Excel,不创建bean;
+	 * 字段与列标签对应(忽略大小写,以及下划线),pattern,format,decimalFormatPattern和自定义转换器的规则不变,
+	 * 转换器接收的bean参数为当前行的ResultSet;ResultSet由调用者关闭,如果没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param resultSet 查询结果,从当前位置的下一行开始读取
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param workbook
+	 * @param options 导出选项,fetchSize大于0时设置ResultSet的fetchSize,可以为null
+	 * @return
+	 */
+	public ExcelExportResult createExcel(String id,ResultSet resultSet,ExcelHeader header,List<String> fields,Workbook workbook,ExportOptions options) {
+		ExcelDefinition excelDefinition = definitionReader.getRegistry().get(id);
+		if(excelDefinition==null){
+			throw new ExcelException("没有找到 ["+id+"] 的配置信息");
+		}
+		excelDefinition = applyOptions(dynamicCreateExcelDefinition(excelDefinition,fields), options);
+		try {
+			if(options != null && options.getFetchSize() > 0){
+				resultSet.setFetchSize(options.getFetchSize());
+			}
+			if(!resultSet.next()){
+				return null;
+			}
+			PropertyReader[] readers = ResultSetColumnAccess.create(resultSet.getMetaData(), excelDefinition.getFieldValues());
+			ExcelExportResult exportResult = doCreateExcel(excelDefinition,null,header,workbook);
+			try {
+				createRows(exportResult, new ResultSetIterator(resultSet, true), readers);
+			} catch (RuntimeException | Error e) {
+				if(workbook == null){
+					closeOnError(exportResult.getWorkbook(), e);
+				}
+				throw e;
+			}
+			return exportResult;
+		} catch (SQLException e) {
+			throw new ExcelException(e);
+		}
+	}
+	
+	/**
+	 * 创建分成多个Excel文件的导出,每个文件最多shardRows行数据,调用ExcelShardExport.write时才读取数据写入zip,
+	 * 如果迭代器没有数据,返回null
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param beans  ExcelXML配置的bean迭代器
+	 * @param header Excel头信息(在标题之前),buildHeader方法的beans参数为null
+	 * @param fields 指定导出的字段
+	 * @param shardRows 每个Excel文件的最大数据行数
+	 * @param options 导出选项,每个文件使用相同的配置,可以为null
+	 * @return
+	 */
+	public ExcelShardExport createExcelShards(String id,Iterator<?> beans,ExcelHeader header,List<String> fields,int shardRows,ExportOptions options) {
+		if(shardRows <= 0){
+			throw new ExcelException("每个Excel文件的行数必须大于0");
+		}
+		if(beans == null || !beans.hasNext()){
+			return null;
+		}
+		//根据第一个bean的类型确定Excel定义,所有文件使用同一个定义
+		Object first = beans.next();
+		ExcelDefinition excelDefinition = applyOptions(getExcelDefinition(id, first.getClass(), fields), options);
+		Iterator<?> all = IteratorUtils.chainedIterator(IteratorUtils.singletonIterator(first), beans);
+		return new ExcelShardExport(excelDefinition, all, header, shardRows, this);
+	}
+	
+	/**
+	 * 逐个创建Excel文件写入zip,每个文件写完后关闭Workbook,删除SXSSF临时文件,再创建下一个文件;
+	 * zip中的条目不再压缩(xlsx本身已经压缩),按照流的方式写入,不需要知道文件大小
+	 * @param shards
+	 * @param excelName Excel名字(不需要后缀)
+	 * @param output 输出流,由调用者关闭
+	 * @return Excel文件的个数
+	 */
+	public int writeShards(ExcelShardExport shards,String excelName,OutputStream output) {
+		ExcelDefinition excelDefinition = shards.getExcelDefinition();
+		Iterator<?> beans = shards.getBeans();
+		final ZipArchiveOutputStream zos = new ZipArchiveOutputStream(output);
+		zos.setEncoding(StandardCharsets.UTF_8.name());
+		zos.setLevel(Deflater.NO_COMPRESSION);
+		//Workbook写完后不能关闭zip,写入当前的zip条目
+		OutputStream entryOut = new FilterOutputStream(zos) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				zos.write(b, off, len);
+			}
+			@Override
+			public void close() throws IOException {
+				flush();
+			}
+		};
+		int count = 0;
+		try {
+			do{
+				count++;
+				Workbook workbook = newWorkbook(excelDefinition);
+				try {
+					ExcelExportResult exportResult = doCreateExcel(excelDefinition, null, shards.getHeader(), workbook);
+					exportResult.append(IteratorUtils.boundedIterator(beans, shards.getShardRows()));
+					//设置自动列宽
+					exportResult.build();
+					zos.putArchiveEntry(new ZipArchiveEntry(excelName + "_" + count + ".xlsx"));
+					workbook.write(entryOut);
+					zos.closeArchiveEntry();
+				} finally {
+					workbook.close();
+				}
+			}while(beans.hasNext());
+			zos.finish();
+			return count;
+		} catch (IOException e) {
+			throw new ExcelException("写入Excel失败",e);
+		}
+	}
+	
+	/**
+	 * 不经过POI的Workbook,Row,Cell对象,直接把xlsx写入输出流,适用于数据量非常大的导出;
+	 * 布局与createExcel一致(标题行,列宽,样式,requiredTag),不支持ExcelHeader和Excel模板,
+	 * 字符串以inlineStr写入,数字,日期,布尔值写入原始值;输出流由调用者关闭
+	 * @param id	 ExcelXML配置Bean的ID
+	 * @param beans  ExcelXML配置的bean迭代器,没有数据时只写入标题
+	 * @param fields 指定导出的字段
+	 * @param out 输出流
+	 * @param options 导出选项,可以指定compressionLevel,可以为null
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(String id,Iterator<?> beans,List<String> fields,OutputStream out,ExportOptions options) {
+		Object first = beans != null && beans.hasNext() ? beans.next() : null;
+		ExcelDefinition excelDefinition = applyOptions(getExportDefinition(id, first, fields, null), options);
+		XSSFDirectWriter writer = new XSSFDirectWriter(out, getCompressionLevel(excelDefinition), getDeflateParallelism(excelDefinition));
+		try {
+			SheetWriter sheet = writer.startSheet(excelDefinition);
+			int count = writeRows(sheet, first, beans);
+			writer.finish();
+			return count;
+		} catch (IOException e) {
+			throw new ExcelException("写入Excel失败",e);
+		}
+	}
+	
+	/**
+	 * 多个sheet页并行写入一个xlsx,每个sheet页在独立的线程中写入临时文件,
+	 * 然后按照sheets的顺序写入输出流;样式在调用线程中统一创建,字符串以inlineStr写入,不需要合并共享字符串;
+	 * 每个sheet页的布局与writeExcel一致,自定义转换器需要是线程安全的;输出流由调用者关闭
+	 * @param sheets 导出的sheet页,同一个配置ID导出多个sheet页时需要指定不同的sheetname
+	 * @param out 输出流
+	 * @param options 导出选项,可以指定parallelism,compressionLevel,tempFileDir,compressTempFiles,可以为null
+	 * @return 写入的数据行数
+	 */
+	public int writeExcel(List<ExportSheet> sheets,OutputStream out,ExportOptions options) {
+		if(CollectionUtils.isEmpty(sheets)){
+			throw new ExcelException("至少需要一个sheet页");
+		}
+		//在调用线程中确定sheet页的顺序,定义和样式
+		final List<SheetWriter> sheetWriters = new ArrayList<SheetWriter>(sheets.size());
+		final List<Object> firstBeans = new ArrayList<Object>(sheets.size());
+		XSSFDirectWriter writer = null;
+		for(ExportSheet exportSheet : sheets){
+			Iterator<?> beans = exportSheet.getBeans();
+			Object first = beans != null && beans.hasNext() ? beans.next() : null;
+			ExcelDefinition excelDefinition = applyOptions(getExportDefinition(exportSheet.getId(), first,
+					exportSheet.getFields(), exportSheet.getSheetname()), options);
+			if(writer == null){
+				writer = new XSSFDirectWriter(out, getCompressionLevel(excelDefinition), getDeflateParallelism(excelDefinition));
+			}
+			sheetWriters.add(writer.createSheet(excelDefinition));
+			firstBeans.add(first);
+		}
+		int parallelism = options != null && options.getParallelism() > 0 ? options.getParallelism() : Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, sheets.size()), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "easy-excel-sheet-" + SHEET_THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		final AtomicBoolean aborted = new AtomicBoolean();
+		List<Future<SheetPart>> futures = new ArrayList<Future<SheetPart>>(sheets.size());
+		int done = 0;
+		try {
+			for(int i=0;i<sheets.size();i++){
+				final SheetWriter sheet = sheetWriters.get(i);
+				final Object first = firstBeans.get(i);
+				final Iterator<?> beans = sheets.get(i).getBeans();
+				futures.add(executor.submit(new Callable<SheetPart>() {
+					@Override
+					public SheetPart call() throws Exception {
+						return writeSheetPart(sheet, first, beans, aborted);
+					}
+				}));
+			}
+			//按照顺序写入先完成的sheet页,后面的sheet页继续在其他线程中写入
+			int count = 0;
+			for(;done<futures.size();done++){
+				SheetPart part = futures.get(done).get();
+				try (InputStream in = part.openStream()) {
+					writer.writeSheetPart(sheetWriters.get(done), in);
+				} finally {
+					part.delete();
+				}
+				count += part.rows;
+			}
+			writer.finish();
+			return count;
+		} catch (IOException e) {
+			throw new ExcelException("写入Excel失败",e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExcelException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if(cause instanceof RuntimeException){
+				throw (RuntimeException) cause;
+			}
+			if(cause instanceof Error){
+				throw (Error) cause;
+			}
+			throw new ExcelException(cause);
+		} finally {
+			aborted.set(true);
+			executor.shutdown();
+			//删除没有写入的临时文件
+			for(int i=done;i<futures.size();i++){
+				try {
+					futures.get(i).get().delete();
+				} catch (Exception e) {
+					//写入失败的sheet页已经删除了临时文件
+				}
+			}
+		}
+	}
+	
+	/**
+	 * 在当前线程中把一个sheet页写入临时文件
+	 */
+	private SheetPart writeSheetPart(SheetWriter sheet,Object first,final Iterator<?> beans,final AtomicBoolean aborted) throws IOException {
+		ExcelDefinition excelDefinition = sheet.getExcelDefinition();
+		SheetPart part = new SheetPart(excelDefinition);
+		boolean success = false;
+		try (Writer out = new BufferedWriter(new OutputStreamWriter(part.createStream(), StandardCharsets.UTF_8), 1 << 16)) {
+			sheet.begin(out);
+			//其他sheet页失败时停止写入
+			part.rows = writeRows(sheet, first, beans == null ? null : new Iterator<Object>() {
+				@Override
+				public boolean hasNext() {
+					return !aborted.get() && beans.hasNext();
+				}
+				@Override
+				public Object next() {
+					return beans.next();
+				}
+			});
+			sheet.end();
+			success = true;
+		} finally {
+			if(!success){
+				part.delete();
+			}
+		}
+		return part;
+	}
+	
+	/**
+	 * 在临时文件中写好的sheet xml
+	 */
+	private static class SheetPart {
+		
+		private final File file;
+		private final boolean compress;
+		/** 写入的数据行数 */
+		private int rows;
+		
+		SheetPart(ExcelDefinition excelDefinition) throws IOException {
+			if(excelDefinition.getTempFileDir() != null){
+				File tempFileDir = new File(excelDefinition.getTempFileDir());
+				if(!tempFileDir.isDirectory() && !tempFileDir.mkdirs()){
+					throw new ExcelException("临时文件目录 ["+excelDefinition.getTempFileDir()+"] 不存在,并且无法创建");
+				}
+				this.file = File.createTempFile("easy-excel-sheet", ".xml", tempFileDir);
+			}else{
+				this.file = TempFile.createTempFile("easy-excel-sheet", ".xml");
+			}
+			this.compress = Boolean.TRUE.equals(excelDefinition.getCompressTempFiles());
+		}
+		
+		OutputStream createStream() throws IOException {
+			OutputStream out = new FileOutputStream(file);
+			return compress ? new GZIPOutputStream(out, 1 << 16) : out;
+		}
+		
+		InputStream openStream() throws IOException {
+			InputStream in = new FileInputStream(file);
+			return compress ? new GZIPInputStream(in, 1 << 16) : in;
+		}
+		
+		void delete() {
+			file.delete();
+		}
+	}
+	
+	/**
+	 * 获取导出的Excel定义,有数据时按照第一个bean的实际类型获取
+	 * @param id ExcelXML配置Bean的ID
+	 * @param first 第一个bean,可以为null
+	 * @param fields 指定导出的字段
+	 * @param sheetname 指定sheet页名称,为null时使用配置的sheetname
+	 * @return
+	 */
+	private ExcelDefinition getExportDefinition(String id,Object first,List<String> fields,String sheetname){
+		ExcelDefinition excelDefinition;
+		if(first != null){
+			excelDefinition = getExcelDefinition(id, first.getClass(), fields);
+		}else{
+			excelDefinition = definitionReader.getRegistry().get(id);
 			if(excelDefinition==null){
 				throw new ExcelException("没有找到 ["+id+"] 的配置信息");
 			}
-			//实际传入的bean类型
-			Class<?> realClass = beans.get(0).getClass();
-			//传入的类型是excel配置class的类型,或者是它的子类,直接进行生成
-			if(realClass==excelDefinition.getClazz() || TypeUtils.isAssignable(excelDefinition.getClazz(),realClass)){
-				//导出指定字段的标题不是null,动态创建,Excel定义
-				excelDefinition = dynamicCreateExcelDefinition(excelDefinition,fields);
+			excelDefinition = dynamicCreateExcelDefinition(excelDefinition,fields);
+		}
+		if(sheetname != null){
+			ExcelDefinition newDef = new ExcelDefinition();
+			BeanUtils.copyProperties(excelDefinition, newDef);
+			newDef.setSheetname(sheetname);
+			excelDefinition = newDef;
+		}
+		return excelDefinition;
+	}
+	
+	private static int getCompressionLevel(ExcelDefinition excelDefinition){
+		return excelDefinition.getCompressionLevel() == null ? Deflater.DEFAULT_COMPRESSION : excelDefinition.getCompressionLevel();
+	}
+	
+	private static int getDeflateParallelism(ExcelDefinition excelDefinition){
+		return excelDefinition.getDeflateParallelism() == null ? 1 : excelDefinition.getDeflateParallelism();
+	}
+	
+	/**
+	 * 写入第一个bean和迭代器中剩余的bean
+	 * @param sheet
+	 * @param first 第一个bean,为null时没有数据
+	 * @param beans
+	 * @return 写入的行数
+	 */
+	private int writeRows(SheetWriter sheet,Object first,Iterator<?> beans) throws IOException {
+		if(first == null){
+			return 0;
+		}
+		return writeRows(sheet, Collections.singletonList(first).iterator()) + writeRows(sheet, beans);
+	}
+	
+	/**
+	 * 逐个读取迭代器中的bean,直接写入行
+	 * @param sheet
+	 * @param beans
+	 * @return 写入的行数
+	 */
+	private int writeRows(SheetWriter sheet,Iterator<?> beans) throws IOException {
+		ExcelDefinition excelDefinition = sheet.getExcelDefinition();
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		int size = fieldValues.size();
+		Class<?> beanClass = null;
+		PropertyAccess[] accesses = null;
+		int count = 0;
+		while(beans.hasNext()){
+			Object bean = beans.next();
+			//属性访问器按照bean的实际类型编译,类型变化时重新获取
+			if(bean.getClass() != beanClass){
+				beanClass = bean.getClass();
+				accesses = getPropertyAccesses(excelDefinition, beanClass);
+			}
+			sheet.startRow();
+			int rowNum = sheet.getRowIndex();
+			for(int i=0;i<size;i++){
+				FieldValue fieldValue = fieldValues.get(i);
+				Object value = accesses[i].get(bean);
+				//写入原始的日期,数字,不需要格式化
+				if(value != null && sheet.isTyped(i)){
+					Object excelValue = fieldValue.getCodec().toExcelValue(value);
+					if(excelValue != null){
+						sheet.writeTypedCell(i, excelValue);
+						continue;
+					}
+				}
+				sheet.writeCell(i, convert(bean,value,fieldValue, Type.EXPORT,rowNum));
 			}
-			//传入的类型是excel配置class的类型的父类,那么进行向上转型,只获取配置中父类存在的属性
-			else if(TypeUtils.isAssignable(realClass,excelDefinition.getClazz())){
+			sheet.endRow();
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * 导出选项中配置的SXSSF参数覆盖ExcelDefinition中的配置
+	 * @param excelDefinition
+	 * @param options
+	 * @return 没有需要覆盖的配置时返回原来的ExcelDefinition
+	 */
+	private ExcelDefinition applyOptions(ExcelDefinition excelDefinition,ExportOptions options){
+		if(options == null || (options.getRowAccessWindowSize() == null && options.getFlushRows() == null
+				&& options.getCompressTempFiles() == null && options.getTempFileDir() == null && options.getCompressionLevel() == null
+				&& options.getDeflateParallelism() == null && options.getSheetMaxRows() == null && options.getTypedCells() == null
+				&& options.getAutoWidth() == null)){
+			return excelDefinition;
+		}
+		ExcelDefinition newDef = new ExcelDefinition();
+		BeanUtils.copyProperties(excelDefinition, newDef);
+		if(options.getRowAccessWindowSize() != null){
+			newDef.setRowAccessWindowSize(options.getRowAccessWindowSize());
+		}
+		if(options.getFlushRows() != null){
+			newDef.setFlushRows(options.getFlushRows());
+		}
+		if(options.getCompressTempFiles() != null){
+			newDef.setCompressTempFiles(options.getCompressTempFiles());
+		}
+		if(options.getTempFileDir() != null){
+			newDef.setTempFileDir(options.getTempFileDir());
+		}
+		if(options.getCompressionLevel() != null){
+			newDef.setCompressionLevel(options.getCompressionLevel());
+		}
+		if(options.getDeflateParallelism() != null){
+			newDef.setDeflateParallelism(options.getDeflateParallelism());
+		}
+		if(options.getSheetMaxRows() != null){
+			newDef.setSheetMaxRows(options.getSheetMaxRows());
+		}
+		if(options.getTypedCells() != null){
+			newDef.setTypedCells(options.getTypedCells());
+		}
+		if(options.getAutoWidth() != null){
+			newDef.setAutoWidth(options.getAutoWidth());
+		}
+		return newDef;
+	}
+	
+	/**
+	 * 根据实际传入的bean类型获取Excel定义
+	 * @param id ExcelXML配置Bean的ID
+	 * @param realClass 实际传入的bean类型
+	 * @param fields 指定导出的字段
+	 * @return
+	 */
+	private ExcelDefinition getExcelDefinition(String id,Class<?> realClass,List<String> fields){
+		//从注册信息中获取Bean信息
+		ExcelDefinition excelDefinition = definitionReader.getRegistry().get(id);
+		if(excelDefinition==null){
+			throw new ExcelException("没有找到 ["+id+"] 的配置信息");
+		}
+		//传入的类型是excel配置class的类型,或者是它的子类,直接进行生成
+		if(realClass==excelDefinition.getClazz() || TypeUtils.isAssignable(excelDefinition.getClazz(),realClass)){
+			//导出指定字段的标题不是null,动态创建,Excel定义
+			excelDefinition = dynamicCreateExcelDefinition(excelDefinition,fields);
+		}
+		//传入的类型是excel配置class的类型的父类,那么进行向上转型,只获取配置中父类存在的属性
+		else if(TypeUtils.isAssignable(realClass,excelDefinition.getClazz())){
+			excelDefinition = extractSuperClassFields(excelDefinition, fields, realClass);
+		}else{
+			//判断传入的集合与配置文件中的类型拥有共同的父类,如果有则向上转型
+			Object superClass = BeanUtil.getEqSuperClass(realClass, excelDefinition.getClazz());
+			if(superClass!=Object.class){
 				excelDefinition = extractSuperClassFields(excelDefinition, fields, realClass);
 			}else{
-				//判断传入的集合与配置文件中的类型拥有共同的父类,如果有则向上转型
-				Object superClass = BeanUtil.getEqSuperClass(realClass, excelDefinition.getClazz());
-				if(superClass!=Object.class){
-					excelDefinition = extractSuperClassFields(excelDefinition, fields, realClass);
-				}else{
-					throw new ExcelException("传入的参数类型是:"+beans.get(0).getClass().getName()
-							+"但是 配置文件的类型是: "+excelDefinition.getClazz().getName()+",参数既不是父类,也不是其相同父类下的子类,无法完成转换");
-				}
-				
+				throw new ExcelException("传入的参数类型是:"+realClass.getName()
+						+"但是 配置文件的类型是: "+excelDefinition.getClazz().getName()+",参数既不是父类,也不是其相同父类下的子类,无法完成转换");
 			}
-			exportResult = doCreateExcel(excelDefinition,beans,header,workbook);
+			
 		}
-		return exportResult;
+		return excelDefinition;
 	}
 	
 	/**
@@ -228,11 +875,13 @@ public class ExcelExport extends AbstractExcelResolver{
 	protected ExcelExportResult doCreateExcel(ExcelDefinition excelDefinition, List<?> beans,ExcelHeader header,Workbook workbook){
 		// 创建Workbook
 		if(workbook==null){
-			//XSSFWorkbook支持RichTextString样式
-			if(excelDefinition.isRequiredTag()){
-				workbook = new XSSFWorkbook();
-			}else{
-				workbook = new SXSSFWorkbook();
+			Workbook created = newWorkbook(excelDefinition);
+			try {
+				return doCreateExcel(excelDefinition, beans, header, created);
+			} catch (RuntimeException | Error e) {
+				//导出过程中创建的Workbook,失败时关闭,删除临时文件
+				closeOnError(created, e);
+				throw e;
 			}
 		}
 		Sheet sheet = null;
@@ -247,14 +896,129 @@ public class ExcelExport extends AbstractExcelResolver{
 		}
 		CellStyleHolder cellStyleHolder = new CellStyleHolder(workbook, excelDefinition);
 		Row titleRow = createTitle(excelDefinition,sheet,workbook,cellStyleHolder);
+		ExcelExportResult exportResult = new ExcelExportResult(excelDefinition, sheet, workbook, titleRow,this,cellStyleHolder,header);
 		//如果listBean不为空,创建数据行
 		if(beans!=null){
-			createRows(excelDefinition, sheet, beans,workbook,titleRow,cellStyleHolder);
+			createRows(exportResult, beans.iterator());
 		}
-		ExcelExportResult exportResult = new ExcelExportResult(excelDefinition, sheet, workbook, titleRow,this,cellStyleHolder);
 		return exportResult;
 	}
+	
+	/**
+	 * 关闭导出失败的Workbook,SXSSF的临时文件随之删除;关闭时的异常附加到导出的异常上,不覆盖导出的异常
+	 * @param workbook
+	 * @param cause 导出失败的异常
+	 */
+	private static void closeOnError(Workbook workbook,Throwable cause){
+		try {
+			workbook.close();
+		} catch (IOException | RuntimeException e) {
+			cause.addSuppressed(e);
+		}
+	}
+	
+	/**
+	 * 当前sheet页已写满,创建新的sheet页,写入标题之前的信息和标题,后续的数据写入新的sheet页;
+	 * sheet页名称为配置的sheetname加上序号,例如:学生信息_2,没有配置sheetname时使用POI默认的名称
+	 * @param exportResult
+	 */
+	protected void nextSheet(ExcelExportResult exportResult){
+		ExcelDefinition excelDefinition = exportResult.getExcelDefinition();
+		Workbook workbook = exportResult.getWorkbook();
+		//写满的sheet页不会再修改,内存中的行全部写入临时文件
+		if(exportResult.getSheet() instanceof SXSSFSheet){
+			try {
+				((SXSSFSheet) exportResult.getSheet()).flushRows();
+			} catch (IOException e) {
+				throw new ExcelException("写入临时文件失败",e);
+			}
+		}
+		String sheetname = getRolloverSheetName(workbook, excelDefinition.getSheetname(), exportResult.getSheets().size() + 1);
+		Sheet sheet = sheetname != null ? workbook.createSheet(sheetname) : workbook.createSheet();
+		if(exportResult.getHeader()!=null){
+			exportResult.getHeader().buildHeader(sheet,excelDefinition,null);
+		}
+		Row titleRow = createTitle(excelDefinition,sheet,workbook,exportResult.getCellStyleHolder());
+		if(sheet.getPhysicalNumberOfRows() >= getSheetMaxRows(excelDefinition, workbook)){
+			throw new ExcelException("sheet页的最大行数 ["+getSheetMaxRows(excelDefinition, workbook)+"] 无法容纳标题和数据");
+		}
+		exportResult.nextSheet(sheet, titleRow);
+	}
+	
+	/**
+	 * 新的sheet页名称,sheetname加上序号,超过31个字符时截断sheetname,与已有的sheet页重名时序号递增
+	 * @param workbook
+	 * @param sheetname 配置的sheetname,为null时返回null
+	 * @param num sheet页序号,从2开始
+	 * @return
+	 */
+	private static String getRolloverSheetName(Workbook workbook,String sheetname,int num){
+		if(sheetname == null){
+			return null;
+		}
+		while(true){
+			String suffix = "_" + num++;
+			String name = StringUtils.left(sheetname, MAX_SHEET_NAME_LENGTH - suffix.length()) + suffix;
+			if(workbook.getSheetIndex(name) < 0){
+				return name;
+			}
+		}
+	}
+	
+	/**
+	 * 每个sheet页的最大行数,没有配置或者超过文件格式的限制时使用文件格式的最大行数
+	 * @param excelDefinition
+	 * @param workbook
+	 * @return
+	 */
+	private static int getSheetMaxRows(ExcelDefinition excelDefinition,Workbook workbook){
+		int maxRows = workbook.getSpreadsheetVersion().getMaxRows();
+		Integer sheetMaxRows = excelDefinition.getSheetMaxRows();
+		return sheetMaxRows != null && sheetMaxRows > 0 && sheetMaxRows < maxRows ? sheetMaxRows : maxRows;
+	}
 
+	/**
+	 * 按照ExcelDefinition中的SXSSF配置创建Workbook,ExcelStreamingWorkbook支持RichTextString样式
+	 * @param excelDefinition
+	 * @return
+	 */
+	protected Workbook createWorkbook(ExcelDefinition excelDefinition){
+		ExcelStreamingWorkbook workbook = excelDefinition.getRowAccessWindowSize() == null ? new ExcelStreamingWorkbook()
+				: new ExcelStreamingWorkbook(excelDefinition.getRowAccessWindowSize());
+		if(excelDefinition.getCompressTempFiles() != null){
+			workbook.setCompressTempFiles(excelDefinition.getCompressTempFiles());
+		}
+		if(excelDefinition.getTempFileDir() != null){
+			File tempFileDir = new File(excelDefinition.getTempFileDir());
+			if(!tempFileDir.isDirectory() && !tempFileDir.mkdirs()){
+				throw new ExcelException("临时文件目录 ["+excelDefinition.getTempFileDir()+"] 不存在,并且无法创建");
+			}
+			workbook.setTempFileDir(tempFileDir);
+		}
+		if(excelDefinition.getCompressionLevel() != null){
+			workbook.setCompressionLevel(excelDefinition.getCompressionLevel());
+		}
+		if(excelDefinition.getDeflateParallelism() != null){
+			workbook.setDeflateParallelism(excelDefinition.getDeflateParallelism());
+		}
+		return workbook;
+	}
+	
+	/**
+	 * 创建导出使用的Workbook;配置了requiredTag时,如果createWorkbook返回的是ExcelStreamingWorkbook以外的SXSSFWorkbook,
+	 * 写入时会丢弃标题*号的红色,改为使用XSSFWorkbook
+	 * @param excelDefinition
+	 * @return
+	 */
+	private Workbook newWorkbook(ExcelDefinition excelDefinition){
+		Workbook workbook = createWorkbook(excelDefinition);
+		if(excelDefinition.isRequiredTag() && workbook instanceof SXSSFWorkbook && !(workbook instanceof ExcelStreamingWorkbook)){
+			((SXSSFWorkbook) workbook).dispose();
+			return new XSSFWorkbook();
+		}
+		return workbook;
+	}
+	
 	/**
 	 * 创建Excel标题
 	 * @param excelDefinition
@@ -277,17 +1041,25 @@ public class ExcelExport extends AbstractExcelResolver{
 				sheet.setColumnWidth(i, excelDefinition.getDefaultColumnWidth());
 			}
 			Cell cell = titleRow.createCell(i);
-			CellStyle cellStyle = cellStyleHolder.getCellStyle(fieldValue,true);
+			CellStyle cellStyle = cellStyleHolder.getCellStyle(i,true);
 			if(cellStyle!=null) {
 				cell.setCellStyle(cellStyle);
 			}
 			//处理必填项*色标红
 			if(excelDefinition.isRequiredTag() && fieldValue.getTitle().startsWith("*")){
-				RichTextString r = new XSSFRichTextString(fieldValue.getTitle());
-		        Font ftRed = workbook.createFont();  
-		        ftRed.setColor(Font.COLOR_RED);
-				r.applyFont(0,1,ftRed);
-				cell.setCellValue(r);
+				Font ftRed = cellStyleHolder.getFont(Font.COLOR_RED);
+				if(workbook instanceof ExcelStreamingWorkbook){
+					//SXSSF写入时丢弃RichTextString的格式,由ExcelStreamingWorkbook写入
+					XSSFRichTextString r = new XSSFRichTextString(fieldValue.getTitle());
+					r.applyFont(0,1,ftRed);
+					((ExcelStreamingWorkbook) workbook).setCellValue(cell, r);
+				}else{
+					//HSSFWorkbook使用HSSFRichTextString,XSSFWorkbook使用XSSFRichTextString;
+					//调用方传入的其他SXSSFWorkbook只能写入标题的文本
+					RichTextString r = workbook.getCreationHelper().createRichTextString(fieldValue.getTitle());
+					r.applyFont(0,1,ftRed);
+					cell.setCellValue(r);
+				}
 			}else{
 				setCellValue(cell, fieldValue.getTitle());
 			}
@@ -295,6 +1067,36 @@ public class ExcelExport extends AbstractExcelResolver{
 		return titleRow;
 	}
 	
+	/**
+	 * 创建行,逐个读取迭代器中的bean,直到迭代器没有数据;
+	 * 当前sheet页写满时(sheetMaxRows,默认为文件格式的最大行数)创建新的sheet页继续写入
+	 * @param exportResult
+	 * @param beans
+	 */
+	public void createRows(ExcelExportResult exportResult,Iterator<?> beans){
+		createRows(exportResult, beans, null);
+	}
+	
+	/**
+	 * 创建行,使用指定的属性访问器读取每一行的值,例如ResultSet当前行的列
+	 * @param exportResult
+	 * @param beans
+	 * @param readers 与配置的字段顺序一致的属性访问器,为null时按照bean的类型获取
+	 */
+	private void createRows(ExcelExportResult exportResult,Iterator<?> beans,PropertyReader[] readers){
+		ExcelDefinition excelDefinition = exportResult.getExcelDefinition();
+		Workbook workbook = exportResult.getWorkbook();
+		int maxRows = getSheetMaxRows(excelDefinition, workbook);
+		Object pending = null;
+		while(true){
+			pending = createRows(excelDefinition, exportResult.getSheet(), beans, workbook, exportResult.getTitleRow(), exportResult.getRowWriterContext(), maxRows, pending, readers);
+			if(pending == null && !beans.hasNext()){
+				break;
+			}
+			nextSheet(exportResult);
+		}
+	}
+	
 	/**
 	 * 创建行
 	 * @param excelDefinition
@@ -305,46 +1107,245 @@ public class ExcelExport extends AbstractExcelResolver{
 	 * @throws Exception
 	 */
 	public void createRows(ExcelDefinition excelDefinition,Sheet sheet,List<?> beans,Workbook workbook,Row titleRow,CellStyleHolder cellStyleHolder){
-		int num = sheet.getPhysicalNumberOfRows();
-		int startRow = num ;
-		for(int i=0;i<beans.size();i++){
-			Row row = sheet.createRow(i+num);
-			createRow(excelDefinition,row,BeanUtil.buildAccessor(beans.get(i), true),workbook,sheet,titleRow,startRow++,cellStyleHolder);
+		createRows(excelDefinition, sheet, beans.iterator(), workbook, titleRow, cellStyleHolder);
+	}
+	
+	/**
+	 * 创建行,逐个读取迭代器中的bean,直到迭代器没有数据;只写入指定的sheet页,超过sheet页的最大行数时抛出异常,
+	 * 不记录autoWidth的列宽和aggregate的合计值,需要自动创建新的sheet页,列宽或者合计行时使用createRows(ExcelExportResult,Iterator)
+	 * @param excelDefinition
+	 * @param sheet
+	 * @param beans
+	 * @param workbook
+	 * @param titleRow
+	 * @param cellStyleHolder
+	 */
+	public void createRows(ExcelDefinition excelDefinition,Sheet sheet,Iterator<?> beans,Workbook workbook,Row titleRow,CellStyleHolder cellStyleHolder){
+		int maxRows = getSheetMaxRows(excelDefinition, workbook);
+		Object pending = createRows(excelDefinition, sheet, beans, workbook, titleRow, new RowWriterContext(excelDefinition, cellStyleHolder, false), maxRows, null, null);
+		if(pending != null || beans.hasNext()){
+			throw new ExcelException("sheet页的行数超过了" + maxRows + "行");
+		}
+	}
+	
+	/**
+	 * 创建行,直到迭代器没有数据或者sheet页达到最大行数,没有写入的bean留在迭代器中;
+	 * 配置了groupBy时,分组字段的值变化时先在上一个分组的数据下方创建小计行
+	 * @param maxRows sheet页的最大行数
+	 * @param pending 上一个sheet页已经读取但没有写入的bean,没有时为null
+	 * @param readers 与配置的字段顺序一致的属性访问器,为null时按照bean的类型获取
+	 * @return 小计行写满sheet页时,已经读取但没有写入的bean,需要写入新的sheet页;否则返回null
+	 */
+	private Object createRows(ExcelDefinition excelDefinition,Sheet sheet,Iterator<?> beans,Workbook workbook,Row titleRow,RowWriterContext context,int maxRows,Object pending,PropertyReader[] readers){
+		int rowNum = sheet.getPhysicalNumberOfRows();
+		Class<?> beanClass = null;
+		PropertyReader[] accesses = readers;
+		ColumnAggregator columnAggregator = context.getColumnAggregator();
+		int groupColumn = columnAggregator == null ? -1 : columnAggregator.getGroupColumn();
+		//主动写入临时文件的行数间隔
+		Integer flushRows = excelDefinition.getFlushRows();
+		SXSSFSheet streamingSheet = getFlushSheet(sheet, flushRows);
+		int count = 0;
+		while(rowNum < maxRows && (pending != null || beans.hasNext())){
+			Object bean = pending != null ? pending : beans.next();
+			pending = null;
+			//属性访问器按照bean的实际类型编译,类型变化时重新获取
+			if(readers == null && bean.getClass() != beanClass){
+				beanClass = bean.getClass();
+				accesses = getPropertyAccesses(excelDefinition, beanClass);
+			}
+			if(groupColumn >= 0){
+				Accumulator finished = columnAggregator.switchGroup(accesses[groupColumn].get(bean));
+				if(finished != null){
+					createFooterRow(excelDefinition, sheet.createRow(rowNum++), finished, context);
+					if(rowNum >= maxRows){
+						return bean;
+					}
+				}
+			}
+			Row row = sheet.createRow(rowNum);
+			createRow(excelDefinition,row,bean,accesses,workbook,sheet,titleRow,rowNum++,context);
+			if(streamingSheet != null && ++count % flushRows == 0){
+				flushRows(streamingSheet);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 配置了flushRows并且是SXSSFSheet时返回SXSSFSheet,否则返回null
+	 */
+	private static SXSSFSheet getFlushSheet(Sheet sheet,Integer flushRows){
+		return flushRows != null && flushRows > 0 && sheet instanceof SXSSFSheet ? (SXSSFSheet) sheet : null;
+	}
+	
+	/**
+	 * 将SXSSFSheet内存中的行写入临时文件
+	 * @param sheet
+	 */
+	private void flushRows(SXSSFSheet sheet){
+		try {
+			sheet.flushRows();
+		} catch (IOException e) {
+			throw new ExcelException("写入临时文件失败",e);
 		}
 	}
 	
 	
+	/**
+	 * 获取配置字段的属性访问器
+	 * @param excelDefinition
+	 * @param beanClass bean的实际类型
+	 * @return 与配置的字段顺序一致的属性访问器
+	 */
+	protected PropertyAccess[] getPropertyAccesses(ExcelDefinition excelDefinition,Class<?> beanClass){
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		PropertyAccess[] accesses = new PropertyAccess[fieldValues.size()];
+		for(int i=0;i<accesses.length;i++){
+			accesses[i] = BeanUtil.getPropertyAccess(beanClass, fieldValues.get(i).getName());
+		}
+		return accesses;
+	}
+	
 	/**
 	 * 创建行
 	 * @param excelDefinition
 	 * @param row
 	 * @param bean
+	 * @param accesses 属性访问器,与配置的字段顺序一致
 	 * @param workbook
 	 * @param sheet
 	 * @param titleRow
 	 * @param rowNum
+	 * @param context 样式,编解码器,列宽和合计值
 	 * @throws Exception
 	 */
-	protected void createRow(ExcelDefinition excelDefinition, Row row, AbstractPropertyAccessor accessor,Workbook workbook,Sheet sheet,Row titleRow,int rowNum,CellStyleHolder cellStyleHolder){
+	protected void createRow(ExcelDefinition excelDefinition, Row row, Object bean, PropertyReader[] accesses,Workbook workbook,Sheet sheet,Row titleRow,int rowNum,RowWriterContext context){
 		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		CellStyleHolder cellStyleHolder = context.getCellStyleHolder();
+		ColumnWidthTracker columnWidthTracker = context.getColumnWidthTracker();
+		ColumnAggregator columnAggregator = context.getColumnAggregator();
+		boolean groupLabel = false;
+		if(columnAggregator != null){
+			int groupColumn = columnAggregator.getGroupColumn();
+			groupLabel = columnAggregator.beginRow(groupColumn < 0 ? null : accesses[groupColumn].get(bean));
+		}
 		for(int i=0;i<fieldValues.size();i++){
 			FieldValue fieldValue = fieldValues.get(i);
-			Object value = BeanUtil.getPropertyValue(accessor,fieldValue.getName(),false);
-			//从解析器获取值
-			Object instance;
-			if(accessor instanceof AbstractNestablePropertyAccessor) {
-				instance= ((AbstractNestablePropertyAccessor) accessor).getRootInstance();
-			}else {
-				instance = ((MapWrapperImpl)accessor).getRootInstance(); 
+			Object value = accesses[i].get(bean);
+			if(columnAggregator != null){
+				columnAggregator.add(i, value);
 			}
-			Object val = convert(instance,value,fieldValue, Type.EXPORT,rowNum);
 			Cell cell = row.createCell(i);
+			//写入原始的日期,数字,不需要格式化
+			CellStyle typedCellStyle = cellStyleHolder.getTypedCellStyle(i);
+			if(typedCellStyle != null && value != null){
+				FieldCodec codec = context.getCodec(i);
+				Object excelValue = codec.toExcelValue(value);
+				if(excelValue != null){
+					cell.setCellStyle(typedCellStyle);
+					setCellValue(cell, excelValue);
+					if(columnWidthTracker != null){
+						columnWidthTracker.update(i, excelValue, codec.getExcelFormat());
+					}
+					continue;
+				}
+			}
+			//从解析器获取值
+			Object val = convert(bean,value,fieldValue, Type.EXPORT,rowNum);
 			//cell样式
-			CellStyle cellStyle = cellStyleHolder.getCellStyle(fieldValue, false);
+			CellStyle cellStyle = cellStyleHolder.getCellStyle(i, false);
 			if(cellStyle!=null){
 				cell.setCellStyle(cellStyle);
 			}
 			setCellValue(cell, val);
+			if(columnWidthTracker != null){
+				columnWidthTracker.update(i, val);
+			}
+		}
+		//新的分组,使用分组字段cell显示的内容作为小计行的名称
+		if(groupLabel){
+			columnAggregator.groupLabel(row.getCell(columnAggregator.getGroupColumn()));
+		}
+	}
+	
+	/**
+	 * 在数据的下方创建合计行,配置了groupBy时先创建最后一个分组的小计行(其他分组的小计行在写入数据时已经创建);
+	 * 当前sheet页写满时在新的sheet页继续写入,没有字段配置aggregate或者没有数据时不创建
+	 * @param exportResult
+	 * @return 是否创建了合计行
+	 */
+	public boolean createFooter(ExcelExportResult exportResult){
+		RowWriterContext context = exportResult.getRowWriterContext();
+		ColumnAggregator columnAggregator = context.getColumnAggregator();
+		if(columnAggregator == null || columnAggregator.getRows() == 0){
+			return false;
+		}
+		ExcelDefinition excelDefinition = exportResult.getExcelDefinition();
+		int maxRows = getSheetMaxRows(excelDefinition, exportResult.getWorkbook());
+		List<Accumulator> accumulators = new ArrayList<Accumulator>(2);
+		if(columnAggregator.getCurrentGroup() != null){
+			accumulators.add(columnAggregator.getCurrentGroup());
+		}
+		accumulators.add(columnAggregator.getTotal());
+		Sheet sheet = exportResult.getSheet();
+		int rowNum = sheet.getPhysicalNumberOfRows();
+		for(Accumulator accumulator : accumulators){
+			if(rowNum >= maxRows){
+				nextSheet(exportResult);
+				sheet = exportResult.getSheet();
+				rowNum = sheet.getPhysicalNumberOfRows();
+			}
+			createFooterRow(excelDefinition, sheet.createRow(rowNum++), accumulator, context);
+		}
+		return true;
+	}
+	
+	/**
+	 * 创建一行合计行,名称写入第一个不汇总的列,例如:合计,正常 小计
+	 * @param excelDefinition
+	 * @param row
+	 * @param accumulator 全部数据或者一个分组的汇总
+	 * @param context 样式,编解码器,列宽和合计值
+	 */
+	protected void createFooterRow(ExcelDefinition excelDefinition,Row row,Accumulator accumulator,RowWriterContext context){
+		CellStyleHolder cellStyleHolder = context.getCellStyleHolder();
+		ColumnAggregator columnAggregator = context.getColumnAggregator();
+		ColumnWidthTracker columnWidthTracker = context.getColumnWidthTracker();
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		boolean labeled = false;
+		for(int i=0;i<fieldValues.size();i++){
+			Object val;
+			CellStyle cellStyle;
+			AggregateType type = columnAggregator.getType(i);
+			if(type != null){
+				Number number = columnAggregator.getValue(accumulator, i);
+				if(number == null){
+					continue;
+				}
+				//计数使用数据的样式,其他汇总方式使用字段等价的Excel数据格式
+				String excelFormat = context.getCodec(i).getExcelFormat();
+				if(excelFormat != null && type != AggregateType.COUNT){
+					cellStyle = cellStyleHolder.getCellStyle(i, excelFormat);
+				}else{
+					cellStyle = cellStyleHolder.getCellStyle(i, false);
+				}
+				val = number;
+			}else if(!labeled){
+				labeled = true;
+				val = accumulator.getLabel() == null ? FOOTER_TOTAL : accumulator.getLabel() + " " + FOOTER_SUBTOTAL;
+				cellStyle = cellStyleHolder.getCellStyle(i, false);
+			}else{
+				continue;
+			}
+			Cell cell = row.createCell(i);
+			if(cellStyle != null){
+				cell.setCellStyle(cellStyle);
+			}
+			setCellValue(cell, val);
+			if(columnWidthTracker != null){
+				columnWidthTracker.update(i, val);
+			}
 		}
 	}
 	
@@ -14,10 +14,10 @@ import org.easy.excel.config.ExcelDefinition;
 public interface ExcelHeader {
 
 	/**
-	 * 如何构建标题之前的数据
+	 * 如何构建标题之前的数据,数据超过sheet页的最大行数时,每个新的sheet页也会调用
 	 * @param sheet Excel中的sheet页
 	 * @param excelDefinition XML中定义的信息
-	 * @param beans 导出的数据
+	 * @param beans 导出的数据,新的sheet页为null
 	 */
 	void buildHeader(Sheet sheet, ExcelDefinition excelDefinition, List<?> beans);
 }
@@ -1,24 +1,37 @@
 package org.easy.excel.parsing;
 
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.easy.excel.ExcelDefinitionReader;
 import org.easy.excel.config.ExcelDefinition;
 import org.easy.excel.config.FieldValue;
+import org.easy.excel.config.FormulaMode;
+import org.easy.excel.config.ImportEngine;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.exception.ExcelDataError;
 import org.easy.excel.exception.ExcelDataException;
 import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ImportPlan.ColumnBinding;
+import org.easy.excel.result.ExcelColumn;
+import org.easy.excel.result.ExcelColumn.ColumnType;
+import org.easy.excel.result.ExcelColumnarResult;
 import org.easy.excel.result.ExcelImportResult;
 import org.easy.excel.util.ExcelUtil;
-import org.springframework.beans.AbstractPropertyAccessor;
 /**
  * Excel导入实现类
  * @author lisuo
@@ -42,205 +55,632 @@ public class ExcelImport extends AbstractExcelResolver{
 	 * @throws Exception
 	 */
 	public ExcelImportResult readExcel(String id, int titleIndex,InputStream excelStream,Integer sheetIndex,boolean multivalidate) {
+		return readExcel(id, excelStream, new ImportOptions(titleIndex, sheetIndex, multivalidate));
+	}
+	
+	/**
+	 * 读取Excel信息
+	 * @param id 注册的ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项
+	 * @return
+	 */
+	public ExcelImportResult readExcel(String id, InputStream excelStream,ImportOptions options) {
+		return doReadExcel(getExcelDefinition(id),excelStream,options);
+	}
+	
+	/**
+	 * 读取Excel信息,分批回调ExcelRowHandler,不持有已经回调过的数据
+	 * @param id 注册的ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项,batchSize为每批次的数据量
+	 * @param handler 数据处理
+	 * @return 导入结果,包含头信息,数据量和保留的错误记录(与回调的错误相同,不超过ImportOptions配置的错误数量上限),不包含数据
+	 */
+	public <T> ExcelImportResult readExcel(String id, InputStream excelStream,ImportOptions options,ExcelRowHandler<T> handler) {
+		ExcelDefinition excelDefinition = getExcelDefinition(id);
+		ExcelImportResult result = new ExcelImportResult();
+		doReadExcel(excelDefinition, excelStream, options, new SheetImporter(result, excelDefinition, options, new BatchSink<T>(result, handler, options.getBatchSize())));
+		result.setListBean(new ArrayList<T>(0));
+		return result;
+	}
+	
+	/**
+	 * 读取Excel信息,返回延迟读取的迭代器,由后台线程读取数据,预读的数据量不超过batchSize
+	 * @param id 注册的ID
+	 * @param excelStream Excel文件流,迭代完成之前不能关闭
+	 * @param options 导入选项
+	 * @return 迭代器,迭代未完成时需要调用close方法
+	 */
+	public <T> ExcelImportIterator<T> readExcelAsIterator(String id, final InputStream excelStream,final ImportOptions options) {
+		final ExcelDefinition excelDefinition = getExcelDefinition(id);
+		final ExcelImportIterator<T> iterator = new ExcelImportIterator<T>(options.getBatchSize());
+		iterator.start(new Runnable() {
+			@Override
+			public void run() {
+				doReadExcel(excelDefinition, excelStream, options, new SheetImporter(iterator.getResult(), excelDefinition, options, iterator.sink()));
+			}
+		});
+		return iterator;
+	}
+	
+	/**
+	 * 读取Excel信息,按列存储,不创建JavaBean,数值使用基本类型数组,字符串使用字典编码,日期使用毫秒数,
+	 * 列的类型由属性类型决定,配置了pattern的字段为日期列,自定义转换器接收的bean参数为null
+	 * @param id 注册的ID
+	 * @param excelStream Excel文件流
+	 * @param options 导入选项
+	 * @return 列式导入结果
+	 */
+	public ExcelColumnarResult readExcelAsColumns(String id, InputStream excelStream,ImportOptions options) {
+		ExcelDefinition excelDefinition = getExcelDefinition(id);
+		ExcelColumnarResult result = new ExcelColumnarResult();
+		doReadExcel(excelDefinition, excelStream, options, new ColumnarImporter(result, excelDefinition, options));
+		return result;
+	}
+	
+	private ExcelDefinition getExcelDefinition(String id){
 		//从注册信息中获取Bean信息
 		ExcelDefinition excelDefinition = definitionReader.getRegistry().get(id);
 		if(excelDefinition==null){
 			throw new ExcelException("没有找到 ["+id+"] 的配置信息");
 		}
-		return doReadExcel(excelDefinition,titleIndex,excelStream,sheetIndex,multivalidate);
+		return excelDefinition;
 	}
 	
-	protected ExcelImportResult doReadExcel(ExcelDefinition excelDefinition,int titleIndex,InputStream excelStream,Integer sheetIndex,boolean multivalidate) {
-		Workbook workbook = ExcelUtil.getWorkBookByStream(excelStream);
+	protected ExcelImportResult doReadExcel(ExcelDefinition excelDefinition,InputStream excelStream,ImportOptions options) {
 		ExcelImportResult result = new ExcelImportResult();
-		//读取sheet,sheetIndex参数优先级大于ExcelDefinition配置sheetIndex
-		Sheet sheet = ExcelUtil.getSheetAt(workbook, sheetIndex==null?excelDefinition.getSheetIndex():sheetIndex);
-		//标题之前的数据处理
-		List<List<Object>> header = readHeader(excelDefinition, sheet,titleIndex);
-		result.setHeader(header);
-		//获取标题
-		List<String> titles = readTitle(excelDefinition,sheet,titleIndex);
-		//校验标题
-		checkTitle(excelDefinition, titles);
-		//获取Bean
-		List<Object> listBean = readRows(result,excelDefinition,titles, sheet,titleIndex,multivalidate);
-		result.setListBean(listBean);
+		doReadExcel(excelDefinition, excelStream, options, new SheetImporter(result, excelDefinition, options, new ListSink(result)));
 		return result;
 	}
 	
+	private void doReadExcel(ExcelDefinition excelDefinition,InputStream excelStream,ImportOptions options,SheetImporter importer) {
+		//sheetIndex参数优先级大于ExcelDefinition配置sheetIndex
+		int sheetIndex = options.getSheetIndex()==null?excelDefinition.getSheetIndex():options.getSheetIndex();
+		//导入引擎,参数优先级大于ExcelDefinition配置importEngine
+		ImportEngine engine = options.getImportEngine()==null?excelDefinition.getImportEngine():options.getImportEngine();
+		//公式处理方式,参数优先级大于ExcelDefinition配置formulaMode
+		FormulaMode formulaMode = options.getFormulaMode()==null?excelDefinition.getFormulaMode():options.getFormulaMode();
+		try {
+			if(engine == ImportEngine.EVENT){
+				readByEventModel(excelStream, sheetIndex, formulaMode, importer);
+			}else{
+				Workbook workbook = ExcelUtil.getWorkBookByStream(excelStream);
+				readSheet(ExcelUtil.getSheetAt(workbook, sheetIndex), formulaMode, importer);
+			}
+			importer.finish();
+		} finally {
+			importer.close();
+		}
+	}
+	
 	/**
-	 * 解析标题之前的内容,如果ExcelDefinition中titleIndex 不是0
-	 * @param excelDefinition
-	 * @param sheet
-	 * @return
+	 * 使用事件模型读取,xlsx通过SAX逐行解析,xls通过HSSFEventFactory逐条解析记录,其他格式使用usermodel读取,
+	 * 事件模型不支持计算公式,EVALUATE按照CACHED处理,读取文件中保存的公式结果
+	 * @param excelStream
+	 * @param sheetIndex
+	 * @param formulaMode
+	 * @param callback
 	 */
-	protected List<List<Object>> readHeader(ExcelDefinition excelDefinition,Sheet sheet,int titleIndex){
-		List<List<Object>> header = null;
-		if(titleIndex!=0){
-			header = new ArrayList<List<Object>>(titleIndex);
-			for(int i=0;i<titleIndex;i++){
-				Row row = sheet.getRow(i);
-				if(row == null) {
-					continue;
-				}
-				short cellNum = row.getLastCellNum();
-				List<Object> item = new ArrayList<Object>(cellNum);
-				for(int j=0;j<cellNum;j++){
-					Cell cell = row.getCell(j);
-					Object value = getCellValue(cell);
-					item.add(value);
-				}
-				header.add(item);
-			}
+	private void readByEventModel(InputStream excelStream,int sheetIndex,FormulaMode formulaMode,SheetRowCallback callback){
+		InputStream ins = FileMagic.prepareToCheckMagic(excelStream);
+		FileMagic fileMagic;
+		try {
+			fileMagic = FileMagic.valueOf(ins);
+		} catch (IOException e) {
+			throw new ExcelException(e);
+		}
+		if(fileMagic == FileMagic.OOXML){
+			new XSSFEventSheetReader(formulaMode).read(ins, sheetIndex, callback);
+		}else if(fileMagic == FileMagic.OLE2){
+			new HSSFEventSheetReader(formulaMode).read(ins, sheetIndex, callback);
+		}else{
+			readSheet(ExcelUtil.getSheetAt(ExcelUtil.getWorkBookByStream(ins), sheetIndex), formulaMode, callback);
 		}
-		return header;
 	}
 	
 	/**
-	 * 读取多行
-	 * @param result
-	 * @param excelDefinition
-	 * @param titles
+	 * 使用usermodel逐行读取sheet
 	 * @param sheet
-	 * @param titleIndex
-	 * @return
-	 * @throws Exception
+	 * @param formulaMode 公式cell的处理方式
+	 * @param callback
 	 */
-	@SuppressWarnings("unchecked")
-	protected <T> List<T> readRows(ExcelImportResult result,ExcelDefinition excelDefinition, List<String> titles, Sheet sheet,int titleIndex,boolean multivalidate) {
-		//读取数据的总共次数
-		int totalNum = sheet.getLastRowNum() - titleIndex;
-		List<T> listBean = new ArrayList<T>(totalNum);
-		result.setTotalNum(totalNum);
-		for (int rowNum = 1; rowNum <= totalNum; rowNum++) {
-			try {
-				//处理索引位置,为标题索引位置+数据行
-				Row row = sheet.getRow(rowNum + titleIndex);
-				Object bean = readRow(excelDefinition,row,titles,rowNum);
-				listBean.add((T) bean);
-			}catch(ExcelDataException e) {
-				//应用multivalidate
-				if(multivalidate){
-					result.getErrors().add(e);
-					continue;
-				}else{
-					throw e;
-				}
-			}catch(ExcelException e) {
-				throw e;
+	private void readSheet(Sheet sheet,FormulaMode formulaMode,SheetRowCallback callback){
+		//整个workbook共享一个evaluator,计算结果会被缓存
+		FormulaEvaluator evaluator = ExcelUtil.createFormulaEvaluator(sheet.getWorkbook(), formulaMode);
+		int lastRowNum = sheet.getLastRowNum();
+		for(int i=0;i<=lastRowNum;i++){
+			Row row = sheet.getRow(i);
+			if(row == null){
+				continue;
 			}
+			int cellNum = Math.max(row.getLastCellNum(), 0);
+			List<Object> values = new ArrayList<Object>(cellNum);
+			for(int j=0;j<cellNum;j++){
+				values.add(getCellValue(row.getCell(j),formulaMode,evaluator));
+			}
+			callback.onRow(i, values);
 		}
-		return listBean;
 	}
 	
 	/**
 	 * 读取1行
 	 * @param excelDefinition
-	 * @param row
-	 * @param titles
+	 * @param values 行数据
+	 * @param plan 标题行编译的导入计划
 	 * @param rowNum 第几行
 	 * @return
-	 * @throws Exception
 	 */
-	protected Object readRow(ExcelDefinition excelDefinition, Row row, List<String> titles,int rowNum) {
+	Object readRow(ExcelDefinition excelDefinition, List<Object> values, ImportPlan plan,int rowNum) {
 		//创建注册时配置的bean类型
 		Object bean = BeanUtil.newInstance(excelDefinition.getClazz());
-		AbstractPropertyAccessor accessor = BeanUtil.buildAccessor(bean, true);
-		for(FieldValue fieldValue:excelDefinition.getFieldValues()){
-			String title = fieldValue.getTitle();
-			for (int j = 0; j < titles.size(); j++) {
-				//标题或者别名eq
-				if(title.equals(titles.get(j)) || fieldValue.getAlias().equals(titles.get(j))){
-					Cell cell = row.getCell(j);
-					//获取Excel原生value值
-					Object value = getCellValue(cell);
-					//校验
-					validate(fieldValue, value, rowNum,bean);
+		int size = values.size();
+		for(ColumnBinding binding:plan.getBindings()){
+			FieldValue fieldValue = binding.fieldValue;
+			//获取Excel原生value值
+			Object value = binding.column < size ? values.get(binding.column) : null;
+			try{
+				//校验
+				validate(binding, value, rowNum,bean);
+				if(value != null){
+					if(value instanceof String){
+						//去除前后空格
+						value = value.toString().trim();
+					}
+					value = convert(binding.converter,bean,value, fieldValue, Type.IMPORT,rowNum);
+					if(value == fieldValue.getDefaultValue()){
+						//使用预先转换的默认值
+						value = binding.defaultValue;
+					}
 					if(value != null){
-						if(value instanceof String){
-							//去除前后空格
-							value = value.toString().trim();
-						}
-						value = super.convert(bean,value, fieldValue, Type.IMPORT,rowNum);
-						BeanUtil.setPropertyValue(accessor, fieldValue.getName(), value,false);
+						binding.access.set(bean, value);
 					}
-					break;
 				}
+			}catch(ExcelDataException e){
+				throw withColumn(e, binding);
 			}
 		}
 		return bean;
 	}
 
-	protected List<String> readTitle(ExcelDefinition excelDefinition, Sheet sheet,int titleIndex) {
-		// 获取Excel标题数据
-		Row hssfRowTitle = sheet.getRow(titleIndex);
-		if(hssfRowTitle==null){
-			return null;
-		}
-		int cellNum = hssfRowTitle.getLastCellNum();
-		List<String> titles = new ArrayList<String>(cellNum);
-		// 获取标题数据
-		for (int i = 0; i < cellNum; i++) {
-			Cell cell = hssfRowTitle.getCell(i);
-			if(cell == null) {
-				continue;
-			}
-			Object value = getCellValue(cell);
+	/**
+	 * 读取标题,空的cell使用null占位,保证标题索引与列索引一致
+	 * @param excelDefinition
+	 * @param values 标题行数据
+	 * @return 标题,如果没有任何标题返回null
+	 */
+	protected List<String> readTitle(ExcelDefinition excelDefinition, List<Object> values) {
+		List<String> titles = new ArrayList<String>(values.size());
+		boolean empty = true;
+		for (Object value : values) {
 			if(value == null || "".equals(value.toString().trim())) {
-				return null;
+				titles.add(null);
+				continue;
 			}
 			titles.add(value.toString());
+			empty = false;
 		}
-		return titles;
+		return empty ? null : titles;
 	}
 	
 	/**
-	 * 数据有效性校验
-	 * @param fieldValue
+	 * 数据有效性校验,执行注册时编译的校验规则
+	 * @param binding
 	 * @param value
 	 * @param rowNum
 	 */
-	private void validate(FieldValue fieldValue,Object value,int rowNum,Object refObject){
-		if(value == null || (value instanceof String && StringUtils.isBlank(value.toString()))){
-			//空校验
-			if(!fieldValue.isNull()){
-				throw new ExcelDataException("不能为空", rowNum, fieldValue.getAlias(),value,refObject);
+	private void validate(ColumnBinding binding,Object value,int rowNum,Object refObject){
+		String errMsg = binding.validator.validate(value, binding.fieldValue);
+		if(errMsg != null){
+			//数据错误通过错误信息定位,不记录异常栈
+			throw new ExcelDataException(errMsg, rowNum, binding.fieldValue.getAlias(),value,refObject,false);
+		}
+	}
+	
+	//记录出错的列索引
+	private static ExcelDataException withColumn(ExcelDataException e,ColumnBinding binding){
+		if(e.getColumn() < 0){
+			e.setColumn(binding.column);
+		}
+		return e;
+	}
+	
+	/**
+	 * 单个sheet的导入过程,接收导入引擎回调的每一行数据:
+	 * 标题之前的行作为头信息,标题行进行标题校验,标题之后的行转换成Bean
+	 */
+	private class SheetImporter implements SheetRowCallback{
+		
+		private final ExcelImportResult result;
+		protected final ExcelDefinition excelDefinition;
+		private final int titleIndex;
+		private final boolean multivalidate;
+		private final ImportSink sink;
+		private final int maxErrors;
+		private final int maxErrorsPerColumn;
+		private final boolean retainRefObject;
+		private final int parallelism;
+		/** 多线程转换数据行时使用 */
+		private RowPipeline pipeline;
+		/** 校验未通过的总数 */
+		private int errorCount;
+		/** 保留的错误数量 */
+		private int retainedCount;
+		/** 每列保留的错误数量,key为标题 */
+		private Map<String, Integer> columnErrorCounts;
+		
+		private List<List<Object>> header;
+		protected ImportPlan plan;
+		private int lastRowIndex = -1;
+		
+		SheetImporter(ExcelImportResult result,ExcelDefinition excelDefinition,ImportOptions options,ImportSink sink) {
+			this.result = result;
+			this.sink = sink;
+			this.excelDefinition = excelDefinition;
+			this.titleIndex = options.getTitleIndex();
+			this.multivalidate = options.isMultivalidate();
+			this.maxErrors = options.getMaxErrors();
+			this.maxErrorsPerColumn = options.getMaxErrorsPerColumn();
+			this.retainRefObject = options.isRetainRefObject();
+			this.parallelism = options.getParallelism();
+			if(titleIndex!=0){
+				header = new ArrayList<List<Object>>(titleIndex);
 			}
-		}else{
-			if(value instanceof String) {
-				//正则校验
-				String regex = fieldValue.getRegex();
-				if(StringUtils.isNotBlank(regex)){
-					String val = value.toString().trim();
-					if(!val.matches(regex)){
-						String errMsg = fieldValue.getRegexErrMsg()==null?"格式错误":fieldValue.getRegexErrMsg();
-						throw new ExcelDataException(errMsg, rowNum, fieldValue.getAlias(),value,refObject);
-					}
+		}
+		
+		@Override
+		public void onRow(int rowIndex, List<Object> values) {
+			lastRowIndex = rowIndex;
+			if(rowIndex < titleIndex){
+				//标题之前的数据处理
+				header.add(values);
+			}else if(rowIndex == titleIndex){
+				//获取标题并校验,编译导入计划
+				plan = ImportPlan.compile(excelDefinition, readTitle(excelDefinition, values), ExcelImport.this);
+				onPlan(plan);
+				if(parallelism > 1 && isParallelizable()){
+					pipeline = createPipeline();
+				}
+			}else{
+				if(plan == null){
+					//标题行不存在
+					throw new ExcelException("标题不能为空");
+				}
+				//数据行号,为行索引位-标题索引位
+				int rowNum = rowIndex - titleIndex;
+				if(pipeline != null){
+					pipeline.submit(values, rowNum);
+					return;
 				}
+				try {
+					onDataRow(values, rowNum);
+				}catch(ExcelDataException e) {
+					onError(e);
+				}
+			}
+		}
+		
+		/**
+		 * 应用multivalidate处理校验错误
+		 * @param e
+		 */
+		private void onError(ExcelDataException e){
+			if(multivalidate){
+				error(e);
+			}else{
+				throw e;
+			}
+		}
+		
+		/**
+		 * 创建转换流水线,转换线程执行readRow,转换结果按照行的顺序在读取线程中写入sink
+		 * @return
+		 */
+		private RowPipeline createPipeline(){
+			final ImportPlan plan = this.plan;
+			return new RowPipeline(parallelism, !multivalidate, new RowPipeline.RowConverter() {
+				@Override
+				public Object convert(List<Object> values, int rowNum) {
+					return readRow(excelDefinition, values, plan, rowNum);
+				}
+			}, new RowPipeline.RowHandler() {
+				@Override
+				public void onResult(Object result) {
+					sink.bean(result);
+				}
+				
+				@Override
+				public void onError(ExcelDataException e) {
+					SheetImporter.this.onError(e);
+				}
+			});
+		}
+		
+		/**
+		 * 数据行是否可以使用多线程转换
+		 * @return
+		 */
+		protected boolean isParallelizable(){
+			return true;
+		}
+		
+		/**
+		 * 记录校验错误,超出错误数量上限的错误只计数
+		 * @param e
+		 */
+		private void error(ExcelDataException e){
+			errorCount++;
+			if(retainedCount >= maxErrors){
+				return;
+			}
+			if(maxErrorsPerColumn != Integer.MAX_VALUE){
+				if(columnErrorCounts == null){
+					columnErrorCounts = new HashMap<String, Integer>();
+				}
+				Integer count = columnErrorCounts.get(e.getTitle());
+				if(count == null){
+					count = 0;
+				}
+				if(count >= maxErrorsPerColumn){
+					return;
+				}
+				columnErrorCounts.put(e.getTitle(), count + 1);
+			}
+			retainedCount++;
+			sink.error(ExcelDataError.of(e, retainRefObject));
+		}
+		
+		/**
+		 * 导入计划编译完成
+		 * @param plan
+		 */
+		protected void onPlan(ImportPlan plan){
+		}
+		
+		/**
+		 * 处理数据行,默认转换成Bean
+		 * @param values 行数据
+		 * @param rowNum 数据行号
+		 */
+		protected void onDataRow(List<Object> values,int rowNum){
+			sink.bean(readRow(excelDefinition, values, plan, rowNum));
+		}
+		
+		/**
+		 * sheet读取完毕
+		 */
+		void finish(){
+			if(plan == null){
+				throw new ExcelException("标题不能为空");
+			}
+			if(pipeline != null){
+				pipeline.finish();
+			}
+			result.setHeader(header);
+			//读取数据的总共次数
+			result.setTotalNum(Math.max(lastRowIndex - titleIndex, 0));
+			result.setErrorCount(errorCount);
+			sink.end();
+		}
+		
+		/**
+		 * 释放导入过程使用的资源,读取出错时也会执行
+		 */
+		void close(){
+			if(pipeline != null){
+				pipeline.shutdown();
 			}
 		}
 	}
 	
 	/**
-	 * 校验excel标题与配置的标题是否匹配,如果不包含抛出异常
-	 * @param excelDefinition
-	 * @param titles
+	 * 列式导入,数据行直接写入ExcelColumnarResult的列中,校验未通过的行会被丢弃
 	 */
-	private void checkTitle(ExcelDefinition excelDefinition,List<String> titles){
-		if(CollectionUtils.isEmpty(titles)){
-			throw new ExcelException("标题不能为空");
-		}
-		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
-		//标题校验规则：excel中没有对应的配置标题或别名，同时该属性不能为空，如果为空，允许标题不存在
-		for (FieldValue fieldValue : fieldValues) {
-			if(!titles.contains(fieldValue.getTitle())){
-				if(!titles.contains(fieldValue.getAlias())){
-					if(!fieldValue.isNull()){
-						throw new ExcelException("标题["+fieldValue.getAlias()+"]在Excel中不存在");
+	private class ColumnarImporter extends SheetImporter{
+		
+		private final ExcelColumnarResult result;
+		/** 与导入计划中的绑定一一对应的列 */
+		private ExcelColumn[] boundColumns;
+		/** Excel中不存在的字段对应的列,每行追加空值 */
+		private ExcelColumn[] unboundColumns;
+		
+		ColumnarImporter(final ExcelColumnarResult result,ExcelDefinition excelDefinition,ImportOptions options) {
+			super(result, excelDefinition, options, new ImportSink() {
+				@Override
+				public void bean(Object bean) {
+				}
+				
+				@Override
+				public void error(ExcelDataError error) {
+					result.addError(error);
+				}
+				
+				@Override
+				public void end() {
+				}
+			});
+			this.result = result;
+		}
+		
+		@Override
+		protected void onPlan(ImportPlan plan) {
+			Map<FieldValue, ExcelColumn> columns = new LinkedHashMap<FieldValue, ExcelColumn>();
+			for(FieldValue fieldValue:excelDefinition.getFieldValues()){
+				ExcelColumn column = ExcelColumn.create(fieldValue.getName(), fieldValue.getTitle(), getColumnType(fieldValue));
+				columns.put(fieldValue, column);
+				result.addColumn(column);
+			}
+			ColumnBinding[] bindings = plan.getBindings();
+			boundColumns = new ExcelColumn[bindings.length];
+			for(int i=0;i<bindings.length;i++){
+				boundColumns[i] = columns.remove(bindings[i].fieldValue);
+			}
+			unboundColumns = columns.values().toArray(new ExcelColumn[columns.size()]);
+		}
+		
+		@Override
+		protected boolean isParallelizable() {
+			//数据行直接写入列中,使用单线程
+			return false;
+		}
+		
+		@Override
+		protected void onDataRow(List<Object> values, int rowNum) {
+			int rowCount = result.getRowCount();
+			int size = values.size();
+			ColumnBinding[] bindings = plan.getBindings();
+			try{
+				for(int i=0;i<bindings.length;i++){
+					ColumnBinding binding = bindings[i];
+					FieldValue fieldValue = binding.fieldValue;
+					Object value = binding.column < size ? values.get(binding.column) : null;
+					try{
+						//校验
+						validate(binding, value, rowNum, null);
+						if(value instanceof String){
+							//去除前后空格,空字符串作为空值
+							value = value.toString().trim();
+							if(((String) value).isEmpty()){
+								value = null;
+							}
+						}
+						if(value != null){
+							value = convert(binding.converter,null,value, fieldValue, Type.IMPORT,rowNum);
+							if(value == fieldValue.getDefaultValue()){
+								value = binding.defaultValue;
+							}
+						}
+						try{
+							boundColumns[i].append(value);
+						}catch(IllegalArgumentException e){
+							throw new ExcelDataException(e.getMessage(), rowNum, fieldValue.getAlias(), value, null, false);
+						}
+					}catch(ExcelDataException e){
+						throw withColumn(e, binding);
 					}
 				}
+				for(ExcelColumn column:unboundColumns){
+					column.append(null);
+				}
+				result.setRowCount(rowCount + 1);
+			}catch(ExcelDataException e){
+				//丢弃已经写入的部分数据
+				for(ExcelColumn column:boundColumns){
+					column.truncate(rowCount);
+				}
+				throw e;
+			}
+		}
+		
+		//根据字段配置和属性类型确定列的类型
+		private ColumnType getColumnType(FieldValue fieldValue){
+			if(StringUtils.isNotBlank(fieldValue.getPattern())){
+				return ColumnType.DATE;
+			}
+			if(fieldValue.getFormat() != null){
+				//format表达式导入结果为字符串
+				return ColumnType.STRING;
+			}
+			Class<?> type = BeanUtil.getPropertyAccess(excelDefinition.getClazz(), fieldValue.getName()).getPropertyType();
+			if(type == null){
+				return fieldValue.getDecimalFormatPattern() != null ? ColumnType.DOUBLE : ColumnType.STRING;
+			}
+			if(type == Integer.class || type == Short.class || type == Byte.class){
+				return ColumnType.INT;
+			}else if(type == Long.class){
+				return ColumnType.LONG;
+			}else if(Number.class.isAssignableFrom(type)){
+				return ColumnType.DOUBLE;
+			}else if(type == Boolean.class){
+				return ColumnType.BOOLEAN;
+			}else if(Date.class.isAssignableFrom(type) || Calendar.class.isAssignableFrom(type)){
+				return ColumnType.DATE;
+			}
+			return ColumnType.STRING;
+		}
+	}
+	
+	/**
+	 * 收集全部数据到ExcelImportResult
+	 */
+	private static class ListSink implements ImportSink{
+		
+		private final ExcelImportResult result;
+		private final List<Object> listBean = new ArrayList<Object>();
+		
+		ListSink(ExcelImportResult result) {
+			this.result = result;
+		}
+		
+		@Override
+		public void bean(Object bean) {
+			listBean.add(bean);
+		}
+		
+		@Override
+		public void error(ExcelDataError error) {
+			result.addError(error);
+		}
+		
+		@Override
+		public void end() {
+			result.setListBean(listBean);
+		}
+	}
+	
+	/**
+	 * 分批回调ExcelRowHandler,回调之后清空本批次的数据;错误记录同时保存在ExcelImportResult中,
+	 * hasErrors,getErrorCount与getDataErrors保持一致
+	 */
+	private static class BatchSink<T> implements ImportSink{
+		
+		private final ExcelImportResult result;
+		private final ExcelRowHandler<T> handler;
+		private final int batchSize;
+		private List<T> beans;
+		private List<ExcelDataError> errors;
+		
+		BatchSink(ExcelImportResult result,ExcelRowHandler<T> handler,int batchSize) {
+			this.result = result;
+			this.handler = handler;
+			this.batchSize = Math.max(batchSize, 1);
+			reset();
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public void bean(Object bean) {
+			beans.add((T) bean);
+			if(beans.size() >= batchSize){
+				flush();
+			}
+		}
+		
+		@Override
+		public void error(ExcelDataError error) {
+			result.addError(error);
+			errors.add(error);
+		}
+		
+		@Override
+		public void end() {
+			if(!beans.isEmpty() || !errors.isEmpty()){
+				flush();
 			}
 		}
+		
+		private void flush(){
+			List<T> batch = beans;
+			List<ExcelDataError> batchErrors = errors;
+			//先释放引用,回调之后不再持有本批次数据
+			reset();
+			handler.handle(batch, batchErrors);
+		}
+		
+		private void reset(){
+			beans = new ArrayList<T>(Math.min(batchSize, 1024));
+			errors = new ArrayList<ExcelDataError>();
+		}
 	}
 	
 }
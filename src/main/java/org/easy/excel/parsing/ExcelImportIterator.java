@@ -0,0 +1,233 @@
+package org.easy.excel.parsing;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.easy.excel.exception.ExcelDataError;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.result.ExcelImportResult;
+
+/**
+ * 延迟读取Excel的迭代器,由后台读取线程解析Excel,预读的数据行数有上限,
+ * 迭代过的数据不再持有;迭代未完成时需要调用close方法终止读取线程
+ * 注意:迭代完成之前不能关闭Excel文件流
+ * @author lisuo
+ *
+ */
+public class ExcelImportIterator<T> implements Iterator<T>, Closeable {
+	
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	/** 读取结束标识 */
+	private static final Object END = new Object();
+	
+	private final BlockingQueue<Object> queue;
+	
+	private final ExcelImportResult result = new ExcelImportResult();
+	
+	private Thread reader;
+	
+	private Object next;
+	
+	private volatile boolean closed;
+	
+	private boolean finished;
+	
+	ExcelImportIterator(int capacity) {
+		this.queue = new ArrayBlockingQueue<Object>(Math.max(capacity, 1));
+	}
+	
+	/**
+	 * 启动读取线程
+	 * @param task 读取任务,读取的数据通过sink()写入
+	 */
+	void start(final Runnable task) {
+		reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Object end = END;
+				try {
+					task.run();
+				} catch (Throwable e) {
+					end = e;
+				}
+				if (!closed) {
+					put(end);
+				}
+			}
+		}, "easy-excel-import-" + THREAD_NUMBER.incrementAndGet());
+		reader.setDaemon(true);
+		reader.start();
+	}
+	
+	/**
+	 * @return 读取线程使用的导入结果,用于记录头信息和总行数
+	 */
+	ExcelImportResult getResult() {
+		return result;
+	}
+	
+	/**
+	 * @return 读取线程写入数据的接收者
+	 */
+	ImportSink sink() {
+		return new ImportSink() {
+			@Override
+			public void bean(Object bean) {
+				put(bean);
+			}
+			@Override
+			public void error(ExcelDataError error) {
+				synchronized (result) {
+					result.addError(error);
+				}
+			}
+			@Override
+			public void end() {
+			}
+		};
+	}
+	
+	private void put(Object value) {
+		try {
+			queue.put(value);
+		} catch (InterruptedException e) {
+			//迭代器已经关闭,终止读取
+			throw new ImportCancelledException();
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next != null) {
+			return true;
+		}
+		if (finished || closed) {
+			return false;
+		}
+		Object value;
+		try {
+			value = queue.take();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExcelException(e);
+		}
+		if (value == END) {
+			finished = true;
+			return false;
+		}
+		if (value instanceof Throwable) {
+			finished = true;
+			if (value instanceof RuntimeException) {
+				throw (RuntimeException) value;
+			}
+			throw new ExcelException((Throwable) value);
+		}
+		next = value;
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Object value = next;
+		next = null;
+		return (T) value;
+	}
+	
+	/**
+	 * @return 头信息,标题行之前的数据
+	 */
+	public List<List<Object>> getHeader() {
+		return result.getHeader();
+	}
+	
+	/**
+	 * @return Excel中需要处理的数据量,迭代完成后有效
+	 */
+	public Integer getTotalNum() {
+		return result.getTotalNum();
+	}
+	
+	/**
+	 * 目前为止保留的校验错误记录(multivalidate为true时),与其他导入方式一样,
+	 * 超出ImportOptions配置的错误数量上限的错误不保留,只计入getErrorCount
+	 * @return 错误记录的副本
+	 */
+	public List<ExcelDataError> getDataErrors() {
+		synchronized (result) {
+			return new ArrayList<ExcelDataError>(result.getDataErrors());
+		}
+	}
+	
+	/**
+	 * @return 校验未通过的总数,包括超出错误数量上限未保留的错误,迭代完成后有效
+	 */
+	public int getErrorCount() {
+		synchronized (result) {
+			return result.getErrorCount();
+		}
+	}
+	
+	/**
+	 * @return 是否有错误因为超出错误数量上限没有保留,迭代完成后有效
+	 */
+	public boolean isErrorsTruncated() {
+		synchronized (result) {
+			return result.isErrorsTruncated();
+		}
+	}
+	
+	/**
+	 * 转换成Stream,Stream关闭时关闭迭代器
+	 * @return Stream
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(new Runnable() {
+					@Override
+					public void run() {
+						close();
+					}
+				});
+	}
+
+	/**
+	 * 终止读取线程,丢弃预读的数据
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			if (reader != null) {
+				reader.interrupt();
+			}
+			queue.clear();
+			next = null;
+		}
+	}
+	
+	/**
+	 * 迭代器关闭,终止读取线程
+	 */
+	private static class ImportCancelledException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+		ImportCancelledException() {
+			super(null, null, false, false);
+		}
+	}
+	
+}
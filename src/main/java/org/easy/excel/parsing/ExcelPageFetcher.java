@@ -0,0 +1,19 @@
+package org.easy.excel.parsing;
+
+import java.util.List;
+
+/**
+ * 分页获取导出数据,例如分页查询数据库
+ * @author lisuo
+ *
+ */
+public interface ExcelPageFetcher<T> {
+	
+	/**
+	 * 获取一页数据
+	 * @param pageNo 页码,从1开始
+	 * @return 该页的数据,返回null或空集合表示没有更多数据
+	 */
+	List<T> fetch(int pageNo);
+	
+}
@@ -0,0 +1,22 @@
+package org.easy.excel.parsing;
+
+import java.util.List;
+
+import org.easy.excel.exception.ExcelDataError;
+
+/**
+ * 导入Excel,分批处理数据,每读取batchSize条数据回调一次,
+ * 回调之后不再持有本批次的数据,适合边读取边入库等场景
+ * @author lisuo
+ *
+ */
+public interface ExcelRowHandler<T> {
+	
+	/**
+	 * 处理一批数据
+	 * @param beans 本批次校验通过的数据
+	 * @param errors 本批次保留的错误记录(不超过ImportOptions配置的错误数量上限),multivalidate为false时总是空集合
+	 */
+	void handle(List<T> beans, List<ExcelDataError> errors);
+	
+}
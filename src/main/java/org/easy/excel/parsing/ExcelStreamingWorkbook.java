@@ -0,0 +1,260 @@
+package org.easy.excel.parsing;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTColor;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRElt;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRPrElt;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+/**
+ * 支持富文本的SXSSFWorkbook,SXSSF写入临时文件时会丢弃RichTextString的格式,
+ * 通过setCellValue(Cell, XSSFRichTextString)设置的cell以带格式的inlineStr写入,
+ * 例如requiredTag标题中标红的*号,其他cell的写入方式不变;
+ * 可以指定临时文件的目录和导出文件的zip压缩级别,close时删除临时文件
+ * @author lisuo
+ *
+ */
+public class ExcelStreamingWorkbook extends SXSSFWorkbook {
+	
+	/** 等待写入的富文本cell */
+	private final Set<Cell> richTextCells = Collections.newSetFromMap(new IdentityHashMap<Cell, Boolean>());
+	
+	/** 临时文件目录,为null时使用POI默认的目录 */
+	private File tempFileDir;
+	
+	/** 导出文件的zip压缩级别 */
+	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+	
+	/** zip压缩的线程数,大于1时并行压缩 */
+	private int deflateParallelism = 1;
+	
+	public ExcelStreamingWorkbook() {
+		super();
+	}
+	
+	/**
+	 * @param rowAccessWindowSize 内存中保留的行数
+	 */
+	public ExcelStreamingWorkbook(int rowAccessWindowSize) {
+		super(rowAccessWindowSize);
+	}
+	
+	/**
+	 * 设置临时文件目录,例如tmpfs,需要在创建sheet之前设置
+	 * @param tempFileDir
+	 */
+	public void setTempFileDir(File tempFileDir) {
+		this.tempFileDir = tempFileDir;
+	}
+	
+	public File getTempFileDir() {
+		return tempFileDir;
+	}
+	
+	/**
+	 * 设置导出文件的zip压缩级别
+	 * @param compressionLevel 0-9,0表示只存储不压缩,-1为默认级别
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		this.compressionLevel = compressionLevel;
+	}
+	
+	public int getCompressionLevel() {
+		return compressionLevel;
+	}
+	
+	/**
+	 * 设置写出时zip压缩的线程数,大于1时sheet xml等大的part按块并行压缩,
+	 * 生成的仍然是普通的zip,适用于write到文件或者servlet输出流
+	 * @param deflateParallelism
+	 */
+	public void setDeflateParallelism(int deflateParallelism) {
+		this.deflateParallelism = deflateParallelism;
+	}
+	
+	public int getDeflateParallelism() {
+		return deflateParallelism;
+	}
+	
+	/**
+	 * 设置富文本的值,写入时保留格式
+	 * @param cell
+	 * @param value
+	 */
+	public void setCellValue(Cell cell, XSSFRichTextString value) {
+		cell.setCellValue(value);
+		if (value.numFormattingRuns() > 0) {
+			richTextCells.add(cell);
+		}
+	}
+	
+	@Override
+	protected SheetDataWriter createSheetDataWriter() throws IOException {
+		return new RichTextSheetDataWriter();
+	}
+	
+	@Override
+	protected ZipArchiveOutputStream createArchiveOutputStream(OutputStream out) {
+		ZipArchiveOutputStream zos = deflateParallelism > 1 ? new ParallelDeflateZipOutputStream(out, deflateParallelism)
+				: super.createArchiveOutputStream(out);
+		zos.setLevel(compressionLevel);
+		return zos;
+	}
+	
+	/**
+	 * 删除临时文件并关闭workbook,已经写出和没有写出(导出失败)的workbook的临时文件都会被删除;
+	 * 必须先删除临时文件再关闭,SXSSFSheet删除临时文件前会把内存中的行写入临时文件,关闭后写入会失败
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			dispose();
+		} finally {
+			super.close();
+		}
+	}
+	
+	/**
+	 * 写入富文本cell的SheetDataWriter,按照workbook的配置创建和压缩临时文件;
+	 * 父类构造方法中会创建临时文件,非静态内部类在调用父类构造方法之前已经持有外部类的引用,可以读取workbook的配置
+	 */
+	private class RichTextSheetDataWriter extends SheetDataWriter {
+		
+		/** 父类构造方法中创建的Writer,不能有初始值 */
+		private Writer out;
+		
+		RichTextSheetDataWriter() throws IOException {
+			super(ExcelStreamingWorkbook.this.getSharedStringSource());
+		}
+		
+		@Override
+		public File createTempFile() throws IOException {
+			if (tempFileDir == null) {
+				return super.createTempFile();
+			}
+			return File.createTempFile("poi-sxssf-sheet", isCompressTempFiles() ? ".xml.gz" : ".xml", tempFileDir);
+		}
+		
+		@Override
+		public Writer createWriter(File fd) throws IOException {
+			out = super.createWriter(fd);
+			return out;
+		}
+		
+		@Override
+		protected OutputStream decorateOutputStream(FileOutputStream fos) throws IOException {
+			return isCompressTempFiles() ? new GZIPOutputStream(fos) : fos;
+		}
+		
+		@Override
+		protected InputStream decorateInputStream(FileInputStream fis) throws IOException {
+			return isCompressTempFiles() ? new GZIPInputStream(fis) : fis;
+		}
+		
+		@Override
+		public void writeCell(int columnIndex, Cell cell) throws IOException {
+			if (cell == null || richTextCells.isEmpty() || !richTextCells.remove(cell)) {
+				super.writeCell(columnIndex, cell);
+				return;
+			}
+			out.write("<c r=\"");
+			out.write(new CellReference(cell.getRowIndex(), columnIndex).formatAsString());
+			out.write('"');
+			int style = cell.getCellStyle().getIndex() & 0xffff;
+			if (style != 0) {
+				out.write(" s=\"");
+				out.write(Integer.toString(style));
+				out.write('"');
+			}
+			out.write(" t=\"inlineStr\"><is>");
+			CTRst rst = ((XSSFRichTextString) cell.getRichStringCellValue()).getCTRst();
+			for (int i = 0, size = rst.sizeOfRArray(); i < size; i++) {
+				CTRElt r = rst.getRArray(i);
+				out.write("<r>");
+				if (r.isSetRPr()) {
+					writeRunProperties(r.getRPr());
+				}
+				writeText(r.getT());
+				out.write("</r>");
+			}
+			out.write("</is></c>");
+		}
+		
+		private void writeText(String text) throws IOException {
+			out.write("<t");
+			if (!text.isEmpty() && (Character.isWhitespace(text.charAt(0)) || Character.isWhitespace(text.charAt(text.length() - 1)))) {
+				out.write(" xml:space=\"preserve\"");
+			}
+			out.write('>');
+			outputQuotedString(text);
+			out.write("</t>");
+		}
+		
+		//按照schema中的顺序写入字体属性
+		private void writeRunProperties(CTRPrElt pr) throws IOException {
+			out.write("<rPr>");
+			if (pr.sizeOfRFontArray() > 0) {
+				out.write("<rFont val=\"");
+				outputQuotedString(pr.getRFontArray(0).getVal());
+				out.write("\"/>");
+			}
+			if (pr.sizeOfBArray() > 0 && pr.getBArray(0).getVal()) {
+				out.write("<b/>");
+			}
+			if (pr.sizeOfIArray() > 0 && pr.getIArray(0).getVal()) {
+				out.write("<i/>");
+			}
+			if (pr.sizeOfStrikeArray() > 0 && pr.getStrikeArray(0).getVal()) {
+				out.write("<strike/>");
+			}
+			if (pr.sizeOfColorArray() > 0) {
+				CTColor color = pr.getColorArray(0);
+				if (color.isSetRgb()) {
+					out.write("<color rgb=\"");
+					out.write(toHex(color.getRgb()));
+					out.write("\"/>");
+				} else if (color.isSetIndexed()) {
+					out.write("<color indexed=\"" + color.getIndexed() + "\"/>");
+				} else if (color.isSetTheme()) {
+					out.write("<color theme=\"" + color.getTheme() + "\"/>");
+				}
+			}
+			if (pr.sizeOfSzArray() > 0) {
+				out.write("<sz val=\"" + pr.getSzArray(0).getVal() + "\"/>");
+			}
+			if (pr.sizeOfUArray() > 0) {
+				out.write("<u val=\"" + pr.getUArray(0).getVal() + "\"/>");
+			}
+			out.write("</rPr>");
+		}
+	}
+	
+	private static String toHex(byte[] rgb) {
+		StringBuilder sb = new StringBuilder(rgb.length * 2);
+		for (byte b : rgb) {
+			sb.append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)));
+			sb.append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+		}
+		return sb.toString();
+	}
+	
+}
@@ -0,0 +1,421 @@
+package org.easy.excel.parsing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.ResolverStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelDataException;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.CellValueConverter.Type;
+import org.springframework.core.convert.ConversionException;
+
+/**
+ * 字段的值编解码器,根据FieldValue的pattern,format,decimalFormatPattern,defaultValue配置编译,
+ * 不可变,多线程导入导出时可以共享;注册时编译一次保存在FieldValue中,通过FieldValue.getCodec获取
+ * @author lisuo
+ *
+ */
+public final class FieldCodec {
+	
+	private static final LocalDate EPOCH_DATE = LocalDate.of(1970, 1, 1);
+	
+	/** 日期格式,导出使用第一个 */
+	private final DateTimeFormatter[] dateFormatters;
+	private final String pattern;
+	
+	/** format表达式,导出时 key->value,导入时 value->key */
+	private final Map<String, String> exportExpressions;
+	private final Map<String, String> importExpressions;
+	private final String format;
+	
+	/** DecimalFormat不是线程安全的,每个线程使用自己的副本 */
+	private final ThreadLocal<DecimalFormat> decimalFormats;
+	private final String decimalFormatPattern;
+	
+	/** 导出原始值时等价的Excel数据格式,pattern或者decimalFormatPattern没有等价的Excel格式时为null */
+	private final String excelFormat;
+	/** 导出原始数字时保留的小数位数,与DecimalFormat的最大小数位数和倍数(百分比)一致 */
+	private final int numberScale;
+	private final RoundingMode roundingMode;
+	
+	private final String defaultValue;
+	/** 按照属性类型转换后的默认值 */
+	private final Map<Class<?>, Object> typedDefaultValues = new ConcurrentHashMap<Class<?>, Object>();
+	
+	private FieldCodec(FieldValue fieldValue) {
+		this.pattern = fieldValue.getPattern();
+		this.dateFormatters = StringUtils.isNotBlank(pattern) ? compileDateFormatters(pattern) : null;
+		this.format = fieldValue.getFormat();
+		if (format != null) {
+			Map<String, String> exports = new HashMap<String, String>();
+			Map<String, String> imports = new HashMap<String, String>();
+			for (String expression : StringUtils.split(format, ",")) {
+				String[] val = StringUtils.split(expression, ":");
+				if (val.length < 2) {
+					throw new ExcelException("表达式:[" + format + "]错误,正确的格式应该以[,]号分割,[:]号取值");
+				}
+				//与原有的顺序匹配保持一致,重复时第一个生效
+				if (!exports.containsKey(val[0])) {
+					exports.put(val[0], val[1]);
+				}
+				if (!imports.containsKey(val[1])) {
+					imports.put(val[1], val[0]);
+				}
+			}
+			this.exportExpressions = Collections.unmodifiableMap(exports);
+			this.importExpressions = Collections.unmodifiableMap(imports);
+		} else {
+			this.exportExpressions = null;
+			this.importExpressions = null;
+		}
+		this.decimalFormatPattern = fieldValue.getDecimalFormatPattern();
+		final DecimalFormat prototype = fieldValue.getDecimalFormat() != null ? (DecimalFormat) fieldValue.getDecimalFormat().clone()
+				: createDecimalFormat(fieldValue);
+		this.decimalFormats = prototype == null ? null : new ThreadLocal<DecimalFormat>() {
+			@Override
+			protected DecimalFormat initialValue() {
+				return (DecimalFormat) prototype.clone();
+			}
+		};
+		this.defaultValue = fieldValue.getDefaultValue();
+		//与convert的优先级一致:pattern,format,decimalFormat
+		if (dateFormatters != null) {
+			this.excelFormat = ExcelDataFormats.fromDatePattern(StringUtils.split(pattern, ",")[0]);
+			this.numberScale = 0;
+		} else if (exportExpressions == null && prototype != null && (prototype.getMultiplier() == 1
+				|| prototype.getMultiplier() == 100 || prototype.getMultiplier() == 1000)) {
+			this.excelFormat = ExcelDataFormats.fromDecimalPattern(StringUtils.isNotBlank(decimalFormatPattern) ? decimalFormatPattern : prototype.toPattern());
+			this.numberScale = prototype.getMaximumFractionDigits() + (int) Math.log10(prototype.getMultiplier());
+		} else {
+			this.excelFormat = null;
+			this.numberScale = 0;
+		}
+		this.roundingMode = prototype != null ? prototype.getRoundingMode() : RoundingMode.DOWN;
+	}
+	
+	/**
+	 * 编译FieldValue,配置错误时抛出ExcelException
+	 * @param fieldValue
+	 * @return FieldCodec
+	 */
+	public static FieldCodec compile(FieldValue fieldValue) {
+		return new FieldCodec(fieldValue);
+	}
+	
+	/**
+	 * 转换cell的值,与DefaultCellValueConverter的规则一致,优先级:pattern,format,decimalFormat
+	 * @param bean
+	 * @param value Excel原值或者bean的属性值,不能为null
+	 * @param fieldValue
+	 * @param type 导入或导出
+	 * @param rowNum 行号
+	 * @return 转换结果
+	 */
+	public Object convert(Object bean, Object value, FieldValue fieldValue, Type type, int rowNum) {
+		if (dateFormatters != null) {
+			return type == Type.EXPORT ? formatDate(value) : parseDate(bean, value, fieldValue, rowNum);
+		} else if (exportExpressions != null) {
+			String str = value.toString();
+			String result = (type == Type.EXPORT ? exportExpressions : importExpressions).get(str);
+			if (result == null) {
+				throw new ExcelDataException("[" + str + "]取值错误", rowNum, fieldValue.getAlias(), str, bean, false);
+			}
+			return result;
+		} else if (decimalFormats != null) {
+			DecimalFormat decimalFormat = decimalFormats.get();
+			if (type == Type.IMPORT) {
+				if (value instanceof String) {
+					try {
+						return decimalFormat.parse(value.toString());
+					} catch (ParseException e) {
+						throw new ExcelDataException(e.getMessage(), rowNum, fieldValue.getAlias(), value, bean, false);
+					}
+				}
+				return value;
+			}
+			if (value instanceof String) {
+				value = BeanUtil.convert(value, BigDecimal.class);
+			}
+			return decimalFormat.format(value);
+		}
+		return value;
+	}
+	
+	/**
+	 * 导出原始值时使用的Excel数据格式
+	 * @return 没有配置pattern,decimalFormatPattern,配置了format,或者没有等价的Excel格式时返回null
+	 */
+	public String getExcelFormat() {
+		return excelFormat;
+	}
+	
+	/**
+	 * 导出时不格式化成字符串,转换成Excel可以直接保存的原始值,配合getExcelFormat的格式显示;
+	 * 日期转换成Date(与格式化时使用相同的时区),数字按照DecimalFormat的小数位数和roundingMode取舍,
+	 * 显示的内容与格式化成字符串一致
+	 * @param value bean的属性值,不能为null
+	 * @return Date或者BigDecimal,没有Excel格式或者无法转换(例如已经是字符串)时返回null
+	 */
+	public Object toExcelValue(Object value) {
+		if (excelFormat == null) {
+			return null;
+		}
+		if (dateFormatters != null) {
+			return toDate(value);
+		}
+		BigDecimal number;
+		if (value instanceof BigDecimal) {
+			number = (BigDecimal) value;
+		} else if (value instanceof Number || value instanceof String) {
+			try {
+				number = new BigDecimal(value.toString().trim());
+			} catch (NumberFormatException e) {
+				//NaN,Infinity以及不是数字的字符串
+				return null;
+			}
+		} else {
+			return null;
+		}
+		return number.scale() > numberScale ? number.setScale(numberScale, roundingMode) : number;
+	}
+	
+	//日期类型的值转换成Date,与formatDate显示的时间一致
+	private static Date toDate(Object value) {
+		ZoneId zone = ZoneId.systemDefault();
+		if (value instanceof Date) {
+			return (Date) value;
+		} else if (value instanceof Calendar) {
+			Calendar calendar = (Calendar) value;
+			LocalDateTime dateTime = Instant.ofEpochMilli(calendar.getTimeInMillis()).atZone(calendar.getTimeZone().toZoneId()).toLocalDateTime();
+			return Date.from(dateTime.atZone(zone).toInstant());
+		} else if (value instanceof Number) {
+			return new Date(((Number) value).longValue());
+		} else if (value instanceof LocalDateTime) {
+			return Date.from(((LocalDateTime) value).atZone(zone).toInstant());
+		} else if (value instanceof LocalDate) {
+			return Date.from(((LocalDate) value).atStartOfDay(zone).toInstant());
+		} else if (value instanceof LocalTime) {
+			return Date.from(((LocalTime) value).atDate(EPOCH_DATE).atZone(zone).toInstant());
+		} else if (value instanceof Instant) {
+			return Date.from((Instant) value);
+		} else if (value instanceof ZonedDateTime) {
+			return Date.from(((ZonedDateTime) value).toLocalDateTime().atZone(zone).toInstant());
+		} else if (value instanceof OffsetDateTime) {
+			return Date.from(((OffsetDateTime) value).toLocalDateTime().atZone(zone).toInstant());
+		}
+		return null;
+	}
+	
+	/**
+	 * 获取默认值,按照属性类型转换一次后缓存
+	 * @param type 属性类型,为null时返回配置的字符串
+	 * @return 默认值
+	 */
+	public Object getDefaultValue(Class<?> type) {
+		if (defaultValue == null || type == null || type == Object.class || type == String.class) {
+			return defaultValue;
+		}
+		Object value = typedDefaultValues.get(type);
+		if (value == null) {
+			try {
+				value = BeanUtil.convert(defaultValue, type);
+			} catch (ConversionException e) {
+				//无法转换时由属性访问器处理
+				return defaultValue;
+			}
+			if (value == null) {
+				return defaultValue;
+			}
+			typedDefaultValues.put(type, value);
+		}
+		return value;
+	}
+	
+	//导出日期,使用第一个pattern
+	private Object formatDate(Object value) {
+		ZonedDateTime dateTime;
+		ZoneId zone = ZoneId.systemDefault();
+		if (value instanceof Date) {
+			dateTime = Instant.ofEpochMilli(((Date) value).getTime()).atZone(zone);
+		} else if (value instanceof Calendar) {
+			Calendar calendar = (Calendar) value;
+			dateTime = Instant.ofEpochMilli(calendar.getTimeInMillis()).atZone(calendar.getTimeZone().toZoneId());
+		} else if (value instanceof Number) {
+			dateTime = Instant.ofEpochMilli(((Number) value).longValue()).atZone(zone);
+		} else if (value instanceof LocalDateTime) {
+			dateTime = ((LocalDateTime) value).atZone(zone);
+		} else if (value instanceof LocalDate) {
+			dateTime = ((LocalDate) value).atStartOfDay(zone);
+		} else if (value instanceof LocalTime) {
+			dateTime = ((LocalTime) value).atDate(EPOCH_DATE).atZone(zone);
+		} else if (value instanceof Instant) {
+			dateTime = ((Instant) value).atZone(zone);
+		} else if (value instanceof TemporalAccessor) {
+			return dateFormatters[0].format((TemporalAccessor) value);
+		} else {
+			//已经是格式化的值
+			return value.toString();
+		}
+		return dateFormatters[0].format(dateTime);
+	}
+	
+	//导入日期
+	private Object parseDate(Object bean, Object value, FieldValue fieldValue, int rowNum) {
+		if (value instanceof String) {
+			Date date = parseDate((String) value);
+			if (date == null) {
+				StringBuilder errMsg = new StringBuilder("[");
+				errMsg.append(value.toString()).append("]")
+				.append("不能转换成日期,正确的格式应该是:[").append(pattern + "]");
+				throw new ExcelDataException(errMsg.toString(), rowNum, fieldValue.getAlias(), value, bean, false);
+			}
+			return date;
+		} else if (value instanceof Date) {
+			return value;
+		} else if (value instanceof Number) {
+			return new Date(((Number) value).longValue());
+		}
+		throw new ExcelDataException("数据格式错误,[ " + fieldValue.getName() + " ]的类型是:" + value.getClass() + ",无法转换成日期",
+				rowNum, fieldValue.getAlias(), value, bean, false);
+	}
+	
+	/**
+	 * 依次使用配置的pattern解析日期,与SimpleDateFormat一致,忽略日期后面多余的字符
+	 * @param str
+	 * @return 都不能解析时返回null
+	 */
+	public Date parseDate(String str) {
+		for (DateTimeFormatter formatter : dateFormatters) {
+			try {
+				TemporalAccessor parsed = formatter.parse(str, new ParsePosition(0));
+				LocalDate date = parsed.query(TemporalQueries.localDate());
+				LocalTime time = parsed.query(TemporalQueries.localTime());
+				ZoneId zone = parsed.query(TemporalQueries.zone());
+				ZonedDateTime dateTime = ZonedDateTime.of(date == null ? EPOCH_DATE : date, time == null ? LocalTime.MIDNIGHT : time,
+						zone == null ? ZoneId.systemDefault() : zone);
+				return Date.from(dateTime.toInstant());
+			} catch (DateTimeException ignore) {
+				//不能解析,或者解析的字段相互矛盾(例如星期几与日期不一致)
+				continue;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 编译日期格式,宽松解析(数字位数可变,如2018-1-1),缺少的年月日字段与SimpleDateFormat一致,默认1970-01-01;
+	 * pattern是SimpleDateFormat的语法,与DateTimeFormatter含义不同的字母按照SimpleDateFormat转换,
+	 * u是星期几(1表示星期一),不是年份;没有w时Y按照年份(y)处理,DateTimeFormatter缺少周数时无法确定日期
+	 * @param pattern 多个以[,]号分割
+	 * @return DateTimeFormatter[]
+	 */
+	private static DateTimeFormatter[] compileDateFormatters(String pattern) {
+		String[] patterns = StringUtils.split(pattern, ",");
+		DateTimeFormatter[] formatters = new DateTimeFormatter[patterns.length];
+		for (int i = 0; i < patterns.length; i++) {
+			String p = patterns[i];
+			try {
+				DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder().parseLenient();
+				String letters = patternLetters(p);
+				appendPattern(builder, p, letters.indexOf('w') < 0);
+				if (!StringUtils.containsAny(letters, "yY")) {
+					builder.parseDefaulting(ChronoField.YEAR_OF_ERA, 1970);
+				}
+				if (!StringUtils.containsAny(letters, "MLDwWEFe")) {
+					builder.parseDefaulting(ChronoField.MONTH_OF_YEAR, 1);
+				}
+				if (!StringUtils.containsAny(letters, "dDwWEFe")) {
+					builder.parseDefaulting(ChronoField.DAY_OF_MONTH, 1);
+				}
+				formatters[i] = builder.toFormatter().withResolverStyle(ResolverStyle.LENIENT);
+			} catch (IllegalArgumentException e) {
+				throw new ExcelException("pattern [ " + p + " ] 不是合法的日期格式:" + e.getMessage());
+			}
+		}
+		return formatters;
+	}
+	
+	//按照SimpleDateFormat的含义添加pattern,u转换成星期几,weekYearAsYear为true时Y转换成y,其他部分使用DateTimeFormatter的语法
+	private static void appendPattern(DateTimeFormatterBuilder builder, String pattern, boolean weekYearAsYear) {
+		StringBuilder segment = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && ch == 'u') {
+				int count = 1;
+				while (i + 1 < pattern.length() && pattern.charAt(i + 1) == 'u') {
+					count++;
+					i++;
+				}
+				if (segment.length() > 0) {
+					builder.appendPattern(segment.toString());
+					segment.setLength(0);
+				}
+				builder.appendValue(ChronoField.DAY_OF_WEEK, count);
+				continue;
+			} else if (!quoted && ch == 'Y' && weekYearAsYear) {
+				ch = 'y';
+			}
+			segment.append(ch);
+		}
+		if (segment.length() > 0) {
+			builder.appendPattern(segment.toString());
+		}
+	}
+	
+	//pattern中引号之外的字母
+	private static String patternLetters(String pattern) {
+		StringBuilder letters = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < pattern.length(); i++) {
+			char ch = pattern.charAt(i);
+			if (ch == '\'') {
+				quoted = !quoted;
+			} else if (!quoted && Character.isLetter(ch)) {
+				letters.append(ch);
+			}
+		}
+		return letters.toString();
+	}
+	
+	private static DecimalFormat createDecimalFormat(FieldValue fieldValue) {
+		String decimalFormatPattern = fieldValue.getDecimalFormatPattern();
+		if (StringUtils.isBlank(decimalFormatPattern)) {
+			return null;
+		}
+		try {
+			DecimalFormat decimalFormat = new DecimalFormat(decimalFormatPattern);
+			decimalFormat.setRoundingMode(fieldValue.getRoundingMode());
+			return decimalFormat;
+		} catch (IllegalArgumentException e) {
+			throw new ExcelException("decimalFormatPattern [ " + decimalFormatPattern + " ] 不是合法的格式");
+		}
+	}
+	
+}
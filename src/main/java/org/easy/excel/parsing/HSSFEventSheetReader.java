@@ -0,0 +1,256 @@
+package org.easy.excel.parsing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.TempFile;
+import org.easy.excel.config.FormulaMode;
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * xls 事件模型读取,基于HSSFEventFactory逐条处理BIFF记录,不构建HSSFWorkbook对象,
+ * 每读取完一行回调一次SheetRowCallback,读取完指定的sheet页后立即终止解析
+ * 公式单元格读取文件中缓存的计算结果,formulaMode为FAIL时遇到公式抛出异常
+ * @author lisuo
+ *
+ */
+class HSSFEventSheetReader {
+	
+	/** FormulaRecord.getCachedResultType()返回的结果类型,与BIFF格式一致,POI 4.1.2没有返回CellType的方法 */
+	private static final int CACHED_NUMERIC = 0;
+	private static final int CACHED_BOOLEAN = 4;
+	
+	/** 公式cell的处理方式,事件模型只能读取缓存的结果,FAIL时遇到公式抛出异常 */
+	private final FormulaMode formulaMode;
+	
+	public HSSFEventSheetReader(FormulaMode formulaMode) {
+		this.formulaMode = formulaMode;
+	}
+	
+	/**
+	 * 读取指定sheet页的数据
+	 * @param excelStream xls文件流
+	 * @param sheetIndex sheet索引位
+	 * @param callback 行回调
+	 */
+	public void read(InputStream excelStream, int sheetIndex, SheetRowCallback callback) {
+		File tmpFile = null;
+		POIFSFileSystem fs = null;
+		try {
+			//POIFSFileSystem(InputStream)会把整个文件读入内存,这里先写入临时文件,按需读取
+			tmpFile = TempFile.createTempFile("easy-excel-import", ".xls");
+			try (OutputStream out = new FileOutputStream(tmpFile)) {
+				IOUtils.copy(excelStream, out);
+			}
+			fs = new POIFSFileSystem(tmpFile, true);
+			SheetListener sheetListener = new SheetListener(sheetIndex, formulaMode == FormulaMode.FAIL, callback);
+			FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(sheetListener));
+			sheetListener.formatListener = formatListener;
+			HSSFRequest request = new HSSFRequest();
+			request.addListenerForAllRecords(new AbortableListener(formatListener, sheetListener));
+			new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+			if (!sheetListener.found) {
+				throw new ExcelException("找不到对应的sheet页");
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new ExcelException(e);
+		} finally {
+			IOUtils.closeQuietly(fs);
+			if (tmpFile != null) {
+				tmpFile.delete();
+			}
+		}
+	}
+	
+	/**
+	 * 指定sheet页读取完毕后终止解析
+	 */
+	private static class AbortableListener extends AbortableHSSFListener {
+		
+		private final HSSFListener delegate;
+		private final SheetListener sheetListener;
+		
+		AbortableListener(HSSFListener delegate, SheetListener sheetListener) {
+			this.delegate = delegate;
+			this.sheetListener = sheetListener;
+		}
+
+		@Override
+		public short abortableProcessRecord(Record record) {
+			delegate.processRecord(record);
+			return (short) (sheetListener.finished ? 1 : 0);
+		}
+	}
+	
+	/**
+	 * BIFF记录处理,把cell记录组装成行
+	 */
+	private static class SheetListener implements HSSFListener {
+		
+		private final int sheetIndex;
+		private final SheetRowCallback callback;
+		/** 遇到公式是否抛出异常 */
+		private final boolean failOnFormula;
+		private FormatTrackingHSSFListener formatListener;
+		
+		private final List<BoundSheetRecord> boundSheetRecords = new ArrayList<BoundSheetRecord>();
+		private BoundSheetRecord[] orderedBoundSheetRecords;
+		private SSTRecord sstRecord;
+		private boolean date1904;
+		
+		/** 当前处理的sheet在BOF位置中的顺序 */
+		private int bofIndex = -1;
+		/** 当前处理的是否为需要读取的sheet */
+		private boolean inSheet;
+		private boolean found;
+		private boolean finished;
+		
+		private List<Object> values = new ArrayList<Object>();
+		/** 字符串类型的公式结果,记录在紧随其后的StringRecord中 */
+		private int pendingStringColumn = -1;
+		
+		SheetListener(int sheetIndex, boolean failOnFormula, SheetRowCallback callback) {
+			this.sheetIndex = sheetIndex;
+			this.failOnFormula = failOnFormula;
+			this.callback = callback;
+		}
+
+		@Override
+		public void processRecord(Record record) {
+			switch (record.getSid()) {
+			case BoundSheetRecord.sid:
+				boundSheetRecords.add((BoundSheetRecord) record);
+				break;
+			case DateWindow1904Record.sid:
+				date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+				break;
+			case SSTRecord.sid:
+				sstRecord = (SSTRecord) record;
+				break;
+			case BOFRecord.sid:
+				if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+					bofIndex++;
+					if (orderedBoundSheetRecords == null) {
+						orderedBoundSheetRecords = BoundSheetRecord.orderByBofPosition(boundSheetRecords);
+					}
+					//BOF的顺序与sheet在workbook中的顺序可能不一致,转换为workbook中的索引位
+					inSheet = bofIndex < orderedBoundSheetRecords.length
+							&& boundSheetRecords.indexOf(orderedBoundSheetRecords[bofIndex]) == sheetIndex;
+					found |= inSheet;
+				}
+				break;
+			case EOFRecord.sid:
+				if (inSheet) {
+					inSheet = false;
+					finished = true;
+				}
+				break;
+			default:
+				if (inSheet) {
+					processCellRecord(record);
+				}
+			}
+		}
+		
+		private void processCellRecord(Record record) {
+			if (record instanceof LastCellOfRowDummyRecord) {
+				callback.onRow(((LastCellOfRowDummyRecord) record).getRow(), values);
+				values = new ArrayList<Object>();
+				return;
+			}
+			switch (record.getSid()) {
+			case LabelSSTRecord.sid:
+				LabelSSTRecord labelSST = (LabelSSTRecord) record;
+				setValue(labelSST.getColumn(), sstRecord.getString(labelSST.getSSTIndex()).getString());
+				break;
+			case LabelRecord.sid:
+				LabelRecord label = (LabelRecord) record;
+				setValue(label.getColumn(), label.getValue());
+				break;
+			case NumberRecord.sid:
+				NumberRecord number = (NumberRecord) record;
+				setValue(number.getColumn(), getNumericValue(number, number.getValue()));
+				break;
+			case BoolErrRecord.sid:
+				BoolErrRecord boolErr = (BoolErrRecord) record;
+				if (boolErr.isBoolean()) {
+					setValue(boolErr.getColumn(), boolErr.getBooleanValue());
+				}
+				break;
+			case FormulaRecord.sid:
+				FormulaRecord formula = (FormulaRecord) record;
+				if (failOnFormula) {
+					throw new ExcelException("[" + new CellReference(formula.getRow(), formula.getColumn()).formatAsString() + "]是公式,不允许导入公式");
+				}
+				int resultType = formula.getCachedResultType();
+				if (resultType == CACHED_NUMERIC) {
+					setValue(formula.getColumn(), getNumericValue(formula, formula.getValue()));
+				} else if (resultType == CACHED_BOOLEAN) {
+					setValue(formula.getColumn(), formula.getCachedBooleanValue());
+				} else if (formula.hasCachedResultString()) {
+					pendingStringColumn = formula.getColumn();
+				}
+				break;
+			case StringRecord.sid:
+				if (pendingStringColumn >= 0) {
+					setValue(pendingStringColumn, ((StringRecord) record).getString());
+					pendingStringColumn = -1;
+				}
+				break;
+			default:
+				break;
+			}
+		}
+		
+		//日期格式的数值转换成Date,与ExcelUtil.getCellValue保持一致
+		private Object getNumericValue(CellValueRecordInterface cell, double value) {
+			int formatIndex = formatListener.getFormatIndex(cell);
+			String formatString = formatListener.getFormatString(cell);
+			if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+				return DateUtil.getJavaDate(value, date1904);
+			}
+			return value;
+		}
+		
+		private void setValue(int column, Object value) {
+			if (value == null || (value instanceof String && ((String) value).isEmpty())) {
+				return;
+			}
+			while (values.size() <= column) {
+				values.add(null);
+			}
+			values.set(column, value);
+		}
+	}
+	
+}
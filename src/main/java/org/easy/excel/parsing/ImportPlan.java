@@ -0,0 +1,110 @@
+package org.easy.excel.parsing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.validation.FieldValidator;
+
+/**
+ * 导入计划,读取到标题行时编译一次:把配置的字段绑定到Excel的列索引,同时解析好校验规则、转换器和属性访问器,
+ * 读取数据行时只需要按照数组顺序处理,不再进行标题匹配
+ * @author lisuo
+ *
+ */
+class ImportPlan {
+	
+	/** 字段与列的绑定,按照字段的配置顺序 */
+	private final ColumnBinding[] bindings;
+	
+	private ImportPlan(ColumnBinding[] bindings) {
+		this.bindings = bindings;
+	}
+	
+	public ColumnBinding[] getBindings() {
+		return bindings;
+	}
+	
+	/**
+	 * 编译导入计划,同时校验excel标题与配置的标题是否匹配,如果不包含抛出异常
+	 * @param excelDefinition
+	 * @param titles 标题,索引位即列索引位
+	 * @param resolver 用于获取字段的转换器
+	 * @return ImportPlan
+	 */
+	public static ImportPlan compile(ExcelDefinition excelDefinition, List<String> titles, AbstractExcelResolver resolver) {
+		if (titles == null || titles.isEmpty()) {
+			throw new ExcelException("标题不能为空");
+		}
+		//标题 -> 第一次出现的列索引
+		Map<String, Integer> titleIndexes = new HashMap<String, Integer>(titles.size() * 2);
+		for (int i = titles.size() - 1; i >= 0; i--) {
+			String title = titles.get(i);
+			if (title != null) {
+				titleIndexes.put(title, i);
+			}
+		}
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		List<ColumnBinding> bindings = new ArrayList<ColumnBinding>(fieldValues.size());
+		for (FieldValue fieldValue : fieldValues) {
+			//标题或者别名,取最靠前的列
+			Integer titleCol = titleIndexes.get(fieldValue.getTitle());
+			Integer aliasCol = titleIndexes.get(fieldValue.getAlias());
+			Integer col = titleCol;
+			if (col == null || (aliasCol != null && aliasCol < col)) {
+				col = aliasCol;
+			}
+			if (col == null) {
+				//标题校验规则：excel中没有对应的配置标题或别名，同时该属性不能为空，如果为空，允许标题不存在
+				if (!fieldValue.isNull()) {
+					throw new ExcelException("标题[" + fieldValue.getAlias() + "]在Excel中不存在");
+				}
+				continue;
+			}
+			bindings.add(new ColumnBinding(col, fieldValue, fieldValue.getValidator(), resolver.getCellValueConverter(fieldValue),
+					BeanUtil.getPropertyAccess(excelDefinition.getClazz(), fieldValue.getName())));
+		}
+		return new ImportPlan(bindings.toArray(new ColumnBinding[bindings.size()]));
+	}
+	
+	/**
+	 * 字段与Excel列的绑定
+	 */
+	static class ColumnBinding {
+		
+		/** 列索引 */
+		final int column;
+		
+		final FieldValue fieldValue;
+		
+		/** 字段的校验规则 */
+		final FieldValidator validator;
+		
+		/** 字段的转换器 */
+		final CellValueConverter converter;
+		
+		/** 字段的属性访问器 */
+		final PropertyAccess access;
+		
+		/** 字段的编解码器 */
+		final FieldCodec codec;
+		
+		/** 按照属性类型转换后的默认值 */
+		final Object defaultValue;
+		
+		ColumnBinding(int column, FieldValue fieldValue, FieldValidator validator, CellValueConverter converter, PropertyAccess access) {
+			this.column = column;
+			this.fieldValue = fieldValue;
+			this.validator = validator;
+			this.converter = converter;
+			this.access = access;
+			this.codec = fieldValue.getCodec();
+			this.defaultValue = codec.getDefaultValue(access.getPropertyType());
+		}
+	}
+	
+}
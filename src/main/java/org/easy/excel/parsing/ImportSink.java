@@ -0,0 +1,29 @@
+package org.easy.excel.parsing;
+
+import org.easy.excel.exception.ExcelDataError;
+
+/**
+ * 导入数据接收者,按照行的顺序接收转换完成的Bean和校验错误信息
+ * @author lisuo
+ *
+ */
+interface ImportSink {
+	
+	/**
+	 * 接收一个转换完成的Bean
+	 * @param bean
+	 */
+	void bean(Object bean);
+	
+	/**
+	 * 接收一个校验错误(multivalidate为true时)
+	 * @param error
+	 */
+	void error(ExcelDataError error);
+	
+	/**
+	 * 导入完毕
+	 */
+	void end();
+	
+}
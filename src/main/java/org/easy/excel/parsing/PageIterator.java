@@ -0,0 +1,48 @@
+package org.easy.excel.parsing;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按页读取数据的迭代器,当前页迭代完毕时获取下一页,只持有当前页的数据
+ * @author lisuo
+ *
+ */
+class PageIterator<T> implements Iterator<T> {
+	
+	private final ExcelPageFetcher<? extends T> fetcher;
+	
+	private int pageNo;
+	
+	private Iterator<? extends T> page;
+	
+	private boolean finished;
+	
+	PageIterator(ExcelPageFetcher<? extends T> fetcher) {
+		this.fetcher = fetcher;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!finished && (page == null || !page.hasNext())) {
+			List<? extends T> beans = fetcher.fetch(++pageNo);
+			if (beans == null || beans.isEmpty()) {
+				finished = true;
+				page = null;
+			} else {
+				page = beans.iterator();
+			}
+		}
+		return !finished;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.next();
+	}
+	
+}
@@ -0,0 +1,399 @@
+package org.easy.excel.parsing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * 并行压缩的zip输出流,与pigz的方式相同:每个entry的数据按块切分,由多个线程分别deflate,
+ * 非最后一块以SYNC_FLUSH结束(字节对齐且不带结束标记),并以前一块的最后32K作为字典,
+ * 按顺序拼接后仍然是一个合法的deflate流;CRC在写入线程中计算,entry使用data descriptor,不需要回写,
+ * 可以直接写入不能seek的输出流(例如servlet输出流);
+ * 继承ZipArchiveOutputStream是为了可以作为SXSSFWorkbook的输出流使用,父类只写入NullOutputStream,
+ * 不支持zip64,单个entry和整个文件不能超过4GB
+ * @author lisuo
+ *
+ */
+class ParallelDeflateZipOutputStream extends ZipArchiveOutputStream {
+
+	/** 每个压缩任务的数据量 */
+	static final int BLOCK_SIZE = 128 * 1024;
+
+	/** deflate的窗口大小 */
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	/** 每个压缩线程最多等待的数据块数量 */
+	private static final int BLOCKS_PER_THREAD = 4;
+
+	private static final long MAX_ZIP32 = 0xFFFFFFFFL;
+
+	private static final int LOCAL_HEADER_SIG = 0x04034b50;
+	private static final int DATA_DESCRIPTOR_SIG = 0x08074b50;
+	private static final int CENTRAL_HEADER_SIG = 0x02014b50;
+	private static final int END_OF_CENTRAL_SIG = 0x06054b50;
+
+	/** bit 3:使用data descriptor,bit 11:文件名是UTF-8 */
+	private static final int FLAGS = 0x0008 | 0x0800;
+
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	/** 父类的输出流,父类不写入任何数据 */
+	private static final OutputStream NULL_OUTPUT = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	private final OutputStream out;
+	private final int parallelism;
+	private int level = Deflater.DEFAULT_COMPRESSION;
+	/** 第一次有多个数据块时创建 */
+	private ExecutorService executor;
+	/** 按顺序等待写入的压缩结果 */
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final byte[] buf = new byte[46];
+	/** 已经写入的字节数 */
+	private long written;
+	private boolean finished;
+
+	//当前entry
+	private Entry current;
+	private final CRC32 crc = new CRC32();
+	private byte[] block;
+	private int blockLength;
+	/** 前一块的最后32K */
+	private byte[] dictionary;
+
+	/**
+	 * @param out 输出流,finish时不会关闭
+	 * @param parallelism 压缩线程数
+	 */
+	ParallelDeflateZipOutputStream(OutputStream out, int parallelism) {
+		super(NULL_OUTPUT);
+		this.out = out;
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public void setLevel(int level) {
+		super.setLevel(level);
+		this.level = level;
+	}
+
+	@Override
+	public void putArchiveEntry(ArchiveEntry archiveEntry) throws IOException {
+		if (finished) {
+			throw new IOException("zip已经结束");
+		}
+		if (current != null) {
+			closeArchiveEntry();
+		}
+		long time = archiveEntry instanceof ZipEntry ? ((ZipEntry) archiveEntry).getTime() : archiveEntry.getLastModifiedDate().getTime();
+		Entry entry = new Entry(archiveEntry.getName(), time, written);
+		byte[] name = entry.name;
+		writeInt(LOCAL_HEADER_SIG);
+		writeShort(20);
+		writeShort(FLAGS);
+		writeShort(DEFLATED);
+		writeInt(entry.dosTime);
+		//crc和大小写入data descriptor
+		writeInt(0);
+		writeInt(0);
+		writeInt(0);
+		writeShort(name.length);
+		writeShort(0);
+		writeBytes(name, 0, name.length);
+		current = entry;
+		crc.reset();
+		block = new byte[BLOCK_SIZE];
+		blockLength = 0;
+		dictionary = null;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (current == null) {
+			throw new IOException("没有打开的entry");
+		}
+		crc.update(b, off, len);
+		current.size += len;
+		while (len > 0) {
+			if (blockLength == BLOCK_SIZE) {
+				//有后续数据,当前块不是最后一块
+				submit(false);
+			}
+			int n = Math.min(len, BLOCK_SIZE - blockLength);
+			System.arraycopy(b, off, block, blockLength, n);
+			blockLength += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	@Override
+	public void closeArchiveEntry() throws IOException {
+		if (current == null) {
+			return;
+		}
+		if (pending.isEmpty() && dictionary == null) {
+			//只有一块的entry在当前线程中压缩
+			writeCompressed(deflate(block, blockLength, null, true, level));
+		} else {
+			submit(true);
+			while (!pending.isEmpty()) {
+				writeCompressed(take());
+			}
+		}
+		current.crc = crc.getValue();
+		if (current.size > MAX_ZIP32 || current.compressedSize > MAX_ZIP32) {
+			throw new ExcelException("entry [" + new String(current.name, StandardCharsets.UTF_8) + "] 超过4GB,并行压缩不支持zip64");
+		}
+		writeInt(DATA_DESCRIPTOR_SIG);
+		writeInt((int) current.crc);
+		writeInt((int) current.compressedSize);
+		writeInt((int) current.size);
+		entries.add(current);
+		current = null;
+		block = null;
+		dictionary = null;
+	}
+
+	@Override
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		try {
+			if (current != null) {
+				closeArchiveEntry();
+			}
+			long centralOffset = written;
+			for (Entry entry : entries) {
+				byte[] name = entry.name;
+				writeInt(CENTRAL_HEADER_SIG);
+				writeShort(20);
+				writeShort(20);
+				writeShort(FLAGS);
+				writeShort(DEFLATED);
+				writeInt(entry.dosTime);
+				writeInt((int) entry.crc);
+				writeInt((int) entry.compressedSize);
+				writeInt((int) entry.size);
+				writeShort(name.length);
+				//extra,comment,disk,internal attributes
+				writeShort(0);
+				writeShort(0);
+				writeShort(0);
+				writeShort(0);
+				writeInt(0);
+				writeInt((int) entry.offset);
+				writeBytes(name, 0, name.length);
+			}
+			long centralSize = written - centralOffset;
+			if (entries.size() > 0xFFFF || written > MAX_ZIP32) {
+				throw new ExcelException("zip文件超过4GB或者entry数量超过65535,并行压缩不支持zip64");
+			}
+			writeInt(END_OF_CENTRAL_SIG);
+			writeShort(0);
+			writeShort(0);
+			writeShort(entries.size());
+			writeShort(entries.size());
+			writeInt((int) centralSize);
+			writeInt((int) centralOffset);
+			writeShort(0);
+			out.flush();
+			finished = true;
+		} finally {
+			shutdown();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * 结束zip并关闭输出流
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		} finally {
+			super.close();
+			out.close();
+		}
+	}
+
+	//提交当前块,等待中的块太多时先写入最早提交的块
+	private void submit(final boolean last) throws IOException {
+		if (executor == null) {
+			//没有调用finish时(例如写入失败),空闲的线程自动结束
+			ThreadPoolExecutor pool = new ThreadPoolExecutor(parallelism, parallelism, 1, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "easy-excel-deflate-" + THREAD_NUMBER.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			pool.allowCoreThreadTimeOut(true);
+			executor = pool;
+		}
+		final byte[] data = block;
+		final int length = blockLength;
+		final byte[] dict = dictionary;
+		final int lvl = level;
+		if (!last) {
+			dictionary = Arrays.copyOfRange(data, length - DICTIONARY_SIZE, length);
+			block = new byte[BLOCK_SIZE];
+			blockLength = 0;
+		}
+		pending.add(executor.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws Exception {
+				return deflate(data, length, dict, last, lvl);
+			}
+		}));
+		while (pending.size() >= parallelism * BLOCKS_PER_THREAD) {
+			writeCompressed(take());
+		}
+	}
+
+	private byte[] take() throws IOException {
+		try {
+			return pending.poll().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	/**
+	 * deflate一个数据块,非最后一块以SYNC_FLUSH结束
+	 */
+	private static byte[] deflate(byte[] data, int length, byte[] dictionary, boolean last, int level) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(data, 0, length);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream(length / 2 + 64);
+			byte[] buf = new byte[16 * 1024];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					bos.write(buf, 0, deflater.deflate(buf));
+				}
+			} else {
+				int n;
+				do {
+					n = deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH);
+					bos.write(buf, 0, n);
+				} while (n == buf.length);
+			}
+			return bos.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private void writeCompressed(byte[] data) throws IOException {
+		writeBytes(data, 0, data.length);
+		current.compressedSize += data.length;
+	}
+
+	private void shutdown() {
+		if (executor != null) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		pending.clear();
+	}
+
+	private void writeShort(int v) throws IOException {
+		buf[0] = (byte) v;
+		buf[1] = (byte) (v >>> 8);
+		writeBytes(buf, 0, 2);
+	}
+
+	private void writeInt(int v) throws IOException {
+		buf[0] = (byte) v;
+		buf[1] = (byte) (v >>> 8);
+		buf[2] = (byte) (v >>> 16);
+		buf[3] = (byte) (v >>> 24);
+		writeBytes(buf, 0, 4);
+	}
+
+	private void writeBytes(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		written += len;
+	}
+
+	/**
+	 * 已经写入的entry
+	 */
+	private static class Entry {
+		private final byte[] name;
+		private final int dosTime;
+		/** local header的位置 */
+		private final long offset;
+		private long crc;
+		private long size;
+		private long compressedSize;
+
+		Entry(String name, long time, long offset) {
+			this.name = name.getBytes(StandardCharsets.UTF_8);
+			this.dosTime = toDosTime(time);
+			this.offset = offset;
+		}
+
+		private static int toDosTime(long time) {
+			Calendar c = Calendar.getInstance();
+			c.setTimeInMillis(time < 0 ? System.currentTimeMillis() : time);
+			int year = c.get(Calendar.YEAR);
+			if (year < 1980) {
+				return (1 << 21) | (1 << 16);
+			}
+			return (year - 1980) << 25 | (c.get(Calendar.MONTH) + 1) << 21 | c.get(Calendar.DAY_OF_MONTH) << 16
+					| c.get(Calendar.HOUR_OF_DAY) << 11 | c.get(Calendar.MINUTE) << 5 | c.get(Calendar.SECOND) >> 1;
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package org.easy.excel.parsing;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * 预先获取分页数据的迭代器,由后台线程获取后续的页,写入当前页时同时获取下一页,
+ * 预先获取的页数有上限;获取数据出现的异常在迭代时抛出,迭代未完成时需要调用close方法终止获取线程
+ * @author lisuo
+ *
+ */
+class PrefetchPageIterator<T> implements Iterator<T>, Closeable {
+	
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	/** 获取结束标识 */
+	private static final Object END = new Object();
+	
+	private final BlockingQueue<Object> queue;
+	
+	private final Thread fetcher;
+	
+	private Iterator<? extends T> page = Collections.<T>emptyList().iterator();
+	
+	private volatile boolean closed;
+	
+	private boolean finished;
+	
+	/**
+	 * @param fetcher 分页获取数据
+	 * @param depth 预先获取的最大页数
+	 */
+	PrefetchPageIterator(final ExcelPageFetcher<? extends T> fetcher, int depth) {
+		this.queue = new ArrayBlockingQueue<Object>(Math.max(depth, 1));
+		this.fetcher = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Object end = END;
+				try {
+					for (int pageNo = 1; !closed; pageNo++) {
+						List<? extends T> beans = fetcher.fetch(pageNo);
+						if (beans == null || beans.isEmpty()) {
+							break;
+						}
+						queue.put(beans);
+					}
+				} catch (InterruptedException e) {
+					//迭代器已经关闭
+					return;
+				} catch (Throwable e) {
+					end = e;
+				}
+				try {
+					if (!closed) {
+						queue.put(end);
+					}
+				} catch (InterruptedException e) {
+					//迭代器已经关闭
+				}
+			}
+		}, "easy-excel-fetch-" + THREAD_NUMBER.incrementAndGet());
+		this.fetcher.setDaemon(true);
+		this.fetcher.start();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean hasNext() {
+		while (!page.hasNext()) {
+			if (finished || closed) {
+				return false;
+			}
+			Object value;
+			try {
+				value = queue.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ExcelException(e);
+			}
+			if (value == END) {
+				finished = true;
+				return false;
+			}
+			if (value instanceof Throwable) {
+				finished = true;
+				if (value instanceof RuntimeException) {
+					throw (RuntimeException) value;
+				}
+				if (value instanceof Error) {
+					throw (Error) value;
+				}
+				throw new ExcelException((Throwable) value);
+			}
+			page = ((List<? extends T>) value).iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return page.next();
+	}
+	
+	/**
+	 * 终止获取线程,丢弃预先获取的数据
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			fetcher.interrupt();
+			queue.clear();
+			page = Collections.<T>emptyList().iterator();
+		}
+	}
+	
+}
@@ -0,0 +1,25 @@
+package org.easy.excel.parsing;
+
+/**
+ * 属性访问器,按照配置的属性路径(如:name,book.author.authorName,books[0].bookName)读写bean的属性值,
+ * 每个类的每个路径只编译一次,线程安全
+ * @author lisuo
+ *
+ */
+public interface PropertyAccess extends PropertyReader {
+	
+	/**
+	 * 设置属性值,路径中间为空的对象会自动创建
+	 * @param bean
+	 * @param value 值,类型不一致时会进行类型转换
+	 */
+	void set(Object bean, Object value);
+	
+	/**
+	 * @return 属性的类型,基本类型为对应的包装类型,无法确定时返回null
+	 */
+	default Class<?> getPropertyType() {
+		return null;
+	}
+	
+}
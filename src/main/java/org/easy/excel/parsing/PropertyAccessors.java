@@ -0,0 +1,403 @@
+package org.easy.excel.parsing;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.easy.excel.exception.ExcelException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * 属性访问器的编译实现,把属性路径编译成MethodHandle组成的访问链,
+ * 没有getter/setter的属性直接访问字段,不支持的路径(如Map属性)退回到spring的BeanWrapper实现
+ * @author lisuo
+ *
+ */
+abstract class PropertyAccessors {
+	
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+	
+	/** 路径片段:属性名称,可选的数字索引 */
+	private static final Pattern SEGMENT = Pattern.compile("([^\\[\\]]+)(?:\\[(\\d+)\\])?");
+	
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	
+	/**
+	 * 编译属性访问器
+	 * @param clazz bean类型
+	 * @param path 属性路径
+	 * @return PropertyAccess
+	 */
+	public static PropertyAccess compile(Class<?> clazz, String path) {
+		if (Map.class.isAssignableFrom(clazz)) {
+			return new MapPropertyAccess(path);
+		}
+		String[] segments = path.split("\\.");
+		Step[] steps = new Step[segments.length];
+		Class<?> type = clazz;
+		for (int i = 0; i < segments.length; i++) {
+			Step step = compileStep(type, segments[i]);
+			if (step == null) {
+				//不支持的路径,使用spring实现
+				return new SpringPropertyAccess(path);
+			}
+			steps[i] = step;
+			type = step.valueType;
+		}
+		return new CompiledPropertyAccess(path, steps);
+	}
+	
+	//编译路径的一个片段,不支持时返回null
+	private static Step compileStep(Class<?> ownerType, String segment) {
+		Matcher matcher = SEGMENT.matcher(segment);
+		if (!matcher.matches() || Map.class.isAssignableFrom(ownerType) || ownerType.isInterface()
+				|| ownerType == Object.class || ownerType.isArray() || ClassUtils.isPrimitiveOrWrapper(ownerType)) {
+			return null;
+		}
+		String name = matcher.group(1);
+		int index = matcher.group(2) == null ? -1 : Integer.parseInt(matcher.group(2));
+		try {
+			MethodHandle getter = null;
+			MethodHandle setter = null;
+			ResolvableType propertyType = null;
+			PropertyDescriptor pd = BeanUtils.getPropertyDescriptor(ownerType, name);
+			if (pd != null) {
+				Method read = pd.getReadMethod();
+				Method write = pd.getWriteMethod();
+				if (read != null) {
+					getter = unreflect(read);
+					propertyType = ResolvableType.forMethodReturnType(read, ownerType);
+				}
+				if (write != null) {
+					setter = unreflect(write);
+					if (propertyType == null) {
+						propertyType = ResolvableType.forMethodParameter(write, 0, ownerType);
+					}
+				}
+			}
+			//没有getter或setter,直接访问字段
+			if (getter == null || setter == null) {
+				Field field = ReflectionUtils.findField(ownerType, name);
+				if (field != null && !Modifier.isStatic(field.getModifiers())) {
+					ReflectionUtils.makeAccessible(field);
+					if (getter == null) {
+						getter = LOOKUP.unreflectGetter(field);
+					}
+					if (setter == null && !Modifier.isFinal(field.getModifiers())) {
+						setter = LOOKUP.unreflectSetter(field);
+					}
+					if (propertyType == null) {
+						propertyType = ResolvableType.forField(field, ownerType);
+					}
+				}
+			}
+			if (getter == null || propertyType == null) {
+				return null;
+			}
+			getter = getter.asType(GETTER_TYPE);
+			if (setter != null) {
+				setter = setter.asType(SETTER_TYPE);
+			}
+			Class<?> rawType = propertyType.resolve(Object.class);
+			if (index < 0) {
+				if (Map.class.isAssignableFrom(rawType)) {
+					return null;
+				}
+				return new Step(name, -1, getter, setter, rawType, null, rawType);
+			}
+			//索引属性,支持数组和List
+			Class<?> elementType;
+			if (rawType.isArray()) {
+				elementType = rawType.getComponentType();
+			} else if (List.class.isAssignableFrom(rawType)) {
+				elementType = propertyType.asCollection().resolveGeneric(0);
+				if (elementType == null) {
+					elementType = Object.class;
+				}
+			} else {
+				return null;
+			}
+			return new Step(name, index, getter, setter, rawType, elementType, elementType);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+	
+	private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+		if (!Modifier.isPublic(method.getModifiers()) || !Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+			ReflectionUtils.makeAccessible(method);
+		}
+		return LOOKUP.unreflect(method);
+	}
+	
+	//创建对象的构造器,没有可用的无参构造器时返回null
+	private static MethodHandle constructor(Class<?> type) {
+		if (type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isArray()
+				|| ClassUtils.isPrimitiveOrWrapper(type) || type == String.class) {
+			return null;
+		}
+		try {
+			Constructor<?> ctor = type.getDeclaredConstructor();
+			ReflectionUtils.makeAccessible(ctor);
+			return LOOKUP.unreflectConstructor(ctor).asType(CONSTRUCTOR_TYPE);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+	
+	private static RuntimeException rethrow(Throwable e, String path) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof Error) {
+			throw (Error) e;
+		}
+		return new ExcelException("访问属性[" + path + "]失败", e);
+	}
+	
+	/**
+	 * 路径的一个片段
+	 */
+	private static final class Step {
+		
+		final String name;
+		/** 索引,-1表示非索引属性 */
+		final int index;
+		final MethodHandle getter;
+		final MethodHandle setter;
+		/** 属性的类型 */
+		final Class<?> propertyType;
+		/** 数组或List的元素类型 */
+		final Class<?> elementType;
+		/** 这一段取到的值的类型 */
+		final Class<?> valueType;
+		/** 属性(或元素)为空时用于自动创建 */
+		final MethodHandle valueConstructor;
+		/** List为空时用于自动创建 */
+		final MethodHandle listConstructor;
+		
+		Step(String name, int index, MethodHandle getter, MethodHandle setter, Class<?> propertyType,
+				Class<?> elementType, Class<?> valueType) {
+			this.name = name;
+			this.index = index;
+			this.getter = getter;
+			this.setter = setter;
+			this.propertyType = propertyType;
+			this.elementType = elementType;
+			this.valueType = valueType;
+			this.valueConstructor = constructor(valueType);
+			this.listConstructor = index >= 0 && !propertyType.isArray() ? constructor(propertyType) : null;
+		}
+		
+		/** 读取这一段的值,为空或越界返回null */
+		Object get(Object owner) throws Throwable {
+			Object value = (Object) getter.invokeExact(owner);
+			if (value == null || index < 0) {
+				return value;
+			}
+			if (value.getClass().isArray()) {
+				return index < Array.getLength(value) ? Array.get(value, index) : null;
+			}
+			List<?> list = (List<?>) value;
+			return index < list.size() ? list.get(index) : null;
+		}
+		
+		/** 读取这一段的值,为空时自动创建 */
+		Object getOrCreate(Object owner) throws Throwable {
+			Object value = get(owner);
+			if (value == null) {
+				if (valueConstructor == null) {
+					throw new ExcelException("属性[" + name + "]为空,类型[" + valueType.getName() + "]无法自动创建");
+				}
+				value = (Object) valueConstructor.invokeExact();
+				set(owner, value, true);
+			}
+			return value;
+		}
+		
+		/** 设置这一段的值,索引属性会自动创建和扩容List或数组 */
+		@SuppressWarnings("unchecked")
+		void set(Object owner, Object value, boolean nested) throws Throwable {
+			if (index < 0) {
+				checkWritable();
+				setter.invokeExact(owner, value);
+				return;
+			}
+			Object container = (Object) getter.invokeExact(owner);
+			if (propertyType.isArray()) {
+				int length = container == null ? 0 : Array.getLength(container);
+				if (index >= length) {
+					checkWritable();
+					Object grown = Array.newInstance(elementType, index + 1);
+					if (container != null) {
+						System.arraycopy(container, 0, grown, 0, length);
+					}
+					if (nested) {
+						fill(grown, length, index);
+					}
+					container = grown;
+					setter.invokeExact(owner, container);
+				}
+				Array.set(container, index, value);
+				return;
+			}
+			List<Object> list = (List<Object>) container;
+			if (list == null) {
+				checkWritable();
+				list = listConstructor != null ? (List<Object>) (Object) listConstructor.invokeExact() : new ArrayList<Object>();
+				setter.invokeExact(owner, (Object) list);
+			}
+			//中间的元素与spring一致,自动创建
+			while (list.size() < index) {
+				list.add(nested && valueConstructor != null ? (Object) valueConstructor.invokeExact() : null);
+			}
+			if (list.size() == index) {
+				list.add(value);
+			} else {
+				list.set(index, value);
+			}
+		}
+		
+		private void fill(Object array, int from, int to) throws Throwable {
+			if (valueConstructor != null) {
+				for (int i = from; i < to; i++) {
+					Array.set(array, i, (Object) valueConstructor.invokeExact());
+				}
+			}
+		}
+		
+		private void checkWritable() {
+			if (setter == null) {
+				throw new ExcelException("属性[" + name + "]不可写");
+			}
+		}
+	}
+	
+	/**
+	 * 编译后的属性访问器
+	 */
+	private static final class CompiledPropertyAccess implements PropertyAccess {
+		
+		private final String path;
+		private final Step[] steps;
+		private final Step last;
+		/** 最终属性的类型,用于类型转换 */
+		private final Class<?> targetType;
+		
+		CompiledPropertyAccess(String path, Step[] steps) {
+			this.path = path;
+			this.steps = steps;
+			this.last = steps[steps.length - 1];
+			this.targetType = ClassUtils.resolvePrimitiveIfNecessary(last.valueType);
+		}
+		
+		@Override
+		public Class<?> getPropertyType() {
+			return targetType;
+		}
+		
+		@Override
+		public Object get(Object bean) {
+			try {
+				Object value = bean;
+				for (Step step : steps) {
+					value = step.get(value);
+					if (value == null) {
+						return null;
+					}
+				}
+				return value;
+			} catch (Throwable e) {
+				throw rethrow(e, path);
+			}
+		}
+		
+		@Override
+		public void set(Object bean, Object value) {
+			if (value == null) {
+				if (last.valueType.isPrimitive()) {
+					return;
+				}
+			} else if (!targetType.isInstance(value)) {
+				try {
+					value = BeanUtil.convert(value, targetType);
+				} catch (ConversionException e) {
+					throw new TypeMismatchException(value, targetType, e);
+				}
+			}
+			try {
+				Object owner = bean;
+				for (int i = 0; i < steps.length - 1; i++) {
+					owner = steps[i].getOrCreate(owner);
+				}
+				last.set(owner, value, false);
+			} catch (Throwable e) {
+				throw rethrow(e, path);
+			}
+		}
+	}
+	
+	/**
+	 * Map类型的bean,属性路径直接作为key
+	 */
+	private static final class MapPropertyAccess implements PropertyAccess {
+		
+		private final String key;
+		
+		MapPropertyAccess(String key) {
+			this.key = key;
+		}
+		
+		@Override
+		public Object get(Object bean) {
+			return ((Map<?, ?>) bean).get(key);
+		}
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public void set(Object bean, Object value) {
+			((Map<Object, Object>) bean).put(key, value);
+		}
+	}
+	
+	/**
+	 * 不支持编译的路径,使用spring的BeanWrapper实现
+	 */
+	private static final class SpringPropertyAccess implements PropertyAccess {
+		
+		private final String path;
+		
+		SpringPropertyAccess(String path) {
+			this.path = path;
+		}
+		
+		@Override
+		public Object get(Object bean) {
+			return BeanUtil.getPropertyValue(BeanUtil.buildAccessor(bean, true), path, false);
+		}
+		
+		@Override
+		public void set(Object bean, Object value) {
+			BeanUtil.setPropertyValue(BeanUtil.buildAccessor(bean, true), path, value, false);
+		}
+	}
+	
+}
@@ -0,0 +1,17 @@
+package org.easy.excel.parsing;
+
+/**
+ * 只读的属性访问器,导出时按照配置的字段读取当前数据的值,数据可以是bean,Map或者ResultSet的当前行
+ * @author lisuo
+ *
+ */
+public interface PropertyReader {
+	
+	/**
+	 * 获取属性值,路径中间的对象为空或者索引越界时返回null
+	 * @param bean
+	 * @return 属性值
+	 */
+	Object get(Object bean);
+	
+}
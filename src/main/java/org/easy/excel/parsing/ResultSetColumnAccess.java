@@ -0,0 +1,90 @@
+package org.easy.excel.parsing;
+
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * 读取ResultSet当前行中一列的值,按照列标签与字段名称对应,只用于导出
+ * @author lisuo
+ *
+ */
+class ResultSetColumnAccess implements PropertyReader {
+	
+	/** 结果集中不存在的字段 */
+	private static final PropertyReader MISSING = new PropertyReader() {
+		@Override
+		public Object get(Object bean) {
+			return null;
+		}
+	};
+	
+	/** 列索引,从1开始 */
+	private final int column;
+	
+	private ResultSetColumnAccess(int column) {
+		this.column = column;
+	}
+	
+	/**
+	 * 按照字段顺序创建列访问器,列标签与字段名称相同(忽略大小写),或者去除下划线和"."之后相同时对应,
+	 * 例如 student_no 对应 studentNo;结果集中不存在的字段值为null
+	 * @param metaData 结果集信息
+	 * @param fieldValues 字段
+	 * @return 与字段顺序一致的访问器
+	 * @throws SQLException
+	 */
+	static PropertyReader[] create(ResultSetMetaData metaData, List<FieldValue> fieldValues) throws SQLException {
+		int columnCount = metaData.getColumnCount();
+		String[] labels = new String[columnCount];
+		for (int i = 0; i < columnCount; i++) {
+			labels[i] = metaData.getColumnLabel(i + 1);
+		}
+		PropertyReader[] accesses = new PropertyReader[fieldValues.size()];
+		for (int i = 0; i < accesses.length; i++) {
+			String name = fieldValues.get(i).getName();
+			int column = indexOf(labels, name);
+			accesses[i] = column > 0 ? new ResultSetColumnAccess(column) : MISSING;
+		}
+		return accesses;
+	}
+	
+	private static int indexOf(String[] labels, String name) {
+		for (int i = 0; i < labels.length; i++) {
+			if (name.equalsIgnoreCase(labels[i])) {
+				return i + 1;
+			}
+		}
+		String normalized = normalize(name);
+		for (int i = 0; i < labels.length; i++) {
+			if (normalized.equalsIgnoreCase(normalize(labels[i]))) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+	
+	private static String normalize(String name) {
+		return name.replace("_", "").replace(".", "");
+	}
+	
+	@Override
+	public Object get(Object resultSet) {
+		try {
+			Object value = ((ResultSet) resultSet).getObject(column);
+			if (value instanceof Clob) {
+				Clob clob = (Clob) value;
+				return clob.getSubString(1, (int) clob.length());
+			}
+			return value;
+		} catch (SQLException e) {
+			throw new ExcelException(e);
+		}
+	}
+	
+}
@@ -0,0 +1,57 @@
+package org.easy.excel.parsing;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * 逐行移动ResultSet的游标,next()返回ResultSet本身,通过ResultSetColumnAccess读取当前行的值,不创建bean
+ * @author lisuo
+ *
+ */
+class ResultSetIterator implements Iterator<ResultSet> {
+	
+	private final ResultSet resultSet;
+	
+	/** 游标是否已经移动到还没有返回的行 */
+	private boolean advanced;
+	
+	/** 移动游标后是否有数据 */
+	private boolean hasRow;
+	
+	/**
+	 * @param resultSet
+	 * @param onRow 游标是否已经在第一行数据上
+	 */
+	ResultSetIterator(ResultSet resultSet, boolean onRow) {
+		this.resultSet = resultSet;
+		this.advanced = onRow;
+		this.hasRow = onRow;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!advanced) {
+			try {
+				hasRow = resultSet.next();
+			} catch (SQLException e) {
+				throw new ExcelException(e);
+			}
+			advanced = true;
+		}
+		return hasRow;
+	}
+
+	@Override
+	public ResultSet next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		advanced = false;
+		return resultSet;
+	}
+	
+}
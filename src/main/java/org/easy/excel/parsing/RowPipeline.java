@@ -0,0 +1,189 @@
+package org.easy.excel.parsing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easy.excel.exception.ExcelDataException;
+import org.easy.excel.exception.ExcelException;
+
+/**
+ * 数据行并行转换流水线:读取线程按顺序提交行数据,由多个转换线程执行校验,转换和Bean填充,
+ * 转换结果按照提交顺序在读取线程中交给RowHandler;
+ * 行数据按块提交,等待中的数据块数量有上限,转换线程跟不上时读取线程阻塞
+ * @author lisuo
+ *
+ */
+class RowPipeline {
+	
+	/** 每个转换任务包含的行数 */
+	private static final int ROWS_PER_TASK = 64;
+	
+	/** 每个转换线程最多等待的数据块数量 */
+	private static final int TASKS_PER_THREAD = 4;
+	
+	private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+	
+	/**
+	 * 行数据转换,在转换线程中执行,需要是线程安全的
+	 */
+	interface RowConverter {
+		/**
+		 * @param values 行数据
+		 * @param rowNum 数据行号
+		 * @return 转换结果
+		 * @throws ExcelDataException 数据校验未通过
+		 */
+		Object convert(List<Object> values, int rowNum) throws ExcelDataException;
+	}
+	
+	/**
+	 * 转换结果处理,在读取线程中按照行的顺序执行
+	 */
+	interface RowHandler {
+		void onResult(Object result);
+		void onError(ExcelDataException e);
+	}
+	
+	private final RowConverter converter;
+	private final RowHandler handler;
+	/** 出现校验错误时是否停止转换同一块中后续的行 */
+	private final boolean stopOnError;
+	private final int maxPending;
+	private final ExecutorService executor;
+	/** 按提交顺序排列的转换任务 */
+	private final ArrayDeque<Future<Object[]>> pending;
+	
+	private Chunk current = new Chunk();
+	
+	RowPipeline(int parallelism, boolean stopOnError, RowConverter converter, RowHandler handler) {
+		this.converter = converter;
+		this.handler = handler;
+		this.stopOnError = stopOnError;
+		this.maxPending = parallelism * TASKS_PER_THREAD;
+		this.pending = new ArrayDeque<Future<Object[]>>(maxPending);
+		this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "easy-excel-convert-" + THREAD_NUMBER.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+	
+	/**
+	 * 提交一行数据
+	 * @param values 行数据
+	 * @param rowNum 数据行号
+	 */
+	void submit(List<Object> values, int rowNum) {
+		current.add(values, rowNum);
+		if (current.size == ROWS_PER_TASK) {
+			submitChunk();
+		}
+		//处理已经完成的转换结果,尽早释放内存
+		while (!pending.isEmpty() && pending.peek().isDone()) {
+			deliver(pending.poll());
+		}
+	}
+	
+	/**
+	 * 提交剩余的数据,等待所有转换完成
+	 */
+	void finish() {
+		submitChunk();
+		while (!pending.isEmpty()) {
+			deliver(pending.poll());
+		}
+	}
+	
+	/**
+	 * 终止转换线程,未完成的转换结果被丢弃
+	 */
+	void shutdown() {
+		for (Future<Object[]> future : pending) {
+			future.cancel(true);
+		}
+		pending.clear();
+		executor.shutdownNow();
+	}
+	
+	private void submitChunk() {
+		if (current.size == 0) {
+			return;
+		}
+		while (pending.size() >= maxPending) {
+			deliver(pending.poll());
+		}
+		pending.add(executor.submit(current));
+		current = new Chunk();
+	}
+	
+	private void deliver(Future<Object[]> future) {
+		Object[] results;
+		try {
+			results = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExcelException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ExcelException(cause);
+		}
+		for (Object result : results) {
+			if (result instanceof ExcelDataException) {
+				handler.onError((ExcelDataException) result);
+			} else {
+				handler.onResult(result);
+			}
+		}
+	}
+	
+	/**
+	 * 一块连续的行数据
+	 */
+	private class Chunk implements Callable<Object[]> {
+		
+		private final List<List<Object>> rows = new ArrayList<List<Object>>(ROWS_PER_TASK);
+		private final int[] rowNums = new int[ROWS_PER_TASK];
+		private int size;
+		
+		void add(List<Object> values, int rowNum) {
+			rows.add(values);
+			rowNums[size++] = rowNum;
+		}
+		
+		@Override
+		public Object[] call() {
+			Object[] results = new Object[size];
+			for (int i = 0; i < size; i++) {
+				try {
+					results[i] = converter.convert(rows.get(i), rowNums[i]);
+				} catch (ExcelDataException e) {
+					results[i] = e;
+					if (stopOnError) {
+						//之后的行不会再被处理
+						return Arrays.copyOf(results, i + 1);
+					}
+				}
+			}
+			return results;
+		}
+	}
+	
+}
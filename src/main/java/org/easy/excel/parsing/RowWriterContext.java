@@ -0,0 +1,83 @@
+package org.easy.excel.parsing;
+
+import java.util.List;
+
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.parsing.ExcelExport.CellStyleHolder;
+
+/**
+ * 一次导出写入数据行时使用的状态,由ExcelExportResult持有,追加数据和创建合计行时共享;
+ * 包括样式,按照列索引保存的字段编解码器,autoWidth记录的列宽和aggregate累加的合计值
+ * @author lisuo
+ *
+ */
+public class RowWriterContext {
+
+	private final CellStyleHolder cellStyleHolder;
+	/** 按照列索引保存的字段编解码器,与ExcelDefinition中字段的顺序一致 */
+	private final FieldCodec[] codecs;
+	/** autoWidth时记录每一列的最大宽度,没有开启时为null */
+	private final ColumnWidthTracker columnWidthTracker;
+	/** 字段配置了aggregate时累加合计行的值,没有时为null */
+	private final ColumnAggregator columnAggregator;
+
+	public RowWriterContext(ExcelDefinition excelDefinition, CellStyleHolder cellStyleHolder) {
+		this(excelDefinition, cellStyleHolder, true);
+	}
+
+	/**
+	 * @param excelDefinition
+	 * @param cellStyleHolder
+	 * @param tracking 是否按照配置记录autoWidth的列宽和aggregate的合计值,直接写入指定sheet页的行不记录
+	 */
+	public RowWriterContext(ExcelDefinition excelDefinition, CellStyleHolder cellStyleHolder, boolean tracking) {
+		this.cellStyleHolder = cellStyleHolder;
+		List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+		this.codecs = new FieldCodec[fieldValues.size()];
+		for (int i = 0; i < codecs.length; i++) {
+			codecs[i] = fieldValues.get(i).getCodec();
+		}
+		if (tracking && excelDefinition.isAutoWidth()) {
+			//每个sheet页的标题相同,只需要记录一次
+			this.columnWidthTracker = new ColumnWidthTracker(codecs.length);
+			for (int i = 0; i < codecs.length; i++) {
+				columnWidthTracker.update(i, fieldValues.get(i).getTitle());
+			}
+		} else {
+			this.columnWidthTracker = null;
+		}
+		this.columnAggregator = tracking ? ColumnAggregator.create(excelDefinition) : null;
+	}
+
+	/**
+	 * @return 标题和数据的样式
+	 */
+	public CellStyleHolder getCellStyleHolder() {
+		return cellStyleHolder;
+	}
+
+	/**
+	 * 按照列索引获取字段的编解码器
+	 * @param col 列索引,与ExcelDefinition中字段的顺序一致
+	 * @return FieldCodec
+	 */
+	public FieldCodec getCodec(int col) {
+		return codecs[col];
+	}
+
+	/**
+	 * @return autoWidth时记录列宽的对象,没有开启autoWidth时返回null
+	 */
+	public ColumnWidthTracker getColumnWidthTracker() {
+		return columnWidthTracker;
+	}
+
+	/**
+	 * @return 累加合计行的对象,没有字段配置aggregate时返回null
+	 */
+	public ColumnAggregator getColumnAggregator() {
+		return columnAggregator;
+	}
+
+}
@@ -0,0 +1,20 @@
+package org.easy.excel.parsing;
+
+import java.util.List;
+
+/**
+ * Sheet行数据回调,导入引擎每解析到一行数据回调一次,行按照索引从小到大的顺序回调,
+ * Excel中不存在的行不会回调
+ * @author lisuo
+ *
+ */
+interface SheetRowCallback {
+	
+	/**
+	 * 处理一行数据
+	 * @param rowIndex 行索引,从0开始
+	 * @param values 该行每个cell的原生value,List索引位即列索引位,没有数据的cell为null
+	 */
+	void onRow(int rowIndex, List<Object> values);
+	
+}
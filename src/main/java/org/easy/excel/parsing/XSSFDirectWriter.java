@@ -0,0 +1,568 @@
+package org.easy.excel.parsing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ExcelExport.CellStyleHolder;
+
+/**
+ * xlsx 直接写出,不构建Workbook,Row,Cell对象,sheet xml直接写入zip输出流,
+ * 布局与ExcelExport一致:标题行,列宽,CellStyleHolder中的样式,requiredTag标红的*号;
+ * 字符串以inlineStr写入,数字,日期,布尔值写入原始值,除了值本身每个cell不创建其他对象;
+ * 样式由内存中的XSSFWorkbook创建,写出时只使用它的styles.xml
+ * 调用顺序:startSheet,(startRow,writeCell,endRow)*,endSheet,...,finish;
+ * 也可以通过createSheet创建sheet页,在其他线程中写入独立的Writer,再按顺序通过writeSheetPart写入zip
+ * @author lisuo
+ *
+ */
+class XSSFDirectWriter {
+
+	private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+
+	private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+	private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+	/** 日期cell默认的格式 */
+	private static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+	private static final int MAX_TEXT_LENGTH = SpreadsheetVersion.EXCEL2007.getMaxTextLength();
+
+	private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+	private final ZipArchiveOutputStream zip;
+
+	private final Writer writer;
+
+	/** 只用来创建样式,所有sheet页共享 */
+	private final XSSFWorkbook styleBook = new XSSFWorkbook();
+
+	/** 按照创建顺序排列的sheet页 */
+	private final List<SheetWriter> sheets = new ArrayList<SheetWriter>();
+
+	/** 正在直接写入zip的sheet页 */
+	private SheetWriter current;
+
+	/**
+	 * @param out 输出流,finish时不会关闭
+	 * @param compressionLevel zip压缩级别,0-9或-1(默认)
+	 * @param deflateParallelism 大于1时使用多个线程并行压缩
+	 */
+	public XSSFDirectWriter(OutputStream out, int compressionLevel, int deflateParallelism) {
+		this.zip = deflateParallelism > 1 ? new ParallelDeflateZipOutputStream(out, deflateParallelism) : new ZipArchiveOutputStream(out);
+		this.zip.setLevel(compressionLevel);
+		this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	/**
+	 * 创建sheet页,确定sheet页的顺序并创建样式,sheet xml可以在其他线程中写入任意Writer,
+	 * 之后通过writeSheetPart写入zip
+	 * @param excelDefinition
+	 * @return
+	 */
+	public SheetWriter createSheet(ExcelDefinition excelDefinition) {
+		String sheetName = excelDefinition.getSheetname();
+		if(sheetName == null){
+			sheetName = "Sheet" + sheets.size();
+		}
+		WorkbookUtil.validateSheetName(sheetName);
+		for(SheetWriter sheet : sheets){
+			if(sheet.sheetName.equalsIgnoreCase(sheetName)){
+				throw new ExcelException("sheet页名称 ["+sheetName+"] 重复");
+			}
+		}
+		SheetWriter sheet = new SheetWriter(excelDefinition, sheetName, sheets.size() + 1);
+		sheets.add(sheet);
+		return sheet;
+	}
+
+	/**
+	 * 开始一个直接写入zip的sheet页,写入列宽和标题行
+	 * @param excelDefinition
+	 * @return
+	 */
+	public SheetWriter startSheet(ExcelDefinition excelDefinition) throws IOException {
+		if(current != null){
+			throw new IllegalStateException("上一个sheet页没有结束");
+		}
+		SheetWriter sheet = createSheet(excelDefinition);
+		zip.putArchiveEntry(new ZipArchiveEntry(sheet.getPartName()));
+		sheet.begin(writer);
+		current = sheet;
+		return sheet;
+	}
+
+	/**
+	 * 结束当前直接写入zip的sheet页
+	 */
+	public void endSheet() throws IOException {
+		current.end();
+		zip.closeArchiveEntry();
+		current = null;
+	}
+
+	/**
+	 * 把在其他地方写好的sheet xml写入zip
+	 * @param sheet createSheet创建的sheet页
+	 * @param xml sheet页begin到end之间写入的内容
+	 */
+	public void writeSheetPart(SheetWriter sheet, InputStream xml) throws IOException {
+		if(current != null){
+			throw new IllegalStateException("上一个sheet页没有结束");
+		}
+		zip.putArchiveEntry(new ZipArchiveEntry(sheet.getPartName()));
+		IOUtils.copy(xml, zip);
+		zip.closeArchiveEntry();
+	}
+
+	/**
+	 * 写入样式,workbook和content types,结束zip,不关闭输出流
+	 */
+	public void finish() throws IOException {
+		if(current != null){
+			endSheet();
+		}
+		if(sheets.isEmpty()){
+			throw new ExcelException("至少需要一个sheet页");
+		}
+		int sheetCount = sheets.size();
+		zip.putArchiveEntry(new ZipArchiveEntry("xl/styles.xml"));
+		styleBook.getStylesSource().writeTo(zip);
+		zip.closeArchiveEntry();
+
+		zip.putArchiveEntry(new ZipArchiveEntry("xl/workbook.xml"));
+		writer.write(XML_HEADER);
+		writer.write("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\"><sheets>");
+		for (int i = 0; i < sheetCount; i++) {
+			writer.write("<sheet name=\"");
+			writeEscaped(writer, sheets.get(i).sheetName, true);
+			writer.write("\" sheetId=\"" + (i + 1) + "\" r:id=\"rId" + (i + 1) + "\"/>");
+		}
+		writer.write("</sheets></workbook>");
+		writer.flush();
+		zip.closeArchiveEntry();
+
+		zip.putArchiveEntry(new ZipArchiveEntry("xl/_rels/workbook.xml.rels"));
+		writer.write(XML_HEADER);
+		writer.write("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+		for (int i = 0; i < sheetCount; i++) {
+			writer.write("<Relationship Id=\"rId" + (i + 1) + "\" Type=\"" + NS_REL
+					+ "/worksheet\" Target=\"worksheets/sheet" + (i + 1) + ".xml\"/>");
+		}
+		writer.write("<Relationship Id=\"rId" + (sheetCount + 1) + "\" Type=\"" + NS_REL + "/styles\" Target=\"styles.xml\"/>");
+		writer.write("</Relationships>");
+		writer.flush();
+		zip.closeArchiveEntry();
+
+		zip.putArchiveEntry(new ZipArchiveEntry("_rels/.rels"));
+		writer.write(XML_HEADER);
+		writer.write("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+				+ "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+				+ "</Relationships>");
+		writer.flush();
+		zip.closeArchiveEntry();
+
+		zip.putArchiveEntry(new ZipArchiveEntry("[Content_Types].xml"));
+		writer.write(XML_HEADER);
+		writer.write("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+				+ "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+				+ "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+				+ "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+				+ "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+		for (int i = 0; i < sheetCount; i++) {
+			writer.write("<Override PartName=\"/xl/worksheets/sheet" + (i + 1)
+					+ ".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+		}
+		writer.write("</Types>");
+		writer.flush();
+		zip.closeArchiveEntry();
+		zip.finish();
+		styleBook.close();
+	}
+
+	//xml转义,xml不允许的控制字符替换成?,与SXSSF的处理方式一致
+	static void writeEscaped(Writer writer, String value, boolean attribute) throws IOException {
+		int len = value.length();
+		int last = 0;
+		for (int i = 0; i < len; i++) {
+			char c = value.charAt(i);
+			String replace;
+			switch (c) {
+			case '<':
+				replace = "&lt;";
+				break;
+			case '>':
+				replace = "&gt;";
+				break;
+			case '&':
+				replace = "&amp;";
+				break;
+			case '"':
+				replace = attribute ? "&quot;" : null;
+				break;
+			case '\t':
+			case '\n':
+			case '\r':
+				replace = attribute ? (c == '\t' ? "&#x9;" : c == '\n' ? "&#xa;" : "&#xd;") : null;
+				break;
+			default:
+				replace = c < ' ' || c == 0xFFFE || c == 0xFFFF ? "?" : null;
+				break;
+			}
+			if (replace != null) {
+				if (i > last) {
+					writer.write(value, last, i - last);
+				}
+				writer.write(replace);
+				last = i + 1;
+			}
+		}
+		if (last < len) {
+			writer.write(value, last, len - last);
+		}
+	}
+
+	/**
+	 * 一个sheet页的xml写入,标题行在begin时写入;
+	 * 不同的SheetWriter可以在不同的线程中同时写入
+	 */
+	class SheetWriter {
+
+		private final ExcelDefinition excelDefinition;
+		private final String sheetName;
+		/** sheet页序号,从1开始 */
+		private final int sheetNo;
+		/** 日期转换复用的Calendar */
+		private final Calendar calendar = LocaleUtil.getLocaleCalendar();
+		/** 数字转字符的缓冲区 */
+		private final char[] digits = new char[20];
+		/** 列名,A,B,C... */
+		private char[][] columnRefs;
+		private int[] titleStyles;
+		private int[] dataStyles;
+		/** typedCells写入原始值的样式,0表示这一列不写入原始值 */
+		private int[] typedStyles;
+		/** 日期样式,第一次遇到日期时创建,-1表示未创建 */
+		private int[] dateStyles;
+		private CellStyleHolder cellStyleHolder;
+		/** 当前行的索引,从0开始 */
+		private int rowIndex = -1;
+		private Writer out;
+
+		private SheetWriter(ExcelDefinition excelDefinition, String sheetName, int sheetNo) {
+			this.excelDefinition = excelDefinition;
+			this.sheetName = sheetName;
+			this.sheetNo = sheetNo;
+			initColumns();
+		}
+
+		public ExcelDefinition getExcelDefinition() {
+			return excelDefinition;
+		}
+
+		String getPartName() {
+			return "xl/worksheets/sheet" + sheetNo + ".xml";
+		}
+
+		/**
+		 * 开始写入sheet xml,写入列宽和标题行
+		 * @param out
+		 */
+		public void begin(Writer out) throws IOException {
+			this.out = out;
+			out.write(XML_HEADER);
+			out.write("<worksheet xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\">");
+			writeCols();
+			out.write("<sheetData>");
+			writeTitle();
+		}
+
+		/**
+		 * 开始新的一行
+		 */
+		public void startRow() throws IOException {
+			if(++rowIndex >= MAX_ROWS){
+				throw new ExcelException("sheet页的行数超过了" + MAX_ROWS + "行");
+			}
+			out.write("<row r=\"");
+			writeLong(rowIndex + 1);
+			out.write("\">");
+		}
+
+		/**
+		 * 写入当前行的cell,null值只写入样式
+		 * @param col 列索引,与配置的字段顺序一致
+		 * @param value
+		 */
+		public void writeCell(int col, Object value) throws IOException {
+			if (value == null) {
+				if (dataStyles[col] != 0) {
+					startCell(col, dataStyles[col], null);
+					out.write("/>");
+				}
+			} else if (value instanceof String) {
+				writeInlineString(col, dataStyles[col], (String) value);
+			} else if (value instanceof Number) {
+				writeNumber(col, dataStyles[col], (Number) value);
+			} else if (value instanceof Boolean) {
+				startCell(col, dataStyles[col], "b");
+				out.write(((Boolean) value).booleanValue() ? "><v>1</v></c>" : "><v>0</v></c>");
+			} else if (value instanceof Date) {
+				writeDate(col, getDateStyle(col), (Date) value);
+			} else {
+				writeInlineString(col, dataStyles[col], value.toString());
+			}
+		}
+		
+		/**
+		 * @param col 列索引
+		 * @return 这一列是否有写入原始值的样式(typedCells)
+		 */
+		public boolean isTyped(int col) {
+			return typedStyles[col] != 0;
+		}
+		
+		/**
+		 * 使用typedCells的样式写入原始的日期,数字
+		 * @param col 列索引,isTyped(col)为true
+		 * @param value FieldCodec.toExcelValue转换后的值
+		 */
+		public void writeTypedCell(int col, Object value) throws IOException {
+			if (value instanceof Date) {
+				writeDate(col, typedStyles[col], (Date) value);
+			} else {
+				writeNumber(col, typedStyles[col], (Number) value);
+			}
+		}
+
+		/**
+		 * 结束当前行
+		 */
+		public void endRow() throws IOException {
+			out.write("</row>");
+		}
+
+		/**
+		 * @return 当前行的索引,从0开始,标题行是0
+		 */
+		public int getRowIndex() {
+			return rowIndex;
+		}
+
+		/**
+		 * 结束sheet xml,不关闭Writer
+		 */
+		public void end() throws IOException {
+			out.write("</sheetData></worksheet>");
+			out.flush();
+		}
+
+		//按照当前的ExcelDefinition创建样式和列名
+		private void initColumns() {
+			List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+			int size = fieldValues.size();
+			synchronized (styleBook) {
+				cellStyleHolder = new CellStyleHolder(styleBook, excelDefinition);
+			}
+			columnRefs = new char[size][];
+			titleStyles = new int[size];
+			dataStyles = new int[size];
+			typedStyles = new int[size];
+			dateStyles = new int[size];
+			Arrays.fill(dateStyles, -1);
+			for (int i = 0; i < size; i++) {
+				columnRefs[i] = CellReference.convertNumToColString(i).toCharArray();
+				titleStyles[i] = styleIndex(cellStyleHolder.getCellStyle(i, true));
+				dataStyles[i] = styleIndex(cellStyleHolder.getCellStyle(i, false));
+				typedStyles[i] = styleIndex(cellStyleHolder.getTypedCellStyle(i));
+			}
+		}
+
+		//日期样式,在列样式的基础上设置日期格式,从styleBook的样式注册表获取,多个sheet共享相同的日期样式
+		private int getDateStyle(int col) {
+			if (dateStyles[col] < 0) {
+				synchronized (styleBook) {
+					dateStyles[col] = styleIndex(cellStyleHolder.getCellStyle(col, DATE_FORMAT));
+				}
+			}
+			return dateStyles[col];
+		}
+
+		private void writeCols() throws IOException {
+			List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+			boolean started = false;
+			for (int i = 0; i < fieldValues.size(); i++) {
+				Integer width = fieldValues.get(i).getColumnWidth();
+				if (width == null) {
+					width = excelDefinition.getDefaultColumnWidth();
+				}
+				if (width == null) {
+					continue;
+				}
+				if (!started) {
+					out.write("<cols>");
+					started = true;
+				}
+				//与Sheet.setColumnWidth一致,单位是1/256个字符宽度
+				out.write("<col min=\"" + (i + 1) + "\" max=\"" + (i + 1) + "\" width=\"" + (width / 256.0)
+						+ "\" customWidth=\"1\"/>");
+			}
+			if (started) {
+				out.write("</cols>");
+			}
+		}
+
+		private void writeTitle() throws IOException {
+			startRow();
+			List<FieldValue> fieldValues = excelDefinition.getFieldValues();
+			for (int i = 0; i < fieldValues.size(); i++) {
+				String title = fieldValues.get(i).getTitle();
+				//处理必填项*色标红
+				if (excelDefinition.isRequiredTag() && title.startsWith("*")) {
+					startCell(i, titleStyles[i], "inlineStr");
+					out.write("><is><r><rPr><color indexed=\"" + Font.COLOR_RED + "\"/></rPr><t>*</t></r>");
+					if (title.length() > 1) {
+						out.write("<r>");
+						writeText(title.substring(1));
+						out.write("</r>");
+					}
+					out.write("</is></c>");
+				} else {
+					writeInlineString(i, titleStyles[i], title);
+				}
+			}
+			endRow();
+		}
+
+		//写入<c r="A1" s="1" t="type",不包括结束的>
+		private void startCell(int col, int style, String type) throws IOException {
+			out.write("<c r=\"");
+			out.write(columnRefs[col]);
+			writeLong(rowIndex + 1);
+			out.write('"');
+			if (style != 0) {
+				out.write(" s=\"");
+				writeLong(style);
+				out.write('"');
+			}
+			if (type != null) {
+				out.write(" t=\"");
+				out.write(type);
+				out.write('"');
+			}
+		}
+
+		private void writeInlineString(int col, int style, String value) throws IOException {
+			if (value.length() > MAX_TEXT_LENGTH) {
+				throw new ExcelException("单元格内容的长度不能超过" + MAX_TEXT_LENGTH + "个字符");
+			}
+			startCell(col, style, "inlineStr");
+			out.write("><is>");
+			writeText(value);
+			out.write("</is></c>");
+		}
+
+		//写入<t>,首尾有空白时保留空白
+		private void writeText(String value) throws IOException {
+			int len = value.length();
+			if (len > 0 && (Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(len - 1)))) {
+				out.write("<t xml:space=\"preserve\">");
+			} else {
+				out.write("<t>");
+			}
+			writeEscaped(out, value, false);
+			out.write("</t>");
+		}
+
+		private void writeDate(int col, int style, Date value) throws IOException {
+			calendar.setTime(value);
+			startCell(col, style, null);
+			out.write("><v>");
+			writeDouble(DateUtil.getExcelDate(calendar, false));
+			out.write("</v></c>");
+		}
+
+		private void writeNumber(int col, int style, Number value) throws IOException {
+			if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+				startCell(col, style, null);
+				out.write("><v>");
+				writeLong(value.longValue());
+				out.write("</v></c>");
+				return;
+			}
+			//与ExcelUtil.setCellValue一致,float按照字面值转换成double
+			double d = value instanceof Float ? Double.parseDouble(value.toString()) : value.doubleValue();
+			if (Double.isNaN(d) || Double.isInfinite(d)) {
+				//与XSSFCell.setCellValue(double)一致,写入错误值
+				startCell(col, style, "e");
+				out.write(Double.isNaN(d) ? "><v>#NUM!</v></c>" : "><v>#DIV/0!</v></c>");
+				return;
+			}
+			startCell(col, style, null);
+			out.write("><v>");
+			writeDouble(d);
+			out.write("</v></c>");
+		}
+
+		private void writeDouble(double d) throws IOException {
+			long l = (long) d;
+			//整数不经过Double.toString
+			if (l == d && l > -1000000000000000L && l < 1000000000000000L) {
+				writeLong(l);
+			} else {
+				out.write(Double.toString(d));
+			}
+		}
+
+		private void writeLong(long value) throws IOException {
+			if (value == 0) {
+				out.write('0');
+				return;
+			}
+			if (value == Long.MIN_VALUE) {
+				out.write(Long.toString(value));
+				return;
+			}
+			if (value < 0) {
+				out.write('-');
+				value = -value;
+			}
+			int pos = digits.length;
+			while (value > 0) {
+				digits[--pos] = (char) ('0' + (value % 10));
+				value /= 10;
+			}
+			out.write(digits, pos, digits.length - pos);
+		}
+
+	}
+
+	private static int styleIndex(CellStyle cellStyle) {
+		return cellStyle == null ? 0 : cellStyle.getIndex();
+	}
+
+}
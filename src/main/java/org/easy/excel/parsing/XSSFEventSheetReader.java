@@ -0,0 +1,245 @@
+package org.easy.excel.parsing;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.util.TempFile;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.easy.excel.config.FormulaMode;
+import org.easy.excel.exception.ExcelException;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * xlsx 事件模型(SAX)读取,不构建Workbook对象,逐行解析sheet xml回调SheetRowCallback,
+ * 内存占用只与共享字符串表和单行数据相关,与数据行数无关
+ * 公式单元格读取文件中缓存的计算结果,formulaMode为FAIL时遇到公式抛出异常
+ * @author lisuo
+ *
+ */
+class XSSFEventSheetReader {
+	
+	/** 公式cell的处理方式,事件模型只能读取缓存的结果,FAIL时遇到公式抛出异常 */
+	private final FormulaMode formulaMode;
+	
+	public XSSFEventSheetReader(FormulaMode formulaMode) {
+		this.formulaMode = formulaMode;
+	}
+	
+	/**
+	 * 读取指定sheet页的数据
+	 * @param excelStream xlsx文件流
+	 * @param sheetIndex sheet索引位
+	 * @param callback 行回调
+	 */
+	public void read(InputStream excelStream, int sheetIndex, SheetRowCallback callback) {
+		File tmpFile = null;
+		OPCPackage pkg = null;
+		try {
+			//OPCPackage.open(InputStream)会把整个zip解压到内存中,这里先写入临时文件,通过ZipFile按需读取
+			tmpFile = TempFile.createTempFile("easy-excel-import", ".xlsx");
+			try (OutputStream out = new FileOutputStream(tmpFile)) {
+				IOUtils.copy(excelStream, out);
+			}
+			pkg = OPCPackage.open(tmpFile, PackageAccess.READ);
+			XSSFReader reader = new XSSFReader(pkg);
+			InputStream sheetStream = null;
+			Iterator<InputStream> sheets = reader.getSheetsData();
+			for (int i = 0; sheets.hasNext(); i++) {
+				InputStream stream = sheets.next();
+				if (i == sheetIndex) {
+					sheetStream = stream;
+					break;
+				}
+				stream.close();
+			}
+			if (sheetStream == null) {
+				throw new ExcelException("找不到对应的sheet页");
+			}
+			SheetHandler handler = new SheetHandler(new ReadOnlySharedStringsTable(pkg), reader.getStylesTable(),
+					isDate1904(reader), formulaMode == FormulaMode.FAIL, callback);
+			try {
+				XMLReader parser = XMLHelper.newXMLReader();
+				parser.setContentHandler(handler);
+				parser.parse(new InputSource(sheetStream));
+			} finally {
+				sheetStream.close();
+			}
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (SAXException e) {
+			//回调中抛出的异常由SAX包装,还原为原始异常
+			if (e.getException() instanceof RuntimeException) {
+				throw (RuntimeException) e.getException();
+			}
+			throw new ExcelException(e);
+		} catch (Exception e) {
+			throw new ExcelException(e);
+		} finally {
+			if (pkg != null) {
+				pkg.revert();
+			}
+			if (tmpFile != null) {
+				tmpFile.delete();
+			}
+		}
+	}
+	
+	//读取workbook.xml中的date1904配置
+	private boolean isDate1904(XSSFReader reader) throws Exception {
+		final boolean[] date1904 = new boolean[1];
+		try (InputStream workbookData = reader.getWorkbookData()) {
+			XMLReader parser = XMLHelper.newXMLReader();
+			parser.setContentHandler(new DefaultHandler() {
+				@Override
+				public void startElement(String uri, String localName, String qName, Attributes attrs) {
+					if ("workbookPr".equals(localName)) {
+						String val = attrs.getValue("date1904");
+						date1904[0] = "1".equals(val) || "true".equalsIgnoreCase(val);
+					}
+				}
+			});
+			parser.parse(new InputSource(workbookData));
+		}
+		return date1904[0];
+	}
+	
+	/**
+	 * sheet xml 处理,解析row和cell元素
+	 */
+	private static class SheetHandler extends DefaultHandler {
+		
+		private final ReadOnlySharedStringsTable sharedStrings;
+		private final StylesTable styles;
+		private final boolean date1904;
+		private final SheetRowCallback callback;
+		/** 遇到公式是否抛出异常 */
+		private final boolean failOnFormula;
+		/** 样式索引是否为日期格式的缓存 */
+		private final Map<Integer, Boolean> dateStyles = new HashMap<Integer, Boolean>();
+		
+		private List<Object> values;
+		private int rowIndex = -1;
+		private int colIndex;
+		private String cellType;
+		private int styleIndex;
+		private boolean isValue;
+		private boolean isInlineText;
+		private final StringBuilder text = new StringBuilder();
+		
+		SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, boolean failOnFormula, SheetRowCallback callback) {
+			this.sharedStrings = sharedStrings;
+			this.styles = styles;
+			this.date1904 = date1904;
+			this.failOnFormula = failOnFormula;
+			this.callback = callback;
+		}
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attrs) {
+			if ("row".equals(localName)) {
+				String r = attrs.getValue("r");
+				rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+				values = new ArrayList<Object>();
+				colIndex = -1;
+			} else if ("c".equals(localName)) {
+				String r = attrs.getValue("r");
+				colIndex = r != null ? new CellReference(r).getCol() : colIndex + 1;
+				cellType = attrs.getValue("t");
+				String s = attrs.getValue("s");
+				styleIndex = s != null ? Integer.parseInt(s) : -1;
+				text.setLength(0);
+			} else if ("v".equals(localName)) {
+				isValue = true;
+				text.setLength(0);
+			} else if ("f".equals(localName) && failOnFormula) {
+				throw new ExcelException("[" + new CellReference(rowIndex, colIndex).formatAsString() + "]是公式,不允许导入公式");
+			} else if ("t".equals(localName) && "inlineStr".equals(cellType)) {
+				//inlineStr可能包含多个富文本片段,拼接所有片段
+				isInlineText = true;
+			}
+		}
+		
+		@Override
+		public void characters(char[] ch, int start, int length) {
+			if (isValue || isInlineText) {
+				text.append(ch, start, length);
+			}
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName) {
+			if ("v".equals(localName)) {
+				isValue = false;
+			} else if ("t".equals(localName)) {
+				isInlineText = false;
+			} else if ("c".equals(localName)) {
+				Object value = text.length() == 0 ? null : getValue(text.toString());
+				if (value != null) {
+					while (values.size() <= colIndex) {
+						values.add(null);
+					}
+					values.set(colIndex, value);
+				}
+			} else if ("row".equals(localName)) {
+				callback.onRow(rowIndex, values);
+				values = null;
+			}
+		}
+		
+		//按照cell类型转换成与ExcelUtil.getCellValue一致的java类型
+		private Object getValue(String v) {
+			if (cellType == null || "n".equals(cellType)) {
+				double d = Double.parseDouble(v);
+				if (styleIndex >= 0 && isDateStyle(styleIndex) && DateUtil.isValidExcelDate(d)) {
+					return DateUtil.getJavaDate(d, date1904);
+				}
+				return d;
+			}
+			switch (cellType) {
+			case "s":
+				return sharedStrings.getItemAt(Integer.parseInt(v)).getString();
+			case "inlineStr":
+			case "str":
+				return v;
+			case "b":
+				return "1".equals(v) || "true".equalsIgnoreCase(v);
+			case "e":
+				return null;
+			default:
+				return v;
+			}
+		}
+		
+		private boolean isDateStyle(int idx) {
+			Boolean isDate = dateStyles.get(idx);
+			if (isDate == null) {
+				XSSFCellStyle style = styles.getStyleAt(idx);
+				isDate = style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+				dateStyles.put(idx, isDate);
+			}
+			return isDate;
+		}
+	}
+	
+}
@@ -0,0 +1,479 @@
+package org.easy.excel.result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式导入结果中的一列,数值使用基本类型数组存储,字符串使用字典编码,日期存储为毫秒数,
+ * 空值记录在位图中,空值位置的数组值为0
+ * @author lisuo
+ *
+ */
+public abstract class ExcelColumn {
+	
+	/**
+	 * 列的存储类型
+	 */
+	public enum ColumnType {
+		/** int[] */
+		INT,
+		/** long[] */
+		LONG,
+		/** double[] */
+		DOUBLE,
+		/** 位图 */
+		BOOLEAN,
+		/** long[] 毫秒数 */
+		DATE,
+		/** int[] 字典编码 */
+		STRING
+	}
+	
+	private static final int INITIAL_CAPACITY = 64;
+	
+	/** 属性名称 */
+	private final String name;
+	/** 标题 */
+	private final String title;
+	private final ColumnType type;
+	/** 空值位图 */
+	private long[] nulls = new long[1];
+	protected int size;
+	
+	protected ExcelColumn(String name, String title, ColumnType type) {
+		this.name = name;
+		this.title = title;
+		this.type = type;
+	}
+	
+	/**
+	 * 创建指定类型的列
+	 * @param name 属性名称
+	 * @param title 标题
+	 * @param type 类型
+	 * @return ExcelColumn
+	 */
+	public static ExcelColumn create(String name, String title, ColumnType type) {
+		switch (type) {
+		case INT:
+			return new IntColumn(name, title);
+		case LONG:
+		case DATE:
+			return new LongColumn(name, title, type);
+		case DOUBLE:
+			return new DoubleColumn(name, title);
+		case BOOLEAN:
+			return new BooleanColumn(name, title);
+		default:
+			return new StringColumn(name, title);
+		}
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getTitle() {
+		return title;
+	}
+	
+	public ColumnType getType() {
+		return type;
+	}
+	
+	/**
+	 * @return 行数
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * 指定行是否为空
+	 * @param row 行索引,从0开始
+	 * @return true:为空
+	 */
+	public boolean isNull(int row) {
+		checkIndex(row);
+		return (nulls[row >>> 6] & (1L << row)) != 0;
+	}
+	
+	/**
+	 * 获取指定行的值,会进行装箱,批量处理时请使用具体类型的get方法
+	 * @param row 行索引,从0开始
+	 * @return 值,为空时返回null
+	 */
+	public Object getValue(int row) {
+		return isNull(row) ? null : doGetValue(row);
+	}
+	
+	protected abstract Object doGetValue(int row);
+	
+	/**
+	 * 追加一行,导入时使用
+	 * @param value 转换后的值,为null时追加空值
+	 * @throws IllegalArgumentException 值不能转换成列的类型
+	 */
+	public void append(Object value) {
+		ensureCapacity(size + 1);
+		if (value == null) {
+			nulls[size >>> 6] |= 1L << size;
+		} else {
+			set(size, value);
+		}
+		size++;
+	}
+	
+	/**
+	 * 截断到指定行数,用于丢弃校验未通过的行
+	 * @param newSize 行数
+	 */
+	public void truncate(int newSize) {
+		for (int i = newSize; i < size; i++) {
+			nulls[i >>> 6] &= ~(1L << i);
+			clear(i);
+		}
+		size = Math.min(size, newSize);
+	}
+	
+	protected abstract void set(int row, Object value);
+	
+	protected abstract void clear(int row);
+	
+	protected abstract void grow(int capacity);
+	
+	protected abstract int capacity();
+	
+	private void ensureCapacity(int minCapacity) {
+		int capacity = capacity();
+		if (minCapacity > capacity) {
+			int newCapacity = Math.max(Math.max(capacity + (capacity >> 1), minCapacity), INITIAL_CAPACITY);
+			grow(newCapacity);
+			nulls = Arrays.copyOf(nulls, (newCapacity + 63) >>> 6);
+		}
+	}
+	
+	protected void checkIndex(int row) {
+		if (row < 0 || row >= size) {
+			throw new IndexOutOfBoundsException("row: " + row + ", size: " + size);
+		}
+	}
+	
+	protected static IllegalArgumentException typeMismatch(Object value, ColumnType type) {
+		return new IllegalArgumentException("[" + value + "]不能转换成" + type + "类型");
+	}
+	
+	/**
+	 * int列
+	 */
+	public static final class IntColumn extends ExcelColumn {
+		
+		private int[] values = new int[0];
+		
+		IntColumn(String name, String title) {
+			super(name, title, ColumnType.INT);
+		}
+		
+		public int getInt(int row) {
+			checkIndex(row);
+			return values[row];
+		}
+		
+		/**
+		 * @return 数据的副本,空值为0
+		 */
+		public int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+		
+		@Override
+		protected Object doGetValue(int row) {
+			return values[row];
+		}
+		
+		@Override
+		protected void set(int row, Object value) {
+			if (value instanceof Number) {
+				values[row] = ((Number) value).intValue();
+			} else if (value instanceof String) {
+				try {
+					values[row] = Integer.parseInt(((String) value).trim());
+				} catch (NumberFormatException e) {
+					throw typeMismatch(value, getType());
+				}
+			} else {
+				throw typeMismatch(value, getType());
+			}
+		}
+		
+		@Override
+		protected void clear(int row) {
+			values[row] = 0;
+		}
+		
+		@Override
+		protected void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+		
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+	}
+	
+	/**
+	 * long列,日期类型存储为毫秒数
+	 */
+	public static final class LongColumn extends ExcelColumn {
+		
+		private long[] values = new long[0];
+		
+		LongColumn(String name, String title, ColumnType type) {
+			super(name, title, type);
+		}
+		
+		public long getLong(int row) {
+			checkIndex(row);
+			return values[row];
+		}
+		
+		/**
+		 * @return 数据的副本,空值为0
+		 */
+		public long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+		
+		@Override
+		protected Object doGetValue(int row) {
+			return getType() == ColumnType.DATE ? new Date(values[row]) : (Object) values[row];
+		}
+		
+		@Override
+		protected void set(int row, Object value) {
+			if (value instanceof Date) {
+				values[row] = ((Date) value).getTime();
+			} else if (value instanceof Calendar) {
+				values[row] = ((Calendar) value).getTimeInMillis();
+			} else if (value instanceof Number) {
+				values[row] = ((Number) value).longValue();
+			} else if (value instanceof String && getType() == ColumnType.LONG) {
+				try {
+					values[row] = Long.parseLong(((String) value).trim());
+				} catch (NumberFormatException e) {
+					throw typeMismatch(value, getType());
+				}
+			} else {
+				throw typeMismatch(value, getType());
+			}
+		}
+		
+		@Override
+		protected void clear(int row) {
+			values[row] = 0;
+		}
+		
+		@Override
+		protected void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+		
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+	}
+	
+	/**
+	 * double列
+	 */
+	public static final class DoubleColumn extends ExcelColumn {
+		
+		private double[] values = new double[0];
+		
+		DoubleColumn(String name, String title) {
+			super(name, title, ColumnType.DOUBLE);
+		}
+		
+		public double getDouble(int row) {
+			checkIndex(row);
+			return values[row];
+		}
+		
+		/**
+		 * @return 数据的副本,空值为0
+		 */
+		public double[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+		
+		@Override
+		protected Object doGetValue(int row) {
+			return values[row];
+		}
+		
+		@Override
+		protected void set(int row, Object value) {
+			if (value instanceof Number) {
+				values[row] = ((Number) value).doubleValue();
+			} else if (value instanceof String) {
+				try {
+					values[row] = Double.parseDouble(((String) value).trim());
+				} catch (NumberFormatException e) {
+					throw typeMismatch(value, getType());
+				}
+			} else {
+				throw typeMismatch(value, getType());
+			}
+		}
+		
+		@Override
+		protected void clear(int row) {
+			values[row] = 0;
+		}
+		
+		@Override
+		protected void grow(int capacity) {
+			values = Arrays.copyOf(values, capacity);
+		}
+		
+		@Override
+		protected int capacity() {
+			return values.length;
+		}
+	}
+	
+	/**
+	 * boolean列,使用位图存储
+	 */
+	public static final class BooleanColumn extends ExcelColumn {
+		
+		private long[] bits = new long[0];
+		
+		BooleanColumn(String name, String title) {
+			super(name, title, ColumnType.BOOLEAN);
+		}
+		
+		public boolean getBoolean(int row) {
+			checkIndex(row);
+			return (bits[row >>> 6] & (1L << row)) != 0;
+		}
+		
+		@Override
+		protected Object doGetValue(int row) {
+			return getBoolean(row);
+		}
+		
+		@Override
+		protected void set(int row, Object value) {
+			boolean b;
+			if (value instanceof Boolean) {
+				b = (Boolean) value;
+			} else if (value instanceof Number) {
+				b = ((Number) value).doubleValue() != 0;
+			} else if (value instanceof String) {
+				String str = ((String) value).trim();
+				if ("true".equalsIgnoreCase(str) || "1".equals(str)) {
+					b = true;
+				} else if ("false".equalsIgnoreCase(str) || "0".equals(str)) {
+					b = false;
+				} else {
+					throw typeMismatch(value, getType());
+				}
+			} else {
+				throw typeMismatch(value, getType());
+			}
+			if (b) {
+				bits[row >>> 6] |= 1L << row;
+			}
+		}
+		
+		@Override
+		protected void clear(int row) {
+			bits[row >>> 6] &= ~(1L << row);
+		}
+		
+		@Override
+		protected void grow(int capacity) {
+			bits = Arrays.copyOf(bits, (capacity + 63) >>> 6);
+		}
+		
+		@Override
+		protected int capacity() {
+			return bits.length << 6;
+		}
+	}
+	
+	/**
+	 * 字符串列,字典编码存储,重复的字符串只保存一份
+	 */
+	public static final class StringColumn extends ExcelColumn {
+		
+		private int[] codes = new int[0];
+		private final List<String> dictionary = new ArrayList<String>();
+		private final Map<String, Integer> dictionaryIndex = new HashMap<String, Integer>();
+		
+		StringColumn(String name, String title) {
+			super(name, title, ColumnType.STRING);
+		}
+		
+		public String getString(int row) {
+			return isNull(row) ? null : dictionary.get(codes[row]);
+		}
+		
+		/**
+		 * @param row 行索引
+		 * @return 字典编码,空值为-1
+		 */
+		public int getCode(int row) {
+			return isNull(row) ? -1 : codes[row];
+		}
+		
+		/**
+		 * @return 字典,索引即编码
+		 */
+		public List<String> getDictionary() {
+			return Collections.unmodifiableList(dictionary);
+		}
+		
+		@Override
+		protected Object doGetValue(int row) {
+			return dictionary.get(codes[row]);
+		}
+		
+		@Override
+		protected void set(int row, Object value) {
+			String str = value.toString();
+			Integer code = dictionaryIndex.get(str);
+			if (code == null) {
+				code = dictionary.size();
+				dictionary.add(str);
+				dictionaryIndex.put(str, code);
+			}
+			codes[row] = code;
+		}
+		
+		@Override
+		protected void clear(int row) {
+			codes[row] = 0;
+		}
+		
+		@Override
+		protected void grow(int capacity) {
+			codes = Arrays.copyOf(codes, capacity);
+		}
+		
+		@Override
+		protected int capacity() {
+			return codes.length;
+		}
+	}
+	
+}
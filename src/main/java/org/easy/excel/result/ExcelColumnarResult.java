@@ -0,0 +1,54 @@
+package org.easy.excel.result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Excel列式导入结果,不创建JavaBean,每个配置的字段对应一列,listBean为空集合
+ * 
+ * @author lisuo
+ *
+ */
+public class ExcelColumnarResult extends ExcelImportResult {
+	
+	/** 属性名称 -> 列,与配置的字段顺序一致 */
+	private final Map<String, ExcelColumn> columns = new LinkedHashMap<String, ExcelColumn>();
+	
+	/** 校验通过的行数 */
+	private int rowCount;
+	
+	public ExcelColumnarResult() {
+		setListBean(Collections.emptyList());
+	}
+	
+	/**
+	 * @return 全部列,与配置的字段顺序一致
+	 */
+	public List<ExcelColumn> getColumns() {
+		return Collections.unmodifiableList(new ArrayList<ExcelColumn>(columns.values()));
+	}
+	
+	/**
+	 * @param name 属性名称
+	 * @return 列,不存在返回null
+	 */
+	public ExcelColumn getColumn(String name) {
+		return columns.get(name);
+	}
+	
+	public void addColumn(ExcelColumn column) {
+		columns.put(column.getName(), column);
+	}
+	
+	public int getRowCount() {
+		return rowCount;
+	}
+	
+	public void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+	
+}
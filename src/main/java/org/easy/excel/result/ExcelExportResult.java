@@ -1,5 +1,7 @@
 package org.easy.excel.result;
 
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -7,8 +9,14 @@ import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ColumnWidthTracker;
 import org.easy.excel.parsing.ExcelExport;
 import org.easy.excel.parsing.ExcelExport.CellStyleHolder;
+import org.easy.excel.parsing.ExcelHeader;
+import org.easy.excel.parsing.ExcelPageFetcher;
+import org.easy.excel.parsing.RowWriterContext;
 
 /**
  * Excel导出结果
@@ -22,35 +30,156 @@ public class ExcelExportResult {
 	private Workbook workbook ;
 	private Row titleRow ;
 	private ExcelExport excelExport;
-	private CellStyleHolder cellStyleHolder;
+	/** 写入数据行和合计行的样式,编解码器,列宽和合计值,没有样式时为null */
+	private RowWriterContext rowWriterContext;
+	private ExcelHeader header;
+	private List<Sheet> sheets = new ArrayList<Sheet>();
+	/** 合计行是否已经创建 */
+	private boolean footerCreated;
 	
 	public ExcelExportResult(ExcelDefinition excelDefinition, Sheet sheet, Workbook workbook, Row titleRow,ExcelExport excelExport,CellStyleHolder cellStyleHolder) {
+		this(excelDefinition, sheet, workbook, titleRow, excelExport, cellStyleHolder, null);
+	}
+	
+	public ExcelExportResult(ExcelDefinition excelDefinition, Sheet sheet, Workbook workbook, Row titleRow,ExcelExport excelExport,CellStyleHolder cellStyleHolder,ExcelHeader header) {
 		super();
 		this.excelDefinition = excelDefinition;
 		this.sheet = sheet;
 		this.workbook = workbook;
 		this.titleRow = titleRow;
 		this.excelExport = excelExport;
-		this.cellStyleHolder = cellStyleHolder;
+		this.rowWriterContext = cellStyleHolder == null ? null : new RowWriterContext(excelDefinition, cellStyleHolder);
+		this.header = header;
+		this.sheets.add(sheet);
 	}
 	
 	/**
-	 * 追加数据
+	 * 追加数据,当前sheet页写满时(sheetMaxRows)自动创建新的sheet页继续写入
 	 * @param beans ListBean
 	 * @return ExcelExportResult
+	 * @throws ExcelException 已经调用build创建了合计行
 	 */
 	public ExcelExportResult append(List<?> beans){
+		checkAppend();
 		if(CollectionUtils.isNotEmpty(beans)){
-			excelExport.createRows(excelDefinition, sheet, beans, workbook, titleRow,cellStyleHolder);
+			excelExport.createRows(this, beans.iterator());
+		}
+		return this;
+	}
+	
+	/**
+	 * 追加数据,逐个读取迭代器中的bean,直到迭代器没有数据,当前sheet页写满时(sheetMaxRows)自动创建新的sheet页继续写入
+	 * @param beans bean迭代器
+	 * @return ExcelExportResult
+	 * @throws ExcelException 已经调用build创建了合计行
+	 */
+	public ExcelExportResult append(Iterator<?> beans){
+		checkAppend();
+		if(beans != null){
+			excelExport.createRows(this, beans);
 		}
 		return this;
 	}
 	
 	/**
-	 * 导出完毕,获取WorkBook
+	 * 追加数据,分页获取数据写入Excel,直到获取的数据为空;
+	 * options.prefetchPages大于0时,由后台线程预先获取后续的页,获取数据和写入Excel同时进行
+	 * @param fetcher 分页获取数据,页码从1开始
+	 * @param options 导出选项,可以为null
+	 * @return ExcelExportResult
+	 * @throws ExcelException 已经调用build创建了合计行
+	 */
+	public ExcelExportResult append(ExcelPageFetcher<?> fetcher,ExportOptions options){
+		checkAppend();
+		Iterator<Object> beans = excelExport.pageIterator(fetcher, options);
+		try {
+			return append(beans);
+		} finally {
+			excelExport.closePageIterator(beans);
+		}
+	}
+	
+	//合计行已经在数据的下方创建,再追加的数据会写在合计行之后
+	private void checkAppend(){
+		if(footerCreated){
+			throw new ExcelException("合计行已经创建,不能再追加数据");
+		}
+	}
+	
+	/**
+	 * 切换到新的sheet页,后续追加的数据写入这个sheet页
+	 * @param sheet 新的sheet页
+	 * @param titleRow 新的sheet页的标题行
+	 */
+	public void nextSheet(Sheet sheet,Row titleRow){
+		this.sheet = sheet;
+		this.titleRow = titleRow;
+		this.sheets.add(sheet);
+	}
+	
+	/**
+	 * 当前写入的sheet页
+	 * @return
+	 */
+	public Sheet getSheet() {
+		return sheet;
+	}
+	
+	/**
+	 * 写入过数据的全部sheet页,按照创建的顺序
+	 * @return
+	 */
+	public List<Sheet> getSheets() {
+		return sheets;
+	}
+	
+	public Row getTitleRow() {
+		return titleRow;
+	}
+	
+	public ExcelDefinition getExcelDefinition() {
+		return excelDefinition;
+	}
+	
+	public ExcelHeader getHeader() {
+		return header;
+	}
+	
+	public CellStyleHolder getCellStyleHolder() {
+		return rowWriterContext == null ? null : rowWriterContext.getCellStyleHolder();
+	}
+	
+	/**
+	 * 写入数据行和合计行使用的状态,追加数据时共享
+	 * @return 没有样式时返回null
+	 */
+	public RowWriterContext getRowWriterContext() {
+		return rowWriterContext;
+	}
+	
+	/**
+	 * 导出过程中使用的WorkBook,不做导出完毕的处理
+	 * @return
+	 */
+	public Workbook getWorkbook() {
+		return workbook;
+	}
+	
+	/**
+	 * 导出完毕,获取WorkBook;字段配置了aggregate时在数据的下方创建合计行(只创建一次,之后不能再追加数据),
+	 * autoWidth时按照写入的内容设置全部sheet页的列宽
 	 * @return
 	 */
 	public Workbook build(){
+		if(!footerCreated && rowWriterContext != null){
+			footerCreated = excelExport.createFooter(this);
+		}
+		ColumnWidthTracker columnWidthTracker = rowWriterContext == null ? null : rowWriterContext.getColumnWidthTracker();
+		if(columnWidthTracker != null){
+			for(Sheet s : sheets){
+				columnWidthTracker.apply(s, excelDefinition);
+			}
+		}
 		return workbook;
 	} 
 	
@@ -3,7 +3,7 @@ package org.easy.excel.result;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.commons.collections4.CollectionUtils;
+import org.easy.excel.exception.ExcelDataError;
 import org.easy.excel.exception.ExcelDataException;
 
 /**
@@ -21,7 +21,13 @@ public class ExcelImportResult {
 	private List<?> listBean;
 	
 	/** Errors */
-	private List<ExcelDataException> errors = new ArrayList<ExcelDataException>();
+	private List<ExcelDataError> errors = new ArrayList<ExcelDataError>();
+	
+	/** getErrors返回的异常集合,第一次获取时创建 */
+	private List<ExcelDataException> exceptions;
+	
+	/** 校验未通过的总数,包括超出错误数量上限未保留的错误 */
+	private int errorCount;
 	
 	/** Excel中需要处理的数据量,假设10条数据,8条校验未通过,这个值是10,listBean是2条数据 */
 	private Integer totalNum;
@@ -43,10 +49,60 @@ public class ExcelImportResult {
 		this.listBean = listBean;
 	}
 	
+	/**
+	 * 以异常的方式获取保留的错误,第一次获取时为每个错误记录创建一次异常对象(不记录异常栈),之后返回同一个集合;
+	 * 推荐使用getDataErrors
+	 * @return 错误集合
+	 */
 	public List<ExcelDataException> getErrors() {
+		if(exceptions == null){
+			List<ExcelDataException> list = new ArrayList<ExcelDataException>(errors.size());
+			for(ExcelDataError error:errors){
+				list.add(error.toException());
+			}
+			exceptions = list;
+		}
+		return exceptions;
+	}
+	
+	/**
+	 * @return 保留的错误记录
+	 */
+	public List<ExcelDataError> getDataErrors() {
 		return errors;
 	}
 	
+	/**
+	 * 添加错误记录
+	 * @param error
+	 */
+	public void addError(ExcelDataError error) {
+		errors.add(error);
+		if(exceptions != null){
+			exceptions.add(error.toException());
+		}
+	}
+	
+	/**
+	 * 校验未通过的总数,可能大于getErrors的数量(超出ImportOptions配置的错误数量上限)
+	 * @return 错误总数
+	 */
+	public int getErrorCount() {
+		return Math.max(errorCount, errors.size());
+	}
+	
+	public void setErrorCount(int errorCount) {
+		this.errorCount = errorCount;
+	}
+	
+	/**
+	 * 是否有错误因为超出错误数量上限没有保留
+	 * @return true:有错误未保留
+	 */
+	public boolean isErrorsTruncated() {
+		return getErrorCount() > errors.size();
+	}
+	
 	public Integer getTotalNum() {
 		return totalNum;
 	}
@@ -60,7 +116,7 @@ public class ExcelImportResult {
 	 * @return true:有错误,false:没有错误
 	 */
 	public boolean hasErrors(){
-		return CollectionUtils.isNotEmpty(errors);
+		return getErrorCount() > 0;
 	}
 	
 }
@@ -0,0 +1,65 @@
+package org.easy.excel.result;
+
+import java.io.OutputStream;
+import java.util.Iterator;
+
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ExcelExport;
+import org.easy.excel.parsing.ExcelHeader;
+
+/**
+ * 分成多个Excel文件的导出,在write时逐个创建Excel文件写入同一个zip,
+ * 每个文件最多shardRows行数据,同一时间只有一个Workbook;迭代器只能读取一次,所以只能write一次
+ * 
+ * @author lisuo
+ *
+ */
+public class ExcelShardExport {
+	private ExcelDefinition excelDefinition;
+	private Iterator<?> beans;
+	private ExcelHeader header;
+	private int shardRows;
+	private ExcelExport excelExport;
+	private boolean written;
+	
+	public ExcelShardExport(ExcelDefinition excelDefinition, Iterator<?> beans, ExcelHeader header, int shardRows,ExcelExport excelExport) {
+		super();
+		this.excelDefinition = excelDefinition;
+		this.beans = beans;
+		this.header = header;
+		this.shardRows = shardRows;
+		this.excelExport = excelExport;
+	}
+	
+	/**
+	 * 把全部Excel文件写入zip,文件名称为excelName_1.xlsx,excelName_2.xlsx...;输出流由调用者关闭
+	 * @param out 输出流
+	 * @param excelName Excel名字(不需要后缀)
+	 * @return Excel文件的个数
+	 */
+	public int write(OutputStream out,String excelName){
+		if(written){
+			throw new ExcelException("数据已经写出,不能重复写出");
+		}
+		written = true;
+		return excelExport.writeShards(this, excelName, out);
+	}
+	
+	public ExcelDefinition getExcelDefinition() {
+		return excelDefinition;
+	}
+	
+	public Iterator<?> getBeans() {
+		return beans;
+	}
+	
+	public ExcelHeader getHeader() {
+		return header;
+	}
+	
+	public int getShardRows() {
+		return shardRows;
+	}
+	
+}
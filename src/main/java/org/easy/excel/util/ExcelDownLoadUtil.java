@@ -12,6 +12,8 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.util.IOUtils;
+import org.easy.excel.parsing.ExcelStreamingWorkbook;
+import org.easy.excel.result.ExcelShardExport;
 
 /**
  * Excel 下载工具类,提供原生的Servlet下载环境
@@ -22,6 +24,9 @@ public class ExcelDownLoadUtil {
 
 	/** 文件后缀 */
 	public static final String FILE_SUFFIX = ".xlsx";
+	
+	/** 多个Excel文件打包下载的文件后缀 */
+	public static final String ZIP_FILE_SUFFIX = ".zip";
 
 	/** 文件编码 */
 	public static final String UTF8 = "UTF-8";
@@ -30,6 +35,8 @@ public class ExcelDownLoadUtil {
 
 	private static final String CONTENT_TYPE = "application/x-excel";
 	
+	private static final String ZIP_CONTENT_TYPE = "application/zip";
+	
 	/**
 	 * 下载Excel,解决中文乱码问题,如果Workbook为空，执行alert(emptyMessage);
 	 * @param workbook POI Workbook
@@ -40,24 +47,78 @@ public class ExcelDownLoadUtil {
 	 * @throws IOException
 	 */
 	public static void downLoadExcel(Workbook workbook,String excelName,String emptyMessage,HttpServletRequest request,HttpServletResponse response)throws IOException{
+		downLoadExcel(workbook, excelName, emptyMessage, 0, request, response);
+	}
+	
+	/**
+	 * 下载Excel,解决中文乱码问题,如果Workbook为空，执行alert(emptyMessage);
+	 * @param workbook POI Workbook
+	 * @param excelName Excel名字（不需要后缀，支持中文处理）
+	 * @param emptyMessage workbook为空提示的信息
+	 * @param deflateParallelism 大于1并且workbook是ExcelStreamingWorkbook时,使用多个线程并行压缩,小于等于0时使用workbook原有的设置
+	 * @param request
+	 * @param response
+	 * @throws IOException
+	 */
+	public static void downLoadExcel(Workbook workbook,String excelName,String emptyMessage,int deflateParallelism,HttpServletRequest request,HttpServletResponse response)throws IOException{
 		if (workbook != null) {
+			if (deflateParallelism > 0 && workbook instanceof ExcelStreamingWorkbook) {
+				((ExcelStreamingWorkbook) workbook).setDeflateParallelism(deflateParallelism);
+			}
 			String excelFileName = encodeDownloadFileName(request, excelName + FILE_SUFFIX);
 			response.setContentType(CONTENT_TYPE);
 			response.setHeader("Content-Disposition", "attachment; filename=\"" + excelFileName + "\";target=_blank");
 			OutputStream out = response.getOutputStream();
-			workbook.write(out);
-			workbook.close();
+			try {
+				workbook.write(out);
+			} finally {
+				//SXSSF的临时文件在close时删除,写出失败也要关闭
+				workbook.close();
+			}
+			out.flush();
+			out.close();
+		} else {
+			alert(emptyMessage, response);
+		}
+	}
+	
+	/**
+	 * 分成多个Excel文件,打包成zip下载,逐个创建Excel文件写入响应流,如果shards为空，执行alert(emptyMessage);
+	 * @param shards ExcelContext.createExcelShards创建的导出
+	 * @param excelName zip和Excel的名字（不需要后缀，支持中文处理）,Excel文件名称为excelName_1.xlsx,excelName_2.xlsx...
+	 * @param emptyMessage shards为空提示的信息
+	 * @param request
+	 * @param response
+	 * @throws IOException
+	 */
+	public static void downLoadExcelShards(ExcelShardExport shards,String excelName,String emptyMessage,HttpServletRequest request,HttpServletResponse response)throws IOException{
+		if (shards != null) {
+			String zipFileName = encodeDownloadFileName(request, excelName + ZIP_FILE_SUFFIX);
+			response.setContentType(ZIP_CONTENT_TYPE);
+			response.setHeader("Content-Disposition", "attachment; filename=\"" + zipFileName + "\";target=_blank");
+			OutputStream out = response.getOutputStream();
+			shards.write(out, excelName);
 			out.flush();
 			out.close();
 		} else {
-			response.setContentType("text/html; charset=utf-8");
-			PrintWriter writer = response.getWriter();
-			writer.print("<script language='javascript'>alert('"+emptyMessage+"');</script>");
-			writer.flush();
-			writer.close();
+			alert(emptyMessage, response);
 		}
 	}
 	
+	/**
+	 * 没有数据时,执行alert(emptyMessage);
+	 * @param emptyMessage
+	 * @param response
+	 * @throws IOException
+	 */
+	private static void alert(String emptyMessage,HttpServletResponse response)throws IOException{
+		response.setContentType("text/html; charset=utf-8");
+		PrintWriter writer = response.getWriter();
+		writer.print("<script language='javascript'>alert('"+emptyMessage+"');</script>");
+		writer.flush();
+		writer.close();
+	}
+	
 	/**
 	 * 下载Excel（原生文件下载,只是把响应头按照excel设置,解决中文乱码问题）
 	 * @param ins 原生的excel文件流
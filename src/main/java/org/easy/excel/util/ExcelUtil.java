@@ -11,13 +11,21 @@ import java.util.List;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.EncryptedDocumentException;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.RichTextString;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.config.FormulaMode;
 import org.easy.excel.exception.ExcelException;
 import org.springframework.core.io.ClassPathResource;
 
@@ -41,10 +49,24 @@ public abstract class ExcelUtil {
 	 * @throws Exception
 	 */
 	public static List<List<Object>> readExcel(InputStream excelStream,int sheetIndex){
+		return readExcel(excelStream, sheetIndex, FormulaMode.EVALUATE);
+	}
+	
+	/**
+	 * 读取Excel,支持任何不规则的Excel文件,
+	 * 外层List表示所有的数据行，内层List表示每行中的cell单元数据位置
+	 * @param excelStream Excel文件流
+	 * @param sheetIndex Excel-Sheet 的索引
+	 * @param formulaMode 公式cell的处理方式
+	 * @return List<List<Object>> 
+	 */
+	public static List<List<Object>> readExcel(InputStream excelStream,int sheetIndex,FormulaMode formulaMode){
 		List<List<Object>> datas = new ArrayList<List<Object>>();
 		Workbook workbook = getWorkBookByStream(excelStream);
 		//只读取第一个sheet
 		Sheet sheet = getSheetAt(workbook, sheetIndex);
+		//整个workbook共享一个evaluator,计算结果会被缓存
+		FormulaEvaluator evaluator = createFormulaEvaluator(workbook, formulaMode);
 		int rows = sheet.getPhysicalNumberOfRows();
 		for (int i = 0; i < rows; i++) {
 			Row row = sheet.getRow(i);
@@ -55,7 +77,7 @@ public abstract class ExcelUtil {
 			List<Object> item = new ArrayList<Object>(cellNum);
 			for(int j=0;j<cellNum;j++){
 				Cell cell = row.getCell(j);
-				Object value = ExcelUtil.getCellValue(cell);
+				Object value = ExcelUtil.getCellValue(cell,formulaMode,evaluator);
 				item.add(value);
 			}
 			datas.add(item);
@@ -103,51 +125,123 @@ public abstract class ExcelUtil {
 	}
 	
 	/**
-	 * 获取cell值
+	 * 获取cell值,公式cell会被计算,不修改原workbook,
+	 * 读取大量cell时请使用getCellValue(Cell, FormulaMode, FormulaEvaluator)共享evaluator
 	 * 
 	 * @param cell
 	 * @return
 	 */
 	public static Object getCellValue(Cell cell) {
-		Object value = null;
-		if (null != cell) {
-			switch (cell.getCellType()) {
-			// 空白
-			case BLANK:
-				break;
-			// Boolean
+		FormulaEvaluator evaluator = null;
+		if (cell != null && cell.getCellType() == CellType.FORMULA) {
+			evaluator = cell.getSheet().getWorkbook().getCreationHelper().createFormulaEvaluator();
+		}
+		return getCellValue(cell, FormulaMode.EVALUATE, evaluator);
+	}
+	
+	/**
+	 * 获取cell值
+	 * 
+	 * @param cell
+	 * @param formulaMode 公式cell的处理方式
+	 * @param evaluator 公式计算器,formulaMode为EVALUATE时使用,同一个workbook应该共享一个实例
+	 * @return
+	 */
+	public static Object getCellValue(Cell cell,FormulaMode formulaMode,FormulaEvaluator evaluator) {
+		if (null == cell) {
+			return null;
+		}
+		CellType cellType = cell.getCellType();
+		if (cellType != CellType.FORMULA) {
+			return getCellValue(cell, cellType);
+		}
+		switch (formulaMode) {
+		case CACHED:
+			return getCellValue(cell, cell.getCachedFormulaResultType());
+		case FAIL:
+			throw new ExcelException("[" + new CellReference(cell).formatAsString() + "]是公式:[" + cell.getCellFormula() + "],不允许导入公式");
+		default:
+			CellValue cellValue = evaluator.evaluate(cell);
+			if (cellValue == null) {
+				return null;
+			}
+			switch (cellValue.getCellType()) {
 			case BOOLEAN:
-				value = cell.getBooleanCellValue();
-				break;
-			// 错误格式
-			case ERROR:
-				break;
-			// 公式
-			case FORMULA:
-				Workbook wb = cell.getSheet().getWorkbook();
-				CreationHelper crateHelper = wb.getCreationHelper();
-				FormulaEvaluator evaluator = crateHelper.createFormulaEvaluator();
-				value = getCellValue(evaluator.evaluateInCell(cell));
-				break;
-			// 数值
+				return cellValue.getBooleanValue();
 			case NUMERIC:
+				double d = cellValue.getNumberValue();
 				// 处理日期格式
-				if (org.apache.poi.ss.usermodel.DateUtil.isCellDateFormatted(cell)) {
-					value = cell.getDateCellValue();
-				} else {
-					value = cell.getNumericCellValue();
+				CellStyle style = cell.getCellStyle();
+				if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())
+						&& DateUtil.isValidExcelDate(d)) {
+					return DateUtil.getJavaDate(d, isDate1904(cell.getSheet().getWorkbook()));
 				}
-				break;
+				return d;
 			case STRING:
-				value = cell.getStringCellValue();
-				break;
+				return cellValue.getStringValue();
 			default:
-				value = null;
+				return null;
 			}
 		}
+	}
+	
+	//按照cell类型(公式cell为缓存结果的类型)获取值
+	private static Object getCellValue(Cell cell,CellType cellType) {
+		Object value = null;
+		switch (cellType) {
+		// 空白
+		case BLANK:
+			break;
+		// Boolean
+		case BOOLEAN:
+			value = cell.getBooleanCellValue();
+			break;
+		// 错误格式
+		case ERROR:
+			break;
+		// 数值
+		case NUMERIC:
+			// 处理日期格式
+			if (DateUtil.isCellDateFormatted(cell)) {
+				value = cell.getDateCellValue();
+			} else {
+				value = cell.getNumericCellValue();
+			}
+			break;
+		case STRING:
+			value = cell.getStringCellValue();
+			break;
+		default:
+			value = null;
+		}
 		return value;
 	}
 	
+	/**
+	 * 创建公式计算器,formulaMode为EVALUATE时创建,否则返回null
+	 * @param workbook
+	 * @param formulaMode
+	 * @return FormulaEvaluator
+	 */
+	public static FormulaEvaluator createFormulaEvaluator(Workbook workbook,FormulaMode formulaMode) {
+		if (formulaMode == FormulaMode.EVALUATE) {
+			return workbook.getCreationHelper().createFormulaEvaluator();
+		}
+		return null;
+	}
+	
+	//workbook是否使用1904日期
+	private static boolean isDate1904(Workbook workbook) {
+		if (workbook instanceof XSSFWorkbook) {
+			return ((XSSFWorkbook) workbook).isDate1904();
+		} else if (workbook instanceof HSSFWorkbook) {
+			return ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+		} else if (workbook instanceof SXSSFWorkbook) {
+			return ((SXSSFWorkbook) workbook).getXSSFWorkbook().isDate1904();
+		}
+		return false;
+	}
+	
 	public static Sheet getSheetAt(Workbook workbook,int sheetIndex){
 		try{
 			return workbook.getSheetAt(sheetIndex);
@@ -0,0 +1,20 @@
+package org.easy.excel.validation;
+
+import org.easy.excel.config.FieldValue;
+
+/**
+ * 导入时cell值的校验规则,实现类需要线程安全,可以通过field的validator属性配置自定义实现(全类名,需要无参构造)
+ * @author lisuo
+ *
+ */
+public interface CellValidator {
+	
+	/**
+	 * 校验cell的值,只有非空的值会被校验
+	 * @param value Excel原值,字符串已去除前后空格
+	 * @param fieldValue FieldValue信息
+	 * @return 校验通过返回null,否则返回错误提示信息
+	 */
+	String validate(Object value, FieldValue fieldValue);
+	
+}
@@ -0,0 +1,331 @@
+package org.easy.excel.validation;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.FieldCodec;
+import org.springframework.beans.BeanUtils;
+
+/**
+ * 字段的校验规则链,注册时根据FieldValue的配置编译一次,导入时每个cell只需要依次执行规则,
+ * 校验通过时不创建任何对象
+ * @author lisuo
+ *
+ */
+public final class FieldValidator {
+	
+	/** 日期范围没有配置pattern时使用的格式 */
+	private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd";
+	
+	private static final CellValidator[] NO_RULES = new CellValidator[0];
+	
+	/** 是否可以为空 */
+	private final boolean nullable;
+	
+	/** 按照配置顺序执行的规则 */
+	private final CellValidator[] rules;
+	
+	private FieldValidator(boolean nullable, CellValidator[] rules) {
+		this.nullable = nullable;
+		this.rules = rules;
+	}
+	
+	/**
+	 * 校验cell的值
+	 * @param value Excel原值
+	 * @param fieldValue
+	 * @return 校验通过返回null,否则返回错误提示信息
+	 */
+	public String validate(Object value, FieldValue fieldValue) {
+		if (value instanceof String) {
+			String str = ((String) value).trim();
+			value = str.isEmpty() ? null : str;
+		}
+		if (value == null) {
+			//空校验
+			return nullable ? null : "不能为空";
+		}
+		for (CellValidator rule : rules) {
+			String errMsg = rule.validate(value, fieldValue);
+			if (errMsg != null) {
+				return errMsg;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * 根据FieldValue的配置编译校验规则,配置错误时抛出ExcelException
+	 * @param fieldValue
+	 * @return FieldValidator
+	 */
+	public static FieldValidator compile(FieldValue fieldValue) {
+		List<CellValidator> rules = new ArrayList<CellValidator>();
+		//正则
+		String regex = fieldValue.getRegex();
+		if (StringUtils.isNotBlank(regex)) {
+			try {
+				rules.add(new RegexRule(Pattern.compile(regex), fieldValue.getRegexErrMsg() == null ? "格式错误" : fieldValue.getRegexErrMsg()));
+			} catch (PatternSyntaxException e) {
+				throw new ExcelException("regex 属性 [ " + regex + " ] 不是合法的正则表达式");
+			}
+		}
+		//数值范围
+		BigDecimal min = parseNumber("min", fieldValue.getMin());
+		BigDecimal max = parseNumber("max", fieldValue.getMax());
+		if (min != null || max != null) {
+			rules.add(new RangeRule(min, max));
+		}
+		//长度
+		Integer minLength = fieldValue.getMinLength();
+		Integer maxLength = fieldValue.getMaxLength();
+		if (minLength != null || maxLength != null) {
+			rules.add(new LengthRule(minLength == null ? -1 : minLength, maxLength == null ? -1 : maxLength));
+		}
+		//可选值
+		String options = fieldValue.getOptions();
+		if (StringUtils.isNotBlank(options)) {
+			Set<String> set = new HashSet<String>();
+			for (String option : StringUtils.split(options, ",")) {
+				set.add(option.trim());
+			}
+			rules.add(new OptionsRule(set, "只能是[" + options + "]中的值"));
+		}
+		//日期范围
+		if (StringUtils.isNotBlank(fieldValue.getMinDate()) || StringUtils.isNotBlank(fieldValue.getMaxDate())) {
+			//与导入转换使用同一个编解码器解析,日期格式的含义一致
+			FieldCodec codec;
+			String pattern = fieldValue.getPattern();
+			if (StringUtils.isNotBlank(pattern)) {
+				codec = fieldValue.getCodec();
+			} else {
+				pattern = DEFAULT_DATE_PATTERN;
+				codec = FieldCodec.compile(new FieldValue(null, null, pattern, null));
+			}
+			String minDate = StringUtils.trimToNull(fieldValue.getMinDate());
+			String maxDate = StringUtils.trimToNull(fieldValue.getMaxDate());
+			rules.add(new DateRangeRule(codec, parseDate("minDate", minDate, codec, pattern), minDate,
+					parseDate("maxDate", maxDate, codec, pattern), maxDate));
+		}
+		//自定义
+		String validatorName = fieldValue.getValidatorName();
+		if (StringUtils.isNotBlank(validatorName)) {
+			rules.add(newValidator(validatorName));
+		}
+		return new FieldValidator(fieldValue.isNull(), rules.isEmpty() ? NO_RULES : rules.toArray(new CellValidator[rules.size()]));
+	}
+	
+	private static CellValidator newValidator(String validatorName) {
+		try {
+			Class<?> clazz = Class.forName(validatorName);
+			if (!CellValidator.class.isAssignableFrom(clazz)) {
+				throw new ExcelException("配置的：" + validatorName + "错误,不是一个标准的[" + CellValidator.class.getName() + "]实现");
+			}
+			return (CellValidator) BeanUtils.instantiateClass(clazz);
+		} catch (ClassNotFoundException e) {
+			throw new ExcelException("无法找到定义的校验器：[" + validatorName + "]" + "请检查配置信息");
+		}
+	}
+	
+	private static BigDecimal parseNumber(String name, String value) {
+		if (StringUtils.isBlank(value)) {
+			return null;
+		}
+		try {
+			return new BigDecimal(value.trim());
+		} catch (NumberFormatException e) {
+			throw new ExcelException(name + " 属性 [ " + value + " ] 不是一个合法的数值");
+		}
+	}
+	
+	private static Date parseDate(String name, String value, FieldCodec codec, String pattern) {
+		if (value == null) {
+			return null;
+		}
+		Date date = codec.parseDate(value);
+		if (date == null) {
+			throw new ExcelException(name + " 属性 [ " + value + " ] 不能转换成日期,正确的格式应该是:[" + pattern + "]");
+		}
+		return date;
+	}
+	
+	/**
+	 * 正则校验,只校验字符串;每次校验创建新的Matcher,不持有校验过的字符串
+	 */
+	private static final class RegexRule implements CellValidator {
+		
+		private final Pattern pattern;
+		private final String errMsg;
+		
+		RegexRule(Pattern pattern, String errMsg) {
+			this.pattern = pattern;
+			this.errMsg = errMsg;
+		}
+		
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			if (value instanceof String && !pattern.matcher((String) value).matches()) {
+				return errMsg;
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * 数值范围校验,数值和字符串有效
+	 */
+	private static final class RangeRule implements CellValidator {
+		
+		private final boolean hasMin;
+		private final double min;
+		private final String minMsg;
+		private final boolean hasMax;
+		private final double max;
+		private final String maxMsg;
+		
+		RangeRule(BigDecimal min, BigDecimal max) {
+			this.hasMin = min != null;
+			this.min = hasMin ? min.doubleValue() : 0;
+			this.minMsg = hasMin ? "不能小于" + min.toPlainString() : null;
+			this.hasMax = max != null;
+			this.max = hasMax ? max.doubleValue() : 0;
+			this.maxMsg = hasMax ? "不能大于" + max.toPlainString() : null;
+		}
+		
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			double d;
+			if (value instanceof Number) {
+				d = ((Number) value).doubleValue();
+			} else if (value instanceof String) {
+				try {
+					d = Double.parseDouble((String) value);
+				} catch (NumberFormatException e) {
+					return "不是有效的数字";
+				}
+			} else {
+				return null;
+			}
+			if (hasMin && d < min) {
+				return minMsg;
+			}
+			if (hasMax && d > max) {
+				return maxMsg;
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * 长度校验,只校验字符串
+	 */
+	private static final class LengthRule implements CellValidator {
+		
+		private final int minLength;
+		private final String minMsg;
+		private final int maxLength;
+		private final String maxMsg;
+		
+		LengthRule(int minLength, int maxLength) {
+			this.minLength = minLength;
+			this.minMsg = "长度不能小于" + minLength;
+			this.maxLength = maxLength;
+			this.maxMsg = "长度不能大于" + maxLength;
+		}
+		
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			if (value instanceof String) {
+				int length = ((String) value).length();
+				if (minLength >= 0 && length < minLength) {
+					return minMsg;
+				}
+				if (maxLength >= 0 && length > maxLength) {
+					return maxMsg;
+				}
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * 可选值校验,数值类型的整数按照整数匹配,如1.0匹配1
+	 */
+	private static final class OptionsRule implements CellValidator {
+		
+		private final Set<String> options;
+		private final String errMsg;
+		
+		OptionsRule(Set<String> options, String errMsg) {
+			this.options = options;
+			this.errMsg = errMsg;
+		}
+		
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			String str;
+			if (value instanceof String) {
+				str = (String) value;
+			} else if (value instanceof Double || value instanceof Float) {
+				double d = ((Number) value).doubleValue();
+				str = d == Math.rint(d) && !Double.isInfinite(d) ? Long.toString((long) d) : Double.toString(d);
+			} else {
+				str = value.toString();
+			}
+			return options.contains(str) ? null : errMsg;
+		}
+	}
+	
+	/**
+	 * 日期范围校验,日期和字符串有效,字符串使用字段的编解码器解析,不能转换成日期的字符串不校验,由转换器处理
+	 */
+	private static final class DateRangeRule implements CellValidator {
+		
+		private final FieldCodec codec;
+		private final long min;
+		private final String minMsg;
+		private final long max;
+		private final String maxMsg;
+		
+		DateRangeRule(FieldCodec codec, Date min, String minDate, Date max, String maxDate) {
+			this.codec = codec;
+			this.min = min == null ? Long.MIN_VALUE : min.getTime();
+			this.minMsg = min == null ? null : "不能早于" + minDate;
+			this.max = max == null ? Long.MAX_VALUE : max.getTime();
+			this.maxMsg = max == null ? null : "不能晚于" + maxDate;
+		}
+		
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			Date date;
+			if (value instanceof Date) {
+				date = (Date) value;
+			} else if (value instanceof String) {
+				date = codec.parseDate((String) value);
+				if (date == null) {
+					return null;
+				}
+			} else {
+				return null;
+			}
+			long time = date.getTime();
+			if (time < min) {
+				return minMsg;
+			}
+			if (time > max) {
+				return maxMsg;
+			}
+			return null;
+		}
+	}
+	
+}
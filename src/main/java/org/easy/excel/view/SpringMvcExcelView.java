@@ -8,6 +8,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.result.ExcelShardExport;
 import org.easy.excel.util.ExcelDownLoadUtil;
 import org.springframework.web.servlet.view.AbstractView;
 
@@ -29,6 +30,10 @@ import org.springframework.web.servlet.view.AbstractView;
  * 		return view;
  * }
  * 
+ * 数据量较大时,可以分成多个Excel文件打包成zip下载,使用Excel.shards代替Excel.workbook:
+ * 		ExcelShardExport shards = excelContext.createExcelShards(id, beans, 100000);
+ * 		view.addObject(SpringMvcExcelView.EXCEL_SHARDS,shards);
+ * 
  */
 public class SpringMvcExcelView extends AbstractView {
 
@@ -41,6 +46,9 @@ public class SpringMvcExcelView extends AbstractView {
 	/** 当没有数据时提示的消息 */
 	public static final String EXCEL_EMPTY_MESSAGE = "Excel.emptyMessage";
 	
+	/** ExcelShardExport,分成多个Excel文件打包成zip下载 */
+	public static final String EXCEL_SHARDS = "Excel.shards";
+	
 	@Override
 	protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request,
 			HttpServletResponse response) throws Exception {
@@ -50,6 +58,11 @@ public class SpringMvcExcelView extends AbstractView {
 		if(StringUtils.isBlank(emptyMessage)){
 			emptyMessage="没有可以导出的数据";
 		}
+		if(model.containsKey(EXCEL_SHARDS)){
+			ExcelShardExport shards = (ExcelShardExport) model.get(EXCEL_SHARDS);
+			ExcelDownLoadUtil.downLoadExcelShards(shards, excelName, emptyMessage, request, response);
+			return;
+		}
 		ExcelDownLoadUtil.downLoadExcel(workbook, excelName,emptyMessage, request, response);
 	}
 
@@ -21,10 +21,15 @@ import org.apache.commons.lang3.Validate;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.easy.excel.ExcelDefinitionReader;
+import org.easy.excel.config.AggregateType;
 import org.easy.excel.config.ExcelDefinition;
 import org.easy.excel.config.FieldValue;
+import org.easy.excel.config.FormulaMode;
+import org.easy.excel.config.ImportEngine;
 import org.easy.excel.exception.ExcelException;
 import org.easy.excel.parsing.CellValueConverter;
+import org.easy.excel.parsing.FieldCodec;
+import org.easy.excel.validation.FieldValidator;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.Assert;
@@ -181,7 +186,86 @@ public class XMLExcelDefinitionReader implements ExcelDefinitionReader{
 				+ " ] 的 sheetIndex 属性不能为 [ "+ele.getAttribute("sheetIndex")+" ],只能为int类型");
 			}
 		}
+		//导入引擎
+		String importEngine = ele.getAttribute("importEngine");
+		if(StringUtils.isNotBlank(importEngine)){
+			try{
+				excelDefinition.setImportEngine(ImportEngine.valueOf(importEngine.toUpperCase()));
+			}catch(Exception e){
+				throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+				+ " ] 的 importEngine 属性不能为 [ "+importEngine+" ],目前支持的["+Arrays.asList(ImportEngine.values())+"]");
+			}
+		}
+		//公式处理方式
+		String formulaMode = ele.getAttribute("formulaMode");
+		if(StringUtils.isNotBlank(formulaMode)){
+			try{
+				excelDefinition.setFormulaMode(FormulaMode.valueOf(formulaMode.toUpperCase()));
+			}catch(Exception e){
+				throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+				+ " ] 的 formulaMode 属性不能为 [ "+formulaMode+" ],目前支持的["+Arrays.asList(FormulaMode.values())+"]");
+			}
+		}
+		//导出时SXSSF的内存,临时文件和压缩配置
+		excelDefinition.setRowAccessWindowSize(parseInteger(ele, "rowAccessWindowSize", excelDefinition));
+		excelDefinition.setFlushRows(parseInteger(ele, "flushRows", excelDefinition));
+		String compressTempFiles = ele.getAttribute("compressTempFiles");
+		if(StringUtils.isNotBlank(compressTempFiles)){
+			excelDefinition.setCompressTempFiles(Boolean.parseBoolean(compressTempFiles));
+		}
+		String tempFileDir = ele.getAttribute("tempFileDir");
+		if(StringUtils.isNotBlank(tempFileDir)){
+			excelDefinition.setTempFileDir(tempFileDir);
+		}
+		Integer compressionLevel = parseInteger(ele, "compressionLevel", excelDefinition);
+		if(compressionLevel != null && (compressionLevel < -1 || compressionLevel > 9)){
+			throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+			+ " ] 的 compressionLevel 属性不能为 [ "+compressionLevel+" ],只能为0-9或-1");
+		}
+		excelDefinition.setCompressionLevel(compressionLevel);
+		excelDefinition.setDeflateParallelism(parseInteger(ele, "deflateParallelism", excelDefinition));
+		//sheet页的最大行数,超过后自动创建新的sheet页
+		Integer sheetMaxRows = parseInteger(ele, "sheetMaxRows", excelDefinition);
+		if(sheetMaxRows != null && sheetMaxRows < 2){
+			throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+			+ " ] 的 sheetMaxRows 属性不能为 [ "+sheetMaxRows+" ],至少需要容纳标题行和一行数据");
+		}
+		excelDefinition.setSheetMaxRows(sheetMaxRows);
+		//导出原始的日期,数字
+		String typedCells = ele.getAttribute("typedCells");
+		if(StringUtils.isNotBlank(typedCells)){
+			excelDefinition.setTypedCells(Boolean.parseBoolean(typedCells));
+		}
+		//自动列宽
+		String autoWidth = ele.getAttribute("autoWidth");
+		if(StringUtils.isNotBlank(autoWidth)){
+			excelDefinition.setAutoWidth(Boolean.parseBoolean(autoWidth));
+		}
+		Integer minColumnWidth = parseInteger(ele, "minColumnWidth", excelDefinition);
+		Integer maxColumnWidth = parseInteger(ele, "maxColumnWidth", excelDefinition);
+		if(minColumnWidth != null && maxColumnWidth != null && minColumnWidth > maxColumnWidth){
+			throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+			+ " ] 的 minColumnWidth [ "+minColumnWidth+" ] 不能大于 maxColumnWidth [ "+maxColumnWidth+" ]");
+		}
+		excelDefinition.setMinColumnWidth(minColumnWidth);
+		excelDefinition.setMaxColumnWidth(maxColumnWidth);
 		processField(ele, excelDefinition);
+		//合计行的分组字段
+		String groupBy = ele.getAttribute("groupBy");
+		if(StringUtils.isNotBlank(groupBy)){
+			boolean exists = false;
+			for(FieldValue fieldValue:excelDefinition.getFieldValues()){
+				if(fieldValue.getName().equals(groupBy)){
+					exists = true;
+					break;
+				}
+			}
+			if(!exists){
+				throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+				+ " ] 的 groupBy 属性 [ "+groupBy+" ] 不是配置的字段");
+			}
+			excelDefinition.setGroupBy(groupBy);
+		}
 		registry.put(id, excelDefinition);
 	}
 	
@@ -223,6 +307,38 @@ public class XMLExcelDefinitionReader implements ExcelDefinitionReader{
 						fieldValue.setRegexErrMsg(regexErrMsg);
 					}
 					
+					//数值范围
+					String min = fieldEle.getAttribute("min");
+					if(StringUtils.isNotBlank(min)){
+						fieldValue.setMin(min);
+					}
+					String max = fieldEle.getAttribute("max");
+					if(StringUtils.isNotBlank(max)){
+						fieldValue.setMax(max);
+					}
+					//长度
+					fieldValue.setMinLength(parseInteger(fieldEle, "minLength", excelDefinition));
+					fieldValue.setMaxLength(parseInteger(fieldEle, "maxLength", excelDefinition));
+					//可选值
+					String options = fieldEle.getAttribute("options");
+					if(StringUtils.isNotBlank(options)){
+						fieldValue.setOptions(options);
+					}
+					//日期范围
+					String minDate = fieldEle.getAttribute("minDate");
+					if(StringUtils.isNotBlank(minDate)){
+						fieldValue.setMinDate(minDate);
+					}
+					String maxDate = fieldEle.getAttribute("maxDate");
+					if(StringUtils.isNotBlank(maxDate)){
+						fieldValue.setMaxDate(maxDate);
+					}
+					//自定义校验器
+					String validator = fieldEle.getAttribute("validator");
+					if(StringUtils.isNotBlank(validator)){
+						fieldValue.setValidatorName(validator);
+					}
+					
 					//标题设置
 					String title = fieldEle.getAttribute("title");
 					try{
@@ -347,12 +463,52 @@ public class XMLExcelDefinitionReader implements ExcelDefinitionReader{
 					//处理forceText
 					fieldValue.setForceText(Boolean.parseBoolean(fieldEle.getAttribute("forceText")));
 					
+					//汇总方式
+					String aggregate = fieldEle.getAttribute("aggregate");
+					if(StringUtils.isNotBlank(aggregate)){
+						try{
+							fieldValue.setAggregate(AggregateType.valueOf(aggregate.toUpperCase()));
+						}catch(Exception e){
+							throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+							+ " ] 的 aggregate 属性不能为 [ "+aggregate+" ],目前支持的["+Arrays.asList(AggregateType.values())+"]");
+						}
+					}
+					
+					//编译编解码器
+					try{
+						fieldValue.setCodec(FieldCodec.compile(fieldValue));
+					}catch(ExcelException e){
+						throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+						+ " ] 的 [ "+name+" ] 字段配置错误:"+e.getMessage());
+					}
+					//编译校验规则,日期范围使用编解码器解析
+					try{
+						fieldValue.setValidator(FieldValidator.compile(fieldValue));
+					}catch(ExcelException e){
+						throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+						+ " ] 的 [ "+name+" ] 字段校验配置错误:"+e.getMessage());
+					}
+					
 					excelDefinition.getFieldValues().add(fieldValue);
 				}
 			}
 		}
 	}
 	
+	//解析int类型的属性,没有配置返回null
+	private Integer parseInteger(Element fieldEle,String attrName,ExcelDefinition excelDefinition){
+		String value = fieldEle.getAttribute(attrName);
+		if(StringUtils.isBlank(value)){
+			return null;
+		}
+		try{
+			return Integer.parseInt(value.trim());
+		}catch(NumberFormatException e){
+			throw new ExcelException("Excel 配置文件[" + locations + "] , id为 [ " + excelDefinition.getId()
+			+ " ] 的 "+attrName+" 属性 [ "+value+" ] 不是一个合法的数值");
+		}
+	}
+	
 	/**
 	 * 处理正则表达式写法的问题：把下列两种写法转义成统一的去除多余的\\符号，导致正则匹配错误
 	 * ^[1-9]\d*$ 标准的正则表达式，没有java的转义
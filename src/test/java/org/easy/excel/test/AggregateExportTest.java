@@ -0,0 +1,268 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.reopen;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ColumnAggregator;
+import org.easy.excel.result.ExcelExportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.easy.excel.xml.XMLExcelDefinitionReader;
+import org.junit.Test;
+
+/**
+ * 合计行,导出时累加,build时在数据的下方生成
+ * @author lisuo
+ *
+ */
+public class AggregateExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id,按照status分组,sheetMaxRows为101
+	private static String excelId = "studentAggregate";
+	
+	@Test
+	public void testGroupBy()throws Exception{
+		Workbook workbook = reopen(context.createExcel(excelId, sortByStatus(createStudents(0, 30))));
+		Sheet sheet = workbook.getSheetAt(0);
+		//标题 + 30行数据 + 2行小计 + 1行合计
+		assertEquals(33, sheet.getLastRowNum());
+		DataFormatter formatter = new DataFormatter();
+		//小计行在每个分组的数据下方:15个禁用,15个正常
+		assertEquals("禁用", sheet.getRow(15).getCell(1).getStringCellValue());
+		Row row = sheet.getRow(16);
+		assertEquals("禁用 小计", row.getCell(0).getStringCellValue());
+		assertNull(row.getCell(1));
+		assertEquals(avgAge(0, 30, 0), row.getCell(2).getNumericCellValue(), 0.0001);
+		assertEquals(sumPrice(0, 30, 0), row.getCell(3).getNumericCellValue(), 0.0001);
+		assertEquals(countStudentNo(0, 30, 0), row.getCell(4).getNumericCellValue(), 0);
+		assertEquals("张三1", sheet.getRow(17).getCell(0).getStringCellValue());
+		row = sheet.getRow(32);
+		assertEquals("正常 小计", row.getCell(0).getStringCellValue());
+		assertEquals(avgAge(0, 30, 1), row.getCell(2).getNumericCellValue(), 0.0001);
+		assertEquals(sumPrice(0, 30, 1), row.getCell(3).getNumericCellValue(), 0.0001);
+		row = sheet.getRow(33);
+		assertEquals("合计", row.getCell(0).getStringCellValue());
+		assertEquals(avgAge(0, 30, -1), row.getCell(2).getNumericCellValue(), 0.0001);
+		assertEquals(sumPrice(0, 30, -1), row.getCell(3).getNumericCellValue(), 0.0001);
+		assertEquals(countStudentNo(0, 30, -1), row.getCell(4).getNumericCellValue(), 0);
+		//求和使用字段等价的Excel数据格式,计数使用数据的样式
+		assertEquals("#,##0.00", row.getCell(3).getCellStyle().getDataFormatString());
+		assertEquals("General", row.getCell(4).getCellStyle().getDataFormatString());
+		assertEquals("24", formatter.formatCellValue(row.getCell(4)));
+		workbook.close();
+	}
+	
+	@Test
+	public void testGroupByUnsorted()throws Exception{
+		//没有排序时每段连续相同的值生成一个小计行
+		Workbook workbook = reopen(context.createExcel(excelId, createStudents(0, 4)));
+		Sheet sheet = workbook.getSheetAt(0);
+		assertEquals(9, sheet.getLastRowNum());
+		String[] expected = {"张三0", "禁用 小计", "张三1", "正常 小计", "张三2", "禁用 小计", "张三3", "正常 小计", "合计"};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], sheet.getRow(i+1).getCell(0).getStringCellValue());
+		}
+		assertEquals(sumPrice(2, 1, 0), sheet.getRow(6).getCell(3).getNumericCellValue(), 0.0001);
+		workbook.close();
+	}
+	
+	@Test
+	public void testGroupBySheetFull()throws Exception{
+		//99个禁用的数据之后小计行正好写满第一个sheet页,下一个分组的数据写入新的sheet页
+		List<StudentModel> students = createStudents(0, 110);
+		for (int i = 0; i < students.size(); i++) {
+			students.get(i).setStatus(i < 99 ? 0 : 1);
+		}
+		Workbook workbook = reopen(context.createExcel(excelId, students));
+		assertEquals(2, workbook.getNumberOfSheets());
+		Sheet sheet = workbook.getSheetAt(0);
+		assertEquals(100, sheet.getLastRowNum());
+		assertEquals("禁用 小计", sheet.getRow(100).getCell(0).getStringCellValue());
+		sheet = workbook.getSheetAt(1);
+		assertEquals("张三99", sheet.getRow(1).getCell(0).getStringCellValue());
+		assertEquals(13, sheet.getLastRowNum());
+		assertEquals("正常 小计", sheet.getRow(12).getCell(0).getStringCellValue());
+		assertEquals(sumPrice(99, 11, -1), sheet.getRow(12).getCell(3).getNumericCellValue(), 0.0001);
+		assertEquals("合计", sheet.getRow(13).getCell(0).getStringCellValue());
+		assertEquals(sumPrice(0, 110, -1), sheet.getRow(13).getCell(3).getNumericCellValue(), 0.0001);
+		workbook.close();
+	}
+	
+	@Test
+	public void testAppend()throws Exception{
+		//分批追加,每个sheet页最多100行数据,合计行包含全部数据;前100个禁用,后100个正常
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, groupByHundred(createStudents(0, 120)));
+		exportResult.append(groupByHundred(createStudents(120, 80)).iterator());
+		Workbook workbook = reopen(exportResult.build());
+		//第二个sheet页以禁用的小计行开始,正好写满,最后一个学生,正常的小计行和合计行写入新的sheet页
+		assertEquals(3, workbook.getNumberOfSheets());
+		Sheet sheet = workbook.getSheetAt(2);
+		assertEquals("学生姓名", sheet.getRow(0).getCell(0).getStringCellValue());
+		assertEquals("禁用 小计", workbook.getSheetAt(1).getRow(1).getCell(0).getStringCellValue());
+		assertEquals("张三199", sheet.getRow(1).getCell(0).getStringCellValue());
+		assertEquals("正常 小计", sheet.getRow(2).getCell(0).getStringCellValue());
+		assertEquals(3, sheet.getLastRowNum());
+		Row row = sheet.getRow(3);
+		assertEquals("合计", row.getCell(0).getStringCellValue());
+		assertEquals(avgAge(0, 200, -1), row.getCell(2).getNumericCellValue(), 0.0001);
+		assertEquals(sumPrice(0, 200, -1), row.getCell(3).getNumericCellValue(), 0.0001);
+		assertEquals(countStudentNo(0, 200, -1), row.getCell(4).getNumericCellValue(), 0);
+		workbook.close();
+	}
+	
+	@Test
+	public void testMinMax()throws Exception{
+		List<StudentModel> students = createStudents(0, 30);
+		for (StudentModel student : students) {
+			student.setBook(null);
+		}
+		Workbook workbook = reopen(context.createExcel("studentAggregateMinMax", students.iterator(), null, null));
+		Sheet sheet = workbook.getSheetAt(0);
+		assertEquals(31, sheet.getLastRowNum());
+		Row row = sheet.getRow(31);
+		assertEquals("合计", row.getCell(0).getStringCellValue());
+		assertEquals(20, row.getCell(1).getNumericCellValue(), 0);
+		//没有数字可以汇总
+		assertNull(row.getCell(2));
+		assertEquals(15, row.getCell(3).getNumericCellValue(), 0);
+		workbook.close();
+	}
+	
+	@Test
+	public void testExactSum()throws Exception{
+		//double累加10次0.1的结果是0.9999999999999999
+		List<StudentModel> students = createStudents(0, 10);
+		for (StudentModel student : students) {
+			student.getBook().setPrice(0.1);
+			student.setStatus(1);
+		}
+		Workbook workbook = reopen(context.createExcel(excelId, students));
+		Row row = workbook.getSheetAt(0).getRow(12);
+		assertEquals("合计", row.getCell(0).getStringCellValue());
+		assertEquals(1.0, row.getCell(3).getNumericCellValue(), 0);
+		workbook.close();
+		
+		//超过2^53的整数使用long累加,溢出后改为BigDecimal
+		ColumnAggregator aggregator = ColumnAggregator.create(new XMLExcelDefinitionReader("excel-config.xml").getRegistry().get(excelId));
+		long big = 1L << 53;
+		aggregator.beginRow(1);
+		aggregator.add(3, big);
+		aggregator.beginRow(1);
+		aggregator.add(3, 1L);
+		aggregator.beginRow(1);
+		aggregator.add(3, 1);
+		assertEquals(Long.valueOf(big + 2), aggregator.getValue(aggregator.getTotal(), 3));
+		aggregator.beginRow(1);
+		aggregator.add(3, Long.MAX_VALUE);
+		assertEquals(BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.valueOf(big + 2)), aggregator.getValue(aggregator.getTotal(), 3));
+	}
+	
+	@Test(expected = ExcelException.class)
+	public void testAppendAfterBuild()throws Exception{
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, createStudents(0, 10));
+		Workbook workbook = exportResult.build();
+		try {
+			//合计行已经创建
+			exportResult.append(createStudents(10, 10));
+		} finally {
+			workbook.close();
+		}
+	}
+	
+	@Test
+	public void testAppendAfterBuildWithoutFooter()throws Exception{
+		//没有配置aggregate时不创建合计行,build之后可以继续追加
+		ExcelExportResult exportResult = context.createExcelForPart("student2", ExportTestSupport.createStudents(0, 10));
+		exportResult.build();
+		exportResult.append(ExportTestSupport.createStudents(10, 10));
+		Workbook workbook = reopen(exportResult.build());
+		Sheet sheet = workbook.getSheetAt(0);
+		assertEquals(20, sheet.getLastRowNum());
+		assertEquals("张三19", sheet.getRow(20).getCell(1).getStringCellValue());
+		workbook.close();
+	}
+	
+	@Test
+	public void testTemplate()throws Exception{
+		//没有数据时不创建合计行
+		Workbook workbook = context.createExcelTemplate(excelId, null, null);
+		assertEquals(0, workbook.getSheetAt(0).getLastRowNum());
+		workbook.close();
+	}
+	
+	private double avgAge(int start,int count,int status){
+		double sum = 0;
+		int n = 0;
+		for(int i=start;i<start+count;i++){
+			if(status < 0 || i%2 == status){
+				sum += 20+i%50;
+				n++;
+			}
+		}
+		return sum / n;
+	}
+	
+	private double sumPrice(int start,int count,int status){
+		double sum = 0;
+		for(int i=start;i<start+count;i++){
+			if(status < 0 || i%2 == status){
+				sum += i*1.5;
+			}
+		}
+		return sum;
+	}
+	
+	private int countStudentNo(int start,int count,int status){
+		int n = 0;
+		for(int i=start;i<start+count;i++){
+			if((status < 0 || i%2 == status) && i%5 != 0){
+				n++;
+			}
+		}
+		return n;
+	}
+	
+	private List<StudentModel> groupByHundred(List<StudentModel> students){
+		for (StudentModel student : students) {
+			student.setStatus(Integer.parseInt(student.getName().substring(2)) < 100 ? 0 : 1);
+		}
+		return students;
+	}
+	
+	private List<StudentModel> sortByStatus(List<StudentModel> students){
+		List<StudentModel> sorted = new ArrayList<StudentModel>(students);
+		Collections.sort(sorted, new Comparator<StudentModel>() {
+			@Override
+			public int compare(StudentModel o1, StudentModel o2) {
+				return o1.getStatus().compareTo(o2.getStatus());
+			}
+		});
+		return sorted;
+	}
+	
+	private List<StudentModel> createStudents(int start,int count){
+		List<StudentModel> students = ExportTestSupport.createStudents(start, count);
+		for(int i=start;i<start+count;i++){
+			//每5个学生有一个没有学号
+			if(i%5 == 0){
+				students.get(i-start).setStudentNo(null);
+			}
+		}
+		return students;
+	}
+	
+}
@@ -0,0 +1,98 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.easy.excel.test.ExportTestSupport.reopen;
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.parsing.ColumnWidthTracker;
+import org.easy.excel.result.ExcelExportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 自动列宽,导出时记录每一列的最大宽度,build时设置
+ * @author lisuo
+ *
+ */
+public class AutoWidthTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id,最小8个字符,最大30个字符,sheetMaxRows为101
+	private static String excelId = "studentAutoWidth";
+	
+	@Test
+	public void testDisplayWidth(){
+		assertEquals(0, ColumnWidthTracker.displayWidth(""));
+		assertEquals(3, ColumnWidthTracker.displayWidth("abc"));
+		assertEquals(6, ColumnWidthTracker.displayWidth("张三49"));
+		assertEquals(4, ColumnWidthTracker.displayWidth("한국"));
+		assertEquals(6, ColumnWidthTracker.displayWidth("にほん"));
+		//全角字符和扩展区汉字
+		assertEquals(4, ColumnWidthTracker.displayWidth("ＡＢ"));
+		assertEquals(2, ColumnWidthTracker.displayWidth("𠀀"));
+		//多行文本按照最长的一行计算
+		assertEquals(4, ColumnWidthTracker.displayWidth("ab\n中文\nc"));
+	}
+	
+	@Test
+	public void testAutoWidth()throws Exception{
+		List<StudentModel> students = createStudents(0, 250);
+		students.get(10).setCreateUser(StringUtils.repeat("创建人", 20));
+		Workbook workbook = reopen(context.createExcel(excelId, students));
+		//超过sheetMaxRows创建的sheet页使用相同的列宽
+		assertEquals(3, workbook.getNumberOfSheets());
+		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+			Sheet sheet = workbook.getSheetAt(i);
+			//标题"学生姓名"最宽,8个字符加上留白
+			assertEquals(10 * 256, sheet.getColumnWidth(0));
+			//"年龄"和数字都比最小宽度窄
+			assertEquals(2048, sheet.getColumnWidth(1));
+			//配置了columnWidth
+			assertEquals(4000, sheet.getColumnWidth(2));
+			//超过最大宽度
+			assertEquals(7680, sheet.getColumnWidth(3));
+			//yyyy-MM-dd
+			assertEquals(12 * 256, sheet.getColumnWidth(4));
+		}
+		workbook.close();
+	}
+	
+	@Test
+	public void testAppend()throws Exception{
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, createStudents(0, 10));
+		List<StudentModel> students = createStudents(10, 10);
+		students.get(5).setName("欧阳" + StringUtils.repeat("a", 10));
+		exportResult.append(students.iterator());
+		Workbook workbook = reopen(exportResult.build());
+		assertEquals(16 * 256, workbook.getSheetAt(0).getColumnWidth(0));
+		workbook.close();
+	}
+	
+	@Test
+	public void testOptions()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setAutoWidth(true);
+		Workbook workbook = reopen(context.createExcel("studentRollover", createStudents(0, 20), null, null, null, options));
+		Sheet sheet = workbook.getSheetAt(0);
+		//没有配置最小宽度
+		assertEquals(10 * 256, sheet.getColumnWidth(0));
+		assertEquals(6 * 256, sheet.getColumnWidth(1));
+		assertEquals(8 * 256, sheet.getColumnWidth(2));
+		workbook.close();
+		
+		//关闭autoWidth时使用默认列宽
+		options.setAutoWidth(false);
+		workbook = reopen(context.createExcel(excelId, createStudents(0, 20), null, null, null, options));
+		assertEquals(workbook.getSheetAt(0).getDefaultColumnWidth() * 256, workbook.getSheetAt(0).getColumnWidth(0));
+		workbook.close();
+	}
+	
+}
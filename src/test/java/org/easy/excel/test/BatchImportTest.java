@@ -0,0 +1,101 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportEngine;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.exception.ExcelDataError;
+import org.easy.excel.parsing.ExcelImportIterator;
+import org.easy.excel.parsing.ExcelRowHandler;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * 分批导入,迭代导入测试
+ * @author lisuo
+ *
+ */
+public class BatchImportTest {
+	
+	// 测试时文件磁盘路径
+	private static String path = "test-excel.xlsx";
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student";
+	
+	/**
+	 * 分批导入,每2条数据回调一次
+	 */
+	@Test
+	public void testBatchImport()throws Exception{
+		final List<Integer> batchSizes = new ArrayList<Integer>();
+		try(InputStream ins = new ClassPathResource(path).getInputStream()){
+			ExcelImportResult result = context.readExcel(excelId, 2, ins, 2, new ExcelRowHandler<StudentModel>() {
+				@Override
+				public void handle(List<StudentModel> beans, List<ExcelDataError> errors) {
+					//这里可以批量入库
+					batchSizes.add(beans.size());
+					System.out.println(beans);
+				}
+			});
+			assertEquals(5, result.getTotalNum().intValue());
+			assertEquals(0, result.getListBean().size());
+		}
+		assertEquals("[2, 2, 1]", batchSizes.toString());
+	}
+	
+	/**
+	 * 迭代导入
+	 */
+	@Test
+	public void testIteratorImport()throws Exception{
+		ImportOptions options = new ImportOptions(2, null, false);
+		options.setImportEngine(ImportEngine.EVENT);
+		options.setBatchSize(1);
+		try(InputStream ins = new ClassPathResource(path).getInputStream()){
+			ExcelImportIterator<StudentModel> it = context.readExcelAsIterator(excelId, ins, options);
+			int count = 0;
+			while(it.hasNext()){
+				System.out.println(it.next());
+				count++;
+			}
+			assertEquals(5, count);
+			assertEquals(5, it.getTotalNum().intValue());
+			System.out.println(it.getHeader());
+		}
+	}
+	
+	/**
+	 * Stream导入,只处理前2条数据,关闭Stream终止读取
+	 */
+	@Test
+	public void testStreamImport()throws Exception{
+		ImportOptions options = new ImportOptions(2, null, false);
+		options.setBatchSize(1);
+		try(InputStream ins = new ClassPathResource(path).getInputStream();
+				Stream<StudentModel> stream = context.readExcelAsStream(excelId, ins, options)){
+			List<String> ids = stream.limit(2).map(StudentModel::getId).collect(Collectors.toList());
+			assertEquals("[1, 2]", ids.toString());
+		}
+		//关闭之后迭代器不再返回数据
+		try(InputStream ins = new ClassPathResource(path).getInputStream()){
+			ExcelImportIterator<StudentModel> it = context.readExcelAsIterator(excelId, ins, options);
+			Iterator<StudentModel> iterator = it;
+			iterator.next();
+			it.close();
+			assertEquals(false, iterator.hasNext());
+		}
+	}
+	
+}
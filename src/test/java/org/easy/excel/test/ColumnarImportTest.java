@@ -0,0 +1,74 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.InputStream;
+import java.util.List;
+
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.result.ExcelColumn;
+import org.easy.excel.result.ExcelColumn.ColumnType;
+import org.easy.excel.result.ExcelColumn.IntColumn;
+import org.easy.excel.result.ExcelColumn.LongColumn;
+import org.easy.excel.result.ExcelColumn.StringColumn;
+import org.easy.excel.result.ExcelColumnarResult;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * 列式导入测试,与Bean导入的结果进行对比
+ * @author lisuo
+ *
+ */
+public class ColumnarImportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student2";
+	
+	@Test
+	public void testImport()throws Exception{
+		ImportOptions options = new ImportOptions(2, null, true);
+		ExcelImportResult expected;
+		try(InputStream ins = new ClassPathResource("test-excel-error.xlsx").getInputStream()){
+			expected = context.readExcel(excelId, ins, options);
+		}
+		ExcelColumnarResult result;
+		try(InputStream ins = new ClassPathResource("test-excel-error.xlsx").getInputStream()){
+			result = context.readExcelAsColumns(excelId, ins, options);
+		}
+		List<StudentModel> stus = expected.getListBean();
+		assertEquals(stus.size(), result.getRowCount());
+		assertEquals(expected.getTotalNum(), result.getTotalNum());
+		assertEquals(expected.getErrors().size(), result.getErrors().size());
+		assertEquals(0, result.getListBean().size());
+		
+		StringColumn name = (StringColumn) result.getColumn("name");
+		IntColumn age = (IntColumn) result.getColumn("age");
+		LongColumn createTime = (LongColumn) result.getColumn("createTime");
+		ExcelColumn status = result.getColumn("status");
+		ExcelColumn authorName = result.getColumn("book.author.authorName");
+		assertEquals(ColumnType.DATE, createTime.getType());
+		assertEquals(ColumnType.STRING, status.getType());
+		for (int i = 0; i < stus.size(); i++) {
+			StudentModel stu = stus.get(i);
+			assertEquals(stu.getName(), name.getString(i));
+			assertEquals(stu.getAge().intValue(), age.getInt(i));
+			if (stu.getCreateTime() == null) {
+				assertNull(createTime.getValue(i));
+			} else {
+				assertEquals(stu.getCreateTime().getTime(), createTime.getLong(i));
+			}
+			assertEquals(String.valueOf(stu.getStatus()), String.valueOf(status.getValue(i)));
+			assertEquals(stu.getBook().getAuthor().getAuthorName(), authorName.getValue(i));
+			assertEquals(result.getRowCount(), authorName.size());
+		}
+		System.out.println(name.getDictionary());
+	}
+	
+}
@@ -0,0 +1,139 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.test.model.BookModel;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 直接写出xlsx测试,与createExcel的布局,样式和值保持一致
+ * @author lisuo
+ *
+ */
+public class DirectExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student";
+	
+	private static final int ROWS = 200;
+	
+	@Test
+	public void testSameLayout()throws Exception{
+		List<StudentModel> students = createStudents(0, ROWS);
+		Workbook workbook = context.createExcel(excelId, students);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		XSSFWorkbook expected = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		
+		bos = new ByteArrayOutputStream();
+		assertEquals(ROWS, context.writeExcel(excelId, students, bos));
+		XSSFWorkbook actual = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		
+		XSSFSheet expectedSheet = expected.getSheetAt(0);
+		XSSFSheet actualSheet = actual.getSheetAt(0);
+		assertEquals(expectedSheet.getSheetName(), actualSheet.getSheetName());
+		assertEquals(expectedSheet.getLastRowNum(), actualSheet.getLastRowNum());
+		DataFormatter formatter = new DataFormatter();
+		int columns = expectedSheet.getRow(0).getLastCellNum();
+		for(int c=0;c<columns;c++){
+			assertEquals(expectedSheet.getColumnWidth(c), actualSheet.getColumnWidth(c));
+		}
+		for(int r=0;r<=expectedSheet.getLastRowNum();r++){
+			Row expectedRow = expectedSheet.getRow(r);
+			Row actualRow = actualSheet.getRow(r);
+			for(int c=0;c<columns;c++){
+				XSSFCell e = (XSSFCell) expectedRow.getCell(c);
+				XSSFCell a = (XSSFCell) actualRow.getCell(c);
+				assertEquals(formatter.formatCellValue(e), formatter.formatCellValue(a));
+				XSSFCellStyle es = e.getCellStyle();
+				XSSFCellStyle as = a.getCellStyle();
+				assertEquals(es.getAlignment(), as.getAlignment());
+				assertEquals(es.getDataFormatString(), as.getDataFormatString());
+				assertEquals(es.getFillForegroundColor(), as.getFillForegroundColor());
+				assertEquals(es.getFont().getColor(), as.getFont().getColor());
+			}
+		}
+		//requiredTag标红的*号
+		XSSFRichTextString title = actualSheet.getRow(0).getCell(2).getRichStringCellValue();
+		assertEquals("*年龄", title.getString());
+		assertEquals(2, title.numFormattingRuns());
+		assertEquals(Font.COLOR_RED, title.getFontOfFormattingRun(0).getColor());
+		expected.close();
+		actual.close();
+	}
+	
+	@Test
+	public void testTypedValues()throws Exception{
+		List<StudentModel> students = new ArrayList<StudentModel>();
+		StudentModel stu = new StudentModel();
+		stu.setName(" <张三> & \"李四\"\u0001 ");
+		stu.setAge(-20);
+		Date createTime = new Date(1514736000000L);
+		stu.setCreateTime(createTime);
+		BookModel book = new BookModel();
+		book.setPrice(12.35);
+		stu.setBook(book);
+		students.add(stu);
+		students.add(new StudentModel());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ExportOptions options = new ExportOptions();
+		options.setCompressionLevel(9);
+		assertEquals(2, context.writeExcel("studentTyped", students.iterator(), null, bos, options));
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		XSSFSheet sheet = xssf.getSheetAt(0);
+		assertEquals("Sheet0", sheet.getSheetName());
+		Row row = sheet.getRow(1);
+		assertEquals(" <张三> & \"李四\"? ", row.getCell(0).getStringCellValue());
+		assertEquals(CellType.NUMERIC, row.getCell(1).getCellType());
+		assertEquals(-20, row.getCell(1).getNumericCellValue(), 0);
+		Cell dateCell = row.getCell(2);
+		assertTrue(DateUtil.isCellDateFormatted(dateCell));
+		assertEquals(createTime, dateCell.getDateCellValue());
+		assertEquals(HorizontalAlignment.CENTER, dateCell.getCellStyle().getAlignment());
+		assertEquals(12.35, row.getCell(3).getNumericCellValue(), 0);
+		//null值只保留样式
+		Row empty = sheet.getRow(2);
+		assertEquals(CellType.BLANK, empty.getCell(2).getCellType());
+		assertEquals(null, empty.getCell(0));
+		xssf.close();
+	}
+	
+	@Test
+	public void testEmpty()throws Exception{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		assertEquals(0, context.writeExcel(excelId, Collections.emptyIterator(), bos));
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		assertEquals(0, xssf.getSheetAt(0).getLastRowNum());
+		assertEquals("ID", xssf.getSheetAt(0).getRow(0).getCell(0).getStringCellValue());
+		xssf.close();
+	}
+	
+}
@@ -0,0 +1,151 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.exception.ExcelDataError;
+import org.easy.excel.exception.ExcelDataException;
+import org.easy.excel.parsing.ExcelImportIterator;
+import org.easy.excel.parsing.ExcelRowHandler;
+import org.easy.excel.result.ExcelImportResult;
+import org.junit.Test;
+
+/**
+ * 批量校验错误数量上限测试
+ * @author lisuo
+ *
+ */
+public class ErrorLimitTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentValidate";
+	
+	@Test
+	public void testUnlimited()throws Exception{
+		ImportOptions options = new ImportOptions(0, null, true);
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(createExcel(100)), options);
+		assertEquals(100, result.getErrorCount());
+		assertEquals(100, result.getErrors().size());
+		assertFalse(result.isErrorsTruncated());
+		ExcelDataException e = result.getErrors().get(0);
+		System.out.println(e.getMessage());
+		assertEquals(1, e.getRow());
+		assertEquals(1, e.getColumn());
+		assertEquals(0, e.getStackTrace().length);
+		assertTrue(e.getRefObject() != null);
+		//异常只创建一次
+		assertSame(e, result.getErrors().get(0));
+		assertEquals(e.getMessage(), result.getDataErrors().get(0).getMessage());
+	}
+	
+	@Test
+	public void testIteratorErrors()throws Exception{
+		//后台读取线程同样只保留maxErrors个错误,超出的只计数
+		ImportOptions options = new ImportOptions(0, null, true);
+		options.setMaxErrors(30);
+		options.setBatchSize(1);
+		try(ExcelImportIterator<Object> it = context.readExcelAsIterator(excelId, new ByteArrayInputStream(createExcel(100)), options)){
+			while(it.hasNext()){
+				it.next();
+			}
+			assertEquals(30, it.getDataErrors().size());
+			assertEquals(30, it.getDataErrors().get(29).getRow());
+			assertEquals(100, it.getErrorCount());
+			assertTrue(it.isErrorsTruncated());
+		}
+	}
+	
+	@Test
+	public void testBatchErrors()throws Exception{
+		ImportOptions options = new ImportOptions(0, null, true);
+		options.setMaxErrors(30);
+		options.setBatchSize(10);
+		final List<ExcelDataError> handled = new ArrayList<ExcelDataError>();
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(createExcel(100)), options, new ExcelRowHandler<Object>() {
+			@Override
+			public void handle(List<Object> beans, List<ExcelDataError> errors) {
+				handled.addAll(errors);
+			}
+		});
+		//回调的错误与导入结果中保留的错误一致
+		assertEquals(30, handled.size());
+		assertTrue(result.hasErrors());
+		assertEquals(100, result.getErrorCount());
+		assertEquals(handled, result.getDataErrors());
+		assertEquals(30, result.getErrors().size());
+		assertTrue(result.isErrorsTruncated());
+	}
+	
+	@Test
+	public void testMaxErrors()throws Exception{
+		ImportOptions options = new ImportOptions(0, null, true);
+		options.setMaxErrors(30);
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(createExcel(100)), options);
+		assertEquals(100, result.getErrorCount());
+		assertEquals(30, result.getErrors().size());
+		assertTrue(result.hasErrors());
+		assertTrue(result.isErrorsTruncated());
+		assertEquals(30, result.getErrors().get(29).getRow());
+		assertEquals(100, result.getTotalNum().intValue());
+		assertEquals(0, result.getListBean().size());
+	}
+	
+	@Test
+	public void testMaxErrorsPerColumn()throws Exception{
+		ImportOptions options = new ImportOptions(0, null, true);
+		options.setMaxErrorsPerColumn(20);
+		options.setRetainRefObject(false);
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(createExcel(100)), options);
+		//偶数行姓名错误,奇数行年龄错误,每列最多保留20个
+		assertEquals(100, result.getErrorCount());
+		assertEquals(40, result.getDataErrors().size());
+		int ageErrors = 0;
+		for(ExcelDataError error:result.getDataErrors()){
+			assertNull(error.getRefObject());
+			if("年龄".equals(error.getTitle())){
+				ageErrors++;
+			}
+		}
+		assertEquals(20, ageErrors);
+	}
+	
+	//生成数据,偶数行姓名长度错误,奇数行年龄错误
+	private byte[] createExcel(int rows)throws Exception{
+		Workbook workbook = new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet();
+		Row title = sheet.createRow(0);
+		String[] titles = {"学生姓名", "年龄", "学号", "创建时间", "状态"};
+		for(int j=0;j<titles.length;j++){
+			title.createCell(j).setCellValue(titles[j]);
+		}
+		for(int i=1;i<=rows;i++){
+			Row row = sheet.createRow(i);
+			row.createCell(0).setCellValue(i % 2 == 0 ? "张" : "张三");
+			row.createCell(1).setCellValue(i % 2 == 0 ? 18 : 0);
+			row.createCell(2).setCellValue("NO" + i);
+			row.createCell(3).setCellValue("2018-01-01");
+			row.createCell(4).setCellValue("正常");
+		}
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		return bos.toByteArray();
+	}
+	
+}
@@ -0,0 +1,88 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportEngine;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.result.ExcelImportResult;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * 事件模型导入测试,与usermodel导入的结果进行对比
+ * @author lisuo
+ *
+ */
+public class EventImportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	
+	@Test
+	public void testImport()throws Exception{
+		compare("student", "test-excel.xlsx", 2, false);
+	}
+	
+	@Test
+	public void testImportMultiValidate()throws Exception{
+		compare("student2", "test-excel-error.xlsx", 2, true);
+	}
+	
+	@Test
+	public void testImportOneToMany()throws Exception{
+		compare("oneToManyModel", "OneToManyTest-excel.xlsx", 0, false);
+	}
+	
+	/**
+	 * xls导入,使用HSSFWorkbook导出的数据进行测试
+	 */
+	@Test
+	public void testImportXls()throws Exception{
+		Workbook workbook = context.createExcel("student2", ExportTest.getStudents(), null, null, new HSSFWorkbook());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		byte[] xls = bos.toByteArray();
+		ExcelImportResult expected = context.readExcel("student2", new ByteArrayInputStream(xls), new ImportOptions(0, null, true));
+		ImportOptions options = new ImportOptions(0, null, true);
+		options.setImportEngine(ImportEngine.EVENT);
+		ExcelImportResult actual = context.readExcel("student2", new ByteArrayInputStream(xls), options);
+		compare(expected, actual);
+	}
+	
+	private void compare(String excelId,String path,int titleIndex,boolean multivalidate)throws Exception{
+		ExcelImportResult expected = read(excelId, path, new ImportOptions(titleIndex, null, multivalidate));
+		ImportOptions options = new ImportOptions(titleIndex, null, multivalidate);
+		options.setImportEngine(ImportEngine.EVENT);
+		ExcelImportResult actual = read(excelId, path, options);
+		compare(expected, actual);
+	}
+	
+	private void compare(ExcelImportResult expected,ExcelImportResult actual){
+		assertEquals(String.valueOf(expected.getHeader()), String.valueOf(actual.getHeader()));
+		assertEquals(expected.getTotalNum(), actual.getTotalNum());
+		assertEquals(expected.getErrors().size(), actual.getErrors().size());
+		List<Object> expectedBeans = expected.getListBean();
+		List<Object> actualBeans = actual.getListBean();
+		assertEquals(expectedBeans.size(), actualBeans.size());
+		for (int i = 0; i < expectedBeans.size(); i++) {
+			assertEquals(expectedBeans.get(i).toString(), actualBeans.get(i).toString());
+		}
+		System.out.println(actualBeans);
+	}
+	
+	private ExcelImportResult read(String excelId,String path,ImportOptions options)throws Exception{
+		try(InputStream ins = new ClassPathResource(path).getInputStream()){
+			return context.readExcel(excelId, ins, options);
+		}
+	}
+	
+}
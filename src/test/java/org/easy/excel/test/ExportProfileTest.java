@@ -0,0 +1,137 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.easy.excel.test.ExportTestSupport.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.parsing.ExcelPageFetcher;
+import org.easy.excel.parsing.ExcelStreamingWorkbook;
+import org.easy.excel.test.model.StudentModel;
+import org.easy.excel.xml.XMLExcelDefinitionReader;
+import org.junit.Test;
+
+/**
+ * SXSSF导出参数测试,rowAccessWindowSize,flushRows,compressTempFiles,tempFileDir,compressionLevel
+ * @author lisuo
+ *
+ */
+public class ExportProfileTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	private static XMLExcelDefinitionReader reader = new XMLExcelDefinitionReader("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentProfile";
+	
+	private static final int ROWS = 5000;
+	
+	private static final String TEMP_DIR = "target/easy-excel-tmp";
+	
+	@Test
+	public void testDefinition(){
+		ExcelDefinition definition = reader.getRegistry().get(excelId);
+		assertEquals(Integer.valueOf(50), definition.getRowAccessWindowSize());
+		assertEquals(Integer.valueOf(200), definition.getFlushRows());
+		assertEquals(Boolean.TRUE, definition.getCompressTempFiles());
+		assertEquals(TEMP_DIR, definition.getTempFileDir());
+		assertEquals(Integer.valueOf(1), definition.getCompressionLevel());
+		assertEquals(Integer.valueOf(2), definition.getDeflateParallelism());
+	}
+	
+	@Test
+	public void testExport()throws Exception{
+		Workbook workbook = context.createExcel(excelId, createStudents(0, ROWS));
+		assertTrue(workbook instanceof ExcelStreamingWorkbook);
+		ExcelStreamingWorkbook streaming = (ExcelStreamingWorkbook) workbook;
+		assertTrue(streaming.isCompressTempFiles());
+		assertEquals(1, streaming.getCompressionLevel());
+		assertEquals(2, streaming.getDeflateParallelism());
+		File tempDir = new File(TEMP_DIR);
+		assertEquals(tempDir, streaming.getTempFileDir());
+		//临时文件写在指定的目录,gzip压缩
+		File[] tempFiles = tempDir.listFiles();
+		assertTrue(tempFiles.length > 0);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		//close之后临时文件被删除
+		for(File f : tempFiles){
+			assertTrue(!f.exists());
+		}
+		assertRows(bos.toByteArray());
+	}
+	
+	@Test
+	public void testOptions()throws Exception{
+		List<StudentModel> students = createStudents(0, ROWS);
+		//导出选项覆盖配置中的压缩级别
+		ExportOptions store = new ExportOptions();
+		store.setCompressionLevel(0);
+		store.setCompressTempFiles(false);
+		byte[] storeBytes = write(context.createExcel(excelId, students, null, null, null, store));
+		ExportOptions best = new ExportOptions();
+		best.setCompressionLevel(9);
+		best.setFlushRows(1000);
+		best.setRowAccessWindowSize(10);
+		byte[] bestBytes = write(context.createExcel(excelId, students.iterator(), null, null, best));
+		System.out.println("level 0: " + storeBytes.length + " bytes, level 9: " + bestBytes.length + " bytes");
+		assertTrue(storeBytes.length > bestBytes.length);
+		assertRows(storeBytes);
+		assertRows(bestBytes);
+		//配置中的定义没有被修改
+		Workbook workbook = context.createExcel(excelId, students);
+		assertEquals(1, ((ExcelStreamingWorkbook) workbook).getCompressionLevel());
+		workbook.close();
+	}
+	
+	@Test
+	public void testErrorDeletesTempFiles()throws Exception{
+		final File tempDir = new File(TEMP_DIR + "-error-" + System.nanoTime());
+		ExportOptions options = new ExportOptions();
+		options.setTempFileDir(tempDir.getPath());
+		final List<StudentModel> students = createStudents(0, ROWS);
+		try{
+			//写入2页之后获取数据失败,此时已经有临时文件
+			context.createExcel(excelId, new ExcelPageFetcher<StudentModel>() {
+				@Override
+				public List<StudentModel> fetch(int pageNo) {
+					if(pageNo == 3){
+						assertTrue(tempDir.listFiles().length > 0);
+						throw new IllegalStateException("查询失败");
+					}
+					return students.subList((pageNo - 1) * 1000, pageNo * 1000);
+				}
+			}, null, null, options);
+			fail();
+		}catch(IllegalStateException e){
+			assertEquals("查询失败", e.getMessage());
+		}
+		//导出过程中创建的Workbook已经关闭,临时文件被删除
+		assertEquals(0, tempDir.listFiles().length);
+		tempDir.delete();
+	}
+	
+	private void assertRows(byte[] bytes)throws Exception{
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bytes));
+		XSSFSheet sheet = xssf.getSheetAt(0);
+		assertEquals(ROWS, sheet.getLastRowNum());
+		assertEquals("学生姓名", sheet.getRow(0).getCell(0).getStringCellValue());
+		assertEquals("张三" + (ROWS - 1), sheet.getRow(ROWS).getCell(0).getStringCellValue());
+		assertEquals("Stu_" + (ROWS - 1), sheet.getRow(ROWS).getCell(2).getStringCellValue());
+		xssf.close();
+	}
+	
+}
@@ -0,0 +1,101 @@
+package org.easy.excel.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.AuthorModel;
+import org.easy.excel.test.model.BookModel;
+import org.easy.excel.test.model.StudentModel;
+
+/**
+ * 导出测试共用的模拟数据和读取导出结果的方法
+ * @author lisuo
+ *
+ */
+public final class ExportTestSupport {
+	
+	/** 第一个学生的创建时间,2018-01-01 00:00:00(东八区),之后每个学生晚1分钟 */
+	public static final long TIME = 1514736000000L;
+	
+	private ExportTestSupport(){
+	}
+	
+	/**
+	 * 第i个学生:id为i+1,姓名为张三i,年龄为20+i%50,学号为Stu_i,状态为i%2(0:禁用,1:正常),
+	 * 图书为Thinking in java,价格为i*1.5,作者为Bruce Eckel
+	 * @param i 序号
+	 * @return StudentModel
+	 */
+	public static StudentModel createStudent(int i){
+		StudentModel stu = new StudentModel();
+		stu.setId(""+(i+1));
+		stu.setName("张三"+i);
+		stu.setAge(20+i%50);
+		stu.setStudentNo("Stu_"+i);
+		stu.setStatus(i%2);
+		stu.setCreateTime(new Date(TIME + i*60000L));
+		BookModel book = new BookModel();
+		book.setBookName("Thinking in java");
+		book.setPrice(i*1.5);
+		AuthorModel author = new AuthorModel();
+		author.setAuthorName("Bruce Eckel");
+		book.setAuthor(author);
+		stu.setBook(book);
+		return stu;
+	}
+	
+	/**
+	 * 序号从start开始的count个学生
+	 * @param start 第一个学生的序号
+	 * @param count 学生个数
+	 * @return List
+	 */
+	public static List<StudentModel> createStudents(int start,int count){
+		List<StudentModel> students = new ArrayList<StudentModel>(count);
+		for(int i=start;i<start+count;i++){
+			students.add(createStudent(i));
+		}
+		return students;
+	}
+	
+	/**
+	 * 写出并关闭导出的Workbook,重新以XSSFWorkbook读取,SXSSF写入临时文件的行也可以读取
+	 * @param workbook 导出的Workbook
+	 * @return XSSFWorkbook
+	 */
+	public static Workbook reopen(Workbook workbook)throws Exception{
+		return new XSSFWorkbook(new ByteArrayInputStream(write(workbook)));
+	}
+	
+	/**
+	 * 写出并关闭导出的Workbook,按照配置导入(sheet页使用配置的sheetIndex),校验失败时抛出异常
+	 * @param context
+	 * @param excelId 导入使用的配置ID
+	 * @param workbook 导出的Workbook
+	 * @return ExcelImportResult
+	 */
+	public static ExcelImportResult read(ExcelContext context,String excelId,Workbook workbook)throws Exception{
+		return context.readExcel(excelId, new ByteArrayInputStream(write(workbook)), new ImportOptions(0, null, false));
+	}
+	
+	/**
+	 * 写出并关闭导出的Workbook
+	 * @param workbook 导出的Workbook
+	 * @return 文件内容
+	 */
+	public static byte[] write(Workbook workbook)throws Exception{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		return bos.toByteArray();
+	}
+	
+}
@@ -0,0 +1,106 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.RoundingMode;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.parsing.CellValueConverter.Type;
+import org.easy.excel.parsing.FieldCodec;
+import org.junit.Test;
+
+/**
+ * FieldCodec测试
+ * @author lisuo
+ *
+ */
+public class FieldCodecTest {
+	
+	@Test
+	public void testDate()throws Exception{
+		FieldValue fieldValue = new FieldValue("createTime", "创建时间", "yyyy-MM-dd HH:mm:ss,yyyy-MM-dd,HH:mm", null);
+		FieldCodec codec = fieldValue.getCodec();
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+		assertEquals("2018-01-05 12:30:00", sdf.format(codec.parseDate("2018-01-05 12:30:00")));
+		//数字位数可变
+		assertEquals("2018-01-05 00:00:00", sdf.format(codec.parseDate("2018-1-5")));
+		assertEquals("1970-01-01 08:15:00", sdf.format(codec.parseDate("08:15")));
+		//导出使用第一个pattern
+		assertEquals("2018-01-05 12:30:00", codec.convert(null, sdf.parse("2018-01-05 12:30:00"), fieldValue, Type.EXPORT, 1));
+		assertEquals("2018-01-05 00:00:00", codec.convert(null, LocalDate.of(2018, 1, 5), fieldValue, Type.EXPORT, 1));
+		assertEquals("2018-01-05 12:30:00", codec.convert(null, LocalDateTime.of(2018, 1, 5, 12, 30), fieldValue, Type.EXPORT, 1));
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(sdf.parse("2018-01-05 12:30:00"));
+		assertEquals("2018-01-05 12:30:00", codec.convert(null, calendar, fieldValue, Type.EXPORT, 1));
+	}
+	
+	/**
+	 * 与DateTimeFormatter含义不同的SimpleDateFormat字母
+	 */
+	@Test
+	public void testLegacyPattern()throws Exception{
+		SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+		//u是星期几,不是年份
+		FieldValue fieldValue = new FieldValue("createTime", "创建时间", "yyyy-MM-dd u", null);
+		assertEquals("2018-01-02 2", fieldValue.getCodec().convert(null, LocalDate.of(2018, 1, 2), fieldValue, Type.EXPORT, 1));
+		assertEquals("2018-01-02", sdf.format(fieldValue.getCodec().parseDate("2018-01-02 2")));
+		//没有w时Y按照年份处理
+		fieldValue.setPattern("YYYY-MM-dd");
+		assertEquals("2018-12-31", fieldValue.getCodec().convert(null, LocalDate.of(2018, 12, 31), fieldValue, Type.EXPORT, 1));
+		assertEquals("2018-12-31", sdf.format(fieldValue.getCodec().parseDate("2018-12-31")));
+	}
+	
+	@Test
+	public void testFormat(){
+		FieldValue fieldValue = new FieldValue("status", "状态", null, "1:正常,0:禁用,-1:无效");
+		assertEquals("禁用", fieldValue.getCodec().convert(null, 0, fieldValue, Type.EXPORT, 1));
+		assertEquals("-1", fieldValue.getCodec().convert(null, "无效", fieldValue, Type.IMPORT, 1));
+		//修改配置后重新编译
+		fieldValue.setFormat("1:男,2:女");
+		assertEquals("女", fieldValue.getCodec().convert(null, 2, fieldValue, Type.EXPORT, 1));
+	}
+	
+	/**
+	 * 多线程共享FieldCodec格式化数值
+	 */
+	@Test
+	public void testDecimalFormat()throws Exception{
+		final FieldValue fieldValue = new FieldValue();
+		fieldValue.setName("price");
+		fieldValue.setDecimalFormatPattern("###,##0.00");
+		fieldValue.setRoundingMode(RoundingMode.UP);
+		fieldValue.setDefaultValue("0.00");
+		final FieldCodec codec = fieldValue.getCodec();
+		assertEquals(Double.valueOf(0), codec.getDefaultValue(Double.class));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+		for (int t = 0; t < 8; t++) {
+			futures.add(executor.submit(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					for (int i = 0; i < 10000; i++) {
+						String expected = String.format("%,d.01", i);
+						assertEquals(expected, codec.convert(null, i + 0.001, fieldValue, Type.EXPORT, i));
+						assertEquals(i + 0.01, ((Number) codec.convert(null, expected, fieldValue, Type.IMPORT, i)).doubleValue(), 0);
+					}
+					return true;
+				}
+			}));
+		}
+		for (Future<Boolean> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+	}
+	
+}
@@ -0,0 +1,110 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.FormulaMode;
+import org.easy.excel.config.ImportEngine;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.OneToManyModel;
+import org.junit.Test;
+
+/**
+ * 公式cell导入测试,文件中缓存的公式结果与实际计算结果不一致,用于区分CACHED和EVALUATE
+ * @author lisuo
+ *
+ */
+public class FormulaImportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "oneToManyModel";
+	
+	@Test
+	public void testXlsx()throws Exception{
+		testFormula(createExcel(new XSSFWorkbook()));
+	}
+	
+	@Test
+	public void testXls()throws Exception{
+		testFormula(createExcel(new HSSFWorkbook()));
+	}
+	
+	@Test
+	public void testXlsCachedTypes()throws Exception{
+		//xls事件模型按照缓存结果的类型读取数字和布尔值
+		assertEquals(read(createExcel(new HSSFWorkbook(), 3), ImportEngine.USERMODEL, FormulaMode.CACHED),
+				read(createExcel(new HSSFWorkbook(), 3), ImportEngine.EVENT, FormulaMode.CACHED));
+		assertEquals(read(createExcel(new HSSFWorkbook(), true), ImportEngine.USERMODEL, FormulaMode.CACHED),
+				read(createExcel(new HSSFWorkbook(), true), ImportEngine.EVENT, FormulaMode.CACHED));
+	}
+	
+	private void testFormula(byte[] excel){
+		//usermodel
+		assertEquals("缓存值", read(excel, ImportEngine.USERMODEL, FormulaMode.CACHED));
+		assertEquals("张三", read(excel, ImportEngine.USERMODEL, FormulaMode.EVALUATE));
+		//事件模型只能读取缓存值
+		assertEquals("缓存值", read(excel, ImportEngine.EVENT, FormulaMode.CACHED));
+		assertEquals("缓存值", read(excel, ImportEngine.EVENT, FormulaMode.EVALUATE));
+		for(ImportEngine engine:ImportEngine.values()){
+			try{
+				read(excel, engine, FormulaMode.FAIL);
+				fail(engine + " 没有抛出异常");
+			}catch(ExcelException e){
+				System.out.println(e.getMessage());
+			}
+		}
+	}
+	
+	private String read(byte[] excel,ImportEngine engine,FormulaMode formulaMode){
+		ImportOptions options = new ImportOptions();
+		options.setImportEngine(engine);
+		options.setFormulaMode(formulaMode);
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(excel), options);
+		List<OneToManyModel> list = result.getListBean();
+		assertEquals(1, list.size());
+		return list.get(0).getStudentName();
+	}
+	
+	private byte[] createExcel(Workbook workbook)throws Exception{
+		return createExcel(workbook, "缓存值");
+	}
+	
+	private byte[] createExcel(Workbook workbook,Object cachedValue)throws Exception{
+		Sheet sheet = workbook.createSheet();
+		Row title = sheet.createRow(0);
+		title.createCell(0).setCellValue("学生姓名");
+		title.createCell(1).setCellValue("图书名称1");
+		Row row = sheet.createRow(1);
+		Cell cell = row.createCell(0);
+		cell.setCellFormula("CONCATENATE(\"张\",\"三\")");
+		//公式cell设置值只会修改缓存的结果
+		if(cachedValue instanceof Boolean){
+			cell.setCellValue((Boolean) cachedValue);
+		}else if(cachedValue instanceof Number){
+			cell.setCellValue(((Number) cachedValue).doubleValue());
+		}else{
+			cell.setCellValue(cachedValue.toString());
+		}
+		row.createCell(1).setCellValue("Hello");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		return bos.toByteArray();
+	}
+	
+}
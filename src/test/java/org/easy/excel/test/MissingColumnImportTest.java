@@ -0,0 +1,62 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * Excel中缺少可以为空的字段的列(标题和别名都不存在)时,仍然可以导入
+ * @author lisuo
+ *
+ */
+public class MissingColumnImportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id,ID,创建时间,状态,创建人,图书名称可以为空
+	private static String excelId = "student2";
+	
+	@Test
+	public void testMissingOptionalColumn()throws Exception{
+		XSSFWorkbook workbook = new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet();
+		Row titleRow = sheet.createRow(0);
+		titleRow.createCell(0).setCellValue("学生姓名");
+		titleRow.createCell(1).setCellValue("年龄");
+		titleRow.createCell(2).setCellValue("学号");
+		titleRow.createCell(3).setCellValue("作者名称");
+		Row row = sheet.createRow(1);
+		row.createCell(0).setCellValue("张三");
+		row.createCell(1).setCellValue("20");
+		row.createCell(2).setCellValue("Stu_1");
+		row.createCell(3).setCellValue("李四");
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		
+		ExcelImportResult result = context.readExcel(excelId, new ByteArrayInputStream(bos.toByteArray()));
+		List<StudentModel> students = result.getListBean();
+		assertEquals(1, students.size());
+		StudentModel student = students.get(0);
+		assertEquals("张三", student.getName());
+		assertEquals(Integer.valueOf(20), student.getAge());
+		assertEquals("Stu_1", student.getStudentNo());
+		assertEquals("李四", student.getBook().getAuthor().getAuthorName());
+		//缺少的列没有值
+		assertNull(student.getId());
+		assertNull(student.getStatus());
+		assertNull(student.getCreateTime());
+	}
+	
+}
@@ -1,5 +1,7 @@
 package org.easy.excel.test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
@@ -10,6 +12,7 @@ import org.easy.excel.ExcelContext;
 import org.easy.excel.result.ExcelImportResult;
 import org.easy.excel.test.model.BookModel;
 import org.easy.excel.test.model.OneToManyModel;
+import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
 
@@ -53,6 +56,32 @@ public class OneToManyTest {
 		workbook.close();
 	}
 	
+	/**
+	 * 导出后再导入,校验索引属性books[n].bookName的读写,
+	 * 导出时books为空的对象不会被自动创建
+	 * @throws Exception
+	 */
+	@Test
+	public void testRoundTrip()throws Exception{
+		List<OneToManyModel> list = getOneToManys();
+		OneToManyModel empty = new OneToManyModel();
+		empty.setStudentName("李四");
+		list.add(empty);
+		Workbook workbook = context.createExcel(excelId,list);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		Assert.assertNull(empty.getBooks());
+		ExcelImportResult result = context.readExcel(excelId, 0, new ByteArrayInputStream(bos.toByteArray()));
+		List<OneToManyModel> stus = result.getListBean();
+		Assert.assertEquals(11, stus.size());
+		Assert.assertEquals("张三1", stus.get(0).getStudentName());
+		Assert.assertEquals(2, stus.get(0).getBooks().size());
+		Assert.assertEquals("Hello1", stus.get(0).getBooks().get(1).getBookName());
+		Assert.assertNull(stus.get(10).getBooks());
+		System.out.println(stus);
+	}
+	
 	public List<OneToManyModel> getOneToManys(){
 		List<OneToManyModel> list = new ArrayList<OneToManyModel>();
 		for (int i = 1; i <= 10; i++) {
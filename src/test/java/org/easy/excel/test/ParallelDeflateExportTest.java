@@ -0,0 +1,149 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.easy.excel.test.ExportTestSupport.write;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.parsing.ExcelStreamingWorkbook;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 导出文件并行压缩测试,生成的zip与单线程压缩的内容一致
+ * @author lisuo
+ *
+ */
+public class ParallelDeflateExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student2";
+	
+	private static final int ROWS = 20000;
+	
+	@Test
+	public void testWorkbook()throws Exception{
+		List<StudentModel> students = createStudents(0, ROWS);
+		byte[] expected = write(context.createExcel(excelId, students));
+		ExportOptions options = new ExportOptions();
+		options.setDeflateParallelism(4);
+		Workbook workbook = context.createExcel(excelId, students, null, null, null, options);
+		assertEquals(4, ((ExcelStreamingWorkbook) workbook).getDeflateParallelism());
+		byte[] actual = write(workbook);
+		assertSameEntries(expected, actual);
+		
+		//写入文件
+		File file = new File("target/parallel-deflate.xlsx");
+		workbook = context.createExcel(excelId, students, null, null, null, options);
+		try (OutputStream out = new FileOutputStream(file)) {
+			workbook.write(out);
+		}
+		workbook.close();
+		try (ZipFile zip = new ZipFile(file)) {
+			assertTrue(zip.getEntry("xl/worksheets/sheet1.xml").getSize() > 1024 * 1024);
+		}
+		XSSFWorkbook xssf = new XSSFWorkbook(file);
+		XSSFSheet sheet = xssf.getSheetAt(0);
+		assertEquals(ROWS, sheet.getLastRowNum());
+		assertEquals("Stu_" + (ROWS - 1), sheet.getRow(ROWS).getCell(3).getStringCellValue());
+		xssf.close();
+	}
+	
+	@Test
+	public void testDirect()throws Exception{
+		List<StudentModel> students = createStudents(0, ROWS);
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		context.writeExcel(excelId, students, expected);
+		Map<Integer, byte[]> outputs = new LinkedHashMap<Integer, byte[]>();
+		for(int level : new int[]{0, 1, 9}){
+			ExportOptions options = new ExportOptions();
+			options.setDeflateParallelism(3);
+			options.setCompressionLevel(level);
+			ByteArrayOutputStream actual = new ByteArrayOutputStream();
+			context.writeExcel(excelId, students.iterator(), null, actual, options);
+			assertSameEntries(expected.toByteArray(), actual.toByteArray());
+			outputs.put(level, actual.toByteArray());
+		}
+		//不压缩的文件比最高压缩级别的文件大,两者打开后内容一致
+		assertTrue(outputs.get(0).length > outputs.get(9).length);
+		XSSFWorkbook stored = new XSSFWorkbook(new ByteArrayInputStream(outputs.get(0)));
+		XSSFWorkbook deflated = new XSSFWorkbook(new ByteArrayInputStream(outputs.get(9)));
+		assertEquals(ROWS, stored.getSheetAt(0).getLastRowNum());
+		assertEquals(ROWS, deflated.getSheetAt(0).getLastRowNum());
+		for(int i : new int[]{0, 1, ROWS / 2, ROWS}){
+			for(int c = 0; c < stored.getSheetAt(0).getRow(i).getLastCellNum(); c++){
+				assertEquals(String.valueOf(stored.getSheetAt(0).getRow(i).getCell(c)), String.valueOf(deflated.getSheetAt(0).getRow(i).getCell(c)));
+			}
+		}
+		assertEquals("Stu_" + (ROWS - 1), deflated.getSheetAt(0).getRow(ROWS).getCell(3).getStringCellValue());
+		stored.close();
+		deflated.close();
+	}
+	
+	//按照流的方式读取会校验每个entry的crc和大小
+	private void assertSameEntries(byte[] expected, byte[] actual)throws Exception{
+		Map<String, byte[]> expectedEntries = readEntries(expected);
+		Map<String, byte[]> actualEntries = readEntries(actual);
+		assertEquals(expectedEntries.keySet(), actualEntries.keySet());
+		for(Map.Entry<String, byte[]> entry : expectedEntries.entrySet()){
+			//core.xml中包含创建时间
+			if(entry.getKey().equals("docProps/core.xml")){
+				continue;
+			}
+			assertArrayEquals(entry.getKey(), entry.getValue(), actualEntries.get(entry.getKey()));
+		}
+		//中央目录与实际数据一致
+		File file = File.createTempFile("easy-excel-test", ".zip");
+		try {
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(actual);
+			}
+			try (ZipFile zip = new ZipFile(file)) {
+				Enumeration<? extends ZipEntry> en = zip.entries();
+				int count = 0;
+				while (en.hasMoreElements()) {
+					ZipEntry entry = en.nextElement();
+					assertArrayEquals(actualEntries.get(entry.getName()), IOUtils.toByteArray(zip.getInputStream(entry)));
+					count++;
+				}
+				assertEquals(actualEntries.size(), count);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+	
+	private Map<String, byte[]> readEntries(byte[] bytes)throws Exception{
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+			ZipEntry entry;
+			while ((entry = zis.getNextEntry()) != null) {
+				entries.put(entry.getName(), IOUtils.toByteArray(zis));
+			}
+		}
+		return entries;
+	}
+	
+}
@@ -0,0 +1,103 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ImportEngine;
+import org.easy.excel.config.ImportOptions;
+import org.easy.excel.exception.ExcelDataException;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 多线程转换数据行测试
+ * @author lisuo
+ *
+ */
+public class ParallelImportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentValidate";
+	
+	private static final int ROWS = 5000;
+	
+	@Test
+	public void testParallel()throws Exception{
+		byte[] excel = createExcel(ROWS);
+		for(ImportEngine engine:ImportEngine.values()){
+			ImportOptions options = new ImportOptions(0, null, true);
+			options.setImportEngine(engine);
+			ExcelImportResult expected = context.readExcel(excelId, new ByteArrayInputStream(excel), options);
+			options.setParallelism(4);
+			long start = System.currentTimeMillis();
+			ExcelImportResult actual = context.readExcel(excelId, new ByteArrayInputStream(excel), options);
+			System.out.println(engine + " 并行导入耗时:" + (System.currentTimeMillis() - start) + "ms");
+			assertEquals(ROWS, actual.getTotalNum().intValue());
+			assertEquals(ROWS / 7, actual.getErrors().size());
+			assertEquals(ROWS - ROWS / 7, actual.getListBean().size());
+			assertEquals(toStrings(expected.<StudentModel>getListBean()), toStrings(actual.<StudentModel>getListBean()));
+			for(int i=0;i<expected.getErrors().size();i++){
+				assertEquals(expected.getErrors().get(i).getMessage(), actual.getErrors().get(i).getMessage());
+			}
+		}
+	}
+	
+	@Test
+	public void testFailFast()throws Exception{
+		ImportOptions options = new ImportOptions(0, null, false);
+		options.setParallelism(4);
+		try{
+			context.readExcel(excelId, new ByteArrayInputStream(createExcel(ROWS)), options);
+			fail();
+		}catch(ExcelDataException e){
+			System.out.println(e.getMessage());
+			//第一个错误行
+			assertEquals(7, e.getRow());
+		}
+	}
+	
+	private List<String> toStrings(List<StudentModel> stus){
+		List<String> list = new ArrayList<String>(stus.size());
+		for(StudentModel stu:stus){
+			list.add(stu.toString());
+		}
+		return list;
+	}
+	
+	//生成数据,每7行有一行姓名长度错误
+	private byte[] createExcel(int rows)throws Exception{
+		Workbook workbook = new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet();
+		Row title = sheet.createRow(0);
+		String[] titles = {"学生姓名", "年龄", "学号", "创建时间", "状态"};
+		for(int j=0;j<titles.length;j++){
+			title.createCell(j).setCellValue(titles[j]);
+		}
+		for(int i=1;i<=rows;i++){
+			Row row = sheet.createRow(i);
+			row.createCell(0).setCellValue(i % 7 == 0 ? "张" : "张三" + (i % 10));
+			row.createCell(1).setCellValue(i % 100 + 1);
+			row.createCell(2).setCellValue("NO" + i);
+			row.createCell(3).setCellValue("2018-01-01");
+			row.createCell(4).setCellValue(i % 2 == 0 ? "正常" : "禁用");
+		}
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		return bos.toByteArray();
+	}
+	
+}
@@ -0,0 +1,127 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.config.ExportSheet;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 多个sheet页并行导出测试
+ * @author lisuo
+ *
+ */
+public class ParallelSheetExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	
+	private static final int ROWS = 3000;
+	
+	private static final String TEMP_DIR = "target/easy-excel-sheet-tmp";
+	
+	@Test
+	public void testParallelSheets()throws Exception{
+		List<ExportSheet> sheets = new ArrayList<ExportSheet>();
+		//同一个配置的数据分成多个sheet页
+		for(int p=0;p<3;p++){
+			sheets.add(new ExportSheet("student2", createStudents(p * ROWS, ROWS), "学生" + (p + 1)));
+		}
+		sheets.add(new ExportSheet("studentTyped", createStudents(0, 10)));
+		ExportOptions options = new ExportOptions();
+		options.setParallelism(4);
+		options.setTempFileDir(TEMP_DIR);
+		options.setCompressTempFiles(true);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		assertEquals(ROWS * 3 + 10, context.writeExcel(sheets, bos, options));
+		assertEquals(0, new File(TEMP_DIR).listFiles().length);
+		
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		assertEquals(4, xssf.getNumberOfSheets());
+		for(int p=0;p<3;p++){
+			XSSFSheet sheet = xssf.getSheetAt(p);
+			assertEquals("学生" + (p + 1), sheet.getSheetName());
+			assertEquals(ROWS, sheet.getLastRowNum());
+			assertEquals("学生姓名", sheet.getRow(0).getCell(1).getStringCellValue());
+			for(int i=0;i<ROWS;i++){
+				assertEquals("Stu_" + (p * ROWS + i), sheet.getRow(i + 1).getCell(3).getStringCellValue());
+			}
+		}
+		XSSFSheet typed = xssf.getSheetAt(3);
+		assertEquals("Sheet3", typed.getSheetName());
+		assertEquals(10, typed.getLastRowNum());
+		assertTrue(DateUtil.isCellDateFormatted(typed.getRow(1).getCell(2)));
+		assertEquals(new Date(1514736000000L), typed.getRow(1).getCell(2).getDateCellValue());
+		xssf.close();
+		
+		//与单个sheet页导出的结果一致
+		ByteArrayOutputStream single = new ByteArrayOutputStream();
+		context.writeExcel("student2", createStudents(0, ROWS), single);
+		XSSFWorkbook expected = new XSSFWorkbook(new ByteArrayInputStream(single.toByteArray()));
+		xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		for(int i=0;i<=ROWS;i++){
+			for(int c=0;c<9;c++){
+				assertEquals(String.valueOf(expected.getSheetAt(0).getRow(i).getCell(c)), String.valueOf(xssf.getSheetAt(0).getRow(i).getCell(c)));
+			}
+		}
+		expected.close();
+		xssf.close();
+	}
+	
+	@Test
+	public void testFailure()throws Exception{
+		List<ExportSheet> sheets = new ArrayList<ExportSheet>();
+		sheets.add(new ExportSheet("student2", createStudents(0, ROWS), "正常"));
+		final Iterator<StudentModel> students = createStudents(0, ROWS).iterator();
+		sheets.add(new ExportSheet("student2", new Iterator<StudentModel>() {
+			private int count;
+			@Override
+			public boolean hasNext() {
+				return students.hasNext();
+			}
+			@Override
+			public StudentModel next() {
+				if(++count == 100){
+					throw new ExcelException("读取数据失败");
+				}
+				return students.next();
+			}
+		}));
+		ExportOptions options = new ExportOptions();
+		options.setTempFileDir(TEMP_DIR);
+		try {
+			context.writeExcel(sheets, new ByteArrayOutputStream(), options);
+			fail();
+		} catch (ExcelException e) {
+			assertEquals("读取数据失败", e.getMessage());
+		}
+		//临时文件已经删除
+		assertEquals(0, new File(TEMP_DIR).listFiles().length);
+	}
+	
+	@Test(expected = ExcelException.class)
+	public void testDuplicateSheetName()throws Exception{
+		List<ExportSheet> sheets = new ArrayList<ExportSheet>();
+		sheets.add(new ExportSheet("student2", createStudents(0, 1), "学生"));
+		sheets.add(new ExportSheet("student2", createStudents(1, 1), "学生"));
+		context.writeExcel(sheets, new ByteArrayOutputStream());
+	}
+	
+}
@@ -0,0 +1,174 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudent;
+import static org.easy.excel.test.ExportTestSupport.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.parsing.ExcelPageFetcher;
+import org.easy.excel.result.ExcelExportResult;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 预先获取分页数据导出测试
+ * @author lisuo
+ *
+ */
+public class PrefetchExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student2";
+	
+	private static final int PAGES = 10;
+	
+	private static final int PAGE_SIZE = 500;
+	
+	@Test
+	public void testPrefetch()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setPrefetchPages(2);
+		final List<String> threads = new ArrayList<String>();
+		OverlapFetcher fetcher = new OverlapFetcher(PAGES, threads);
+		Workbook workbook = context.createExcel(excelId, fetcher, null, null, options);
+		assertNotEquals(Thread.currentThread().getName(), threads.get(0));
+		//写入第一页时已经开始获取第二页
+		assertTrue(fetcher.overlapped);
+		ExcelImportResult result = read(context, excelId, workbook);
+		assertEquals(PAGES * PAGE_SIZE, result.getListBean().size());
+		for(int i=0;i<PAGES * PAGE_SIZE;i++){
+			assertEquals("Stu_" + i, result.<StudentModel>getListBean().get(i).getStudentNo());
+		}
+	}
+	
+	@Test
+	public void testAppend()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setPrefetchPages(1);
+		List<StudentModel> first = new ArrayList<StudentModel>();
+		first.add(createStudent(-1));
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, first);
+		exportResult.append(new SlowFetcher(3, new ArrayList<String>()), options);
+		ExcelImportResult result = read(context, excelId, exportResult.build());
+		assertEquals(3 * PAGE_SIZE + 1, result.getListBean().size());
+	}
+	
+	@Test
+	public void testAppendWithoutOptions()throws Exception{
+		List<StudentModel> first = new ArrayList<StudentModel>();
+		first.add(createStudent(-1));
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, first);
+		//没有导出选项时使用默认配置,当前线程获取数据
+		List<String> threads = new ArrayList<String>();
+		exportResult.append(new SlowFetcher(2, threads), null);
+		assertEquals(Thread.currentThread().getName(), threads.get(0));
+		ExcelImportResult result = read(context, excelId, exportResult.build());
+		assertEquals(2 * PAGE_SIZE + 1, result.getListBean().size());
+	}
+	
+	@Test
+	public void testError()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setPrefetchPages(2);
+		try{
+			context.createExcel(excelId, new ExcelPageFetcher<StudentModel>() {
+				@Override
+				public List<StudentModel> fetch(int pageNo) {
+					if(pageNo == 3){
+						throw new IllegalStateException("查询失败");
+					}
+					List<StudentModel> page = new ArrayList<StudentModel>();
+					page.add(createStudent(pageNo));
+					return page;
+				}
+			}, null, null, options);
+			fail();
+		}catch(IllegalStateException e){
+			assertEquals("查询失败", e.getMessage());
+		}
+	}
+	
+	/**
+	 * 开始写入第一页时等待第二页开始获取,记录获取和写入是否同时进行;不预先获取时等待超时
+	 */
+	private static class OverlapFetcher extends SlowFetcher{
+		
+		private final CountDownLatch secondPage = new CountDownLatch(1);
+		private volatile boolean overlapped;
+		
+		OverlapFetcher(int pages, List<String> threads) {
+			super(pages, threads);
+		}
+		
+		@Override
+		public List<StudentModel> fetch(int pageNo) {
+			if(pageNo == 2){
+				secondPage.countDown();
+			}
+			List<StudentModel> page = super.fetch(pageNo);
+			if(pageNo != 1){
+				return page;
+			}
+			return new ArrayList<StudentModel>(page){
+				private static final long serialVersionUID = 1L;
+				
+				@Override
+				public Iterator<StudentModel> iterator() {
+					try {
+						overlapped = secondPage.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						throw new IllegalStateException(e);
+					}
+					return super.iterator();
+				}
+			};
+		}
+	}
+	
+	/**
+	 * 模拟耗时的分页查询
+	 */
+	private static class SlowFetcher implements ExcelPageFetcher<StudentModel>{
+		
+		private final int pages;
+		private final List<String> threads;
+		
+		SlowFetcher(int pages, List<String> threads) {
+			this.pages = pages;
+			this.threads = threads;
+		}
+
+		@Override
+		public List<StudentModel> fetch(int pageNo) {
+			threads.add(Thread.currentThread().getName());
+			if(pageNo > pages){
+				return null;
+			}
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+			List<StudentModel> page = new ArrayList<StudentModel>(PAGE_SIZE);
+			for(int i=(pageNo - 1) * PAGE_SIZE;i<pageNo * PAGE_SIZE;i++){
+				page.add(createStudent(i));
+			}
+			return page;
+		}
+	}
+	
+}
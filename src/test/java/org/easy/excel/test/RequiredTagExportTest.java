@@ -0,0 +1,139 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFRichTextString;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.parsing.ExcelExport;
+import org.easy.excel.test.model.StudentModel;
+import org.easy.excel.xml.XMLExcelDefinitionReader;
+import org.junit.Test;
+
+/**
+ * requiredTag导出测试,使用SXSSF流式写入,必填项标题的*号标红;调用方传入HSSF或者XSSF的Workbook时同样标红
+ * @author lisuo
+ *
+ */
+public class RequiredTagExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentRequired";
+	
+	private static final int ROWS = 1000;
+	
+	@Test
+	public void testExport()throws Exception{
+		List<StudentModel> students = new ArrayList<StudentModel>(ROWS);
+		for(int i=0;i<ROWS;i++){
+			StudentModel stu = new StudentModel();
+			stu.setName("张三" + i);
+			stu.setAge(20);
+			stu.setStudentNo("Stu_" + i);
+			students.add(stu);
+		}
+		Workbook workbook = context.createExcel(excelId, students);
+		assertTrue(workbook instanceof SXSSFWorkbook);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		XSSFSheet sheet = xssf.getSheetAt(0);
+		assertEquals(ROWS, sheet.getLastRowNum());
+		XSSFCell title = sheet.getRow(0).getCell(0);
+		XSSFRichTextString rich = title.getRichStringCellValue();
+		assertEquals("*学生姓名", rich.getString());
+		assertEquals(2, rich.numFormattingRuns());
+		assertEquals(Font.COLOR_RED, rich.getFontOfFormattingRun(0).getColor());
+		assertEquals(HorizontalAlignment.CENTER, title.getCellStyle().getAlignment());
+		assertEquals("*学号", sheet.getRow(0).getCell(2).getStringCellValue());
+		//普通标题和数据不受影响
+		assertEquals(0, sheet.getRow(0).getCell(1).getRichStringCellValue().numFormattingRuns());
+		assertNull(sheet.getRow(0).getCell(1).getRichStringCellValue().getFontOfFormattingRun(0));
+		assertEquals("张三" + (ROWS - 1), sheet.getRow(ROWS).getCell(0).getStringCellValue());
+		xssf.close();
+	}
+	
+	@Test
+	public void testHSSF()throws Exception{
+		Workbook workbook = context.createExcel(excelId, createStudents(), null, null, new HSSFWorkbook());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		
+		HSSFWorkbook hssf = new HSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		HSSFRichTextString rich = hssf.getSheetAt(0).getRow(0).getCell(0).getRichStringCellValue();
+		assertEquals("*学生姓名", rich.getString());
+		assertEquals(Font.COLOR_RED, hssf.getFontAt((int) rich.getFontOfFormattingRun(0)).getColor());
+		assertEquals("张三9", hssf.getSheetAt(0).getRow(10).getCell(0).getStringCellValue());
+		hssf.close();
+	}
+	
+	@Test
+	public void testTemplate()throws Exception{
+		//调用方传入的Workbook
+		assertRedTitle(context.createExcelTemplate(excelId, null, null, new XSSFWorkbook()));
+		Workbook workbook = context.createExcelTemplate(excelId, null, null, new HSSFWorkbook());
+		HSSFRichTextString rich = (HSSFRichTextString) workbook.getSheetAt(0).getRow(0).getCell(2).getRichStringCellValue();
+		assertEquals("*学号", rich.getString());
+		assertEquals(Font.COLOR_RED, workbook.getFontAt((int) rich.getFontOfFormattingRun(0)).getColor());
+		workbook.close();
+	}
+	
+	@Test
+	public void testCreateWorkbook()throws Exception{
+		//createWorkbook返回普通的SXSSFWorkbook时,使用XSSFWorkbook保留*号的红色
+		ExcelExport excelExport = new ExcelExport(new XMLExcelDefinitionReader("excel-config.xml")){
+			@Override
+			protected Workbook createWorkbook(ExcelDefinition excelDefinition) {
+				return new SXSSFWorkbook();
+			}
+		};
+		Workbook workbook = excelExport.createExcel(excelId, createStudents(), null, null, null).build();
+		assertTrue(workbook instanceof XSSFWorkbook);
+		assertRedTitle(workbook);
+	}
+	
+	private void assertRedTitle(Workbook workbook)throws Exception{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		XSSFWorkbook xssf = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		XSSFRichTextString rich = xssf.getSheetAt(0).getRow(0).getCell(0).getRichStringCellValue();
+		assertEquals("*学生姓名", rich.getString());
+		assertEquals(Font.COLOR_RED, rich.getFontOfFormattingRun(0).getColor());
+		xssf.close();
+	}
+	
+	private List<StudentModel> createStudents(){
+		List<StudentModel> students = new ArrayList<StudentModel>(10);
+		for(int i=0;i<10;i++){
+			StudentModel stu = new StudentModel();
+			stu.setName("张三" + i);
+			stu.setAge(20);
+			stu.setStudentNo("Stu_" + i);
+			students.add(stu);
+		}
+		return students;
+	}
+	
+}
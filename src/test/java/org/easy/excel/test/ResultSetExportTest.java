@@ -0,0 +1,165 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.AuthorModel;
+import org.easy.excel.test.model.BookModel;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * 从ResultSet导出测试,使用H2内存数据库
+ * @author lisuo
+ *
+ */
+public class ResultSetExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student2";
+	
+	private static final int ROWS = 3000;
+	
+	private static final long TIME = 1514736000000L;
+	
+	private static Connection connection;
+	
+	private static final String SQL = "SELECT CAST(ID AS VARCHAR) AS ID, NAME, AGE, STUDENT_NO, CREATE_TIME, STATUS, "
+			+ "BOOK_NAME AS \"book.bookName\", AUTHOR_NAME AS \"book.author.authorName\" FROM STUDENT ORDER BY CREATE_TIME";
+	
+	@BeforeClass
+	public static void init()throws Exception{
+		connection = DriverManager.getConnection("jdbc:h2:mem:easy_excel");
+		Statement statement = connection.createStatement();
+		statement.execute("CREATE TABLE STUDENT(ID INT PRIMARY KEY, NAME VARCHAR(20), AGE INT, STUDENT_NO VARCHAR(20), "
+				+ "CREATE_TIME TIMESTAMP, STATUS INT, BOOK_NAME VARCHAR(50), AUTHOR_NAME VARCHAR(50))");
+		statement.close();
+		PreparedStatement ps = connection.prepareStatement("INSERT INTO STUDENT VALUES(?,?,?,?,?,?,?,?)");
+		for(int i=0;i<ROWS;i++){
+			ps.setInt(1, i + 1);
+			ps.setString(2, "张三" + i);
+			ps.setInt(3, 20 + i % 50);
+			ps.setString(4, "Stu_" + i);
+			ps.setTimestamp(5, new Timestamp(TIME + i * 60000L));
+			ps.setInt(6, i % 2);
+			ps.setString(7, i % 2 == 0 ? "Thinking in java" : null);
+			ps.setString(8, "Bruce Eckel");
+			ps.addBatch();
+		}
+		ps.executeBatch();
+		ps.close();
+	}
+	
+	@AfterClass
+	public static void destroy()throws Exception{
+		connection.close();
+	}
+	
+	@Test
+	public void testExport()throws Exception{
+		Statement statement = connection.createStatement();
+		ExportOptions options = new ExportOptions();
+		options.setFetchSize(500);
+		ResultSet resultSet = statement.executeQuery(SQL);
+		Workbook workbook = context.createExcel(excelId, resultSet, null, null, options);
+		resultSet.close();
+		statement.close();
+		ExcelImportResult actual = read(context, excelId, workbook);
+		ExcelImportResult expected = read(context, excelId, context.createExcel(excelId, getStudents()));
+		List<Object> expectedBeans = expected.getListBean();
+		List<Object> actualBeans = actual.getListBean();
+		assertEquals(ROWS, actualBeans.size());
+		for (int i = 0; i < ROWS; i++) {
+			assertEquals(expectedBeans.get(i).toString(), actualBeans.get(i).toString());
+		}
+	}
+	
+	@Test
+	public void testExportRollover()throws Exception{
+		Statement statement = connection.createStatement();
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(1001);
+		ResultSet resultSet = statement.executeQuery(SQL);
+		Workbook streaming = context.createExcel(excelId, resultSet, null, null, options);
+		resultSet.close();
+		statement.close();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		streaming.write(bos);
+		streaming.close();
+		Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		//每个sheet页1个标题行和1000行数据
+		assertEquals(ROWS / 1000, workbook.getNumberOfSheets());
+		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+			Sheet sheet = workbook.getSheetAt(i);
+			assertEquals("ID", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals(String.valueOf(i * 1000 + 1), sheet.getRow(1).getCell(0).getStringCellValue());
+		}
+		workbook.close();
+	}
+	
+	@Test
+	public void testExportWithoutOptions()throws Exception{
+		Statement statement = connection.createStatement();
+		ResultSet resultSet = statement.executeQuery(SQL);
+		Workbook workbook = context.createExcel(excelId, resultSet, null, null, null);
+		resultSet.close();
+		statement.close();
+		assertEquals(ROWS, read(context, excelId, workbook).getListBean().size());
+	}
+	
+	@Test
+	public void testExportEmpty()throws Exception{
+		Statement statement = connection.createStatement();
+		ResultSet resultSet = statement.executeQuery("SELECT * FROM STUDENT WHERE ID < 0");
+		assertNull(context.createExcel(excelId, resultSet));
+		resultSet.close();
+		statement.close();
+	}
+	
+	private List<StudentModel> getStudents(){
+		List<StudentModel> students = new ArrayList<StudentModel>(ROWS);
+		for(int i=0;i<ROWS;i++){
+			StudentModel stu = new StudentModel();
+			stu.setId(""+(i+1));
+			stu.setName("张三"+i);
+			stu.setAge(20+i%50);
+			stu.setStudentNo("Stu_"+i);
+			stu.setCreateTime(new Date(TIME + i * 60000L));
+			stu.setStatus(i%2);
+			BookModel book = new BookModel();
+			if(i % 2 == 0){
+				book.setBookName("Thinking in java");
+			}
+			AuthorModel author = new AuthorModel();
+			author.setAuthorName("Bruce Eckel");
+			book.setAuthor(author);
+			stu.setBook(book);
+			students.add(stu);
+		}
+		return students;
+	}
+	
+}
@@ -0,0 +1,233 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.IOUtils;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.result.ExcelShardExport;
+import org.easy.excel.test.model.StudentModel;
+import org.easy.excel.util.ExcelDownLoadUtil;
+import org.easy.excel.view.SpringMvcExcelView;
+import org.junit.Test;
+
+/**
+ * 分成多个Excel文件打包成zip导出
+ * @author lisuo
+ *
+ */
+public class ShardExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id,sheetMaxRows为101
+	private static String excelId = "studentRollover";
+	
+	@Test
+	public void testWrite()throws Exception{
+		ExcelShardExport shards = context.createExcelShards(excelId, createStudents(0, 250).iterator(), 100);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		assertEquals(3, shards.write(bos, "学生"));
+		Map<String, byte[]> files = readZip(bos.toByteArray());
+		assertEquals(3, files.size());
+		int start = 0;
+		int index = 1;
+		for (Map.Entry<String, byte[]> file : files.entrySet()) {
+			assertEquals("学生_" + index++ + ".xlsx", file.getKey());
+			Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(file.getValue()));
+			assertEquals(1, workbook.getNumberOfSheets());
+			int count = Math.min(100, 250 - start);
+			assertSheet(workbook.getSheetAt(0), start, count);
+			start += count;
+			workbook.close();
+		}
+	}
+	
+	@Test
+	public void testRollover()throws Exception{
+		//每个文件150行,每个sheet页100行
+		ExcelShardExport shards = context.createExcelShards(excelId, createStudents(0, 250).iterator(), null, null, 150, null);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		assertEquals(2, shards.write(bos, "学生"));
+		Map<String, byte[]> files = readZip(bos.toByteArray());
+		Workbook first = new XSSFWorkbook(new ByteArrayInputStream(files.get("学生_1.xlsx")));
+		assertEquals(2, first.getNumberOfSheets());
+		assertSheet(first.getSheetAt(0), 0, 100);
+		assertSheet(first.getSheetAt(1), 100, 50);
+		first.close();
+		Workbook second = new XSSFWorkbook(new ByteArrayInputStream(files.get("学生_2.xlsx")));
+		assertEquals(1, second.getNumberOfSheets());
+		assertSheet(second.getSheetAt(0), 150, 100);
+		second.close();
+	}
+	
+	@Test
+	public void testOptions()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setCompressionLevel(0);
+		List<String> fields = new ArrayList<String>();
+		fields.add("studentNo");
+		ExcelShardExport shards = context.createExcelShards(excelId, createStudents(0, 10).iterator(), null, fields, 10, options);
+		assertEquals(Integer.valueOf(0), shards.getExcelDefinition().getCompressionLevel());
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		//正好写满一个文件,不创建空的文件
+		assertEquals(1, shards.write(bos, "学生"));
+		Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(readZip(bos.toByteArray()).get("学生_1.xlsx")));
+		Sheet sheet = workbook.getSheetAt(0);
+		assertEquals("学号", sheet.getRow(0).getCell(0).getStringCellValue());
+		assertEquals("Stu_9", sheet.getRow(10).getCell(0).getStringCellValue());
+		workbook.close();
+		//迭代器只能读取一次
+		try {
+			shards.write(new ByteArrayOutputStream(), "学生");
+			fail();
+		} catch (ExcelException e) {
+		}
+	}
+	
+	@Test
+	public void testEmpty()throws Exception{
+		assertNull(context.createExcelShards(excelId, new ArrayList<StudentModel>().iterator(), 100));
+	}
+	
+	@Test
+	public void testDownload()throws Exception{
+		MockResponse mock = new MockResponse();
+		ExcelShardExport shards = context.createExcelShards(excelId, createStudents(0, 250).iterator(), 100);
+		ExcelDownLoadUtil.downLoadExcelShards(shards, "学生", "没有数据", createRequest(), mock.create());
+		assertEquals("application/zip", mock.contentType);
+		assertEquals("attachment; filename=\"" + new String("学生.zip".getBytes("UTF-8"), "ISO-8859-1") + "\";target=_blank",
+				mock.headers.get("Content-Disposition"));
+		assertEquals(3, readZip(mock.out.toByteArray()).size());
+	}
+	
+	@Test
+	public void testView()throws Exception{
+		MockResponse mock = new MockResponse();
+		Map<String, Object> model = new HashMap<String, Object>();
+		model.put(SpringMvcExcelView.EXCEL_NAME, "学生");
+		model.put(SpringMvcExcelView.EXCEL_SHARDS, context.createExcelShards(excelId, createStudents(0, 150).iterator(), 100));
+		new SpringMvcExcelView().render(model, createRequest(), mock.create());
+		assertEquals("application/zip", mock.contentType);
+		Map<String, byte[]> files = readZip(mock.out.toByteArray());
+		assertEquals(2, files.size());
+		Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(files.get("学生_2.xlsx")));
+		assertSheet(workbook.getSheetAt(0), 100, 50);
+		workbook.close();
+	}
+	
+	private void assertSheet(Sheet sheet,int start,int count){
+		assertEquals("学生姓名", sheet.getRow(0).getCell(0).getStringCellValue());
+		assertEquals(count, sheet.getLastRowNum());
+		for (int i = 0; i < count; i++) {
+			assertEquals("张三" + (start + i), sheet.getRow(i + 1).getCell(0).getStringCellValue());
+		}
+	}
+	
+	private Map<String, byte[]> readZip(byte[] bytes)throws IOException{
+		Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+		try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes))) {
+			ZipEntry entry;
+			while ((entry = zis.getNextEntry()) != null) {
+				files.put(entry.getName(), IOUtils.toByteArray(zis));
+			}
+		}
+		return files;
+	}
+	
+	private HttpServletRequest createRequest(){
+		return (HttpServletRequest) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletRequest.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				if(method.getName().equals("getHeader") && "User-Agent".equals(args[0])){
+					return "Mozilla/5.0";
+				}
+				return defaultValue(method);
+			}
+		});
+	}
+	
+	private static Object defaultValue(Method method){
+		Class<?> type = method.getReturnType();
+		if(type == boolean.class){
+			return false;
+		}
+		if(type == int.class || type == long.class){
+			return 0;
+		}
+		return null;
+	}
+	
+	/**
+	 * 记录响应头和响应内容
+	 */
+	private static class MockResponse {
+		private String contentType;
+		private Map<String, String> headers = new HashMap<String, String>();
+		private ByteArrayOutputStream out = new ByteArrayOutputStream();
+		
+		HttpServletResponse create(){
+			final ServletOutputStream sos = new ServletOutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					out.write(b);
+				}
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					out.write(b, off, len);
+				}
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+				}
+			};
+			return (HttpServletResponse) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{HttpServletResponse.class}, new InvocationHandler() {
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					switch (method.getName()) {
+					case "setContentType":
+						contentType = (String) args[0];
+						return null;
+					case "setHeader":
+						headers.put((String) args[0], (String) args[1]);
+						return null;
+					case "getOutputStream":
+						return sos;
+					default:
+						return defaultValue(method);
+					}
+				}
+			});
+		}
+	}
+	
+}
@@ -0,0 +1,158 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.easy.excel.test.ExportTestSupport.reopen;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExcelDefinition;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.ExcelExport;
+import org.easy.excel.parsing.ExcelHeader;
+import org.easy.excel.result.ExcelExportResult;
+import org.easy.excel.xml.XMLExcelDefinitionReader;
+import org.junit.Test;
+
+/**
+ * 超过sheet页最大行数时自动创建新的sheet页
+ * @author lisuo
+ *
+ */
+public class SheetRolloverTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id,sheetMaxRows为101
+	private static String excelId = "studentRollover";
+	
+	@Test
+	public void testRollover()throws Exception{
+		Workbook workbook = reopen(context.createExcel(excelId, createStudents(0, 250)));
+		assertEquals(3, workbook.getNumberOfSheets());
+		assertEquals("学生信息", workbook.getSheetName(0));
+		assertEquals("学生信息_2", workbook.getSheetName(1));
+		assertEquals("学生信息_3", workbook.getSheetName(2));
+		assertSheet(workbook.getSheetAt(0), 0, 0, 100);
+		assertSheet(workbook.getSheetAt(1), 0, 100, 100);
+		assertSheet(workbook.getSheetAt(2), 0, 200, 50);
+		workbook.close();
+	}
+	
+	@Test
+	public void testAppend()throws Exception{
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, createStudents(0, 60));
+		exportResult.append(createStudents(60, 60));
+		assertEquals(2, exportResult.getSheets().size());
+		assertEquals("学生信息_2", exportResult.getSheet().getSheetName());
+		exportResult.append(createStudents(120, 80).iterator());
+		assertEquals(2, exportResult.getSheets().size());
+		//正好写满第二个sheet页,不创建空的sheet页
+		Workbook workbook = reopen(exportResult.build());
+		assertEquals(2, workbook.getNumberOfSheets());
+		assertSheet(workbook.getSheetAt(0), 0, 0, 100);
+		assertSheet(workbook.getSheetAt(1), 0, 100, 100);
+		workbook.close();
+	}
+	
+	@Test
+	public void testHeader()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(20);
+		//每个sheet页都有2行头信息
+		ExcelHeader header = new ExcelHeader() {
+			@Override
+			public void buildHeader(Sheet sheet, ExcelDefinition excelDefinition, List<?> beans) {
+				sheet.createRow(0).createCell(0).setCellValue("学生列表:" + sheet.getSheetName());
+				sheet.createRow(1).createCell(0).setCellValue(beans == null ? "续" : "共" + beans.size() + "人");
+			}
+		};
+		Workbook workbook = reopen(context.createExcel(excelId, createStudents(0, 40), header, null, null, options));
+		//每个sheet页2行头信息,1行标题,17行数据
+		assertEquals(3, workbook.getNumberOfSheets());
+		for (int i = 0; i < 3; i++) {
+			Sheet sheet = workbook.getSheetAt(i);
+			assertEquals("学生列表:" + sheet.getSheetName(), sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals(i == 0 ? "共40人" : "续", sheet.getRow(1).getCell(0).getStringCellValue());
+			assertSheet(sheet, 2, i * 17, i < 2 ? 17 : 6);
+		}
+		workbook.close();
+	}
+	
+	@Test
+	public void testSheetNameConflict()throws Exception{
+		XSSFWorkbook template = new XSSFWorkbook();
+		template.createSheet("学生信息_2");
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(11);
+		//与已有的sheet页重名时序号递增
+		Workbook workbook = context.createExcel(excelId, createStudents(0, 25), null, null, template, options);
+		assertEquals(4, workbook.getNumberOfSheets());
+		assertEquals("学生信息_2", workbook.getSheetName(0));
+		assertEquals("学生信息", workbook.getSheetName(1));
+		assertEquals("学生信息_3", workbook.getSheetName(2));
+		assertEquals("学生信息_4", workbook.getSheetName(3));
+		assertSheet(workbook.getSheetAt(3), 0, 20, 5);
+		workbook.close();
+	}
+	
+	@Test
+	public void testFormatLimit()throws Exception{
+		//xls格式每个sheet页最多65536行,不配置sheetMaxRows时按照文件格式的限制创建新的sheet页
+		int rows = 65536 + 100;
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(Integer.MAX_VALUE);
+		Workbook workbook = context.createExcel(excelId, createStudents(0, rows), null, null, new HSSFWorkbook(), options);
+		assertEquals(2, workbook.getNumberOfSheets());
+		assertEquals(65535, workbook.getSheetAt(0).getLastRowNum());
+		assertEquals(rows - 65535, workbook.getSheetAt(1).getLastRowNum());
+		assertEquals("Stu_65535", workbook.getSheetAt(1).getRow(1).getCell(2).getStringCellValue());
+		workbook.close();
+	}
+	
+	@Test
+	public void testTooSmall()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(1);
+		try {
+			context.createExcel(excelId, createStudents(0, 10), null, null, null, options);
+			fail();
+		} catch (ExcelException e) {
+			//1行无法容纳标题和数据
+		}
+	}
+	
+	@Test
+	public void testWithoutResult()throws Exception{
+		ExportOptions options = new ExportOptions();
+		options.setSheetMaxRows(5);
+		ExcelExportResult exportResult = context.createExcelForPart(excelId, createStudents(0, 4), null, null, null, options);
+		//直接写入指定的sheet页时,超过最大行数抛出异常
+		try {
+			new ExcelExport(new XMLExcelDefinitionReader("excel-config.xml")).createRows(exportResult.getExcelDefinition(), exportResult.getSheet(), createStudents(4, 2),
+					exportResult.build(), exportResult.getTitleRow(), exportResult.getCellStyleHolder());
+			fail();
+		} catch (ExcelException e) {
+			assertEquals(5, exportResult.getSheet().getPhysicalNumberOfRows());
+		}
+		exportResult.build().close();
+	}
+	
+	private void assertSheet(Sheet sheet,int titleIndex,int start,int count){
+		assertEquals("学生姓名", sheet.getRow(titleIndex).getCell(0).getStringCellValue());
+		assertEquals(titleIndex + count, sheet.getLastRowNum());
+		for (int i = 0; i < count; i++) {
+			Row row = sheet.getRow(titleIndex + 1 + i);
+			assertEquals("张三" + (start + i), row.getCell(0).getStringCellValue());
+		}
+	}
+	
+}
@@ -0,0 +1,101 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudent;
+import static org.easy.excel.test.ExportTestSupport.read;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.parsing.ExcelPageFetcher;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * 使用迭代器,Stream,分页获取数据导出测试
+ * @author lisuo
+ *
+ */
+public class SourceExportTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "student2";
+	
+	private static final int ROWS = 2500;
+	
+	private static final int PAGE_SIZE = 1000;
+	
+	@Test
+	public void testExportIterator()throws Exception{
+		List<StudentModel> students = new ArrayList<StudentModel>();
+		for(int i=0;i<ROWS;i++){
+			students.add(createStudent(i));
+		}
+		Workbook workbook = context.createExcel(excelId, students.iterator());
+		assertTrue(workbook instanceof SXSSFWorkbook);
+		ExcelImportResult expected = read(context, excelId, context.createExcel(excelId, students));
+		compare(expected, read(context, excelId, workbook));
+		compare(expected, read(context, excelId, context.createExcel(excelId, (Iterable<StudentModel>) students)));
+	}
+	
+	@Test
+	public void testExportStream()throws Exception{
+		Workbook workbook = context.createExcel(excelId, IntStream.range(0, ROWS).mapToObj(i -> createStudent(i)));
+		ExcelImportResult result = read(context, excelId, workbook);
+		assertEquals(ROWS, result.getListBean().size());
+		assertEquals("张三" + (ROWS - 1), result.<StudentModel>getListBean().get(ROWS - 1).getName());
+	}
+	
+	@Test
+	public void testExportPage()throws Exception{
+		final List<Integer> pages = new ArrayList<Integer>();
+		Workbook workbook = context.createExcel(excelId, new ExcelPageFetcher<StudentModel>() {
+			@Override
+			public List<StudentModel> fetch(int pageNo) {
+				pages.add(pageNo);
+				List<StudentModel> page = new ArrayList<StudentModel>();
+				for(int i=(pageNo - 1) * PAGE_SIZE;i<Math.min(pageNo * PAGE_SIZE, ROWS);i++){
+					page.add(createStudent(i));
+				}
+				return page;
+			}
+		});
+		assertEquals("[1, 2, 3, 4]", pages.toString());
+		ExcelImportResult result = read(context, excelId, workbook);
+		assertEquals(ROWS, result.getListBean().size());
+		for(int i=0;i<ROWS;i++){
+			assertEquals("Stu_" + i, result.<StudentModel>getListBean().get(i).getStudentNo());
+		}
+	}
+	
+	@Test
+	public void testExportEmpty()throws Exception{
+		assertNull(context.createExcel(excelId, Collections.emptyIterator()));
+		assertNull(context.createExcel(excelId, new ExcelPageFetcher<StudentModel>() {
+			@Override
+			public List<StudentModel> fetch(int pageNo) {
+				return null;
+			}
+		}));
+	}
+	
+	private void compare(ExcelImportResult expected,ExcelImportResult actual){
+		List<Object> expectedBeans = expected.getListBean();
+		List<Object> actualBeans = actual.getListBean();
+		assertEquals(ROWS, actualBeans.size());
+		for (int i = 0; i < expectedBeans.size(); i++) {
+			assertEquals(expectedBeans.get(i).toString(), actualBeans.get(i).toString());
+		}
+	}
+	
+}
@@ -0,0 +1,113 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.createStudents;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportSheet;
+import org.easy.excel.exception.ExcelException;
+import org.easy.excel.parsing.CellStyleRegistry;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * Workbook级别的样式注册表,相同属性的样式只创建一次
+ * @author lisuo
+ *
+ */
+public class StyleRegistryTest {
+
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+
+	@Test
+	public void testSharedStyles()throws Exception{
+		Workbook workbook = context.createExcel("student", createStudents(0, 20));
+		Sheet sheet = workbook.getSheetAt(0);
+		Row titleRow = sheet.getRow(0);
+		Row row = sheet.getRow(1);
+		//name:uniformStyle,没有个性化样式,与studentNo的数据都使用defaultAlign的样式
+		assertEquals(titleRow.getCell(1).getCellStyle().getIndex(), row.getCell(3).getCellStyle().getIndex());
+		assertEquals(row.getCell(1).getCellStyle().getIndex(), row.getCell(3).getCellStyle().getIndex());
+		//age和createTime的数据都是强制为text,age是右对齐
+		assertEquals("@", row.getCell(4).getCellStyle().getDataFormatString());
+		assertEquals(row.getCell(2).getCellStyle().getDataFormat(), row.getCell(4).getCellStyle().getDataFormat());
+		//同一个Workbook创建多次CellStyleHolder,不会创建新的样式
+		int numCellStyles = workbook.getNumCellStyles();
+		int size = CellStyleRegistry.of(workbook).size();
+		for (int i = 0; i < 10; i++) {
+			context.createExcelTemplate("student2", null, null, workbook);
+		}
+		assertEquals(numCellStyles, workbook.getNumCellStyles());
+		assertEquals(size, CellStyleRegistry.of(workbook).size());
+		workbook.close();
+	}
+
+	@Test
+	public void testTemplate()throws Exception{
+		XSSFWorkbook template = new XSSFWorkbook();
+		context.createExcel("studentRequired", createStudents(0, 10), null, null, template);
+		int numCellStyles = template.getNumCellStyles();
+		short numFonts = template.getNumberOfFonts();
+		//同一个模板多次导出,样式和标红*号的字体都共享
+		for (int i = 0; i < 50; i++) {
+			context.createExcel("studentRequired", createStudents(0, 10), null, null, template);
+		}
+		assertEquals(51, template.getNumberOfSheets());
+		assertEquals(numCellStyles, template.getNumCellStyles());
+		assertEquals(numFonts, template.getNumberOfFonts());
+		template.close();
+	}
+
+	@Test
+	public void testDirectSheets()throws Exception{
+		List<StudentModel> students = createStudents(0, 20);
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		context.writeExcel(Arrays.asList(new ExportSheet("student", students, "s1")), bos);
+		XSSFWorkbook single = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+
+		bos = new ByteArrayOutputStream();
+		context.writeExcel(Arrays.asList(new ExportSheet("student", students, "s1"),
+				new ExportSheet("student", students, "s2"), new ExportSheet("student", students, "s3")), bos);
+		XSSFWorkbook multi = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		//多个sheet页的样式共享,日期样式也只创建一次
+		assertEquals(3, multi.getNumberOfSheets());
+		assertEquals(single.getNumCellStyles(), multi.getNumCellStyles());
+		for (int i = 0; i < 3; i++) {
+			Row row = multi.getSheetAt(i).getRow(1);
+			for (int c = 0; c < row.getLastCellNum(); c++) {
+				assertEquals(single.getSheetAt(0).getRow(1).getCell(c).getCellStyle().getIndex(), row.getCell(c).getCellStyle().getIndex());
+			}
+		}
+		single.close();
+		multi.close();
+	}
+
+	@Test
+	public void testLimit()throws Exception{
+		HSSFWorkbook workbook = new HSSFWorkbook();
+		int maxCellStyles = workbook.getSpreadsheetVersion().getMaxCellStyles();
+		while (workbook.getNumCellStyles() < maxCellStyles) {
+			workbook.createCellStyle();
+		}
+		try {
+			context.createExcel("student", createStudents(0, 1), null, null, workbook);
+			fail();
+		} catch (ExcelException e) {
+			//样式数量已经达到文件格式的上限
+		}
+		workbook.close();
+	}
+
+}
@@ -0,0 +1,165 @@
+package org.easy.excel.test;
+
+import static org.easy.excel.test.ExportTestSupport.reopen;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.ExportOptions;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.parsing.FieldCodec;
+import org.easy.excel.test.model.StudentModel;
+import org.junit.Test;
+
+/**
+ * typedCells导出原始的日期,数字,显示的内容与格式化成字符串一致
+ * @author lisuo
+ *
+ */
+public class TypedCellsTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentTypedCells";
+	
+	private static final int ROWS = 300;
+	
+	@Test
+	public void testExcelFormat(){
+		assertEquals("yyyy-mm-dd hh:mm:ss", excelFormat("yyyy-MM-dd HH:mm:ss", null));
+		assertEquals("yyyy\"年\"mm\"月\"dd\"日\"", excelFormat("yyyy年MM月dd日", null));
+		assertEquals("yyyy-mm-dd\"T\"hh:mm:ss.000", excelFormat("yyyy-MM-dd'T'HH:mm:ss.SSS", null));
+		assertEquals("yyyy/m/d h:mm AM/PM", excelFormat("yyyy/M/d h:mm a", null));
+		assertEquals("hh:mm", excelFormat("HH:mm,yyyy-MM-dd", null));
+		assertEquals("dddd mmmm d", excelFormat("EEEE MMMM d", null));
+		//Excel无法区分月和分钟,以及没有等价格式时,仍然导出字符串
+		assertNull(excelFormat("MM:ss", null));
+		assertNull(excelFormat("yyyy-mm-dd", null));
+		assertNull(excelFormat("hh:mm", null));
+		assertNull(excelFormat("yyyy-MM-dd HH:mm Z", null));
+		
+		assertEquals("#,##0.00", excelFormat(null, "#,##0.00"));
+		assertEquals("0.0%", excelFormat(null, "0.0%"));
+		assertEquals("0\"岁\"", excelFormat(null, "0'岁'"));
+		assertEquals("\"¥\"#,##0.00", excelFormat(null, "¥#,##0.00"));
+		assertNull(excelFormat(null, "0.###E0"));
+		assertNull(excelFormat(null, "0.00‰"));
+	}
+	
+	@Test
+	public void testExcelValue(){
+		FieldValue price = new FieldValue();
+		price.setDecimalFormatPattern("#,##0.00");
+		FieldCodec codec = price.getCodec();
+		//默认向下取整,与DecimalFormat一致
+		assertEquals(new BigDecimal("12.34"), codec.toExcelValue(12.345D));
+		assertEquals(new BigDecimal("5"), codec.toExcelValue(5));
+		assertNull(codec.toExcelValue("abc"));
+		FieldValue percent = new FieldValue();
+		percent.setDecimalFormatPattern("0.0%");
+		assertEquals(new BigDecimal("0.123"), percent.getCodec().toExcelValue(0.12345D));
+		FieldValue date = new FieldValue();
+		date.setPattern("yyyy-MM-dd");
+		assertEquals(Date.from(LocalDate.of(2018, 1, 2).atStartOfDay(ZoneId.systemDefault()).toInstant()), date.getCodec().toExcelValue(LocalDate.of(2018, 1, 2)));
+		assertNull(date.getCodec().toExcelValue("2018-01-02"));
+	}
+	
+	@Test
+	public void testExport()throws Exception{
+		List<StudentModel> students = createStudents();
+		Workbook typed = reopen(context.createExcel(excelId, students));
+		ExportOptions options = new ExportOptions();
+		options.setTypedCells(false);
+		Workbook formatted = reopen(context.createExcel(excelId, students, null, null, null, options));
+		assertTyped(typed, formatted);
+		//样式只在CellStyleHolder中创建一次
+		assertTrue(typed.getNumCellStyles() < 10);
+		typed.close();
+		formatted.close();
+	}
+	
+	@Test
+	public void testDirect()throws Exception{
+		List<StudentModel> students = createStudents();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		context.writeExcel(excelId, students, bos);
+		Workbook typed = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		ExportOptions options = new ExportOptions();
+		options.setTypedCells(false);
+		bos = new ByteArrayOutputStream();
+		context.writeExcel(excelId, students.iterator(), null, bos, options);
+		Workbook formatted = new XSSFWorkbook(new ByteArrayInputStream(bos.toByteArray()));
+		assertTyped(typed, formatted);
+		typed.close();
+		formatted.close();
+	}
+	
+	private void assertTyped(Workbook typed,Workbook formatted){
+		DataFormatter formatter = new DataFormatter();
+		Sheet typedSheet = typed.getSheetAt(0);
+		Sheet formattedSheet = formatted.getSheetAt(0);
+		assertEquals(ROWS, typedSheet.getLastRowNum());
+		for (int i = 1; i <= ROWS; i++) {
+			Row typedRow = typedSheet.getRow(i);
+			Row formattedRow = formattedSheet.getRow(i);
+			for (int j = 0; j < 6; j++) {
+				Cell cell = typedRow.getCell(j);
+				Cell expected = formattedRow.getCell(j);
+				if (expected == null || expected.getCellType() == CellType.BLANK) {
+					assertTrue(cell == null || cell.getCellType() == CellType.BLANK);
+					continue;
+				}
+				assertEquals(CellType.STRING, expected.getCellType());
+				//POI的DataFormatter不处理日期格式中引号包围的字面值,Excel中显示为:2018年01月01日
+				assertEquals(expected.getStringCellValue(), formatter.formatCellValue(cell).replace("\"", ""));
+				//日期,年龄,价格是数字,状态(format)和学号(forceText)仍然是字符串
+				boolean number = j == 1 || j == 2 || j == 3;
+				assertEquals(number ? CellType.NUMERIC : CellType.STRING, cell.getCellType());
+			}
+			if (i % 10 != 0) {
+				assertTrue(DateUtil.isCellDateFormatted(typedRow.getCell(1)));
+			}
+			assertEquals(HorizontalAlignment.CENTER, typedRow.getCell(2).getCellStyle().getAlignment());
+			assertEquals(20 + (i - 1) % 50, typedRow.getCell(2).getNumericCellValue(), 0);
+		}
+	}
+	
+	private String excelFormat(String pattern,String decimalFormatPattern){
+		FieldValue fieldValue = new FieldValue();
+		fieldValue.setPattern(pattern);
+		fieldValue.setDecimalFormatPattern(decimalFormatPattern);
+		return fieldValue.getCodec().getExcelFormat();
+	}
+	
+	private List<StudentModel> createStudents(){
+		List<StudentModel> students = ExportTestSupport.createStudents(0, ROWS);
+		for(int i=0;i<ROWS;i++){
+			StudentModel stu = students.get(i);
+			stu.setStudentNo(String.valueOf(1000 + i));
+			//每10行一个空的日期
+			stu.setCreateTime(i % 10 == 9 ? null : new Date(ExportTestSupport.TIME + i * 3600000L));
+			stu.getBook().setPrice(i % 7 == 0 ? null : 1000 + i * 1.25D);
+		}
+		return students;
+	}
+	
+}
@@ -0,0 +1,105 @@
+package org.easy.excel.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.easy.excel.ExcelContext;
+import org.easy.excel.config.FieldValue;
+import org.easy.excel.exception.ExcelDataException;
+import org.easy.excel.result.ExcelImportResult;
+import org.easy.excel.validation.CellValidator;
+import org.easy.excel.validation.FieldValidator;
+import org.junit.Test;
+
+/**
+ * 校验规则测试
+ * @author lisuo
+ *
+ */
+public class ValidationTest {
+	
+	// 配置文件路径
+	private static ExcelContext context = new ExcelContext("excel-config.xml");
+	// Excel配置文件中配置的id
+	private static String excelId = "studentValidate";
+	
+	/**
+	 * 自定义校验器,学号不能是NO0
+	 */
+	public static class StudentNoValidator implements CellValidator {
+		@Override
+		public String validate(Object value, FieldValue fieldValue) {
+			return "NO0".equals(value) ? "学号不能为NO0" : null;
+		}
+	}
+	
+	@Test
+	public void testValidate()throws Exception{
+		Object[][] rows = {
+				{"学生姓名", "年龄", "学号", "创建时间", "状态"},
+				{"张三", 18d, "NO1", "2018-01-01", "正常"},
+				{"张", 18d, "NO2", "2018-01-01", "正常"},
+				{"张三李四王五", 18d, "NO3", "2018-01-01", "正常"},
+				{"张三", 0d, "NO4", "2018-01-01", "正常"},
+				{"张三", "abc", "NO5", "2018-01-01", "正常"},
+				{"张三", null, "NO6", "2018-01-01", "正常"},
+				{"张三", 18d, "A7", "2018-01-01", "正常"},
+				{"张三", 18d, "NO0", "2018-01-01", "正常"},
+				{"张三", 18d, "NO9", "1999-12-31", "正常"},
+				{"张三", 18d, "NO10", "2018-01-01", "删除"},
+		};
+		ExcelImportResult result = context.readExcel(excelId, 0, new ByteArrayInputStream(createExcel(rows)), true);
+		List<String> errors = new ArrayList<String>();
+		for(ExcelDataException e:result.getErrors()){
+			System.out.println(e.getMessage());
+			errors.add(e.getRow() + ":" + e.getErrInfo());
+		}
+		assertEquals(1, result.getListBean().size());
+		assertEquals("[2:长度不能小于2, 3:长度不能大于4, 4:不能小于1, 5:不是有效的数字, 6:不能为空, "
+				+ "7:必须以NO开头, 8:学号不能为NO0, 9:不能早于2000-01-01, 10:只能是[正常,禁用,无效]中的值]", errors.toString());
+	}
+	
+	@Test
+	public void testDateRange()throws Exception{
+		//日期范围与导入转换使用同一个编解码器:没有w时Y按照年份处理,u是星期几
+		FieldValue fieldValue = new FieldValue("createTime", "创建时间", "YYYY-MM-dd u", null);
+		fieldValue.setMinDate("2018-01-01 1");
+		fieldValue.setMaxDate("2018-12-31 1");
+		FieldValidator validator = FieldValidator.compile(fieldValue);
+		assertNull(validator.validate("2018-12-31 1", fieldValue));
+		assertEquals("不能早于2018-01-01 1", validator.validate("2017-12-31 7", fieldValue));
+		assertEquals("不能晚于2018-12-31 1", validator.validate("2019-01-01 2", fieldValue));
+		//不能转换成日期的字符串由转换器处理
+		assertNull(validator.validate("2018/06/01", fieldValue));
+	}
+	
+	private byte[] createExcel(Object[][] rows)throws Exception{
+		Workbook workbook = new XSSFWorkbook();
+		Sheet sheet = workbook.createSheet();
+		for(int i=0;i<rows.length;i++){
+			Row row = sheet.createRow(i);
+			for(int j=0;j<rows[i].length;j++){
+				Object value = rows[i][j];
+				if(value instanceof String){
+					row.createCell(j).setCellValue((String)value);
+				}else if(value instanceof Double){
+					row.createCell(j).setCellValue((Double)value);
+				}
+			}
+		}
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		workbook.write(bos);
+		workbook.close();
+		return bos.toByteArray();
+	}
+	
+}